@@ -0,0 +1,60 @@
+package com.library.benchmark;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.event.Event;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Consumer;
+
+/**
+ * Stands in for CDI when wiring application beans by hand: sets an injected field by name, runs
+ * {@code @PostConstruct} callbacks and delivers fired events to plain observers.
+ */
+final class Beans {
+
+    private Beans() {
+    }
+
+    static <T> T inject(T target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into " + target.getClass().getName(), e);
+        }
+    }
+
+    static <T> T postConstruct(T target) {
+        try {
+            for (Method method : target.getClass().getDeclaredMethods()) {
+                if (method.isAnnotationPresent(PostConstruct.class)) {
+                    method.setAccessible(true);
+                    method.invoke(target);
+                }
+            }
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot initialize " + target.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * An {@link Event} whose {@code fire} calls {@code observer} synchronously. Benchmarks commit right
+     * after the service call returns, so this matches {@code AFTER_SUCCESS} observers closely enough.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Event<T> event(Consumer<T> observer) {
+        return (Event<T>) Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[]{Event.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("fire")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    observer.accept((T) args[0]);
+                    return null;
+                });
+    }
+}
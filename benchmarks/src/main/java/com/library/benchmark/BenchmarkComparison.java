@@ -0,0 +1,121 @@
+package com.library.benchmark;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Compares two JMH JSON result files, benchmark by benchmark (with its parameters): the primary score
+ * and the allocation per operation ({@code gc.alloc.rate.norm}). A result counts as a regression when
+ * it got worse by more than the threshold and by more than the two error margins together, so noise
+ * alone does not fail a build. Exits with status 1 when there is a regression.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.library.benchmark.BenchmarkComparison \
+ *     benchmarks/results/1.0.json jmh-result.json [threshold-percent=10]
+ * </pre>
+ */
+public final class BenchmarkComparison {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold-percent=10]");
+            System.exit(2);
+        }
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> current = read(Path.of(args[1]));
+        double threshold = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100;
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14s %9s%n", entry.getKey(), "-", after.format(), "new");
+                continue;
+            }
+            double change = (after.value() - before.value()) / before.value();
+            boolean regression = after.isWorseThan(before, threshold);
+            regressions += regression ? 1 : 0;
+            System.out.printf("%-90s %14s %14s %+8.1f%%%s%n", entry.getKey(), before.format(), after.format(),
+                    change * 100, regression ? "  REGRESSION" : "");
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-90s %14s %14s %9s%n", key, baseline.get(key).format(), "-", "gone"));
+
+        System.out.printf("%d regression(s) beyond %.0f%%%n", regressions, threshold * 100);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        try (Reader in = Files.newBufferedReader(file); JsonReader reader = Json.createReader(in)) {
+            JsonArray results = reader.readArray();
+            for (JsonObject result : results.getValuesAs(JsonObject.class)) {
+                String name = result.getString("benchmark") + params(result);
+                // Higher is better only for throughput; every other mode reports time per operation.
+                boolean higherIsBetter = "thrpt".equals(result.getString("mode"));
+                scores.put(name, Score.of(result.getJsonObject("primaryMetric"), higherIsBetter));
+                JsonObject secondary = result.getJsonObject("secondaryMetrics");
+                if (secondary != null && secondary.containsKey(ALLOCATION)) {
+                    scores.put(name + " " + ALLOCATION, Score.of(secondary.getJsonObject(ALLOCATION), false));
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static String params(JsonObject result) {
+        JsonObject params = result.getJsonObject("params");
+        if (params == null || params.isEmpty()) {
+            return "";
+        }
+        Map<String, String> sorted = new LinkedHashMap<>();
+        params.keySet().stream().sorted().forEach(key -> sorted.put(key, params.getString(key)));
+        return sorted.entrySet().stream()
+                .map(param -> param.getKey() + "=" + param.getValue())
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private record Score(double value, double error, String unit, boolean higherIsBetter) {
+
+        static Score of(JsonObject metric, boolean higherIsBetter) {
+            return new Score(number(metric.get("score")), number(metric.get("scoreError")),
+                    metric.getString("scoreUnit"), higherIsBetter);
+        }
+
+        // JMH writes "NaN" as a string when there were too few samples for an error margin.
+        private static double number(JsonValue value) {
+            return value instanceof jakarta.json.JsonNumber number ? number.doubleValue() : 0;
+        }
+
+        boolean isWorseThan(Score baseline, double threshold) {
+            double worsening = higherIsBetter ? baseline.value - value : value - baseline.value;
+            return worsening > Math.abs(baseline.value) * threshold && worsening > baseline.error + error;
+        }
+
+        String format() {
+            return String.format(Locale.ROOT, "%.3f %s", value, unit);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.library.benchmark;
+
+import com.library.mapper.AuthorMapper;
+import com.library.model.Author;
+import com.library.model.Book;
+import com.library.model.BookStat;
+import com.library.model.BookStatDelta;
+import com.library.model.BookTombstone;
+import com.library.repository.AuthorRepository;
+import com.library.repository.SchemaMigrator;
+import com.library.util.ConfigUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceConfiguration;
+import jakarta.persistence.ValidationMode;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Embedded H2 stand-in for the application database, seeded with a configurable number of books.
+ * Benchmarks of PostgreSQL-only features (full-text search) run against a scratch PostgreSQL
+ * database instead, see {@link #postgres()}.
+ * <p>
+ * Application beans get the {@link #entityManager()} proxy injected, which, like the container's
+ * transaction-scoped proxy, delegates to the entity manager of the current {@link #inTransaction}.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+    private static final int AUTHORS = 1_000;
+
+    private final EntityManagerFactory emf;
+    private final ThreadLocal<EntityManager> current = new ThreadLocal<>();
+
+    private BenchmarkDatabase(PersistenceConfiguration configuration) {
+        this.emf = configuration
+                .managedClass(Author.class)
+                .managedClass(Book.class)
+                .managedClass(BookStat.class)
+                .managedClass(BookStatDelta.class)
+                .managedClass(BookTombstone.class)
+                .validationMode(ValidationMode.NONE)
+                .property("hibernate.jdbc.batch_size", "50")
+                .property("hibernate.order_inserts", "true")
+                .property("hibernate.criteria.plan_cache_enabled", "true")
+                .createEntityManagerFactory();
+    }
+
+    public static BenchmarkDatabase seeded(String name, int rows) {
+        BenchmarkDatabase database = new BenchmarkDatabase(new PersistenceConfiguration("benchmarkPU")
+                .property(PersistenceConfiguration.JDBC_URL, "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+                .property(PersistenceConfiguration.JDBC_USER, "sa")
+                .property(PersistenceConfiguration.JDBC_PASSWORD, "")
+                .property(PersistenceConfiguration.SCHEMAGEN_DATABASE_ACTION, "drop-and-create"));
+        database.seed(rows);
+        return database;
+    }
+
+    /**
+     * An empty book table, with the application's migrations applied, in the PostgreSQL database named by the
+     * {@code bench.postgres.url}, {@code bench.postgres.user} and {@code bench.postgres.password} system
+     * properties. The {@code public} schema is dropped and re-created first, so point it at a scratch database.
+     */
+    public static BenchmarkDatabase postgres() {
+        String url = System.getProperty("bench.postgres.url", "jdbc:postgresql://localhost:5432/library_bench");
+        String user = System.getProperty("bench.postgres.user", "postgres");
+        String password = System.getProperty("bench.postgres.password", "");
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA public CASCADE");
+            statement.execute("CREATE SCHEMA public");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Resetting the benchmark database failed", e);
+        }
+        return new BenchmarkDatabase(new PersistenceConfiguration("benchmarkPU")
+                .property(PersistenceConfiguration.JDBC_URL, url)
+                .property(PersistenceConfiguration.JDBC_USER, user)
+                .property(PersistenceConfiguration.JDBC_PASSWORD, password)
+                .property(SchemaMigrator.LOCATION, "db/migration")
+                .property("hibernate.hbm2ddl.auto", "validate"));
+    }
+
+    public EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    EntityManager em = current.get();
+                    if (em == null) {
+                        throw new IllegalStateException("No transaction active on this thread");
+                    }
+                    try {
+                        return method.invoke(em, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * An {@link AuthorMapper} over this database, with an empty cache.
+     */
+    public AuthorMapper authorMapper() {
+        AuthorRepository repository = Beans.inject(new AuthorRepository(), "em", entityManager());
+        AuthorMapper mapper = Beans.inject(Beans.inject(new AuthorMapper(), "repository", repository),
+                "config", new ConfigUtil());
+        return Beans.postConstruct(Beans.inject(mapper, "self", mapper));
+    }
+
+    public <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        current.set(em);
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            current.remove();
+            em.close();
+        }
+    }
+
+    private void seed(int rows) {
+        List<Long> authorIds = inTransaction(em -> {
+            List<Author> authors = IntStream.range(0, AUTHORS)
+                    .mapToObj(i -> new Author("Author " + i))
+                    .toList();
+            authors.forEach(em::persist);
+            em.flush();
+            return authors.stream().map(Author::getId).toList();
+        });
+        for (int start = 0; start < rows; start += SEED_BATCH_SIZE) {
+            int end = Math.min(rows, start + SEED_BATCH_SIZE);
+            int batchStart = start;
+            inTransaction(em -> {
+                for (int i = batchStart; i < end; i++) {
+                    em.persist(book(i, em.getReference(Author.class, authorIds.get(i % AUTHORS))));
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * The {@code i}-th seeded book, by {@code author} ("Author " + i % 1000 in the seeded database).
+     */
+    static Book book(int i, Author author) {
+        Book book = new Book();
+        book.setTitle("Title " + i);
+        book.setAuthor(author);
+        book.setPrice(BigDecimal.valueOf(500 + i % 9_500, 2));
+        book.setIsbn(9_780_000_000_000L + i);
+        return book;
+    }
+
+    @Override
+    public void close() {
+        emf.close();
+    }
+}
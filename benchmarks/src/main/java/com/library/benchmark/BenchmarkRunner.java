@@ -0,0 +1,43 @@
+package com.library.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+
+/**
+ * Entry point of {@code benchmarks.jar}: the JMH command line, with the GC profiler on and JSON results
+ * written to {@code jmh-result.json} unless {@code -prof}, {@code -rf} or {@code -rff} say otherwise.
+ * Keep the JSON of a release and compare a later run against it with {@link BenchmarkComparison}.
+ */
+public final class BenchmarkRunner {
+
+    // Listing and help options, which plain JMH handles without running anything.
+    private static final Set<String> JMH_ONLY = Set.of("-h", "-l", "-lp", "-lprof", "-lrf");
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            if (JMH_ONLY.contains(arg)) {
+                Main.main(args);
+                return;
+            }
+        }
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (cli.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
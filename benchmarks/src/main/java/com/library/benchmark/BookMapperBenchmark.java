@@ -0,0 +1,70 @@
+package com.library.benchmark;
+
+import com.library.dto.BookDTO;
+import com.library.mapper.AuthorMapper;
+import com.library.mapper.BookMapper;
+import com.library.mapper.BookMapperImpl;
+import com.library.model.Author;
+import com.library.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generated {@link BookMapper} on a single book. These run on every row the UI reads or saves,
+ * so a regression here (say, a mapping that starts formatting or copying collections) multiplies.
+ * Author references come from a stub, as from a warm {@link AuthorMapper} cache, so no database is involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+    private BookMapper mapper;
+    private Book book;
+    private BookDTO dto;
+    private Book target;
+
+    @Setup
+    public void setUp() {
+        mapper = new BookMapperImpl(new AuthorMapper() {
+            @Override
+            public Author toReference(String name) {
+                return new Author(name);
+            }
+        });
+        book = BenchmarkDatabase.book(42, new Author("Author 42"));
+        book.setId(42L);
+        book.setVersion(3L);
+        dto = mapper.toDTO(book);
+        target = new Book();
+    }
+
+    @Benchmark
+    public BookDTO toDTO() {
+        return mapper.toDTO(book);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return mapper.toEntity(dto);
+    }
+
+    @Benchmark
+    public Book updateEntityFromDTO() {
+        mapper.updateEntityFromDTO(dto, target);
+        return target;
+    }
+}
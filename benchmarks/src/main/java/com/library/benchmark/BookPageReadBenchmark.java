@@ -0,0 +1,75 @@
+package com.library.benchmark;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookQuery;
+import com.library.mapper.BookMapper;
+import com.library.mapper.BookMapperImpl;
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of the book table: the former read path (managed {@link Book} entities, then
+ * {@link BookMapper#toDTO}) against the {@link BookDTO} constructor projection used by
+ * {@link BookRepository}. Run with {@code -prof gc} to compare {@code gc.alloc.rate.norm}
+ * (bytes allocated per page) next to the time per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookPageReadBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private BenchmarkDatabase database;
+    private BookRepository repository;
+    private BookMapper mapper;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.seeded("page-read", rows);
+        repository = Beans.inject(new BookRepository(), "em", database.entityManager());
+        mapper = new BookMapperImpl(database.authorMapper());
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<BookDTO> entityAndMapper() {
+        return database.inTransaction(em -> em.createQuery("SELECT b FROM Book b ORDER BY b.id", Book.class)
+                .setMaxResults(pageSize)
+                .getResultList()
+                .stream()
+                .map(mapper::toDTO)
+                .toList());
+    }
+
+    @Benchmark
+    public List<BookDTO> dtoProjection() {
+        return database.inTransaction(em -> repository.findRange(BookQuery.DEFAULT, 0, pageSize));
+    }
+}
@@ -0,0 +1,132 @@
+package com.library.benchmark;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.model.Author;
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First result page and total of a catalog search: {@link BookRepository#search} (tsvector + trigram,
+ * ranked) against the naive {@code lower(title) LIKE '%term%' OR lower(a.name) LIKE '%term%'} query
+ * over the author join. Needs PostgreSQL, see {@link BenchmarkDatabase#postgres()}. The trigram indexes also serve the
+ * infix LIKE, so the baseline is already faster than a plain sequential scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    // One hundred authors of two names each.
+    private static final String AUTHORS = """
+            INSERT INTO authors (id, name)
+            SELECT 1 + g,
+                   (ARRAY['Ada','Bruno','Clara','Diego','Elena','Farid','Greta','Hiro','Ines','Jonas'])[1 + g % 10]
+                   || ' ' || (ARRAY['Tolkien','Herbert','Le Guin','Okafor','Nakamura','Lindqvist','Moreau','Castillo','Novak','Brennan'])[1 + g / 10]
+            FROM generate_series(0, 99) AS g
+            """;
+
+    // Titles of three words, combined from word lists so that every word occurs in many rows, like real
+    // catalog vocabulary does; authors drawn from all of the above.
+    private static final String SEED = """
+            INSERT INTO books (id, version, created_at, updated_at, title, author_id, price, isbn)
+            SELECT g, 0, now(), now(),
+                   (ARRAY['Silent','Hidden','Broken','Golden','Last','Winter','Burning','Lost','Secret','Crimson'])[1 + g % 10]
+                   || ' ' || (ARRAY['Garden','River','Empire','Kingdom','Harbor','Forest','Memory','Letters','Shadow','Voyage'])[1 + (g / 10) % 10]
+                   || ' ' || (ARRAY['of Time','of Ashes','of Glass','of Stars','of Stone','Returns','Rising','Falls','Chronicles','Revisited'])[1 + (g / 100) % 10],
+                   1 + (g / 7) % 10 + 10 * ((g / 1000) % 10),
+                   5 + (g % 9500) / 100.0,
+                   9780000000000 + g
+            FROM generate_series(1, :rows) AS g
+            """;
+
+    @Param({"1000000"})
+    private int rows;
+
+    // A frequent author, a two-word prefix search and a misspelling.
+    @Param({"tolkien", "golden gard", "tolkein"})
+    private String term;
+
+    private BenchmarkDatabase database;
+    private BookRepository repository;
+    private BookFilter search;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.postgres();
+        database.inTransaction(em -> em.createNativeQuery(AUTHORS).executeUpdate());
+        database.inTransaction(em -> em.createNativeQuery(SEED).setParameter("rows", rows).executeUpdate());
+        database.inTransaction(em -> em.createNativeQuery("ANALYZE authors, books").executeUpdate());
+        repository = Beans.inject(new BookRepository(), "em", database.entityManager());
+        search = BookFilter.builder().search(term).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<BookDTO> searchPage() {
+        return database.inTransaction(em -> repository.search(search, 0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public int searchCount() {
+        return database.inTransaction(em -> repository.countSearch(search));
+    }
+
+    @Benchmark
+    public List<Book> likePage() {
+        return database.inTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Book> cq = cb.createQuery(Book.class);
+            Root<Book> book = cq.from(Book.class);
+            return em.createQuery(cq.where(likeTerm(cb, book)).orderBy(cb.asc(book.get("id"))))
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+        });
+    }
+
+    @Benchmark
+    public long likeCount() {
+        return database.inTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+            Root<Book> book = cq.from(Book.class);
+            return em.createQuery(cq.select(cb.count(book)).where(likeTerm(cb, book))).getSingleResult();
+        });
+    }
+
+    private Predicate likeTerm(CriteriaBuilder cb, Root<Book> book) {
+        String pattern = "%" + term.toLowerCase(Locale.ROOT) + "%";
+        Join<Book, Author> author = book.join("author");
+        return cb.or(cb.like(cb.lower(book.get("title")), pattern), cb.like(cb.lower(author.get("name")), pattern));
+    }
+}
@@ -0,0 +1,152 @@
+package com.library.benchmark;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.event.BookChangedEvent;
+import com.library.mapper.AuthorMapper;
+import com.library.mapper.BookMapperImpl;
+import com.library.repository.BookRepository;
+import com.library.repository.BookStatsRepository;
+import com.library.service.BookService;
+import com.library.service.impl.BookCache;
+import com.library.service.impl.BookCounter;
+import com.library.service.impl.BookServiceImpl;
+import com.library.util.ConfigUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BookServiceImpl} wired by hand over the seeded H2 database, with its real counter and cache:
+ * page loads, counts and {@code saveBook}. Each call runs in its own transaction, like a request does.
+ * <p>
+ * {@code saveInsert} adds a book per call, so the table grows during the run; with the default iteration
+ * counts that stays well below the seeded size. {@code saveUpdate} first reads the book through the
+ * service, as the edit dialog does, then saves it with a changed price.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private BookService service;
+    private BookCounter counter;
+    private BookFilter titleFilter;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.seeded("service", rows);
+        ConfigUtil config = new ConfigUtil();
+        BookRepository repository = Beans.inject(new BookRepository(), "em", database.entityManager());
+        BookStatsRepository stats = Beans.inject(new BookStatsRepository(), "em", database.entityManager());
+        counter = Beans.postConstruct(Beans.inject(Beans.inject(Beans.inject(new BookCounter(), "repository", repository),
+                "stats", stats), "config", config));
+        BookCache cache = Beans.postConstruct(Beans.inject(Beans.inject(new BookCache(), "repository", repository),
+                "config", config));
+
+        AuthorMapper authors = database.authorMapper();
+
+        BookServiceImpl impl = new BookServiceImpl();
+        Beans.inject(impl, "repository", repository);
+        Beans.inject(impl, "mapper", new BookMapperImpl(authors));
+        Beans.inject(impl, "authors", authors);
+        Beans.inject(impl, "counter", counter);
+        Beans.inject(impl, "cache", cache);
+        Beans.inject(impl, "changes", Beans.<BookChangedEvent>event(event -> {
+            cache.invalidate(event);
+            counter.invalidate();
+        }));
+        service = impl;
+
+        titleFilter = BookFilter.builder().titlePrefix("Title 12").build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<BookDTO> getBooks(Page page) {
+        return database.inTransaction(em -> service.getBooks(BookQuery.DEFAULT, page.first(rows), PAGE_SIZE));
+    }
+
+    /**
+     * The common case: the count of an unchanged table comes from {@link BookCounter}'s cache.
+     */
+    @Benchmark
+    public int countCached() {
+        return database.inTransaction(em -> service.countBooks());
+    }
+
+    @Benchmark
+    public int countQuery() {
+        counter.invalidate();
+        return database.inTransaction(em -> service.countBooks());
+    }
+
+    @Benchmark
+    public int countFilteredQuery() {
+        counter.invalidate();
+        return database.inTransaction(em -> service.countBooks(titleFilter));
+    }
+
+    @Benchmark
+    public BookDTO saveInsert() {
+        long n = ++sequence;
+        BookDTO book = new BookDTO(null, null, "Benchmark " + n, "Author " + n % 1_000, new BigDecimal("19.99"),
+                String.format("979%010d", n));
+        database.inTransaction(em -> {
+            service.saveBook(book);
+            return null;
+        });
+        return book;
+    }
+
+    @Benchmark
+    public BookDTO saveUpdate() {
+        long id = 1 + (++sequence % rows);
+        return database.inTransaction(em -> {
+            BookDTO book = service.getBook(id).orElseThrow();
+            book.setPrice(BigDecimal.valueOf(500 + sequence % 9_500, 2));
+            service.saveBook(book);
+            return book;
+        });
+    }
+
+    @State(Scope.Benchmark)
+    public static class Page {
+
+        // The first page, and one in the middle of the table that the database has to skip to.
+        @Param({"first", "middle"})
+        private String page;
+
+        int first(int rows) {
+            return "middle".equals(page) ? rows / 2 : 0;
+        }
+    }
+}
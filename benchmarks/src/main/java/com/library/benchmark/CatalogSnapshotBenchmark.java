@@ -0,0 +1,89 @@
+package com.library.benchmark;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.BookSort;
+import com.library.dto.BookSortField;
+import com.library.repository.BookRepository;
+import com.library.repository.BookStatsRepository;
+import com.library.service.impl.CatalogSnapshotServiceImpl;
+import com.library.util.ConfigUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A filtered, sorted page of the book table from the in-memory catalog snapshot against the same page
+ * from the database. The snapshot caches the rows of recent queries, so {@code snapshotPage} repeats one
+ * query while {@code snapshotNewQuery} changes the title prefix every call and sorts and filters each time.
+ * The setup logs the snapshot's footprint per million books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogSnapshotBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final BookSort BY_PRICE_DESC = new BookSort(BookSortField.PRICE, false);
+
+    @Param({"100000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private BookRepository repository;
+    private CatalogSnapshotServiceImpl snapshot;
+    private BookQuery query;
+    private int prefix;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.seeded("snapshot", rows);
+        repository = Beans.inject(new BookRepository(), "em", database.entityManager());
+        snapshot = new CatalogSnapshotServiceImpl();
+        Beans.inject(snapshot, "repository", repository);
+        Beans.inject(snapshot, "stats", Beans.inject(new BookStatsRepository(), "em", database.entityManager()));
+        Beans.inject(snapshot, "config", new ConfigUtil());
+        Beans.inject(snapshot, "self", snapshot);
+        Beans.postConstruct(snapshot);
+        database.inTransaction(em -> snapshot.refresh());
+        query = new BookQuery(BookFilter.builder().titlePrefix("Title 1").build(), BY_PRICE_DESC);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<BookDTO> databasePage() {
+        return database.inTransaction(em -> repository.findRange(query, PAGE_SIZE, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<BookDTO> snapshotPage() {
+        return snapshot.getBooks(query, PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookDTO> snapshotNewQuery() {
+        prefix = (prefix + 1) % 1_000;
+        BookQuery next = new BookQuery(BookFilter.builder().titlePrefix("Title " + prefix).build(), BY_PRICE_DESC);
+        return snapshot.getBooks(next, 0, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,124 @@
+package com.library.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running deployment: {@code concurrency} clients each send the next
+ * request as soon as the previous one answered, for {@code seconds}, then throughput and latency
+ * percentiles are printed. Run it once per {@code library.threads.virtual} setting to compare them:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.library.benchmark.HttpLoadTest \
+ *     http://localhost:8080/library/api/books?size=20 400 30
+ * </pre>
+ * Clients run on virtual threads, so the client side itself scales to thousands of connections.
+ */
+public final class HttpLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HttpLoadTest <url> [concurrency=200] [seconds=30]");
+            System.exit(2);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        System.out.printf("Warming up %s for %ds%n", uri, WARMUP.toSeconds());
+        run(client, request, concurrency, WARMUP);
+        System.out.printf("Measuring with %d concurrent clients for %ds%n", concurrency, duration.toSeconds());
+        Result result = run(client, request, concurrency, duration);
+        result.print(duration);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration)
+            throws Exception {
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> loop(client, request, end, errors)));
+            }
+        }
+        List<long[]> latencies = new ArrayList<>(concurrency);
+        for (Future<long[]> latency : clients) {
+            latencies.add(latency.get());
+        }
+        return new Result(merge(latencies), errors.get());
+    }
+
+    // Latencies of the successful requests in nanoseconds; failed ones and non-2xx/304 answers count as errors.
+    private static long[] loop(HttpClient client, HttpRequest request, long end, AtomicLong errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status >= 400) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static long[] merge(List<long[]> parts) {
+        long[] all = new long[parts.stream().mapToInt(part -> part.length).sum()];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private record Result(long[] sortedLatencies, long errors) {
+
+        void print(Duration duration) {
+            int requests = sortedLatencies.length;
+            System.out.printf("requests: %d, errors: %d, throughput: %.1f req/s%n",
+                    requests, errors, requests / (double) duration.toSeconds());
+            if (requests > 0) {
+                System.out.printf("latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                        percentile(0.50), percentile(0.90), percentile(0.99), percentile(1.0));
+            }
+        }
+
+        private double percentile(double p) {
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.library.controller;
+
+import com.library.event.BookChangedEvent;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes committed book changes to the browsers subscribed through {@link BookChangesEndpoint}.
+ * Changes are collected for {@code library.push.intervalMillis} (default 100) after the first one and
+ * then sent as one message, {@code {"updated":[ids],"deleted":[ids],"created":n}}; a book changed
+ * several times in between appears once. Batches of more than {@code library.push.maxBatch} (default
+ * 500) books, and changes whose books are unknown, are sent as {@code {"reload":true}} instead.
+ * <p>
+ * Messages go out with the async WebSocket API, so no thread waits on a connection. A client still
+ * receiving one message when the next is ready gets a single reload afterwards rather than a backlog.
+ */
+@Slf4j
+@ApplicationScoped
+public class BookChangeNotifier {
+
+    static final String RELOAD = Json.createObjectBuilder().add("reload", true).build().toString();
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    private ConfigUtil config;
+
+    private long intervalMillis;
+    private int maxBatch;
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, BookChangedEvent.ChangeType> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        intervalMillis = Math.max(1, config.getLong("library.push.intervalMillis", 100));
+        maxBatch = config.getInt("library.push.maxBatch", 500);
+    }
+
+    public void subscribe(Session session) {
+        subscribers.put(session.getId(), new Subscriber(session));
+        log.debug("Push subscriber {} connected, {} in total", session.getId(), subscribers.size());
+    }
+
+    public void unsubscribe(Session session) {
+        subscribers.remove(session.getId());
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getReloads() {
+        return reloads.sum();
+    }
+
+    void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (event.ids().isEmpty()) {
+            reloadPending.set(true);
+        } else {
+            event.ids().forEach(id -> pending.merge(id, event.type(), BookChangeNotifier::latest));
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flush, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void flush() {
+        // Cleared first: a change arriving while this batch is sent schedules the next one.
+        flushScheduled.set(false);
+        List<Long> updated = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        int created = 0;
+        for (Long id : pending.keySet()) {
+            BookChangedEvent.ChangeType type = pending.remove(id);
+            if (type == BookChangedEvent.ChangeType.DELETED) {
+                deleted.add(id);
+            } else if (type == BookChangedEvent.ChangeType.UPDATED) {
+                updated.add(id);
+            } else if (type == BookChangedEvent.ChangeType.CREATED) {
+                created++;
+            }
+        }
+        boolean reload = reloadPending.getAndSet(false) || updated.size() + deleted.size() + created > maxBatch;
+        if (!reload && updated.isEmpty() && deleted.isEmpty() && created == 0) {
+            return;
+        }
+        String message = reload ? RELOAD : Json.createObjectBuilder()
+                .add("updated", toArray(updated))
+                .add("deleted", toArray(deleted))
+                .add("created", created)
+                .build()
+                .toString();
+        batches.increment();
+        if (reload) {
+            reloads.increment();
+        }
+        subscribers.values().forEach(subscriber -> subscriber.send(message));
+    }
+
+    // A deletion is final; a book created within the batch is still new to the clients however often it changed.
+    private static BookChangedEvent.ChangeType latest(BookChangedEvent.ChangeType earlier,
+                                                      BookChangedEvent.ChangeType later) {
+        if (later != BookChangedEvent.ChangeType.DELETED && earlier == BookChangedEvent.ChangeType.CREATED) {
+            return earlier;
+        }
+        return later;
+    }
+
+    private static JsonArrayBuilder toArray(List<Long> ids) {
+        JsonArrayBuilder array = Json.createArrayBuilder();
+        ids.forEach(array::add);
+        return array;
+    }
+
+    private final class Subscriber {
+
+        private final Session session;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicReference<String> queued = new AtomicReference<>();
+
+        Subscriber(Session session) {
+            this.session = session;
+        }
+
+        void send(String message) {
+            // Two messages waiting for the same client collapse into a reload.
+            queued.accumulateAndGet(message, (waiting, next) -> waiting == null ? next : RELOAD);
+            drain();
+        }
+
+        // At most one message in flight per session; the async API rejects a second one.
+        private void drain() {
+            while (sending.compareAndSet(false, true)) {
+                String message = queued.getAndSet(null);
+                if (message != null) {
+                    write(message);
+                    return;
+                }
+                sending.set(false);
+                if (queued.get() == null) {
+                    return;
+                }
+            }
+        }
+
+        private void write(String message) {
+            try {
+                session.getAsyncRemote().sendText(message, result -> {
+                    if (!result.isOK()) {
+                        log.debug("Push to {} failed", session.getId(), result.getException());
+                    }
+                    sending.set(false);
+                    drain();
+                });
+            } catch (RuntimeException e) {
+                log.debug("Dropping push subscriber {}", session.getId(), e);
+                sending.set(false);
+                subscribers.remove(session.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.library.controller;
+
+import jakarta.inject.Inject;
+import jakarta.websocket.OnClose;
+import jakarta.websocket.OnError;
+import jakarta.websocket.OnOpen;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.ServerEndpoint;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@code ws://.../push/books}: receive-only feed of committed book changes for open books tables, see
+ * {@link BookChangeNotifier} for the messages. Idle connections cost no thread; clients reconnect on
+ * their own when a connection drops.
+ */
+@Slf4j
+@ServerEndpoint("/push/books")
+public class BookChangesEndpoint {
+
+    @Inject
+    private BookChangeNotifier notifier;
+
+    @OnOpen
+    public void open(Session session) {
+        notifier.subscribe(session);
+    }
+
+    @OnClose
+    public void close(Session session) {
+        notifier.unsubscribe(session);
+    }
+
+    @OnError
+    public void error(Session session, Throwable error) {
+        log.debug("Push connection {} failed", session.getId(), error);
+        notifier.unsubscribe(session);
+    }
+}
@@ -1,11 +1,19 @@
 package com.library.controller;
 
+import com.library.dto.AuthorFacet;
 import com.library.dto.BookDTO;
+import com.library.dto.BookRef;
+import com.library.dto.BulkResult;
 import com.library.service.BookService;
+import com.library.service.BookStatsService;
+import com.library.service.CatalogSnapshotService;
+import com.library.util.ConfigUtil;
 import com.library.util.ExceptionUtil;
 import com.library.util.MessageUtil;
 import com.library.view.BookLazyDataModel;
+import com.library.view.PagePrefetcher;
 import jakarta.annotation.PostConstruct;
+import jakarta.faces.context.FacesContext;
 import jakarta.faces.view.ViewScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -13,9 +21,14 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.primefaces.PrimeFaces;
-import org.primefaces.model.LazyDataModel;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Named
@@ -31,29 +44,101 @@ public class BookController implements Serializable {
     @Inject
     private ExceptionUtil exceptionUtil;
 
+    @Inject
+    private PagePrefetcher prefetcher;
+
+    @Inject
+    private BookStatsService stats;
+
+    @Inject
+    private CatalogSnapshotService snapshot;
+
+    @Inject
+    private ConfigUtil config;
+
+    private static final String TABLE = ":form:dt-books";
+
     @Getter
-    private LazyDataModel<BookDTO> lazyModel;
+    private BookLazyDataModel lazyModel;
 
+    // The authors with the most books and their counts, read from the summary rows once per view and again
+    // after the view was restored from a serialized session, rather than stored with it.
+    private transient List<AuthorFacet> authorFacets;
+
+    // The dialog's form fields only; the book being edited, if any, is identified by editing.
     @Getter @Setter
     private BookDTO currentBook;
 
+    private BookRef editing;
+
+    // IDs and versions only: the view state holds no copy of the rows.
+    private List<BookRef> selection = new ArrayList<>();
+
+    @Getter @Setter
+    private Double pricePercent;
+
     @PostConstruct
     public void init() {
         log.info("Initializing BookController");
         this.currentBook = new BookDTO();
-        this.lazyModel = new BookLazyDataModel(service);
+        this.lazyModel = new BookLazyDataModel(service, prefetcher, snapshot);
+    }
+
+    public List<AuthorFacet> getAuthorFacets() {
+        if (authorFacets == null) {
+            authorFacets = stats.getAuthorFacets(config.getInt("library.authors.facetSize", 20));
+        }
+        return authorFacets;
+    }
+
+    /**
+     * The selected rows for the table, which matches them by ID only; they carry no more than ID and version.
+     */
+    public List<BookDTO> getSelectedBooks() {
+        return selection.stream()
+                .map(ref -> new BookDTO(ref.id(), ref.version(), null, null, null, null))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    public void setSelectedBooks(List<BookDTO> selectedBooks) {
+        this.selection = selectedBooks == null ? new ArrayList<>()
+                : selectedBooks.stream().map(BookRef::of).collect(Collectors.toCollection(ArrayList::new));
     }
 
     public void prepareCreate() {
         log.debug("Preparing to create a new book");
         this.currentBook = new BookDTO();
+        this.editing = null;
+    }
+
+    public void prepareEdit(Long id) {
+        log.debug("Preparing to edit book with ID: {}", id);
+        Optional<BookDTO> book = service.getBook(id);
+        book.ifPresentOrElse(
+                found -> {
+                    // A copy of the form fields, never the cached book itself.
+                    this.currentBook = new BookDTO(null, null, found.getTitle(), found.getAuthor(), found.getPrice(),
+                            found.getIsbn());
+                    this.editing = BookRef.of(found);
+                },
+                () -> messageUtil.addWarnMessage("Not found", "The book no longer exists"));
+        PrimeFaces.current().ajax().addCallbackParam("found", book.isPresent());
     }
 
     public void save() {
         log.info("Attempting to save book: {}", currentBook.getTitle());
         try {
-            service.saveBook(currentBook);
+            if (editing != null && editing.version() != null) {
+                // An edit: one conditional UPDATE, then only its row is rendered again.
+                BookDTO saved = service.updateBook(editing.id(), editing.version(), currentBook);
+                refreshRow(saved);
+            } else {
+                // A new book's position depends on sorting and filters, so the page is loaded again.
+                service.saveBook(currentBook);
+                PrimeFaces.current().ajax().update(TABLE);
+            }
             this.currentBook = new BookDTO(); // Reset form
+            this.editing = null;
             messageUtil.addInfoMessage("Success", "Book Saved");
             PrimeFaces.current().executeScript("PF('bookDialog').hide()");
         } catch (Exception e) {
@@ -64,10 +149,92 @@ public class BookController implements Serializable {
     public void delete(BookDTO book) {
         log.info("Attempting to delete book with ID: {}", book.getId());
         try {
-            service.deleteBook(book.getId());
+            if (book.getVersion() != null) {
+                service.deleteBook(book.getId(), book.getVersion());
+            } else {
+                service.deleteBook(book.getId());
+            }
+            // Hides the row rather than loading the page and its count again; the next page load closes the gap.
+            hideRow(book.getId());
             messageUtil.addWarnMessage("Deleted", "Book Removed");
         } catch (Exception e) {
-             exceptionUtil.handleException(e);
+            exceptionUtil.handleException(e);
+            // Changed or gone meanwhile: show the page as it is now.
+            PrimeFaces.current().ajax().update(TABLE);
+        }
+    }
+
+    /**
+     * Called by the page with the IDs of visible rows that another user changed or deleted, as pushed by
+     * {@link BookChangeNotifier}: re-renders those rows from the (refreshed) book cache, hides deleted ones.
+     * No more distinct IDs than a page holds are looked at; the rest are ignored.
+     */
+    public void refreshRows() {
+        String ids = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("ids");
+        if (ids == null || ids.isBlank()) {
+            return;
+        }
+        Set<Long> bookIds = new LinkedHashSet<>();
+        for (String id : ids.split(",")) {
+            if (bookIds.size() >= lazyModel.getPageSize()) {
+                log.debug("Ignoring row refreshes beyond the page size of {}", lazyModel.getPageSize());
+                break;
+            }
+            try {
+                bookIds.add(Long.valueOf(id.strip()));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring row refresh for {}", id);
+            }
+        }
+        for (Long bookId : bookIds) {
+            service.getBook(bookId).ifPresentOrElse(
+                    book -> lazyModel.replace(book).ifPresent(row ->
+                            PrimeFaces.current().ajax().update(TABLE + ":@row(" + row + ")")),
+                    () -> hideRow(bookId));
+        }
+    }
+
+    private void hideRow(Long id) {
+        selection.removeIf(selected -> id.equals(selected.id()));
+        PrimeFaces.current().executeScript("PF('booksTable').jq.find(\"tr[data-rk='" + id + "']\").fadeOut()");
+    }
+
+    private void refreshRow(BookDTO saved) {
+        lazyModel.replace(saved).ifPresentOrElse(
+                row -> PrimeFaces.current().ajax().update(TABLE + ":@row(" + row + ")"),
+                () -> PrimeFaces.current().ajax().update(TABLE));
+    }
+
+    public void deleteSelected() {
+        log.info("Attempting to delete {} selected books", selection.size());
+        try {
+            BulkResult result = service.deleteBooks(List.copyOf(selection));
+            messageUtil.addWarnMessage("Deleted", result.affected() + " books removed" + skippedNote(result));
+            selection = new ArrayList<>();
+        } catch (Exception e) {
+            exceptionUtil.handleException(e);
+        }
+    }
+
+    public void adjustSelectedPrices() {
+        if (pricePercent == null) {
+            messageUtil.addWarnMessage("No change", "Enter a price change in percent");
+            return;
+        }
+        log.info("Attempting to change prices of {} selected books by {}%", selection.size(), pricePercent);
+        try {
+            // With versions, so that books edited since the page was rendered are left alone.
+            BulkResult result = service.adjustPrices(List.copyOf(selection), pricePercent);
+            messageUtil.addInfoMessage("Success", result.affected() + " prices changed" + skippedNote(result));
+            // The selection holds the old versions; a second change must start from a fresh one.
+            selection = new ArrayList<>();
+        } catch (Exception e) {
+            exceptionUtil.handleException(e);
         }
     }
+
+    private static String skippedNote(BulkResult result) {
+        return result.skipped().isEmpty() ? ""
+                : ", " + result.skipped().size() + " skipped because they were changed or removed meanwhile";
+    }
 }
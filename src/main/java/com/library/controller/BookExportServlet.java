@@ -0,0 +1,78 @@
+package com.library.controller;
+
+import com.library.io.DataFormat;
+import com.library.service.BookService;
+import jakarta.inject.Inject;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Downloads the whole catalog: {@code GET /export/books?format=csv|ndjson}. Rows go straight from
+ * the database cursor to the response, so memory use does not depend on the size of the catalog.
+ * The response is gzip-encoded when the client accepts it or {@code gzip=true} is passed. The export
+ * runs asynchronously on a managed executor, which keeps container threads free for the duration.
+ */
+@Slf4j
+@WebServlet(urlPatterns = "/export/books", asyncSupported = true)
+public class BookExportServlet extends HttpServlet {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Inject
+    private BookService service;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<DataFormat> format = DataFormat.fromName(Optional.ofNullable(request.getParameter("format")).orElse("csv"));
+        if (format.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unsupported format, use csv or ndjson");
+            return;
+        }
+        boolean gzip = Boolean.parseBoolean(request.getParameter("gzip")) || acceptsGzip(request);
+
+        response.setContentType(format.get().getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=\"books." + format.get().getExtension() + "\"");
+        response.addHeader("Vary", "Accept-Encoding");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+
+        AsyncContext async = request.startAsync();
+        // A full export can take minutes; the container's default async timeout would cut it off.
+        async.setTimeout(0);
+        OutputStream body = gzip ? new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE) : response.getOutputStream();
+        Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+        service.exportBooksAsync(format.get().newWriter(out)).whenComplete((rows, failure) -> {
+            try (out) {
+                if (failure == null) {
+                    log.info("Streamed {} books as {}{}", rows, format.get(), gzip ? " (gzip)" : "");
+                } else {
+                    log.error("Export as {} failed", format.get(), failure);
+                }
+            } catch (IOException e) {
+                log.warn("Could not finish the export response", e);
+            } finally {
+                async.complete();
+            }
+        });
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.controller;
+
+import com.library.dto.ImportOptions;
+import com.library.dto.ImportReport;
+import com.library.io.DataFormat;
+import com.library.service.BookImportService;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Bulk import of a publisher feed: {@code POST /import/books?format=csv|ndjson} with the feed as the
+ * request body (optionally {@code Content-Encoding: gzip}). Further parameters: {@code upsert},
+ * {@code chunkSize}, {@code batchSize} and {@code resumeAfterRow}. Responds with the
+ * {@link ImportReport} as JSON; 207 if some rows were rejected, 500 if the import stopped early.
+ */
+@Slf4j
+@WebServlet("/import/books")
+public class BookImportServlet extends HttpServlet {
+
+    private static final int SC_MULTI_STATUS = 207;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Inject
+    private BookImportService importService;
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<DataFormat> format = DataFormat.fromName(Optional.ofNullable(request.getParameter("format")).orElse("csv"));
+        if (format.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unsupported format, use csv or ndjson");
+            return;
+        }
+        ImportOptions options;
+        try {
+            options = ImportOptions.builder()
+                    .format(format.get())
+                    .upsert(Boolean.parseBoolean(request.getParameter("upsert")))
+                    .chunkSize(intParameter(request, "chunkSize"))
+                    .batchSize(intParameter(request, "batchSize"))
+                    .resumeAfterRow(intParameter(request, "resumeAfterRow"))
+                    .build();
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Numeric parameter expected: " + e.getMessage());
+            return;
+        }
+
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            body = new GZIPInputStream(body, BUFFER_SIZE);
+        }
+        ImportReport report;
+        try (Reader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            report = importService.importBooks(in, options);
+        }
+
+        if (!report.isCompleted()) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } else if (report.getRejected() > 0) {
+            response.setStatus(SC_MULTI_STATUS);
+        }
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (Jsonb jsonb = JsonbBuilder.create()) {
+            jsonb.toJson(report, response.getWriter());
+        } catch (Exception e) {
+            throw new IOException("Could not write import report", e);
+        }
+    }
+
+    private static int intParameter(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        return value == null || value.isBlank() ? 0 : Integer.parseInt(value.strip());
+    }
+}
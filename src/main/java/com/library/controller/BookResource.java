@@ -0,0 +1,395 @@
+package com.library.controller;
+
+import com.library.dto.BookChanges;
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookPatch;
+import com.library.dto.BookPriceChange;
+import com.library.dto.BookQuery;
+import com.library.dto.BookSort;
+import com.library.dto.BookSortField;
+import com.library.dto.ChangeCursor;
+import com.library.service.BookChangeFeedService;
+import com.library.service.BookNotFoundException;
+import com.library.service.BookService;
+import com.library.service.BookStatsService;
+import com.library.util.ConfigUtil;
+import com.library.util.ExecutorUtil;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PATCH;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * JSON API over {@link BookService}: {@code /api/books} (paged list, create), {@code /api/books/{id}}
+ * (get, update, patch, delete), {@code /api/books/isbn/{isbn}} (get by ISBN), {@code /api/books/isbns/existing}
+ * (duplicate check), {@code /api/books/prices} (bulk repricing), {@code /api/books/stats} (catalog statistics)
+ * and {@code /api/books/changes} (change feed).
+ * <p>
+ * A book's ETag is its {@code @Version}. {@code If-None-Match} on a single book is answered with 304 from
+ * the version alone, and updates and deletes require {@code If-Match}, which becomes the version condition
+ * of a single {@code UPDATE}/{@code DELETE} instead of a read-before-write. List pages carry a weak ETag
+ * over the IDs and versions on the page and may be cached publicly for a short time.
+ * <p>
+ * Handlers run through {@link ExecutorUtil#handle}, i.e. on virtual threads when those are enabled.
+ */
+@Slf4j
+@Path("books")
+@RequestScoped
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class BookResource {
+
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_PRICE_CHANGES = 10_000;
+    static final int MAX_CHANGES_PAGE_SIZE = 1_000;
+    static final int MAX_ISBN_CHECKS = 10_000;
+    static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    private static final int SC_PRECONDITION_REQUIRED = 428;
+
+    @Inject
+    private BookService service;
+
+    @Inject
+    private BookStatsService stats;
+
+    @Inject
+    private BookChangeFeedService changeFeed;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Inject
+    private ExecutorUtil executors;
+
+    @GET
+    public CompletionStage<Response> list(@QueryParam("first") @DefaultValue("0") int first,
+                                          @QueryParam("size") @DefaultValue("20") int size,
+                                          @QueryParam("sort") @DefaultValue("id") String sort,
+                                          @QueryParam("order") @DefaultValue("asc") String order,
+                                          @QueryParam("title") String title,
+                                          @QueryParam("author") String author,
+                                          @QueryParam("authorId") Long authorId,
+                                          @QueryParam("isbn") String isbn,
+                                          @QueryParam("minPrice") BigDecimal minPrice,
+                                          @QueryParam("maxPrice") BigDecimal maxPrice,
+                                          @QueryParam("q") String search,
+                                          @QueryParam("count") boolean count,
+                                          @Context Request request,
+                                          @Context UriInfo uriInfo) {
+        return executors.handle(() -> listPage(first, size, sort, order, title, author, authorId, isbn, minPrice,
+                maxPrice, search, count, request, uriInfo));
+    }
+
+    private Response listPage(int first, int size, String sort, String order, String title, String author,
+                              Long authorId, String isbn, BigDecimal minPrice, BigDecimal maxPrice, String search,
+                              boolean count, Request request, UriInfo uriInfo) {
+        if (first < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("first must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        BookSortField field = BookSortField.fromAttribute(sort)
+                .orElseThrow(() -> new BadRequestException("Unknown sort field: " + sort));
+        BookFilter filter = BookFilter.builder()
+                .titlePrefix(title)
+                .authorPrefix(author)
+                .authorId(authorId)
+                .isbnPrefix(isbn)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .search(search)
+                .build();
+        BookQuery query = new BookQuery(filter, new BookSort(field, !"desc".equalsIgnoreCase(order)));
+        // Runs next to the page query rather than after it.
+        CompletableFuture<Integer> total = count ? service.countBooksAsync(filter).toCompletableFuture() : null;
+
+        // One row beyond the page tells whether there is a next one, without counting.
+        List<BookDTO> page = service.getBooks(query, first, size + 1);
+        boolean hasMore = page.size() > size;
+        if (hasMore) {
+            page = page.subList(0, size);
+        }
+
+        EntityTag tag = new EntityTag(pageTag(page, hasMore), true);
+        CacheControl cacheControl = listCacheControl();
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.tag(tag).cacheControl(cacheControl).build();
+        }
+
+        Response.ResponseBuilder response = Response.ok(page).tag(tag).cacheControl(cacheControl);
+        if (hasMore) {
+            response.link(uriInfo.getRequestUriBuilder().replaceQueryParam("first", first + size).build(), "next");
+        }
+        if (first > 0) {
+            response.link(uriInfo.getRequestUriBuilder().replaceQueryParam("first", Math.max(0, first - size)).build(), "prev");
+        }
+        if (total != null && total.join() != BookService.UNKNOWN_COUNT) {
+            response.header("X-Total-Count", total.join());
+        }
+        return response.build();
+    }
+
+    /**
+     * Catalog statistics: totals, the {@code authors} authors with the most books and the price histogram,
+     * read from summary rows in a few index lookups.
+     */
+    @GET
+    @Path("stats")
+    public CompletionStage<Response> stats(@QueryParam("authors") @DefaultValue("10") int authors) {
+        return executors.handle(() -> {
+            if (authors < 0 || authors > MAX_PAGE_SIZE) {
+                throw new BadRequestException("authors must be between 0 and " + MAX_PAGE_SIZE);
+            }
+            return Response.ok(stats.getStats(authors)).cacheControl(listCacheControl()).build();
+        });
+    }
+
+    /**
+     * The author facet: the {@code size} authors with the most books, with the IDs the list filters by
+     * ({@code authorId}) and their book counts.
+     */
+    @GET
+    @Path("facets/authors")
+    public CompletionStage<Response> authorFacets(@QueryParam("size") @DefaultValue("20") int size) {
+        return executors.handle(() -> {
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new BadRequestException("size must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            return Response.ok(stats.getAuthorFacets(size)).cacheControl(listCacheControl()).build();
+        });
+    }
+
+    /**
+     * The change feed: books created, changed or deleted after {@code cursor} (a full sync without one), at
+     * most {@code size} per page. Answers 410 when the cursor is too old to be continued.
+     */
+    @GET
+    @Path("changes")
+    public CompletionStage<Response> changes(@QueryParam("cursor") String cursor,
+                                             @QueryParam("size") @DefaultValue("500") int size) {
+        return executors.handle(() -> {
+            if (size < 1 || size > MAX_CHANGES_PAGE_SIZE) {
+                throw new BadRequestException("size must be between 1 and " + MAX_CHANGES_PAGE_SIZE);
+            }
+            ChangeCursor from;
+            try {
+                from = cursor == null || cursor.isBlank() ? ChangeCursor.START : ChangeCursor.decode(cursor.strip());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(e.getMessage());
+            }
+            BookChanges changes = changeFeed.getChanges(from, size);
+            return Response.ok(changes).cacheControl(bookCacheControl()).build();
+        });
+    }
+
+    @GET
+    @Path("stats/authors/{author}")
+    public CompletionStage<Response> authorStats(@PathParam("author") String author) {
+        return executors.handle(() -> stats.getAuthorStats(author)
+                .map(group -> Response.ok(group).cacheControl(listCacheControl()))
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND))
+                .build());
+    }
+
+    @GET
+    @Path("{id}")
+    public CompletionStage<Response> get(@PathParam("id") Long id, @Context Request request,
+                                         @Context HttpHeaders headers) {
+        return executors.handle(() -> getBook(id, request, headers));
+    }
+
+    private Response getBook(Long id, Request request, HttpHeaders headers) {
+        if (headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null) {
+            Long version = service.getBookVersion(id).orElseThrow(() -> new BookNotFoundException(id));
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(etag(version));
+            if (notModified != null) {
+                return notModified.cacheControl(bookCacheControl()).build();
+            }
+        }
+        BookDTO book = service.getBook(id).orElseThrow(() -> new BookNotFoundException(id));
+        return Response.ok(book).tag(etag(book.getVersion())).cacheControl(bookCacheControl()).build();
+    }
+
+    @GET
+    @Path("isbn/{isbn}")
+    public CompletionStage<Response> getByIsbn(@PathParam("isbn") String isbn) {
+        return executors.handle(() -> service.getBookByIsbn(isbn)
+                .map(book -> Response.ok(book).tag(etag(book.getVersion())).cacheControl(bookCacheControl()).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND)
+                        .type(MediaType.APPLICATION_JSON)
+                        .entity(Map.of("error", "Book not found with ISBN: " + isbn))
+                        .build()));
+    }
+
+    /**
+     * Duplicate check of a batch: {@code ["9780441013593", ...]}, answered with those that books already have.
+     */
+    @POST
+    @Path("isbns/existing")
+    public CompletionStage<Response> existingIsbns(@NotNull @Size(max = MAX_ISBN_CHECKS) List<@NotNull String> isbns) {
+        return executors.handle(() -> Response.ok(Map.of("existing", service.findExistingIsbns(isbns))).build());
+    }
+
+    @POST
+    public CompletionStage<Response> create(@Valid BookDTO book, @Context UriInfo uriInfo) {
+        return executors.handle(() -> {
+            BookDTO created = service.createBook(book);
+            log.info("Created book {} through the API", created.getId());
+            return Response.created(uriInfo.getAbsolutePathBuilder().path(String.valueOf(created.getId())).build())
+                    .tag(etag(created.getVersion()))
+                    .entity(created)
+                    .build();
+        });
+    }
+
+    @PUT
+    @Path("{id}")
+    public CompletionStage<Response> update(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                            @Valid BookDTO book) {
+        return executors.handle(() -> {
+            if (ifMatch == null) {
+                return preconditionRequired();
+            }
+            Optional<Long> version = versionOf(ifMatch);
+            if (version.isEmpty()) {
+                return Response.status(Response.Status.PRECONDITION_FAILED).build();
+            }
+            BookDTO updated = service.updateBook(id, version.get(), book);
+            return Response.ok(updated).tag(etag(updated.getVersion())).build();
+        });
+    }
+
+    /**
+     * Changes the fields present in the body (merge-patch semantics without removal: absent or null
+     * fields keep their value). Answers 204 with the new ETag; no read of the book is needed.
+     */
+    @PATCH
+    @Path("{id}")
+    @Consumes({MediaType.APPLICATION_JSON, MERGE_PATCH_JSON})
+    public CompletionStage<Response> patch(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                           @Valid BookPatch patch) {
+        return executors.handle(() -> {
+            if (ifMatch == null) {
+                return preconditionRequired();
+            }
+            if (patch == null || patch.isEmpty()) {
+                throw new BadRequestException("The patch changes nothing");
+            }
+            Optional<Long> version = versionOf(ifMatch);
+            if (version.isEmpty()) {
+                return Response.status(Response.Status.PRECONDITION_FAILED).build();
+            }
+            return Response.noContent().tag(etag(service.patchBook(id, version.get(), patch))).build();
+        });
+    }
+
+    /**
+     * Bulk repricing: {@code [{"id":1,"version":3,"price":9.99}, ...]}, each applied only if the book is
+     * still at that version. Answers with the IDs that were skipped for that reason.
+     */
+    @PATCH
+    @Path("prices")
+    public CompletionStage<Response> updatePrices(
+            @NotNull @Size(max = MAX_PRICE_CHANGES) List<@Valid @NotNull BookPriceChange> changes) {
+        return executors.handle(() -> {
+            Set<Long> skipped = service.updatePrices(changes);
+            return Response.ok(Map.of("updated", changes.size() - skipped.size(), "skipped", skipped)).build();
+        });
+    }
+
+    @DELETE
+    @Path("{id}")
+    public CompletionStage<Response> delete(@PathParam("id") Long id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        return executors.handle(() -> {
+            if (ifMatch == null) {
+                return preconditionRequired();
+            }
+            Optional<Long> version = versionOf(ifMatch);
+            if (version.isEmpty()) {
+                return Response.status(Response.Status.PRECONDITION_FAILED).build();
+            }
+            service.deleteBook(id, version.get());
+            return Response.noContent().build();
+        });
+    }
+
+    /**
+     * The version named by an {@code If-Match} header. If-Match compares strongly, so weak tags,
+     * lists and {@code *} (which would need a read to check) yield nothing and fail the precondition.
+     */
+    static Optional<Long> versionOf(String ifMatch) {
+        String tag = ifMatch.strip();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(tag.substring(1, tag.length() - 1)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    static String pageTag(List<BookDTO> page, boolean hasMore) {
+        long hash = hasMore ? 1 : 0;
+        for (BookDTO book : page) {
+            hash = 31 * hash + book.getId();
+            hash = 31 * hash + (book.getVersion() == null ? 0 : book.getVersion());
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static EntityTag etag(Long version) {
+        return new EntityTag(String.valueOf(version));
+    }
+
+    private CacheControl listCacheControl() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(config.getInt("library.api.listMaxAgeSeconds", 30));
+        return cacheControl;
+    }
+
+    // Shared caches may keep a book but must revalidate it, which the ETag makes cheap.
+    private static CacheControl bookCacheControl() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
+
+    private static Response preconditionRequired() {
+        return Response.status(SC_PRECONDITION_REQUIRED)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", "Send the book's ETag in If-Match to change it"))
+                .build();
+    }
+}
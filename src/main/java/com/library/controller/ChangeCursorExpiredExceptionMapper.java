@@ -0,0 +1,21 @@
+package com.library.controller;
+
+import com.library.service.ChangeCursorExpiredException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.Map;
+
+@Provider
+public class ChangeCursorExpiredExceptionMapper implements ExceptionMapper<ChangeCursorExpiredException> {
+
+    @Override
+    public Response toResponse(ChangeCursorExpiredException e) {
+        return Response.status(Response.Status.GONE)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.controller;
+
+import com.library.service.DuplicateIsbnException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.Map;
+
+/**
+ * A create or update that would give a second book the same ISBN: 409.
+ */
+@Provider
+public class DuplicateIsbnExceptionMapper implements ExceptionMapper<DuplicateIsbnException> {
+
+    @Override
+    public Response toResponse(DuplicateIsbnException e) {
+        return Response.status(Response.Status.CONFLICT)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.controller;
+
+import com.library.metrics.MetricsRegistry;
+import com.library.metrics.RequestStats;
+import com.library.metrics.StartupTimes;
+import com.library.service.impl.StartupWarmup;
+import jakarta.inject.Inject;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Records latency, SQL statements and rows of every request into the {@link MetricsRegistry}, by route
+ * ({@code faces}, {@code resources}, {@code api}, {@code export}, {@code import}, {@code other}). Async
+ * requests (the API, exports) are recorded when they complete. The first request after startup, other than the
+ * warm-up's own, also sets the time to first request of {@link StartupTimes}.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class MetricsFilter extends HttpFilter {
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Inject
+    private StartupTimes startup;
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String route = route(request.getServletPath());
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean warmup = request.getHeader(StartupWarmup.HEADER) != null;
+        long start = System.nanoTime();
+        RequestStats stats = RequestStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestStats.end();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(route, System.nanoTime() - start, stats, warmup);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(route, System.nanoTime() - start, stats, warmup);
+            }
+        }
+    }
+
+    private void record(String route, long nanos, RequestStats stats, boolean warmup) {
+        registry.recordRequest(route, nanos, stats);
+        if (!warmup) {
+            startup.recordRequest(nanos);
+        }
+    }
+
+    // A fixed set of names keeps the number of time series bounded whatever URLs clients send.
+    static String route(String servletPath) {
+        // WebSocket upgrades open long-lived connections, not requests with a latency; probes are not traffic.
+        if (servletPath.equals("/metrics") || servletPath.startsWith("/push/") || servletPath.startsWith("/health/")) {
+            return null;
+        }
+        if (servletPath.startsWith("/jakarta.faces.resource/")) {
+            return "resources";
+        }
+        if (servletPath.endsWith(".xhtml") || servletPath.isEmpty() || servletPath.equals("/")) {
+            return "faces";
+        }
+        if (servletPath.startsWith("/api")) {
+            return "api";
+        }
+        if (servletPath.startsWith("/export/")) {
+            return "export";
+        }
+        if (servletPath.startsWith("/import/")) {
+            return "import";
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,177 @@
+package com.library.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.dto.SnapshotFootprint;
+import com.library.mapper.AuthorMapper;
+import com.library.metrics.MetricsRegistry;
+import com.library.metrics.PrometheusWriter;
+import com.library.metrics.StartupTimes;
+import com.library.repository.ReplicaRouter;
+import com.library.service.impl.BookCache;
+import com.library.service.impl.BookChangeFeedServiceImpl;
+import com.library.service.impl.BookCounter;
+import com.library.service.impl.BookStatsServiceImpl;
+import com.library.service.impl.CatalogSnapshotServiceImpl;
+import com.library.service.impl.IsbnFilter;
+import com.library.view.PagePrefetcher;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Prometheus scrape endpoint: {@code GET /metrics}. Method and request metrics from the
+ * {@link MetricsRegistry}, plus the book and author caches, count, page prefetch, push, read replica, catalog
+ * statistics reconciliation, in-memory catalog snapshot, change feed, ISBN filter and startup figures. Restrict access to it
+ * at the proxy or with a security constraint, the method names it exposes are internal.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Inject
+    private BookCache cache;
+
+    @Inject
+    private AuthorMapper authors;
+
+    @Inject
+    private BookCounter counter;
+
+    @Inject
+    private PagePrefetcher prefetcher;
+
+    @Inject
+    private BookChangeNotifier notifier;
+
+    @Inject
+    private ReplicaRouter replicas;
+
+    @Inject
+    private BookStatsServiceImpl catalogStats;
+
+    @Inject
+    private CatalogSnapshotServiceImpl snapshot;
+
+    @Inject
+    private BookChangeFeedServiceImpl changeFeed;
+
+    @Inject
+    private IsbnFilter isbns;
+
+    @Inject
+    private StartupTimes startup;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(PrometheusWriter.CONTENT_TYPE);
+        PrometheusWriter out = new PrometheusWriter(response.getWriter());
+        registry.write(out);
+
+        CacheStats stats = cache.getStats();
+        out.family("library_book_cache_requests_total", "counter", "Single-book lookups by cache outcome")
+                .sample("library_book_cache_requests_total", stats.hitCount(), "result", "hit")
+                .sample("library_book_cache_requests_total", stats.missCount(), "result", "miss");
+        out.family("library_book_cache_evictions_total", "counter", "Books evicted from the cache by size or TTL")
+                .sample("library_book_cache_evictions_total", stats.evictionCount());
+        out.family("library_book_cache_size", "gauge", "Books currently cached")
+                .sample("library_book_cache_size", cache.getSize());
+
+        CacheStats authorStats = authors.getStats();
+        out.family("library_author_cache_requests_total", "counter", "Author name to ID resolutions by cache outcome")
+                .sample("library_author_cache_requests_total", authorStats.hitCount(), "result", "hit")
+                .sample("library_author_cache_requests_total", authorStats.missCount(), "result", "miss");
+
+        out.family("library_book_counts_total", "counter", "Book count requests by how they were answered");
+        counter.getPathCounts().forEach((path, count) ->
+                out.sample("library_book_counts_total", count, "path", path.name().toLowerCase(Locale.ROOT)));
+
+        out.family("library_prefetch_page_loads_total", "counter",
+                        "Books table page loads by whether a prefetched page answered them")
+                .sample("library_prefetch_page_loads_total", prefetcher.getHits(), "result", "hit")
+                .sample("library_prefetch_page_loads_total", prefetcher.getMisses(), "result", "miss");
+        out.family("library_prefetch_loads_total", "counter", "Pages loaded speculatively")
+                .sample("library_prefetch_loads_total", prefetcher.getLoads());
+        out.family("library_prefetch_wasted_total", "counter", "Prefetched pages dropped unused or outdated")
+                .sample("library_prefetch_wasted_total", prefetcher.getWasted());
+        out.family("library_prefetch_failures_total", "counter", "Prefetches that failed and were queried again")
+                .sample("library_prefetch_failures_total", prefetcher.getFailures());
+
+        out.family("library_push_subscribers", "gauge", "Open WebSocket connections receiving book changes")
+                .sample("library_push_subscribers", notifier.getSubscriberCount());
+        out.family("library_push_batches_total", "counter", "Change batches pushed, by kind")
+                .sample("library_push_batches_total", notifier.getBatches() - notifier.getReloads(), "kind", "changes")
+                .sample("library_push_batches_total", notifier.getReloads(), "kind", "reload");
+
+        out.family("library_read_only_calls_total", "counter", "Read-only service calls by the database serving them")
+                .sample("library_read_only_calls_total", replicas.getReplicaReads(), "database", "replica")
+                .sample("library_read_only_calls_total", replicas.getPrimaryReads(), "database", "primary");
+        out.family("library_replica_healthy", "gauge", "1 while read-only calls may go to the read replica")
+                .sample("library_replica_healthy", replicas.isReplicaHealthy() ? 1 : 0);
+        out.family("library_replica_lag_seconds", "gauge", "Replication lag last measured on the read replica")
+                .sample("library_replica_lag_seconds", replicas.getLagSeconds());
+
+        out.family("library_stats_folded_total", "counter", "Catalog statistics changes folded into the summary rows")
+                .sample("library_stats_folded_total", catalogStats.getFolded());
+        out.family("library_stats_fold_failures_total", "counter", "Folds of catalog statistics changes that failed")
+                .sample("library_stats_fold_failures_total", catalogStats.getFoldFailures());
+        out.family("library_stats_reconciliations_total", "counter", "Catalog statistics reconciliations run")
+                .sample("library_stats_reconciliations_total", catalogStats.getReconciliations());
+        out.family("library_stats_corrections_total", "counter", "Catalog statistics rows found wrong and corrected")
+                .sample("library_stats_corrections_total", catalogStats.getCorrections());
+
+        if (snapshot.isEnabled()) {
+            SnapshotFootprint footprint = snapshot.getFootprint();
+            out.family("library_snapshot_books", "gauge", "Books held by the in-memory catalog snapshot")
+                    .sample("library_snapshot_books", footprint.books());
+            out.family("library_snapshot_bytes", "gauge", "Estimated heap held by the catalog snapshot")
+                    .sample("library_snapshot_bytes", footprint.bytes());
+            out.family("library_snapshot_bytes_per_million_books", "gauge",
+                            "Catalog snapshot heap scaled to a million books of the same shape")
+                    .sample("library_snapshot_bytes_per_million_books", footprint.bytesPerMillionBooks());
+            out.family("library_snapshot_age_seconds", "gauge", "Time since the catalog snapshot was last refreshed")
+                    .sample("library_snapshot_age_seconds", snapshot.getAgeMillis() / 1000.0);
+            out.family("library_snapshot_refreshes_total", "counter", "Catalog snapshot refreshes, by outcome")
+                    .sample("library_snapshot_refreshes_total", snapshot.getRefreshes(), "result", "success")
+                    .sample("library_snapshot_refreshes_total", snapshot.getFailures(), "result", "failure");
+            out.family("library_snapshot_rows_applied_total", "counter", "Books loaded, changed or removed by refreshes")
+                    .sample("library_snapshot_rows_applied_total", snapshot.getRowsApplied());
+            out.family("library_snapshot_reconciliations_total", "counter",
+                            "Comparisons of all book IDs after the count disagreed with the snapshot")
+                    .sample("library_snapshot_reconciliations_total", snapshot.getReconciliations());
+            out.family("library_snapshot_pages_total", "counter", "Table pages served from the snapshot")
+                    .sample("library_snapshot_pages_total", snapshot.getPagesServed());
+        }
+        out.family("library_change_feed_pages_total", "counter", "Change feed pages served")
+                .sample("library_change_feed_pages_total", changeFeed.getPages());
+        out.family("library_change_feed_entries_total", "counter", "Change feed entries served, by kind")
+                .sample("library_change_feed_entries_total", changeFeed.getUpserts(), "kind", "upsert")
+                .sample("library_change_feed_entries_total", changeFeed.getDeletions(), "kind", "deletion");
+        out.family("library_change_feed_tombstones_purged_total", "counter", "Book tombstones purged after retention")
+                .sample("library_change_feed_tombstones_purged_total", changeFeed.getPurged());
+
+        if (isbns.isEnabled()) {
+            out.family("library_isbn_filter_checks_total", "counter", "ISBN membership checks by how they were answered")
+                    .sample("library_isbn_filter_checks_total", isbns.getAbsent(), "result", "absent")
+                    .sample("library_isbn_filter_checks_total", isbns.getConfirmed(), "result", "confirmed")
+                    .sample("library_isbn_filter_checks_total", isbns.getFalsePositives(), "result", "false_positive")
+                    .sample("library_isbn_filter_checks_total", isbns.getUnfiltered(), "result", "unfiltered");
+            out.family("library_isbn_filter_bits", "gauge", "Size of the ISBN Bloom filter in bits")
+                    .sample("library_isbn_filter_bits", isbns.getBits());
+            out.family("library_isbn_filter_expected_fpp", "gauge", "False positive probability at the filter's fill")
+                    .sample("library_isbn_filter_expected_fpp", Math.max(0, isbns.getExpectedFpp()));
+            out.family("library_isbn_filter_rebuilds_total", "counter", "ISBN filter rebuilds after the first load")
+                    .sample("library_isbn_filter_rebuilds_total", isbns.getRebuilds());
+            out.family("library_isbn_filter_refresh_failures_total", "counter", "ISBN filter refreshes that failed")
+                    .sample("library_isbn_filter_refresh_failures_total", isbns.getFailures());
+        }
+
+        startup.write(out);
+    }
+}
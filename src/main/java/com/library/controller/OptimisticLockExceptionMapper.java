@@ -0,0 +1,25 @@
+package com.library.controller;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.Map;
+
+/**
+ * A conditional write ({@code If-Match}) lost against a concurrent change: 412, the client should
+ * re-read the book and retry with the new ETag.
+ */
+@Provider
+public class OptimisticLockExceptionMapper implements ExceptionMapper<OptimisticLockException> {
+
+    @Override
+    public Response toResponse(OptimisticLockException e) {
+        return Response.status(Response.Status.PRECONDITION_FAILED)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", "The book was modified by another client, reload it and retry"))
+                .build();
+    }
+}
@@ -0,0 +1,11 @@
+package com.library.controller;
+
+import jakarta.ws.rs.ApplicationPath;
+import jakarta.ws.rs.core.Application;
+
+/**
+ * Stateless JSON API for machine clients, next to the JSF pages: no view state, no session.
+ */
+@ApplicationPath("/api")
+public class RestApplication extends Application {
+}
@@ -0,0 +1,9 @@
+package com.library.dto;
+
+import java.io.Serializable;
+
+/**
+ * One value of the author facet: an author and the number of books by them in the whole catalog.
+ */
+public record AuthorFacet(Long authorId, String name, long books) implements Serializable {
+}
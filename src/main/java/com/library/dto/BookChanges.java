@@ -0,0 +1,13 @@
+package com.library.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of the change feed: books created or changed ({@code upserts}, at their current state) and books
+ * deleted, after the cursor the page was read from, in the order they happened. {@code cursor} continues
+ * after this page; {@code hasMore} tells whether the next page is already known to be non-empty.
+ */
+public record BookChanges(List<BookRow> upserts, List<BookDeletion> deletions, String cursor, boolean hasMore)
+        implements Serializable {
+}
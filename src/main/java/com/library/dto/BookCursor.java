@@ -0,0 +1,22 @@
+package com.library.dto;
+
+import java.io.Serializable;
+
+/**
+ * Position of a row in a {@link BookSort} ordering, used for keyset (seek) pagination:
+ * the value of the sort column and the ID of the row.
+ */
+public record BookCursor(Serializable sortValue, Long id) implements Serializable {
+
+    public static BookCursor of(BookDTO book, BookSort sort) {
+        return new BookCursor(sort.field().valueOf(book), book.getId());
+    }
+
+    /**
+     * A cursor can only be sought from when both keys are known; rows with a null sort value
+     * have no well-defined position and must be paged by offset instead.
+     */
+    public boolean isSeekable() {
+        return sortValue != null && id != null;
+    }
+}
@@ -1,11 +1,13 @@
 package com.library.dto;
 
+import com.library.util.ValidIsbn;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 
 @Data
 @NoArgsConstructor
@@ -24,8 +26,9 @@ public class BookDTO implements Serializable {
 
     @NotNull(message = "Price is required")
     @Min(value = 0, message = "Price cannot be negative")
-    private Double price;
+    @Digits(integer = 10, fraction = 2, message = "Price must have at most 2 decimals")
+    private BigDecimal price;
 
-    @Pattern(regexp = "\\d{13}", message = "ISBN must be exactly 13 digits")
+    @ValidIsbn
     private String isbn;
 }
@@ -0,0 +1,10 @@
+package com.library.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A deleted book in the change feed: its ID and when it was deleted.
+ */
+public record BookDeletion(Long id, LocalDateTime deletedAt) implements Serializable {
+}
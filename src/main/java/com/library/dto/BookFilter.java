@@ -0,0 +1,44 @@
+package com.library.dto;
+
+import lombok.Builder;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Restrictions on the book table. Text criteria are prefix matches so that they can be answered
+ * from an index; blank values mean "no restriction". A {@code search} text switches to ranked
+ * full-text search over title and author, with the other criteria applied on top. An {@code authorId}
+ * (the author facet) restricts to the books of one author.
+ */
+@Builder(toBuilder = true)
+public record BookFilter(String titlePrefix,
+                         String authorPrefix,
+                         Long authorId,
+                         BigDecimal minPrice,
+                         BigDecimal maxPrice,
+                         String isbnPrefix,
+                         String search) implements Serializable {
+
+    public static final BookFilter NONE = BookFilter.builder().build();
+
+    public BookFilter {
+        titlePrefix = normalize(titlePrefix);
+        authorPrefix = normalize(authorPrefix);
+        isbnPrefix = normalize(isbnPrefix);
+        search = normalize(search);
+    }
+
+    public boolean isEmpty() {
+        return titlePrefix == null && authorPrefix == null && authorId == null && minPrice == null && maxPrice == null
+                && isbnPrefix == null && search == null;
+    }
+
+    public boolean hasSearch() {
+        return search != null;
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.strip();
+    }
+}
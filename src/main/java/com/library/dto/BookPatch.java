@@ -0,0 +1,32 @@
+package com.library.dto;
+
+import com.library.util.ValidIsbn;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Partial update of a book: only the non-null fields are changed, everything else keeps its value.
+ * A field therefore cannot be cleared through a patch.
+ */
+@Builder
+public record BookPatch(@Size(min = 2, max = 100, message = "Title must be between 2 and 100 characters")
+                        String title,
+                        @Pattern(regexp = ".*\\S.*", message = "Author cannot be blank")
+                        String author,
+                        @Min(value = 0, message = "Price cannot be negative")
+                        @Digits(integer = 10, fraction = 2, message = "Price must have at most 2 decimals")
+                        BigDecimal price,
+                        @ValidIsbn
+                        String isbn) implements Serializable {
+
+    public boolean isEmpty() {
+        return title == null && author == null && price == null && isbn == null;
+    }
+
+}
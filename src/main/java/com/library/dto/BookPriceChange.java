@@ -0,0 +1,19 @@
+package com.library.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * New price for a book, applied only if the book is still at {@code version}.
+ */
+public record BookPriceChange(@NotNull Long id,
+                              long version,
+                              @NotNull @Min(value = 0, message = "Price cannot be negative")
+                              @Digits(integer = 10, fraction = 2, message = "Price must have at most 2 decimals")
+                              BigDecimal price)
+        implements Serializable {
+}
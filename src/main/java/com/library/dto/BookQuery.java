@@ -0,0 +1,17 @@
+package com.library.dto;
+
+import java.io.Serializable;
+
+/**
+ * Everything that determines which books make up the table, and in what order, independent of
+ * the page being looked at.
+ */
+public record BookQuery(BookFilter filter, BookSort sort) implements Serializable {
+
+    public static final BookQuery DEFAULT = new BookQuery(BookFilter.NONE, BookSort.DEFAULT);
+
+    public BookQuery {
+        filter = filter != null ? filter : BookFilter.NONE;
+        sort = sort != null ? sort : BookSort.DEFAULT;
+    }
+}
@@ -0,0 +1,14 @@
+package com.library.dto;
+
+import java.io.Serializable;
+
+/**
+ * A book to act on in a bulk operation. With a {@code version} the operation applies only while the book
+ * is still at that version; {@code null} acts on whatever is stored.
+ */
+public record BookRef(Long id, Long version) implements Serializable {
+
+    public static BookRef of(BookDTO book) {
+        return new BookRef(book.getId(), book.getVersion());
+    }
+}
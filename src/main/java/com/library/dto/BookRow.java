@@ -0,0 +1,16 @@
+package com.library.dto;
+
+import com.library.util.IsbnJsonAdapter;
+import jakarta.json.bind.annotation.JsonbTypeAdapter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A book as the in-memory catalog snapshot reads it: the table columns plus the author's ID, for the
+ * author facet, and the last change time, which the snapshot polls as its watermark. The ISBN is the
+ * stored number, written to JSON as its digits.
+ */
+public record BookRow(Long id, Long version, String title, Long authorId, String author, BigDecimal price,
+                      @JsonbTypeAdapter(IsbnJsonAdapter.class) Long isbn, LocalDateTime updatedAt) {
+}
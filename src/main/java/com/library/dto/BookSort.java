@@ -0,0 +1,17 @@
+package com.library.dto;
+
+import java.io.Serializable;
+
+/**
+ * Ordering applied to a page of books: a sort column plus direction, always followed by the ID.
+ */
+public record BookSort(BookSortField field, boolean ascending) implements Serializable {
+
+    public static final BookSort DEFAULT = new BookSort(BookSortField.ID, true);
+
+    public BookSort {
+        if (field == null) {
+            throw new IllegalArgumentException("Sort field is required");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Columns the book table can be ordered by. Every ordering is completed with the ID as a
+ * tie-breaker so that page boundaries are stable and can be used as a keyset cursor.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum BookSortField {
+
+    ID("id", BookDTO::getId),
+    TITLE("title", BookDTO::getTitle),
+    AUTHOR("author", BookDTO::getAuthor),
+    PRICE("price", BookDTO::getPrice);
+
+    private final String attribute;
+    private final Function<BookDTO, ? extends Serializable> extractor;
+
+    public Serializable valueOf(BookDTO book) {
+        return extractor.apply(book);
+    }
+
+    public static Optional<BookSortField> fromAttribute(String attribute) {
+        return Arrays.stream(values())
+                .filter(field -> field.attribute.equals(attribute))
+                .findFirst();
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.dto;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * Outcome of a bulk operation on a list of books.
+ *
+ * @param affected rows changed or deleted
+ * @param skipped  IDs of the books left alone because they changed meanwhile or no longer exist
+ */
+public record BulkResult(int affected, Set<Long> skipped) implements Serializable {
+
+    public BulkResult {
+        skipped = Set.copyOf(skipped);
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Summary of the catalog: totals and price range of all books, the authors with the most books and
+ * the price histogram. Prices and sums are exact; averages are rounded to cents. Min, max and average
+ * are null when there are no books.
+ */
+public record CatalogStats(Group total, List<AuthorGroup> topAuthors, List<PriceBucket> priceBuckets)
+        implements Serializable {
+
+    public record Group(long books, BigDecimal priceSum, BigDecimal averagePrice, BigDecimal minPrice,
+                        BigDecimal maxPrice) implements Serializable {
+
+        public static final Group EMPTY = of(0, BigDecimal.ZERO, null, null);
+
+        public static Group of(long books, BigDecimal priceSum, BigDecimal minPrice, BigDecimal maxPrice) {
+            BigDecimal average = books == 0 ? null : priceSum.divide(BigDecimal.valueOf(books), 2, RoundingMode.HALF_EVEN);
+            return new Group(books, priceSum, average, minPrice, maxPrice);
+        }
+    }
+
+    public record AuthorGroup(String author, Group books) implements Serializable {
+    }
+
+    /**
+     * Books priced from {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    public record PriceBucket(BigDecimal from, BigDecimal to, long books) implements Serializable {
+    }
+}
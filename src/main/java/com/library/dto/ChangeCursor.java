@@ -0,0 +1,48 @@
+package com.library.dto;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the change feed, which lists book changes by {@code updated_at} and deletions by their
+ * tombstone's {@code deleted_at}, merged in time order (a change before a deletion at the same time) and by
+ * book ID within each: the time, the kind and the book ID of the last entry read. {@code issuedAt}
+ * is when the cursor was handed out, which tells whether the tombstones it still needs may have been
+ * purged. Clients treat the encoded form as opaque.
+ */
+public record ChangeCursor(LocalDateTime at, boolean deletion, long id, LocalDateTime issuedAt)
+        implements Serializable {
+
+    /**
+     * Before every change, for a full initial sync.
+     */
+    public static final ChangeCursor START = new ChangeCursor(LocalDateTime.of(1970, 1, 1, 0, 0), false, 0, null);
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String value = String.join(SEPARATOR, at.toString(), deletion ? "d" : "u", Long.toString(id),
+                issuedAt.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code encoded} is not a cursor handed out by the feed
+     */
+    public static ChangeCursor decode(String encoded) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+            if (parts.length != 4 || !(parts[1].equals("u") || parts[1].equals("d"))) {
+                throw new IllegalArgumentException("Malformed change cursor: " + encoded);
+            }
+            return new ChangeCursor(LocalDateTime.parse(parts[0]), parts[1].equals("d"), Long.parseLong(parts[2]),
+                    LocalDateTime.parse(parts[3]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed change cursor: " + encoded, e);
+        }
+    }
+}
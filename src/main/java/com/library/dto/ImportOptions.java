@@ -0,0 +1,28 @@
+package com.library.dto;
+
+import com.library.io.DataFormat;
+import lombok.Builder;
+
+/**
+ * How a bulk import is run.
+ *
+ * @param format         format of the incoming stream
+ * @param chunkSize      rows committed per transaction
+ * @param batchSize      rows per JDBC batch within a chunk
+ * @param upsert         update books whose ISBN is already in the catalog instead of inserting them
+ * @param resumeAfterRow skip data rows up to and including this one, as reported by
+ *                       {@link ImportReport#getLastCommittedRow()} of an interrupted import
+ */
+@Builder(toBuilder = true)
+public record ImportOptions(DataFormat format, int chunkSize, int batchSize, boolean upsert, long resumeAfterRow) {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    public ImportOptions {
+        format = format != null ? format : DataFormat.CSV;
+        chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        resumeAfterRow = Math.max(0, resumeAfterRow);
+    }
+}
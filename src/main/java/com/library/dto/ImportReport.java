@@ -0,0 +1,41 @@
+package com.library.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code lastCommittedRow} is the row to pass as
+ * {@link ImportOptions#resumeAfterRow()} when an import that stopped early is run again.
+ */
+@Data
+public class ImportReport {
+
+    /** Rejections beyond this many are counted but not itemized. */
+    public static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private long lastCommittedRow;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private String failure;
+    private List<RejectedRow> rejections = new ArrayList<>();
+
+    public record RejectedRow(long row, String reason) {
+    }
+
+    public void reject(long row, String reason) {
+        rejected++;
+        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+            rejections.add(new RejectedRow(row, reason));
+        }
+    }
+
+    public boolean isCompleted() {
+        return failure == null;
+    }
+}
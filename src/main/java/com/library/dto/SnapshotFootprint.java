@@ -0,0 +1,19 @@
+package com.library.dto;
+
+import java.io.Serializable;
+
+/**
+ * Estimated heap held by the in-memory catalog snapshot: its primitive columns, sort permutations and
+ * string dictionaries, with compressed object pointers.
+ */
+public record SnapshotFootprint(int books, int titles, int authors, long bytes) implements Serializable {
+
+    public static final SnapshotFootprint EMPTY = new SnapshotFootprint(0, 0, 0, 0);
+
+    /**
+     * The footprint scaled to a catalog of a million books of the same shape; 0 while empty.
+     */
+    public long bytesPerMillionBooks() {
+        return books == 0 ? 0 : Math.round(bytes * (1_000_000.0 / books));
+    }
+}
@@ -0,0 +1,38 @@
+package com.library.event;
+
+import java.util.Set;
+
+/**
+ * Fired by the service layer whenever books are created, updated or deleted. {@code ids} may be empty
+ * when the affected rows are not known, which observers must treat as "anything may have changed".
+ * Observers that keep derived state (caches, counts, pushed views) should observe it with
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)} so they only react to committed data.
+ */
+public record BookChangedEvent(ChangeType type, Set<Long> ids) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public BookChangedEvent {
+        ids = Set.copyOf(ids);
+    }
+
+    public static BookChangedEvent created(Long id) {
+        return new BookChangedEvent(ChangeType.CREATED, idsOf(id));
+    }
+
+    public static BookChangedEvent updated(Long id) {
+        return new BookChangedEvent(ChangeType.UPDATED, idsOf(id));
+    }
+
+    public static BookChangedEvent deleted(Long id) {
+        return new BookChangedEvent(ChangeType.DELETED, idsOf(id));
+    }
+
+    private static Set<Long> idsOf(Long id) {
+        return id == null ? Set.of() : Set.of(id);
+    }
+}
@@ -0,0 +1,33 @@
+package com.library.io;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads books one row at a time from an underlying character stream, the counterpart of
+ * {@link BookWriter}. Rows that cannot be parsed are returned as rejected records rather than
+ * failing the whole stream.
+ */
+public interface BookReader {
+
+    /**
+     * @return the next row, or {@code null} at the end of the stream
+     */
+    ImportRecord next() throws IOException;
+
+    static Long parseLong(String column, String value) {
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + " '" + value + "'");
+        }
+    }
+
+    static BigDecimal parseDecimal(String column, String value) {
+        try {
+            return value == null ? null : new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + " '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+
+import java.io.IOException;
+
+/**
+ * Writes books one at a time to an underlying character stream. Implementations do not buffer
+ * rows, so callers control memory use and flushing.
+ */
+public interface BookWriter {
+
+    /** Columns, in order, of every exported record. */
+    String[] COLUMNS = {"id", "title", "author", "price", "isbn"};
+
+    void writeHeader() throws IOException;
+
+    void write(BookDTO book) throws IOException;
+}
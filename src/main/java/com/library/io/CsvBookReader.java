@@ -0,0 +1,134 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV as written by {@link CsvBookWriter}. The first line names the columns, which may
+ * come in any order; unknown columns are ignored and blank lines skipped. Quoted fields may
+ * contain separators, doubled quotes and line breaks.
+ */
+public class CsvBookReader implements BookReader {
+
+    private final BufferedReader in;
+    private Map<String, Integer> columns;
+    private long row;
+
+    public CsvBookReader(Reader in) {
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        if (columns == null && !readHeader()) {
+            return null;
+        }
+        List<String> fields = readRecord();
+        if (fields == null) {
+            return null;
+        }
+        row++;
+        try {
+            return ImportRecord.parsed(row, toBook(fields));
+        } catch (IllegalArgumentException e) {
+            return ImportRecord.rejected(row, e.getMessage());
+        }
+    }
+
+    private boolean readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            return false;
+        }
+        columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        return true;
+    }
+
+    private BookDTO toBook(List<String> fields) {
+        BookDTO book = new BookDTO();
+        book.setId(BookReader.parseLong("id", field(fields, "id")));
+        book.setVersion(BookReader.parseLong("version", field(fields, "version")));
+        book.setTitle(field(fields, "title"));
+        book.setAuthor(field(fields, "author"));
+        book.setPrice(BookReader.parseDecimal("price", field(fields, "price")));
+        book.setIsbn(field(fields, "isbn"));
+        return book;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    // Returns null at the end of the stream.
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean started = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            in.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    quoted = true;
+                    started = true;
+                }
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    started = true;
+                }
+                case '\r' -> {
+                    // Part of a CRLF line end.
+                }
+                case '\n' -> {
+                    if (started || field.length() > 0) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                }
+                default -> {
+                    field.append((char) c);
+                    started = true;
+                }
+            }
+        }
+        if (!started && field.length() == 0) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RFC 4180 CSV: comma separated, CRLF line endings, fields quoted only when they contain a
+ * separator, a quote or a line break.
+ */
+public class CsvBookWriter implements BookWriter {
+
+    private static final String LINE_END = "\r\n";
+
+    private final Writer out;
+
+    public CsvBookWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        out.write(String.join(",", COLUMNS));
+        out.write(LINE_END);
+    }
+
+    @Override
+    public void write(BookDTO book) throws IOException {
+        out.write(book.getId() != null ? book.getId().toString() : "");
+        out.write(',');
+        writeField(book.getTitle());
+        out.write(',');
+        writeField(book.getAuthor());
+        out.write(',');
+        out.write(book.getPrice() != null ? book.getPrice().toPlainString() : "");
+        out.write(',');
+        writeField(book.getIsbn());
+        out.write(LINE_END);
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
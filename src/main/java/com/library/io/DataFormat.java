@@ -0,0 +1,46 @@
+package com.library.io;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Line-oriented formats the catalog can be streamed in and out. Both hold one book per record, so
+ * neither needs more than the current row in memory.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum DataFormat {
+
+    CSV("text/csv", "csv", CsvBookWriter::new, CsvBookReader::new),
+    NDJSON("application/x-ndjson", "ndjson", NdjsonBookWriter::new, NdjsonBookReader::new);
+
+    private final String contentType;
+    private final String extension;
+    private final Function<Writer, BookWriter> writerFactory;
+    private final Function<Reader, BookReader> readerFactory;
+
+    public BookWriter newWriter(Writer out) {
+        return writerFactory.apply(out);
+    }
+
+    public BookReader newReader(Reader in) {
+        return readerFactory.apply(in);
+    }
+
+    public static Optional<DataFormat> fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return Optional.empty();
+        }
+        String normalized = name.strip().toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equals(normalized))
+                .findFirst();
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+
+/**
+ * One data row of an import, numbered from 1 after any header. Holds either the parsed book or
+ * the reason the row could not be parsed.
+ */
+public record ImportRecord(long row, BookDTO book, String error) {
+
+    public static ImportRecord parsed(long row, BookDTO book) {
+        return new ImportRecord(row, book, null);
+    }
+
+    public static ImportRecord rejected(long row, String error) {
+        return new ImportRecord(row, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Newline-delimited JSON as written by {@link NdjsonBookWriter}: one object per line, blank lines
+ * skipped, unknown properties ignored.
+ */
+public class NdjsonBookReader implements BookReader {
+
+    private final BufferedReader in;
+    private long row;
+
+    public NdjsonBookReader(Reader in) {
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        row++;
+
+        try (JsonReader json = Json.createReader(new StringReader(line))) {
+            return ImportRecord.parsed(row, toBook(json.readObject()));
+        } catch (JsonException | ClassCastException e) {
+            return ImportRecord.rejected(row, "Malformed JSON object");
+        } catch (IllegalArgumentException e) {
+            return ImportRecord.rejected(row, e.getMessage());
+        }
+    }
+
+    private static BookDTO toBook(JsonObject object) {
+        BookDTO book = new BookDTO();
+        book.setId(BookReader.parseLong("id", text(object, "id")));
+        book.setVersion(BookReader.parseLong("version", text(object, "version")));
+        book.setTitle(text(object, "title"));
+        book.setAuthor(text(object, "author"));
+        book.setPrice(BookReader.parseDecimal("price", text(object, "price")));
+        book.setIsbn(text(object, "isbn"));
+        return book;
+    }
+
+    // Numbers and strings are both accepted, e.g. "price": 9.99 as well as "price": "9.99".
+    private static String text(JsonObject object, String name) {
+        JsonValue value = object.get(name);
+        if (value instanceof JsonString string) {
+            return string.getString().isEmpty() ? null : string.getString();
+        }
+        if (value instanceof JsonNumber number) {
+            return number.toString();
+        }
+        return null;
+    }
+}
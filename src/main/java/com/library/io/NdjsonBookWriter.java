@@ -0,0 +1,65 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Newline-delimited JSON: one self-contained object per line and no enclosing array, so consumers
+ * can process the export as a stream too.
+ */
+public class NdjsonBookWriter implements BookWriter {
+
+    private final Writer out;
+
+    public NdjsonBookWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void writeHeader() {
+        // NDJSON has no header; every line names its fields.
+    }
+
+    @Override
+    public void write(BookDTO book) throws IOException {
+        out.write("{\"id\":");
+        out.write(book.getId() != null ? book.getId().toString() : "null");
+        out.write(",\"title\":");
+        writeString(book.getTitle());
+        out.write(",\"author\":");
+        writeString(book.getAuthor());
+        out.write(",\"price\":");
+        out.write(book.getPrice() != null ? book.getPrice().toPlainString() : "null");
+        out.write(",\"isbn\":");
+        writeString(book.getIsbn());
+        out.write("}\n");
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
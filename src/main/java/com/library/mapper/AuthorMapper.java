@@ -0,0 +1,107 @@
+package com.library.mapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.model.Author;
+import com.library.repository.AuthorRepository;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+
+/**
+ * Maps author names to {@link Author} references and back, for {@link BookMapper} and the bulk write paths.
+ * Names resolve to IDs through a bounded cache (size {@code library.authors.cacheSize}, default 10000),
+ * so writing a book of a known author costs no lookup; an ID never changes once assigned, so entries never
+ * go stale. Unknown names become new authors in a transaction of their own.
+ */
+@Slf4j
+@ApplicationScoped
+public class AuthorMapper {
+
+    @Inject
+    private AuthorRepository repository;
+
+    @Inject
+    private ConfigUtil config;
+
+    // Own contextual reference, for create() to run in its own transaction.
+    @Inject
+    private AuthorMapper self;
+
+    private Cache<String, Long> ids;
+    private Cache<Long, String> names;
+
+    @PostConstruct
+    void init() {
+        long maxSize = config.getLong("library.authors.cacheSize", 10_000);
+        ids = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        names = Caffeine.newBuilder().maximumSize(maxSize).build();
+        log.info("Author cache: maxSize={}", maxSize);
+    }
+
+    /**
+     * A reference to the author named {@code name}, created if there is none yet, that sets a book's
+     * foreign key without loading the author.
+     */
+    public Author toReference(String name) {
+        return name == null ? null : repository.reference(resolveId(name));
+    }
+
+    /**
+     * The name of the author, without loading the row when it is only a reference to a known author.
+     */
+    public String toName(Author author) {
+        if (author == null) {
+            return null;
+        }
+        if (!Hibernate.isInitialized(author)) {
+            String name = names.getIfPresent(author.getId());
+            if (name != null) {
+                return name;
+            }
+        }
+        return author.getName();
+    }
+
+    public Long resolveId(String name) {
+        Long id = ids.getIfPresent(name);
+        if (id == null) {
+            id = repository.findIdByName(name).orElseGet(() -> createOrFind(name));
+            ids.put(name, id);
+            names.put(id, name);
+        }
+        return id;
+    }
+
+    /**
+     * Inserts a new author, committed independently of the book being written: a rolled-back book leaves
+     * an author without books behind, which is harmless, and concurrent writers of the same new name wait
+     * on the unique name only for this short insert, not for each other's whole transaction.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Long create(String name) {
+        Author author = new Author(name);
+        repository.insert(author);
+        log.debug("Created author {} with ID {}", name, author.getId());
+        return author.getId();
+    }
+
+    public CacheStats getStats() {
+        return ids.stats();
+    }
+
+    private Long createOrFind(String name) {
+        try {
+            return self.create(name);
+        } catch (PersistenceException e) {
+            // Created by another writer since our lookup; its transaction has committed by now.
+            return repository.findIdByName(name).orElseThrow(() -> e);
+        }
+    }
+}
@@ -2,15 +2,30 @@ package com.library.mapper;
 
 import com.library.dto.BookDTO;
 import com.library.model.Book;
+import com.library.util.Isbn;
+import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 
-@Mapper(componentModel = "cdi")
+// Authors are names in the DTO and references in the entity; AuthorMapper converts between the two.
+// ISBNs are digits in the DTO and numbers in the entity, spelled out since AuthorMapper also maps String to Long.
+@Mapper(componentModel = "cdi", uses = AuthorMapper.class, imports = Isbn.class,
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface BookMapper {
 
+    @Mapping(target = "isbn", expression = "java(Isbn.format(book.getIsbn()))")
     BookDTO toDTO(Book book);
 
+    @Mapping(target = "isbn", expression = "java(Isbn.parse(dto.getIsbn()))")
     Book toEntity(BookDTO dto);
 
+    @Mapping(target = "isbn", expression = "java(Isbn.parse(dto.getIsbn()))")
     void updateEntityFromDTO(BookDTO dto, @MappingTarget Book entity);
+
+    // Copies the book's data but keeps the identity and version of the target, for rows matched by ISBN.
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "isbn", expression = "java(Isbn.parse(dto.getIsbn()))")
+    void copyContent(BookDTO dto, @MappingTarget Book entity);
 }
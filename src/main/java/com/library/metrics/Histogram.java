@@ -0,0 +1,99 @@
+package com.library.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram that many threads record into without locking: one {@link LongAdder} per bucket,
+ * so concurrent recorders mostly touch different cells. Quantiles are estimated by interpolating inside
+ * the bucket they fall into, the same way Prometheus' {@code histogram_quantile} does.
+ */
+public final class Histogram {
+
+    /**
+     * Upper bounds in seconds for request and method latencies, from 100µs to 10s.
+     */
+    public static final double[] LATENCY_SECONDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    /**
+     * Upper bounds for small counts such as statements or rows per request.
+     */
+    public static final double[] COUNTS = {0, 1, 2, 3, 5, 10, 20, 50, 100, 200, 500, 1000, 5000};
+
+    private final double[] bounds;
+    // One more than bounds: the last one is +Inf.
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    public Histogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(double value) {
+        int index = Arrays.binarySearch(bounds, value);
+        // Bounds are inclusive ("le"), so an exact hit belongs to that bucket.
+        buckets[index >= 0 ? index : -index - 1].increment();
+        sum.add(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(bounds, counts, sum.sum());
+    }
+
+    /**
+     * Bucket counts read at one point in time. Concurrent recording may make {@link #sum()} lag or lead the
+     * counts by a few values, which is the usual trade-off of lock-free recorders.
+     */
+    public record Snapshot(double[] bounds, long[] counts, double sum) {
+
+        public long count() {
+            long count = 0;
+            for (long bucket : counts) {
+                count += bucket;
+            }
+            return count;
+        }
+
+        /**
+         * Observations at or below {@code bounds()[i]}, or all of them for {@code i == bounds().length}.
+         */
+        public long cumulativeCount(int i) {
+            long count = 0;
+            for (int j = 0; j <= i; j++) {
+                count += counts[j];
+            }
+            return count;
+        }
+
+        /**
+         * Estimated value below which the fraction {@code q} of observations lie; {@code NaN} when empty.
+         * Falls back to the highest bound when the quantile lands in the +Inf bucket.
+         */
+        public double quantile(double q) {
+            long total = count();
+            if (total == 0) {
+                return Double.NaN;
+            }
+            double rank = q * total;
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                if (counts[i] > 0 && seen + counts[i] >= rank) {
+                    double lower = i == 0 ? Math.min(0, bounds[0]) : bounds[i - 1];
+                    return lower + (bounds[i] - lower) * (rank - seen) / counts[i];
+                }
+                seen += counts[i];
+            }
+            return bounds[bounds.length - 1];
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.library.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory metrics of the application: per-method timings recorded by {@link TimedInterceptor} and
+ * per-request statement and row counts recorded by the {@code MetricsFilter}. Recording is lock-free;
+ * the map lookups are by {@link Method} or by one of a handful of route names, so cardinality stays fixed.
+ */
+@ApplicationScoped
+public class MetricsRegistry {
+
+    private final Map<Method, MethodStats> methods = new ConcurrentHashMap<>();
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    public MethodStats method(Method method) {
+        MethodStats stats = methods.get(method);
+        return stats != null ? stats : methods.computeIfAbsent(method, MethodStats::new);
+    }
+
+    public void recordRequest(String route, long nanos, RequestStats stats) {
+        RouteStats routeStats = routes.get(route);
+        if (routeStats == null) {
+            routeStats = routes.computeIfAbsent(route, key -> new RouteStats());
+        }
+        routeStats.duration.record(nanos / 1e9);
+        routeStats.statements.record(stats.getStatements());
+        routeStats.rows.record(stats.getRows());
+    }
+
+    public void write(PrometheusWriter out) {
+        var byName = methods.values().stream().sorted(Comparator.comparing(MethodStats::getName)).toList();
+
+        out.family("library_method_duration_seconds", "histogram", "Latency of timed service and repository methods");
+        byName.forEach(stats -> out.histogram("library_method_duration_seconds", "method", stats.getName(),
+                stats.latency.snapshot()));
+        out.family("library_method_latency_seconds", "summary", "Latency quantiles of timed methods since startup");
+        byName.forEach(stats -> out.quantiles("library_method_latency_seconds", "method", stats.getName(),
+                stats.latency.snapshot()));
+        out.family("library_method_errors_total", "counter", "Calls of timed methods that threw");
+        byName.forEach(stats -> out.sample("library_method_errors_total", stats.errors.sum(), "method", stats.getName()));
+        out.family("library_method_rows_total", "counter", "Rows returned by timed data access methods");
+        byName.stream()
+                .filter(MethodStats::isCountRows)
+                .forEach(stats -> out.sample("library_method_rows_total", stats.rows.sum(), "method", stats.getName()));
+
+        out.family("library_jpa_statements_total", "counter", "SQL statements prepared by Hibernate");
+        StatementCounter.getCounts().forEach((kind, count) ->
+                out.sample("library_jpa_statements_total", count, "kind", kind.name().toLowerCase(Locale.ROOT)));
+
+        var routeNames = routes.keySet().stream().sorted().toList();
+        out.family("library_request_duration_seconds", "histogram", "HTTP request latency by route");
+        routeNames.forEach(route -> out.histogram("library_request_duration_seconds", "route", route,
+                routes.get(route).duration.snapshot()));
+        out.family("library_request_statements", "histogram", "SQL statements per HTTP request");
+        routeNames.forEach(route -> out.histogram("library_request_statements", "route", route,
+                routes.get(route).statements.snapshot()));
+        out.family("library_request_rows", "histogram", "Rows fetched by timed data access methods per HTTP request");
+        routeNames.forEach(route -> out.histogram("library_request_rows", "route", route,
+                routes.get(route).rows.snapshot()));
+    }
+
+    /**
+     * Timings of one bean method, named {@code SimpleClassName.method}.
+     */
+    public static final class MethodStats {
+
+        @Getter
+        private final String name;
+        @Getter
+        private final boolean countRows;
+        private final Histogram latency = new Histogram(Histogram.LATENCY_SECONDS);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        MethodStats(Method method) {
+            this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            Timed timed = method.getAnnotation(Timed.class);
+            if (timed == null) {
+                timed = method.getDeclaringClass().getAnnotation(Timed.class);
+            }
+            this.countRows = timed != null && timed.countRows();
+        }
+
+        public void record(long nanos, boolean failed) {
+            latency.record(nanos / 1e9);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        public void recordRows(long count) {
+            rows.add(count);
+            RequestStats.countRows(count);
+        }
+
+        public Histogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+    }
+
+    private static final class RouteStats {
+
+        private final Histogram duration = new Histogram(Histogram.LATENCY_SECONDS);
+        private final Histogram statements = new Histogram(Histogram.COUNTS);
+        private final Histogram rows = new Histogram(Histogram.COUNTS);
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.metrics;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Writes metric families in the Prometheus text exposition format (version 0.0.4).
+ */
+public class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PrintWriter out;
+
+    public PrometheusWriter(PrintWriter out) {
+        this.out = out;
+    }
+
+    public PrometheusWriter family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * One sample; {@code labels} alternate between label names and values.
+     */
+    public PrometheusWriter sample(String name, double value, String... labels) {
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * The {@code _bucket}, {@code _sum} and {@code _count} samples of a histogram, labelled {@code label=value}.
+     */
+    public PrometheusWriter histogram(String name, String label, String value, Histogram.Snapshot snapshot) {
+        double[] bounds = snapshot.bounds();
+        for (int i = 0; i <= bounds.length; i++) {
+            String le = i < bounds.length ? format(bounds[i]) : "+Inf";
+            sample(name + "_bucket", snapshot.cumulativeCount(i), label, value, "le", le);
+        }
+        sample(name + "_sum", snapshot.sum(), label, value);
+        return sample(name + "_count", snapshot.count(), label, value);
+    }
+
+    /**
+     * p50, p95 and p99 estimated from a histogram, as the quantiles of a summary.
+     */
+    public PrometheusWriter quantiles(String name, String label, String value, Histogram.Snapshot snapshot) {
+        for (double q : new double[]{0.5, 0.95, 0.99}) {
+            sample(name, snapshot.quantile(q), label, value, "quantile", format(q));
+        }
+        sample(name + "_sum", snapshot.sum(), label, value);
+        return sample(name + "_count", snapshot.count(), label, value);
+    }
+
+    static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%s", value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
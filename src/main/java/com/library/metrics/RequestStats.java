@@ -0,0 +1,77 @@
+package com.library.metrics;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL statements and rows of the HTTP request being handled on this thread. Bound by the
+ * {@code MetricsFilter} and carried over to executor threads with {@link #propagate}, so async handlers
+ * and counts running next to a page query still add to their request.
+ */
+public final class RequestStats {
+
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    public static RequestStats begin() {
+        RequestStats stats = new RequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static Optional<RequestStats> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Wraps {@code work} so that it adds to the calling thread's request, wherever it runs.
+     */
+    public static <T> Callable<T> propagate(Callable<T> work) {
+        RequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return work;
+        }
+        return () -> {
+            RequestStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                return work.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void countStatement() {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements.increment();
+        }
+    }
+
+    static void countRows(long count) {
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows.add(count);
+        }
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+}
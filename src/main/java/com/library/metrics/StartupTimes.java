@@ -0,0 +1,75 @@
+package com.library.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Milestones of the application's startup, measured from the start of the JVM: deployed (the application
+ * scope is initialized), ready (the warm-up has finished, at once when there is none) and the first request
+ * served after that, with how long that request took.
+ */
+@ApplicationScoped
+public class StartupTimes {
+
+    // Uptime of the JVM, in milliseconds, at each milestone; -1 until reached.
+    private volatile long deployedMillis = -1;
+    private volatile long readyMillis = -1;
+    private volatile long firstRequestMillis = -1;
+    private volatile long firstRequestNanos = -1;
+    private volatile long warmupNanos = -1;
+    private final AtomicBoolean firstRequest = new AtomicBoolean();
+
+    public void deployed() {
+        deployedMillis = uptimeMillis();
+    }
+
+    /**
+     * @param warmupNanos how long the warm-up took, 0 when there was none
+     */
+    public void ready(long warmupNanos) {
+        this.warmupNanos = warmupNanos;
+        readyMillis = uptimeMillis();
+    }
+
+    public boolean isReady() {
+        return readyMillis >= 0;
+    }
+
+    /**
+     * Counts the request if it is the first one to complete since the application is ready.
+     */
+    public void recordRequest(long nanos) {
+        if (isReady() && !firstRequest.get() && firstRequest.compareAndSet(false, true)) {
+            firstRequestNanos = nanos;
+            firstRequestMillis = uptimeMillis();
+        }
+    }
+
+    public void write(PrometheusWriter out) {
+        out.family("library_startup_seconds", "gauge", "Time from the start of the JVM to each startup milestone");
+        sample(out, "deployed", deployedMillis);
+        sample(out, "ready", readyMillis);
+        sample(out, "first_request", firstRequestMillis);
+        if (warmupNanos >= 0) {
+            out.family("library_startup_warmup_seconds", "gauge", "Duration of the warm-up before readiness")
+                    .sample("library_startup_warmup_seconds", warmupNanos / 1e9);
+        }
+        if (firstRequestNanos >= 0) {
+            out.family("library_startup_first_request_duration_seconds", "gauge",
+                            "Latency of the first request served after startup")
+                    .sample("library_startup_first_request_duration_seconds", firstRequestNanos / 1e9);
+        }
+    }
+
+    private static void sample(PrometheusWriter out, String milestone, long millis) {
+        if (millis >= 0) {
+            out.sample("library_startup_seconds", millis / 1000.0, "milestone", milestone);
+        }
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -0,0 +1,62 @@
+package com.library.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts every SQL statement Hibernate prepares, by kind, and adds it to the current {@link RequestStats}.
+ * Registered through {@code hibernate.session_factory.statement_inspector}; Hibernate instantiates it
+ * itself, outside of CDI, hence the static counters. It sees the SQL text only, so a JDBC batch of 50
+ * inserts counts once.
+ */
+public class StatementCounter implements StatementInspector {
+
+    public enum Kind {
+        SELECT,
+        INSERT,
+        UPDATE,
+        DELETE,
+        OTHER
+    }
+
+    private static final Map<Kind, LongAdder> COUNTS = new EnumMap<>(Kind.class);
+
+    static {
+        for (Kind kind : Kind.values()) {
+            COUNTS.put(kind, new LongAdder());
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNTS.get(kindOf(sql)).increment();
+        RequestStats.countStatement();
+        return sql;
+    }
+
+    public static Map<Kind, Long> getCounts() {
+        Map<Kind, Long> snapshot = new EnumMap<>(Kind.class);
+        COUNTS.forEach((kind, count) -> snapshot.put(kind, count.sum()));
+        return snapshot;
+    }
+
+    static Kind kindOf(String sql) {
+        String statement = sql.stripLeading();
+        // The first keyword decides; this application only puts common table expressions in front of selects.
+        int end = 0;
+        while (end < statement.length() && Character.isLetter(statement.charAt(end))) {
+            end++;
+        }
+        return switch (statement.substring(0, end).toLowerCase(Locale.ROOT)) {
+            case "select", "with" -> Kind.SELECT;
+            case "insert" -> Kind.INSERT;
+            case "update" -> Kind.UPDATE;
+            case "delete" -> Kind.DELETE;
+            default -> Kind.OTHER;
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.metrics;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records calls, failures and latency of the annotated bean methods (or all business methods of an
+ * annotated bean) into the {@link MetricsRegistry}, see {@link TimedInterceptor}.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Timed {
+
+    /**
+     * Also count the rows returned as a {@code Collection} or {@code Optional}, for data access methods.
+     * Stream results are not counted, they are consumed after the method returned.
+     */
+    @Nonbinding
+    boolean countRows() default false;
+}
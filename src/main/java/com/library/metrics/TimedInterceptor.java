@@ -0,0 +1,50 @@
+package com.library.metrics;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Times {@link Timed} methods: two {@code nanoTime} calls and a few lock-free increments per call,
+ * cheap enough to stay on in production.
+ */
+@Timed
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class TimedInterceptor {
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @AroundInvoke
+    public Object time(InvocationContext context) throws Exception {
+        MetricsRegistry.MethodStats stats = registry.method(context.getMethod());
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = context.proceed();
+            failed = false;
+            if (stats.isCountRows()) {
+                stats.recordRows(rowsOf(result));
+            }
+            return result;
+        } finally {
+            stats.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> rows) {
+            return rows.size();
+        }
+        if (result instanceof Optional<?> row) {
+            return row.isPresent() ? 1 : 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * An author name, stored once and referenced by ID from every book of the author. Authors are never
+ * renamed or deleted, so a name resolves to the same ID for the lifetime of the database; authors whose
+ * last book is gone simply stay behind.
+ */
+@Entity
+@Table(name = "authors", uniqueConstraints = @UniqueConstraint(name = "uk_authors_name", columnNames = "name"))
+@NamedQuery(name = Author.FIND_ID_BY_NAME, query = "SELECT a.id FROM Author a WHERE a.name = :name")
+@NamedQuery(name = Author.FIND_NAME_BY_ID, query = "SELECT a.name FROM Author a WHERE a.id = :id")
+@Data
+@NoArgsConstructor
+public class Author implements Serializable {
+
+    public static final String FIND_ID_BY_NAME = "Author.findIdByName";
+    public static final String FIND_NAME_BY_ID = "Author.findNameById";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authors_seq")
+    @SequenceGenerator(name = "authors_seq", sequenceName = "authors_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, updatable = false)
+    private String name;
+
+    public Author(String name) {
+        this.name = name;
+    }
+}
@@ -1,18 +1,101 @@
 package com.library.model;
 
+import com.library.dto.BookDTO;
+import com.library.util.ValidIsbn;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.math.BigDecimal;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", uniqueConstraints = {
+        // Also the ISBN index: lookups, duplicate checks and prefix ranges of the number.
+        @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn")
+}, indexes = {
+        // (sort column, id) pairs back both ORDER BY and keyset seeks of the lazy table.
+        @Index(name = "idx_books_title_id", columnList = "title, id"),
+        // Also the foreign key index: books of one author, and their facet filter, without a scan.
+        @Index(name = "idx_books_author_id", columnList = "author_id, id"),
+        @Index(name = "idx_books_price_id", columnList = "price, id"),
+        // Watermark polls of the in-memory catalog snapshot and keyset reads of the change feed.
+        @Index(name = "idx_books_updated_at_id", columnList = "updated_at, id")
+})
+// Native queries (full-text search) read straight into the DTO, like the JPQL projections do.
+@SqlResultSetMapping(name = Book.DTO_MAPPING, classes = @ConstructorResult(targetClass = BookDTO.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "version", type = Long.class),
+        @ColumnResult(name = "title", type = String.class),
+        @ColumnResult(name = "author", type = String.class),
+        @ColumnResult(name = "price", type = BigDecimal.class),
+        @ColumnResult(name = "isbn", type = String.class)
+}))
+// The queries of BookRepository, compiled and checked against the mapping when the persistence unit starts.
+@NamedQuery(name = Book.FIND_ALL, query = Book.DTO_SELECT + " ORDER BY b.id")
+@NamedQuery(name = Book.FIND_DTO_BY_ID, query = Book.DTO_SELECT + " WHERE b.id = :id")
+@NamedQuery(name = Book.FIND_VERSION_BY_ID, query = "SELECT b.version FROM Book b WHERE b.id = :id")
+@NamedQuery(name = Book.FIND_ALL_ROWS, query = Book.ROW_SELECT + " ORDER BY b.id")
+@NamedQuery(name = Book.FIND_ROWS_CHANGED_SINCE, query = Book.ROW_SELECT + " WHERE b.updatedAt > :since ORDER BY b.id")
+@NamedQuery(name = Book.FIND_ROWS_CHANGED_AFTER, query = Book.ROW_SELECT + " WHERE (b.updatedAt > :changedAt"
+        + " OR (b.updatedAt = :changedAt AND b.id > :afterId)) AND b.updatedAt < :before ORDER BY b.updatedAt, b.id")
+@NamedQuery(name = Book.FIND_ROWS_BY_IDS, query = Book.ROW_SELECT + " WHERE b.id IN :ids ORDER BY b.id")
+@NamedQuery(name = Book.FIND_ALL_IDS, query = "SELECT b.id FROM Book b ORDER BY b.id")
+@NamedQuery(name = Book.FIND_ID_BY_ISBN, query = "SELECT b.id FROM Book b WHERE b.isbn = :isbn")
+@NamedQuery(name = Book.FIND_DTO_BY_ISBN, query = Book.DTO_SELECT + " WHERE b.isbn = :isbn")
+@NamedQuery(name = Book.FIND_ISBNS_IN, query = "SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+@NamedQuery(name = Book.FIND_ALL_ISBNS, query = "SELECT b.isbn FROM Book b WHERE b.isbn IS NOT NULL")
+@NamedQuery(name = Book.FIND_ISBNS_CHANGED_SINCE, query = "SELECT b.isbn FROM Book b"
+        + " WHERE b.updatedAt > :since AND b.isbn IS NOT NULL")
+@NamedQuery(name = Book.FIND_BY_ISBNS, query = "SELECT b FROM Book b WHERE b.isbn IN :isbns")
+@NamedQuery(name = Book.UPDATE_IF_VERSION, query = "UPDATE Book b SET b.title = :title, b.author = :author,"
+        + " b.price = :price, b.isbn = :isbn, b.version = b.version + 1, b.updatedAt = :updatedAt"
+        + " WHERE b.id = :id AND b.version = :version")
+@NamedQuery(name = Book.DELETE_BY_IDS, query = "DELETE FROM Book b WHERE b.id IN :ids")
+@NamedQuery(name = Book.DELETE_IF_VERSION, query = "DELETE FROM Book b WHERE b.id = :id AND b.version = :version")
+@NamedNativeQuery(name = Book.ESTIMATE_COUNT, query = "SELECT reltuples::bigint FROM pg_class WHERE oid = 'books'::regclass")
 @Data
 @EqualsAndHashCode(callSuper = false)
 public class Book extends BaseEntity {
 
+    public static final String DTO_MAPPING = "Book.dto";
+    // Unique index on the ISBN; named in the constraint violation of a duplicate.
+    public static final String ISBN_CONSTRAINT = "uk_books_isbn";
+
+    public static final String FIND_ALL = "Book.findAll";
+    public static final String FIND_DTO_BY_ID = "Book.findDtoById";
+    public static final String FIND_VERSION_BY_ID = "Book.findVersionById";
+    public static final String FIND_ALL_ROWS = "Book.findAllRows";
+    public static final String FIND_ROWS_CHANGED_SINCE = "Book.findRowsChangedSince";
+    public static final String FIND_ROWS_CHANGED_AFTER = "Book.findRowsChangedAfter";
+    public static final String FIND_ROWS_BY_IDS = "Book.findRowsByIds";
+    public static final String FIND_ALL_IDS = "Book.findAllIds";
+    public static final String FIND_ID_BY_ISBN = "Book.findIdByIsbn";
+    public static final String FIND_DTO_BY_ISBN = "Book.findDtoByIsbn";
+    public static final String FIND_ISBNS_IN = "Book.findIsbnsIn";
+    public static final String FIND_ALL_ISBNS = "Book.findAllIsbns";
+    public static final String FIND_ISBNS_CHANGED_SINCE = "Book.findIsbnsChangedSince";
+    public static final String FIND_BY_ISBNS = "Book.findByIsbns";
+    public static final String UPDATE_IF_VERSION = "Book.updateIfVersion";
+    public static final String DELETE_BY_IDS = "Book.deleteByIds";
+    public static final String DELETE_IF_VERSION = "Book.deleteIfVersion";
+    // PostgreSQL's planner estimate of the row count, from the last ANALYZE.
+    public static final String ESTIMATE_COUNT = "Book.estimateCount";
+
+    // Matches the BookDTO all-args constructor, which takes the ISBN as its digits.
+    static final String DTO_SELECT = "SELECT new com.library.dto.BookDTO(b.id, b.version, b.title, b.author.name,"
+            + " b.price, CAST(b.isbn AS String)) FROM Book b";
+
+    // Matches the BookRow constructor; the in-memory snapshot's view of a book.
+    static final String ROW_SELECT = "SELECT new com.library.dto.BookRow(b.id, b.version, b.title, a.id, a.name,"
+            + " b.price, b.isbn, b.updatedAt) FROM Book b JOIN b.author a";
+
+    // Pooled sequence: IDs are handed out 50 at a time without a round trip per insert, which
+    // also lets Hibernate batch inserts (IDENTITY columns force one INSERT per statement).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -20,13 +103,21 @@ public class Book extends BaseEntity {
     @Column(nullable = false)
     private String title;
 
-    @NotBlank(message = "Author is required")
-    private String author;
+    // Left out of equals/hashCode/toString, which would otherwise load the author of a lazy reference.
+    @NotNull(message = "Author is required")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "author_id", nullable = false, foreignKey = @ForeignKey(name = "fk_books_author"))
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Author author;
 
     @NotNull(message = "Price is required")
     @Min(value = 0, message = "Price cannot be negative")
-    private Double price;
+    @Digits(integer = 10, fraction = 2, message = "Price must have at most 2 decimals")
+    @Column(precision = 12, scale = 2)
+    private BigDecimal price;
 
-    @Pattern(regexp = "\\d{13}", message = "ISBN must be exactly 13 digits")
-    private String isbn;
+    // The 13 digits as a number: 8 bytes in the row and the index instead of a 14-byte string.
+    @ValidIsbn
+    private Long isbn;
 }
@@ -0,0 +1,117 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * One summary row of the catalog: the books of the whole catalog, of one author or of one price
+ * bucket, with their price sum and range. The {@code books} triggers record every write as a
+ * {@link BookStatDelta}, which {@code BookStatsService} folds into these rows shortly after it
+ * commits; its periodic reconciliation rebuilds the rows that drifted.
+ */
+@Entity
+@Table(name = "book_stats", indexes = {
+        // Authors by number of books, without sorting every author.
+        @Index(name = "idx_book_stats_count", columnList = "dimension, book_count")
+})
+@IdClass(BookStat.Key.class)
+@NamedQuery(name = BookStat.FIND_ALL, query = "SELECT s FROM BookStat s")
+@NamedQuery(name = BookStat.FIND_BY_DIMENSION, query = "SELECT s FROM BookStat s WHERE s.dimension = :dimension")
+@NamedQuery(name = BookStat.FIND_TOP, query = "SELECT s FROM BookStat s WHERE s.dimension = :dimension"
+        + " ORDER BY s.bookCount DESC, s.groupKey")
+@NamedQuery(name = BookStat.FIND_AUTHOR_FACETS, query = "SELECT new com.library.dto.AuthorFacet(a.id, a.name, s.bookCount)"
+        + " FROM BookStat s JOIN Author a ON a.name = s.groupKey WHERE s.dimension = :dimension"
+        + " ORDER BY s.bookCount DESC, s.groupKey")
+@NamedQuery(name = BookStat.COUNT_BY_AUTHOR_ID, query = "SELECT s.bookCount FROM BookStat s JOIN Author a"
+        + " ON a.name = s.groupKey WHERE s.dimension = :dimension AND a.id = :authorId")
+// What the rows should hold, aggregated from the books: count, price sum, min and max.
+@NamedQuery(name = BookStat.COMPUTE_TOTAL, query = "SELECT " + BookStat.AGGREGATES + " FROM Book b")
+@NamedQuery(name = BookStat.COMPUTE_AUTHORS, query = "SELECT a.name, " + BookStat.AGGREGATES
+        + " FROM Book b JOIN b.author a GROUP BY a.name")
+@NamedQuery(name = BookStat.COMPUTE_PRICE_BUCKETS, query = "SELECT " + BookStat.PRICE_BUCKET + ", " + BookStat.AGGREGATES
+        + " FROM Book b GROUP BY " + BookStat.PRICE_BUCKET)
+// One group's aggregates, with the number, count and sum of its deltas not folded yet in the same statement.
+@NamedQuery(name = BookStat.COMPUTE_TOTAL_PENDING, query = "SELECT " + BookStat.AGGREGATES + ", " + BookStat.PENDING
+        + " FROM Book b")
+@NamedQuery(name = BookStat.COMPUTE_AUTHOR, query = "SELECT " + BookStat.AGGREGATES + ", " + BookStat.PENDING
+        + " FROM Book b WHERE b.author.name = :groupKey")
+@NamedQuery(name = BookStat.COMPUTE_PRICE_BUCKET, query = "SELECT " + BookStat.AGGREGATES + ", " + BookStat.PENDING
+        + " FROM Book b WHERE b.price >= :from AND b.price < :to")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookStat implements Serializable {
+
+    /**
+     * Width of a price bucket; the triggers use the same width.
+     */
+    public static final BigDecimal PRICE_BUCKET_WIDTH = BigDecimal.TEN;
+
+    public static final String FIND_ALL = "BookStat.findAll";
+    public static final String FIND_BY_DIMENSION = "BookStat.findByDimension";
+    public static final String FIND_TOP = "BookStat.findTop";
+    public static final String FIND_AUTHOR_FACETS = "BookStat.findAuthorFacets";
+    public static final String COUNT_BY_AUTHOR_ID = "BookStat.countByAuthorId";
+    public static final String COMPUTE_TOTAL = "BookStat.computeTotal";
+    public static final String COMPUTE_AUTHORS = "BookStat.computeAuthors";
+    public static final String COMPUTE_PRICE_BUCKETS = "BookStat.computePriceBuckets";
+    public static final String COMPUTE_TOTAL_PENDING = "BookStat.computeTotalPending";
+    public static final String COMPUTE_AUTHOR = "BookStat.computeAuthor";
+    public static final String COMPUTE_PRICE_BUCKET = "BookStat.computePriceBucket";
+
+    static final String AGGREGATES = "COUNT(b), SUM(b.price), MIN(b.price), MAX(b.price)";
+    static final String PENDING = "(SELECT COUNT(d) FROM BookStatDelta d" + BookStat.PENDING_GROUP + "), "
+            + "(SELECT COALESCE(SUM(d.bookCount), 0) FROM BookStatDelta d" + BookStat.PENDING_GROUP + "), "
+            + "(SELECT COALESCE(SUM(d.priceSum), 0) FROM BookStatDelta d" + BookStat.PENDING_GROUP + ")";
+    static final String PENDING_GROUP = " WHERE d.dimension = :dimension AND d.groupKey = :groupKey";
+    // Divides by PRICE_BUCKET_WIDTH, which annotations cannot refer to.
+    static final String PRICE_BUCKET = "FLOOR(b.price / 10)";
+
+    public enum Dimension {
+        /** The single row over all books, keyed {@code ""}. */
+        TOTAL,
+        /** One row per author, keyed by the author. */
+        AUTHOR,
+        /** One row per price bucket, keyed by its lower bound, e.g. {@code "20"} for 20.00 to 29.99. */
+        PRICE
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Dimension dimension;
+
+    @Id
+    @Column(name = "group_key")
+    private String groupKey;
+
+    @Column(name = "book_count", nullable = false)
+    private long bookCount;
+
+    @Column(name = "price_sum", precision = 20, scale = 2, nullable = false)
+    private BigDecimal priceSum;
+
+    // Null while the group has no books (only the TOTAL row outlives its books).
+    @Column(name = "min_price", precision = 12, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 12, scale = 2)
+    private BigDecimal maxPrice;
+
+    public static String priceBucketKey(BigDecimal price) {
+        return price.divideToIntegralValue(PRICE_BUCKET_WIDTH).multiply(PRICE_BUCKET_WIDTH).toBigInteger().toString();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Dimension dimension;
+        private String groupKey;
+    }
+}
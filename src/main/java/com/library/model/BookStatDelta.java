@@ -0,0 +1,63 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * What one statement changed in one {@link BookStat} group, not folded into it yet. Appended by the
+ * {@code books} triggers of {@code db/migration/V4.sql} in the writing transaction instead of updating the
+ * summary row itself, so concurrent writers never wait for each other on a summary row; folded into the
+ * rows and deleted by {@code BookStatsService}. A removal has a negative count and sum, and the min and max
+ * of the prices it removed.
+ */
+@Entity
+@Table(name = "book_stats_delta", indexes = {
+        // The pending deltas of one group, read by reconciliation.
+        @Index(name = "idx_book_stats_delta_group", columnList = "dimension, group_key")
+})
+@NamedQuery(name = BookStatDelta.FIND_PENDING, query = "SELECT d FROM BookStatDelta d ORDER BY d.id")
+@NamedQuery(name = BookStatDelta.DELETE_BY_IDS, query = "DELETE FROM BookStatDelta d WHERE d.id IN :ids")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookStatDelta implements Serializable {
+
+    public static final String FIND_PENDING = "BookStatDelta.findPending";
+    public static final String DELETE_BY_IDS = "BookStatDelta.deleteByIds";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10, nullable = false)
+    private BookStat.Dimension dimension;
+
+    @Column(name = "group_key", nullable = false)
+    private String groupKey;
+
+    @Column(name = "book_count", nullable = false)
+    private long bookCount;
+
+    @Column(name = "price_sum", precision = 20, scale = 2, nullable = false)
+    private BigDecimal priceSum;
+
+    @Column(name = "min_price", precision = 12, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 12, scale = 2)
+    private BigDecimal maxPrice;
+
+    public BookStat.Key key() {
+        return new BookStat.Key(dimension, groupKey);
+    }
+
+    public boolean isRemoval() {
+        return bookCount < 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted book for the change feed, which otherwise has no row left to report. Written by every
+ * delete of {@code BookRepository} in the deleting transaction, and purged once older than
+ * {@code library.changes.tombstoneRetentionDays}. Book IDs come from a sequence and are never reused, so
+ * a book has at most one tombstone, and it is final.
+ */
+@Entity
+@Table(name = "book_tombstones", indexes = {
+        // Keyset reads of the change feed, in (deleted_at, book_id) order, and the purge of old tombstones.
+        @Index(name = "idx_book_tombstones_deleted_at_book_id", columnList = "deleted_at, book_id")
+})
+@NamedQuery(name = BookTombstone.FIND_AFTER, query = "SELECT t FROM BookTombstone t WHERE (t.deletedAt > :deletedAt"
+        + " OR (t.deletedAt = :deletedAt AND t.bookId > :afterId)) AND t.deletedAt < :before ORDER BY t.deletedAt, t.bookId")
+@NamedQuery(name = BookTombstone.FIND_DELETIONS_SINCE, query = "SELECT new com.library.dto.BookDeletion(t.bookId,"
+        + " t.deletedAt) FROM BookTombstone t WHERE t.deletedAt > :since")
+@NamedQuery(name = BookTombstone.DELETE_BEFORE, query = "DELETE FROM BookTombstone t WHERE t.deletedAt < :cutoff")
+@Data
+@NoArgsConstructor
+public class BookTombstone implements Serializable {
+
+    public static final String FIND_AFTER = "BookTombstone.findAfter";
+    public static final String FIND_DELETIONS_SINCE = "BookTombstone.findDeletionsSince";
+    public static final String DELETE_BEFORE = "BookTombstone.deleteBefore";
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "deleted_at", nullable = false, updatable = false)
+    private LocalDateTime deletedAt;
+
+    public BookTombstone(Long bookId, LocalDateTime deletedAt) {
+        this.bookId = bookId;
+        this.deletedAt = deletedAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.repository;
+
+import com.library.metrics.Timed;
+import com.library.model.Author;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Optional;
+
+@Slf4j
+@ApplicationScoped
+@Timed(countRows = true)
+public class AuthorRepository {
+
+    @Inject
+    private EntityManager em;
+
+    public Optional<Long> findIdByName(String name) {
+        log.debug("Finding author ID by name: {}", name);
+        return em.createNamedQuery(Author.FIND_ID_BY_NAME, Long.class)
+                .setParameter("name", name)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public Optional<String> findNameById(Long id) {
+        return em.createNamedQuery(Author.FIND_NAME_BY_ID, String.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * A reference to the author for setting a book's foreign key, without loading the row.
+     */
+    public Author reference(Long id) {
+        return em.getReference(Author.class, id);
+    }
+
+    /**
+     * Inserts the author right away, so that a name taken meanwhile fails here rather than at commit.
+     */
+    public void insert(Author author) {
+        log.debug("Persisting new author: {}", author.getName());
+        em.persist(author);
+        em.flush();
+    }
+}
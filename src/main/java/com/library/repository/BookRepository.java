@@ -1,15 +1,59 @@
 package com.library.repository;
 
+import com.library.dto.BookCursor;
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookPatch;
+import com.library.dto.BookPriceChange;
+import com.library.dto.BookQuery;
+import com.library.dto.BookRef;
+import com.library.dto.BookRow;
+import com.library.dto.BookSortField;
+import com.library.metrics.Timed;
+import com.library.model.Author;
 import com.library.model.Book;
+import com.library.model.BookTombstone;
+import com.library.util.Isbn;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
 
 @Slf4j
 @ApplicationScoped
+@Timed(countRows = true)
 /*
 In modern Jakarta EE (CDI), using @ApplicationScoped for Services and Repositories is the standard "best practice" for Stateless components.
 Here is why:
@@ -37,25 +81,202 @@ In summary: We use @ApplicationScoped because it is the most efficient (memory/C
         */
 public class BookRepository {
 
-    @PersistenceContext(unitName = "libraryPU")
+    private static final char LIKE_ESCAPE = '\\';
+
+    private static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+    private static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+
+    // Native queries read the author's name through the foreign key.
+    private static final String SEARCH_FROM = "books b JOIN authors a ON a.id = b.author_id";
+
+    // Ranked search: words matched by prefix against the GIN-indexed search_vector (title and author name,
+    // see db/migration/V2.sql); trigram word similarity on the lower-cased names (also GIN-indexed) catches
+    // misspellings.
+    private static final String WORD_MATCH = "b.search_vector @@ to_tsquery('simple', :tsquery)";
+    private static final String WORD_RANK = "ts_rank(b.search_vector, to_tsquery('simple', :tsquery))";
+    private static final String FUZZY_MATCH = "(:term <% lower(b.title) OR :term <% lower(a.name))";
+    private static final String FUZZY_RANK = "greatest(word_similarity(:term, lower(b.title)), word_similarity(:term, lower(a.name)))";
+
+    // Bulk statements on the raw connection; the ones taking a BookRef end in "id = ?", see executeForEach.
+    private static final String UPDATE_PRICE =
+            "UPDATE books SET price = ?, version = version + 1, updated_at = ? WHERE id = ? AND version = ?";
+    private static final String DELETE_BOOK = "DELETE FROM books WHERE id = ?";
+    private static final String ADJUST_PRICE = "UPDATE books SET price = CAST(price * ? AS DECIMAL(12, 2)),"
+            + " version = version + 1, updated_at = ? WHERE id = ?";
+    private static final int BULK_BATCH_SIZE = 500;
+
+    // The primary's transaction-scoped entity manager, or the replica's during @ReadOnly work; see ReplicaRouter.
+    @Inject
     private EntityManager em;
 
-    public List<Book> findAll() {
+    /**
+     * Every book, projected straight into {@link BookDTO}: read paths never attach entities to the
+     * persistence context, so there are no dirty-checking snapshots and no mapping step.
+     */
+    public List<BookDTO> findAll() {
         log.debug("Querying all books from database");
-        return em.createQuery("SELECT b FROM Book b", Book.class).getResultList();
+        return em.createNamedQuery(Book.FIND_ALL, BookDTO.class)
+                .getResultList();
+    }
+
+    /**
+     * Streams every book in ID order without materializing the result: rows are fetched from the
+     * driver {@code fetchSize} at a time. Must be consumed, and closed, inside a transaction, which
+     * is also what makes the PostgreSQL driver honour the fetch size instead of loading everything.
+     */
+    public Stream<BookDTO> streamAll(int fetchSize) {
+        log.debug("Streaming all books: fetchSize={}", fetchSize);
+        return em.createNamedQuery(Book.FIND_ALL, BookDTO.class)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * Every book as a {@link BookRow}, streamed in ID order like {@link #streamAll}.
+     */
+    public Stream<BookRow> streamRows(int fetchSize) {
+        log.debug("Streaming all book rows: fetchSize={}", fetchSize);
+        return em.createNamedQuery(Book.FIND_ALL_ROWS, BookRow.class)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * Books changed after {@code since}, from the {@code updated_at} index.
+     */
+    public List<BookRow> findRowsChangedSince(LocalDateTime since) {
+        log.debug("Querying book rows changed since {}", since);
+        return em.createNamedQuery(Book.FIND_ROWS_CHANGED_SINCE, BookRow.class)
+                .setParameter("since", since)
+                .getResultList();
+    }
+
+    /**
+     * Up to {@code limit} books changed after the position {@code (changedAt, afterId)} and before
+     * {@code before}, in {@code (updated_at, id)} order, from the index on those columns.
+     */
+    public List<BookRow> findRowsChangedAfter(LocalDateTime changedAt, long afterId, LocalDateTime before, int limit) {
+        log.debug("Querying book rows changed after ({}, {}) and before {}", changedAt, afterId, before);
+        return em.createNamedQuery(Book.FIND_ROWS_CHANGED_AFTER, BookRow.class)
+                .setParameter("changedAt", changedAt)
+                .setParameter("afterId", afterId)
+                .setParameter("before", before)
+                .setHint(HINT_READ_ONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<BookRow> findRowsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return em.createNamedQuery(Book.FIND_ROWS_BY_IDS, BookRow.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * Every book ID in ascending order, streamed from the primary key index.
+     */
+    public Stream<Long> streamIds(int fetchSize) {
+        return em.createNamedQuery(Book.FIND_ALL_IDS, Long.class)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    /**
+     * Detaches everything loaded so far, for long-running reads that must not let the persistence
+     * context grow with the number of rows processed.
+     */
+    public void clear() {
+        em.clear();
     }
 
-    public List<Book> findRange(int first, int pageSize) {
-        log.debug("Querying books range: first={}, pageSize={}", first, pageSize);
-        return em.createQuery("SELECT b FROM Book b", Book.class)
+    /**
+     * Offset pagination, projected into {@link BookDTO}. The database still has to walk past
+     * {@code first} rows, so this is only meant for the first page and for random page jumps;
+     * sequential paging uses {@link #findAfter} / {@link #findBefore}.
+     */
+    public List<BookDTO> findRange(BookQuery query, int first, int pageSize) {
+        log.debug("Querying books range: first={}, pageSize={}, query={}", first, pageSize, query);
+        if (query.filter().hasSearch()) {
+            return search(query.filter(), first, pageSize);
+        }
+        return em.createQuery(select(query, null, false))
                 .setFirstResult(first)
                 .setMaxResults(pageSize)
                 .getResultList();
     }
 
-    public int count() {
-        log.debug("Counting all books");
-        return ((Number) em.createQuery("SELECT COUNT(b) FROM Book b").getSingleResult()).intValue();
+    /**
+     * Keyset pagination: the page of books that directly follows {@code cursor} in the given order.
+     * Cost is independent of how deep the page is.
+     */
+    public List<BookDTO> findAfter(BookQuery query, BookCursor cursor, int pageSize) {
+        log.debug("Seeking books after {}: pageSize={}, query={}", cursor, pageSize, query);
+        return em.createQuery(select(query, cursor, false))
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    /**
+     * Keyset pagination: the page of books that directly precedes {@code cursor} in the given order,
+     * returned in that order.
+     */
+    public List<BookDTO> findBefore(BookQuery query, BookCursor cursor, int pageSize) {
+        log.debug("Seeking books before {}: pageSize={}, query={}", cursor, pageSize, query);
+        List<BookDTO> page = new ArrayList<>(em.createQuery(select(query, cursor, true))
+                .setMaxResults(pageSize)
+                .getResultList());
+        Collections.reverse(page);
+        return page;
+    }
+
+    public int count(BookFilter filter) {
+        log.debug("Counting books matching {}", filter);
+        if (filter.hasSearch()) {
+            return countSearch(filter);
+        }
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Book> book = cq.from(Book.class);
+        cq.select(cb.count(book)).where(restrictions(cb, cq, book, filter).toArray(Predicate[]::new));
+        return em.createQuery(cq).getSingleResult().intValue();
+    }
+
+    /**
+     * Full-text search over title and author, best matches first, with a fuzzy fallback for misspellings.
+     * Ranked results have no stable sort key to seek from, so they are paged by offset.
+     */
+    @SuppressWarnings("unchecked")
+    public List<BookDTO> search(BookFilter filter, int first, int pageSize) {
+        log.debug("Searching books: first={}, pageSize={}, filter={}", first, pageSize, filter);
+        SearchMatch match = searchMatch(filter);
+        Query query = em.createNativeQuery("SELECT b.id, b.version, b.title, a.name AS author, b.price, CAST(b.isbn AS varchar) AS isbn FROM "
+                + SEARCH_FROM + " WHERE " + match.where() + " ORDER BY " + match.rank() + " DESC, b.id", Book.DTO_MAPPING);
+        match.parameters().forEach(query::setParameter);
+        return query.setFirstResult(first)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    public int countSearch(BookFilter filter) {
+        SearchMatch match = searchMatch(filter);
+        Query query = em.createNativeQuery("SELECT count(*) FROM " + SEARCH_FROM + " WHERE " + match.where());
+        match.parameters().forEach(query::setParameter);
+        return ((Number) query.getSingleResult()).intValue();
+    }
+
+    /**
+     * Row count of the books table as last recorded by ANALYZE / autovacuum. Free to read, but only
+     * approximate; returns -1 when the table has never been analyzed.
+     */
+    public long estimateCount() {
+        log.debug("Reading planner row estimate for books");
+        Object estimate = em.createNamedQuery(Book.ESTIMATE_COUNT).getSingleResult();
+        return ((Number) estimate).longValue();
     }
 
     public Optional<Book> findById(Long id) {
@@ -63,11 +284,278 @@ public class BookRepository {
         return Optional.ofNullable(em.find(Book.class, id));
     }
 
+    public Optional<BookDTO> findDtoById(Long id) {
+        log.debug("Finding book projection by ID: {}", id);
+        return em.createNamedQuery(Book.FIND_DTO_BY_ID, BookDTO.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public Optional<Long> findVersionById(Long id) {
+        return em.createNamedQuery(Book.FIND_VERSION_BY_ID, Long.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Overwrites the book's content if it is still at {@code version}, bumping the version, in one statement.
+     * Bulk updates skip entity callbacks, hence the explicit {@code updatedAt}.
+     *
+     * @param author reference to the author named in {@code book}
+     * @return the number of rows updated, 0 if the book is missing or at another version
+     */
+    public int updateIfVersion(Long id, long version, BookDTO book, Author author) {
+        return em.createNamedQuery(Book.UPDATE_IF_VERSION)
+                .setParameter("title", book.getTitle())
+                .setParameter("author", author)
+                .setParameter("price", book.getPrice())
+                .setParameter("isbn", Isbn.parse(book.getIsbn()))
+                .setParameter("updatedAt", LocalDateTime.now())
+                .setParameter("id", id)
+                .setParameter("version", version)
+                .executeUpdate();
+    }
+
+    /**
+     * Sets only the fields present in {@code patch}, if the book is still at {@code version}, in one statement.
+     *
+     * @param author reference to the author named in {@code patch}, null if it leaves the author alone
+     * @return the number of rows updated, 0 if the book is missing or at another version
+     */
+    public int patchIfVersion(Long id, long version, BookPatch patch, Author author) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+        Root<Book> book = update.from(Book.class);
+        if (patch.title() != null) {
+            update.set(book.<String>get("title"), patch.title());
+        }
+        if (author != null) {
+            update.set(book.<Author>get("author"), author);
+        }
+        if (patch.price() != null) {
+            update.set(book.<BigDecimal>get("price"), patch.price());
+        }
+        if (patch.isbn() != null) {
+            update.set(book.<Long>get("isbn"), Isbn.parse(patch.isbn()));
+        }
+        Path<Long> bookVersion = book.get("version");
+        update.set(bookVersion, cb.sum(bookVersion, 1L));
+        update.set(book.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        update.where(cb.equal(book.get("id"), id), cb.equal(bookVersion, version));
+        return em.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Applies price changes as JDBC batches of conditional updates: one round trip per
+     * {@value #BULK_BATCH_SIZE} changes instead of one per book, and still a version check per row.
+     *
+     * @return the rows updated per change, in order: 1 if applied, 0 if the book is missing or at another version
+     */
+    public int[] updatePrices(List<BookPriceChange> changes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return executeBatches(UPDATE_PRICE, changes, (statement, change) -> {
+            statement.setBigDecimal(1, change.price());
+            statement.setTimestamp(2, now);
+            statement.setLong(3, change.id());
+            statement.setLong(4, change.version());
+        });
+    }
+
+    /**
+     * Deletes the given books as JDBC batches, checking the version of those that carry one, and records
+     * tombstones for the deleted ones.
+     *
+     * @return the rows deleted per book, in order
+     */
+    public int[] deleteAll(List<BookRef> books) {
+        int[] deleted = executeForEach(books, DELETE_BOOK, (statement, index) -> index);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                ids.add(books.get(i).id());
+            }
+        }
+        recordDeletions(ids);
+        return deleted;
+    }
+
+    /**
+     * Multiplies the price of the given books by {@code factor}, rounded to cents, bumping their versions;
+     * as JDBC batches, checking the version of those that carry one.
+     *
+     * @return the rows updated per book, in order
+     */
+    public int[] adjustPrices(List<BookRef> books, BigDecimal factor) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return executeForEach(books, ADJUST_PRICE, (statement, index) -> {
+            statement.setBigDecimal(index, factor);
+            statement.setTimestamp(index + 1, now);
+            return index + 2;
+        });
+    }
+
+    /**
+     * IDs of the books matching {@code filter} after {@code afterId}, ascending, for walking a filter in chunks.
+     */
+    public List<Long> findIdsMatching(BookFilter filter, long afterId, int limit) {
+        rejectSearch(filter);
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Book> book = cq.from(Book.class);
+        List<Predicate> predicates = restrictions(cb, cq, book, filter);
+        predicates.add(cb.greaterThan(book.get("id"), afterId));
+        cq.select(book.get("id")).where(predicates.toArray(Predicate[]::new)).orderBy(cb.asc(book.get("id")));
+        return em.createQuery(cq).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Deletes those of {@code ids} that still match {@code filter}, and records tombstones for them: the
+     * matching rows are locked first, so that exactly those are deleted.
+     */
+    public int deleteMatching(BookFilter filter, Collection<Long> ids) {
+        rejectSearch(filter);
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Book> book = cq.from(Book.class);
+        List<Predicate> predicates = restrictions(cb, cq, book, filter);
+        predicates.add(book.get("id").in(ids));
+        List<Long> matching = em.createQuery(cq.select(book.get("id")).where(predicates.toArray(Predicate[]::new)))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (matching.isEmpty()) {
+            return 0;
+        }
+        int deleted = em.createNamedQuery(Book.DELETE_BY_IDS)
+                .setParameter("ids", matching)
+                .executeUpdate();
+        recordDeletions(matching);
+        return deleted;
+    }
+
+    /**
+     * Multiplies the price of those of {@code ids} that still match {@code filter} by {@code factor}, rounded
+     * to cents, bumping their versions, in one statement.
+     */
+    public int adjustPricesMatching(BookFilter filter, Collection<Long> ids, BigDecimal factor) {
+        rejectSearch(filter);
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+        Root<Book> book = update.from(Book.class);
+        Path<BigDecimal> price = book.get("price");
+        Path<Long> version = book.get("version");
+        update.set(price, cb.round(cb.prod(price, factor), 2));
+        update.set(version, cb.sum(version, 1L));
+        update.set(book.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        List<Predicate> predicates = restrictions(cb, update, book, filter);
+        predicates.add(book.get("id").in(ids));
+        return em.createQuery(update.where(predicates.toArray(Predicate[]::new))).executeUpdate();
+    }
+
+    public int deleteIfVersion(Long id, long version) {
+        int deleted = em.createNamedQuery(Book.DELETE_IF_VERSION)
+                .setParameter("id", id)
+                .setParameter("version", version)
+                .executeUpdate();
+        if (deleted > 0) {
+            recordDeletions(List.of(id));
+        }
+        return deleted;
+    }
+
+    /**
+     * Seeks the unique ISBN index; the ISBN as its 13 digits read as a number, as for every method here.
+     */
+    public Optional<Long> findIdByIsbn(long isbn) {
+        log.debug("Finding book ID by ISBN: {}", isbn);
+        return em.createNamedQuery(Book.FIND_ID_BY_ISBN, Long.class)
+                .setParameter("isbn", isbn)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public Optional<BookDTO> findByIsbn(long isbn) {
+        log.debug("Finding book projection by ISBN: {}", isbn);
+        return em.createNamedQuery(Book.FIND_DTO_BY_ISBN, BookDTO.class)
+                .setParameter("isbn", isbn)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public boolean existsByIsbn(long isbn) {
+        return findIdByIsbn(isbn).isPresent();
+    }
+
+    /**
+     * Those of the given ISBNs that are in the catalog, read from the ISBN index alone.
+     */
+    public List<Long> findIsbnsIn(Collection<Long> isbns) {
+        if (isbns.isEmpty()) {
+            return List.of();
+        }
+        log.debug("Checking {} ISBNs against the catalog", isbns.size());
+        return em.createNamedQuery(Book.FIND_ISBNS_IN, Long.class)
+                .setParameter("isbns", isbns)
+                .getResultList();
+    }
+
+    /**
+     * Every ISBN in the catalog, in no particular order, streamed like {@link #streamAll}.
+     */
+    public Stream<Long> streamIsbns(int fetchSize) {
+        log.debug("Streaming all ISBNs: fetchSize={}", fetchSize);
+        return em.createNamedQuery(Book.FIND_ALL_ISBNS, Long.class)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    /**
+     * ISBNs of the books changed after {@code since}, from the {@code updated_at} index.
+     */
+    public List<Long> findIsbnsChangedSince(LocalDateTime since) {
+        return em.createNamedQuery(Book.FIND_ISBNS_CHANGED_SINCE, Long.class)
+                .setParameter("since", since)
+                .getResultList();
+    }
+
+    /**
+     * Books with any of the given ISBNs, attached to the persistence context so they can be updated.
+     */
+    public List<Book> findByIsbnIn(Collection<Long> isbns) {
+        if (isbns.isEmpty()) {
+            return List.of();
+        }
+        log.debug("Finding books by {} ISBNs", isbns.size());
+        return em.createNamedQuery(Book.FIND_BY_ISBNS, Book.class)
+                .setParameter("isbns", isbns)
+                .getResultList();
+    }
+
+    /**
+     * Sets the JDBC batch size for the remainder of the current transaction.
+     */
+    public void setBatchSize(int batchSize) {
+        em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+    }
+
+    /**
+     * Sends pending inserts and updates to the database as JDBC batches, then detaches them.
+     */
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * Persists a new book or merges a detached one. A book loaded in this transaction is already managed
+     * and written at flush, so it is left alone rather than copied onto itself by {@code merge}.
+     */
     public void save(Book book) {
         if (book.getId() == null) {
             log.debug("Persisting new book: {}", book.getTitle());
             em.persist(book);
-        } else {
+        } else if (!em.contains(book)) {
             log.debug("Merging existing book: {}", book.getTitle());
             em.merge(book);
         }
@@ -80,5 +568,263 @@ public class BookRepository {
         } else {
             em.remove(em.merge(book));
         }
+        recordDeletions(List.of(book.getId()));
+    }
+
+    // Tombstones for the change feed, written at flush with the rest of the transaction.
+    private void recordDeletions(Collection<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long id : ids) {
+            em.persist(new BookTombstone(id, now));
+        }
+    }
+
+    // Walking backwards is the same query with every comparison and ordering flipped.
+    private CriteriaQuery<BookDTO> select(BookQuery query, BookCursor cursor, boolean backward) {
+        if (cursor != null && query.filter().hasSearch()) {
+            throw new IllegalArgumentException("Search results are ranked and can only be paged by offset");
+        }
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<BookDTO> cq = cb.createQuery(BookDTO.class);
+        Root<Book> book = cq.from(Book.class);
+        Join<Book, Author> author = book.join("author");
+
+        List<Predicate> predicates = restrictions(cb, cq, book, query.filter());
+        Path<Object> column = query.sort().field() == BookSortField.ID ? null : column(book, author, query.sort().field());
+        if (cursor != null) {
+            predicates.add(seek(cb, book, column, cursor, query.sort().ascending() != backward));
+        }
+        boolean ascending = query.sort().ascending() != backward;
+        return cq.select(projection(cb, book, author))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(orderBy(cb, book, column, ascending));
+    }
+
+    /**
+     * Runs {@code sql} once per book in JDBC batches: as is for books without a version, with
+     * {@code AND version = ?} appended for the others. {@code leading} binds the parameters before the
+     * ID and returns the index of the ID parameter.
+     */
+    private int[] executeForEach(List<BookRef> books, String sql, LeadingParameters leading) {
+        List<Integer> unchecked = new ArrayList<>();
+        List<Integer> checked = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) {
+            (books.get(i).version() == null ? unchecked : checked).add(i);
+        }
+        int[] affected = new int[books.size()];
+        scatter(affected, unchecked, executeBatches(sql, unchecked, (statement, i) ->
+                statement.setLong(leading.bind(statement, 1), books.get(i).id())));
+        scatter(affected, checked, executeBatches(sql + " AND version = ?", checked, (statement, i) -> {
+            int index = leading.bind(statement, 1);
+            statement.setLong(index, books.get(i).id());
+            statement.setLong(index + 1, books.get(i).version());
+        }));
+        return affected;
+    }
+
+    private static void scatter(int[] target, List<Integer> indexes, int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            target[indexes.get(i)] = values[i];
+        }
+    }
+
+    /**
+     * Executes {@code sql} for every row, {@value #BULK_BATCH_SIZE} rows per round trip.
+     *
+     * @return the update count per row, in order
+     */
+    private <T> int[] executeBatches(String sql, List<T> rows, RowBinder<T> binder) {
+        int[] affected = new int[rows.size()];
+        if (rows.isEmpty()) {
+            return affected;
+        }
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int start = 0; start < rows.size(); start += BULK_BATCH_SIZE) {
+                    int end = Math.min(rows.size(), start + BULK_BATCH_SIZE);
+                    for (T row : rows.subList(start, end)) {
+                        binder.bind(statement, row);
+                        statement.addBatch();
+                    }
+                    int[] counts = statement.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        // SUCCESS_NO_INFO: the driver applied it without a count; the WHERE clause still held.
+                        affected[start + i] = counts[i] == Statement.SUCCESS_NO_INFO ? 1 : counts[i];
+                    }
+                }
+            }
+        });
+        return affected;
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement statement, T row) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface LeadingParameters {
+        int bind(PreparedStatement statement, int index) throws SQLException;
+    }
+
+    // Bulk statements are Criteria queries; the native full-text restrictions have no Criteria form.
+    private static void rejectSearch(BookFilter filter) {
+        if (filter.hasSearch()) {
+            throw new IllegalArgumentException("Bulk operations take prefix and price criteria, not a search text");
+        }
+    }
+
+    // Must list the same columns, in the same order, as Book.DTO_SELECT.
+    private static CompoundSelection<BookDTO> projection(CriteriaBuilder cb, Root<Book> book, Join<Book, Author> author) {
+        return cb.construct(BookDTO.class,
+                book.get("id"), book.get("version"), book.get("title"),
+                author.get("name"), book.get("price"), book.<Long>get("isbn").cast(String.class));
+    }
+
+    // The author is sorted by name, the other fields by their own column.
+    private static Path<Object> column(Root<Book> book, Join<Book, Author> author, BookSortField field) {
+        return field == BookSortField.AUTHOR ? author.get("name") : book.get(field.getAttribute());
+    }
+
+    // Also used by bulk updates and deletes, which cannot join: an author prefix becomes a subquery for
+    // the matching author IDs (from the authors name index), which then select books by foreign key.
+    private static List<Predicate> restrictions(CriteriaBuilder cb, CommonAbstractCriteria query, Root<Book> book,
+                                                BookFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.titlePrefix() != null) {
+            predicates.add(startsWithIgnoreCase(cb, book.get("title"), filter.titlePrefix()));
+        }
+        if (filter.authorPrefix() != null) {
+            Subquery<Long> authors = query.subquery(Long.class);
+            Root<Author> author = authors.from(Author.class);
+            authors.select(author.get("id")).where(startsWithIgnoreCase(cb, author.get("name"), filter.authorPrefix()));
+            predicates.add(book.get("author").get("id").in(authors));
+        }
+        if (filter.authorId() != null) {
+            predicates.add(cb.equal(book.get("author").get("id"), filter.authorId()));
+        }
+        if (filter.isbnPrefix() != null) {
+            // A prefix of the digits is a range of the number, which the unique ISBN index seeks.
+            Isbn.Range range = Isbn.prefixRange(filter.isbnPrefix());
+            Path<Long> isbn = book.get("isbn");
+            predicates.add(range.isEmpty() ? cb.disjunction()
+                    : cb.and(cb.ge(isbn, range.from()), cb.lt(isbn, range.to())));
+        }
+        if (filter.minPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(book.get("price"), filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(book.get("price"), filter.maxPrice()));
+        }
+        return predicates;
+    }
+
+    // (column, id) > (:value, :id), spelled out because JPA has no row-value comparison.
+    // column is null when sorting by ID alone.
+    private static Predicate seek(CriteriaBuilder cb, Root<Book> book, Path<Object> column, BookCursor cursor,
+                                  boolean forward) {
+        Predicate idPastCursor = compare(cb, book.get("id"), cursor.id(), forward);
+        if (column == null) {
+            return idPastCursor;
+        }
+        return cb.or(
+                compare(cb, column, cursor.sortValue(), forward),
+                cb.and(cb.equal(column, cursor.sortValue()), idPastCursor));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate compare(CriteriaBuilder cb, Path<?> path, Object value, boolean greater) {
+        Expression<Comparable<Object>> expression = (Expression<Comparable<Object>>) path;
+        Comparable<Object> comparable = (Comparable<Object>) value;
+        return greater ? cb.greaterThan(expression, comparable) : cb.lessThan(expression, comparable);
+    }
+
+    private static List<Order> orderBy(CriteriaBuilder cb, Root<Book> book, Path<Object> column, boolean ascending) {
+        List<Order> orders = new ArrayList<>(2);
+        if (column != null) {
+            orders.add(ascending ? cb.asc(column) : cb.desc(column));
+        }
+        orders.add(ascending ? cb.asc(book.get("id")) : cb.desc(book.get("id")));
+        return orders;
+    }
+
+    /**
+     * Whole-word prefix matches when there are any. Trigram similarity is far more expensive on common
+     * words (it rechecks every row sharing a trigram), so it only serves as the fallback for misspelled
+     * terms, which match no word at all.
+     */
+    private SearchMatch searchMatch(BookFilter filter) {
+        String prefixQuery = toPrefixQuery(filter.search());
+        if (!prefixQuery.isEmpty()) {
+            SearchMatch words = searchRestrictions(filter, WORD_MATCH, WORD_RANK, "tsquery", prefixQuery);
+            Query probe = em.createNativeQuery("SELECT 1 FROM " + SEARCH_FROM + " WHERE " + words.where()).setMaxResults(1);
+            words.parameters().forEach(probe::setParameter);
+            if (!probe.getResultList().isEmpty()) {
+                return words;
+            }
+        }
+        return searchRestrictions(filter, FUZZY_MATCH, FUZZY_RANK, "term", filter.search().toLowerCase(Locale.ROOT));
+    }
+
+    // Native counterpart of restrictions(), for the search queries.
+    private static SearchMatch searchRestrictions(BookFilter filter, String match, String rank,
+                                                  String termParameter, String term) {
+        Map<String, Object> parameters = new HashMap<>();
+        StringJoiner where = new StringJoiner(" AND ");
+        where.add(match);
+        parameters.put(termParameter, term);
+        if (filter.titlePrefix() != null) {
+            where.add("lower(b.title) LIKE :titlePrefix ESCAPE '\\'");
+            parameters.put("titlePrefix", escapeLike(filter.titlePrefix().toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (filter.authorPrefix() != null) {
+            where.add("lower(a.name) LIKE :authorPrefix ESCAPE '\\'");
+            parameters.put("authorPrefix", escapeLike(filter.authorPrefix().toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (filter.authorId() != null) {
+            where.add("b.author_id = :authorId");
+            parameters.put("authorId", filter.authorId());
+        }
+        if (filter.isbnPrefix() != null) {
+            Isbn.Range range = Isbn.prefixRange(filter.isbnPrefix());
+            where.add("b.isbn >= :isbnFrom AND b.isbn < :isbnTo");
+            parameters.put("isbnFrom", range.from());
+            parameters.put("isbnTo", range.to());
+        }
+        if (filter.minPrice() != null) {
+            where.add("b.price >= :minPrice");
+            parameters.put("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            where.add("b.price <= :maxPrice");
+            parameters.put("maxPrice", filter.maxPrice());
+        }
+        return new SearchMatch(where.toString(), rank, parameters);
+    }
+
+    /**
+     * Turns free text into a tsquery matching every word as a prefix ("tolk hob" -> "tolk:* & hob:*").
+     * Only letters and digits are kept, so user input can never inject tsquery operators.
+     */
+    static String toPrefixQuery(String text) {
+        StringJoiner query = new StringJoiner(" & ");
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                query.add(word + ":*");
+            }
+        }
+        return query.toString();
+    }
+
+    // lower(column) LIKE 'prefix%' is served by the lower(...) text_pattern_ops indexes.
+    private static Predicate startsWithIgnoreCase(CriteriaBuilder cb, Path<String> path, String prefix) {
+        return cb.like(cb.lower(path), escapeLike(prefix.toLowerCase(Locale.ROOT)) + "%", LIKE_ESCAPE);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record SearchMatch(String where, String rank, Map<String, Object> parameters) {
     }
 }
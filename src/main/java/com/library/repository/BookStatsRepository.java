@@ -0,0 +1,213 @@
+package com.library.repository;
+
+import com.library.dto.AuthorFacet;
+import com.library.metrics.Timed;
+import com.library.model.Book;
+import com.library.model.BookStat;
+import com.library.model.BookStat.Dimension;
+import com.library.model.BookStatDelta;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Timeouts;
+import org.hibernate.jpa.SpecHints;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads the {@link BookStat} summary rows, and computes them from {@link Book} for reconciliation.
+ * Author rows are keyed by the author's name, which is unique in {@code authors}.
+ * The database triggers record every book change as a {@link BookStatDelta}; folding those and
+ * reconciliation write the summary rows from here.
+ */
+@Slf4j
+@ApplicationScoped
+@Timed(countRows = true)
+public class BookStatsRepository {
+
+    private static final int DELETE_CHUNK = 1_000;
+
+    /**
+     * What a summary row should hold, see {@link #compute}.
+     *
+     * @param stat          the group's books less its pending deltas: count and sum as the row should store
+     *                      them until the fold adds the deltas; min and max those of the books
+     * @param pendingDeltas the group's deltas not folded yet; while there are any, the stored min and max
+     *                      may still differ from those of the books
+     */
+    public record Expected(BookStat stat, long pendingDeltas) {
+    }
+
+    @Inject
+    private EntityManager em;
+
+    public Optional<BookStat> findTotal() {
+        return Optional.ofNullable(em.find(BookStat.class, key(Dimension.TOTAL, "")));
+    }
+
+    /**
+     * The {@code limit} authors with the most books, from the {@code (dimension, book_count)} index.
+     */
+    public List<BookStat> findTopAuthors(int limit) {
+        return em.createNamedQuery(BookStat.FIND_TOP, BookStat.class)
+                .setParameter("dimension", Dimension.AUTHOR)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Optional<BookStat> findAuthor(String author) {
+        return Optional.ofNullable(em.find(BookStat.class, key(Dimension.AUTHOR, author)));
+    }
+
+    /**
+     * The {@code limit} authors with the most books, with their IDs for filtering: the top of the
+     * {@code (dimension, book_count)} index, each joined to its author by the unique name.
+     */
+    public List<AuthorFacet> findAuthorFacets(int limit) {
+        return em.createNamedQuery(BookStat.FIND_AUTHOR_FACETS, AuthorFacet.class)
+                .setParameter("dimension", Dimension.AUTHOR)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * The number of books of the author, from the summary row; 0 when the author has none.
+     */
+    public long countByAuthorId(Long authorId) {
+        return em.createNamedQuery(BookStat.COUNT_BY_AUTHOR_ID, Long.class)
+                .setParameter("dimension", Dimension.AUTHOR)
+                .setParameter("authorId", authorId)
+                .getResultStream()
+                .findFirst()
+                .orElse(0L);
+    }
+
+    public List<BookStat> findPriceBuckets() {
+        return em.createNamedQuery(BookStat.FIND_BY_DIMENSION, BookStat.class)
+                .setParameter("dimension", Dimension.PRICE)
+                .getResultList();
+    }
+
+    /**
+     * Every stored summary row, keyed by dimension and group.
+     */
+    public Map<BookStat.Key, BookStat> findAll() {
+        Map<BookStat.Key, BookStat> stats = new HashMap<>();
+        for (BookStat stat : em.createNamedQuery(BookStat.FIND_ALL, BookStat.class).getResultList()) {
+            stats.put(key(stat.getDimension(), stat.getGroupKey()), stat);
+        }
+        return stats;
+    }
+
+    /**
+     * What every summary row should hold, from three aggregate scans of {@code books}. Groups without books
+     * are absent, except the total.
+     */
+    public Map<BookStat.Key, BookStat> computeAll() {
+        Map<BookStat.Key, BookStat> stats = new HashMap<>();
+        put(stats, toStat(Dimension.TOTAL, "", em.createNamedQuery(BookStat.COMPUTE_TOTAL, Object[].class)
+                .getSingleResult(), 0));
+        for (Object[] row : em.createNamedQuery(BookStat.COMPUTE_AUTHORS, Object[].class).getResultList()) {
+            put(stats, toStat(Dimension.AUTHOR, (String) row[0], row, 1));
+        }
+        for (Object[] row : em.createNamedQuery(BookStat.COMPUTE_PRICE_BUCKETS, Object[].class).getResultList()) {
+            // Named after any of its prices, the lowest one will do.
+            put(stats, toStat(Dimension.PRICE, BookStat.priceBucketKey((BigDecimal) row[3]), row, 1));
+        }
+        return stats;
+    }
+
+    /**
+     * What one summary row should hold: its group computed from {@code books} now, less the group's deltas
+     * not folded yet, which the fold will still add. Both are read by one statement, so that no commit can
+     * fall between them.
+     */
+    public Expected compute(BookStat.Key key) {
+        TypedQuery<Object[]> query = switch (key.getDimension()) {
+            case TOTAL -> em.createNamedQuery(BookStat.COMPUTE_TOTAL_PENDING, Object[].class);
+            case AUTHOR -> em.createNamedQuery(BookStat.COMPUTE_AUTHOR, Object[].class);
+            case PRICE -> {
+                BigDecimal from = new BigDecimal(key.getGroupKey());
+                yield em.createNamedQuery(BookStat.COMPUTE_PRICE_BUCKET, Object[].class)
+                        .setParameter("from", from)
+                        .setParameter("to", from.add(BookStat.PRICE_BUCKET_WIDTH));
+            }
+        };
+        Object[] row = query.setParameter("dimension", key.getDimension())
+                .setParameter("groupKey", key.getGroupKey())
+                .getSingleResult();
+        BookStat books = toStat(key.getDimension(), key.getGroupKey(), row, 0);
+        books.setBookCount(books.getBookCount() - ((Number) row[5]).longValue());
+        books.setPriceSum(books.getPriceSum().subtract(toAmount(row[6])));
+        return new Expected(books, ((Number) row[4]).longValue());
+    }
+
+    /**
+     * Up to {@code limit} deltas in the order they were written, locked until the end of the transaction.
+     * Deltas that another transaction holds, because a fold on another node is applying them, are skipped.
+     */
+    public List<BookStatDelta> claimDeltas(int limit) {
+        return em.createNamedQuery(BookStatDelta.FIND_PENDING, BookStatDelta.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(SpecHints.HINT_SPEC_LOCK_TIMEOUT, Timeouts.SKIP_LOCKED_MILLI)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public void deleteDeltas(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+            Collection<Long> chunk = ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK));
+            em.createNamedQuery(BookStatDelta.DELETE_BY_IDS)
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * The stored row, locked until the end of the transaction. Folds and reconciliations change a row only
+     * under this lock, so once it is held none of them is halfway through the group.
+     */
+    public Optional<BookStat> lock(BookStat.Key key) {
+        BookStat stat = em.find(BookStat.class, key);
+        if (stat != null) {
+            // Reads the row again: the instance may have been loaded before other transactions changed it.
+            em.refresh(stat, LockModeType.PESSIMISTIC_WRITE);
+        }
+        return Optional.ofNullable(stat);
+    }
+
+    public void save(BookStat stat) {
+        em.merge(stat);
+    }
+
+    public void delete(BookStat stat) {
+        em.remove(em.contains(stat) ? stat : em.merge(stat));
+    }
+
+    private static BookStat.Key key(Dimension dimension, String groupKey) {
+        return new BookStat.Key(dimension, groupKey);
+    }
+
+    private static void put(Map<BookStat.Key, BookStat> stats, BookStat stat) {
+        stats.put(key(stat.getDimension(), stat.getGroupKey()), stat);
+    }
+
+    // Sums of numeric columns come back as BigDecimal, the 0 they are coalesced with possibly as an integer.
+    private static BigDecimal toAmount(Object value) {
+        return value instanceof BigDecimal amount ? amount : new BigDecimal(value.toString());
+    }
+
+    private static BookStat toStat(Dimension dimension, String groupKey, Object[] row, int offset) {
+        BigDecimal sum = (BigDecimal) row[offset + 1];
+        return new BookStat(dimension, groupKey, ((Number) row[offset]).longValue(),
+                sum == null ? BigDecimal.ZERO : sum, (BigDecimal) row[offset + 2], (BigDecimal) row[offset + 3]);
+    }
+}
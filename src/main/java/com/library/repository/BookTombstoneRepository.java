@@ -0,0 +1,57 @@
+package com.library.repository;
+
+import com.library.dto.BookDeletion;
+import com.library.metrics.Timed;
+import com.library.model.BookTombstone;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads and purges {@link BookTombstone}s; {@link BookRepository} writes them as it deletes books.
+ */
+@Slf4j
+@ApplicationScoped
+@Timed(countRows = true)
+public class BookTombstoneRepository {
+
+    @Inject
+    private EntityManager em;
+
+    /**
+     * Up to {@code limit} tombstones after the position {@code (deletedAt, afterId)} and before {@code before},
+     * in {@code (deleted_at, book_id)} order.
+     */
+    public List<BookTombstone> findAfter(LocalDateTime deletedAt, long afterId, LocalDateTime before, int limit) {
+        return em.createNamedQuery(BookTombstone.FIND_AFTER, BookTombstone.class)
+                .setParameter("deletedAt", deletedAt)
+                .setParameter("afterId", afterId)
+                .setParameter("before", before)
+                .setHint("org.hibernate.readOnly", true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * The books deleted after {@code since}.
+     */
+    public List<BookDeletion> findDeletionsSince(LocalDateTime since) {
+        return em.createNamedQuery(BookTombstone.FIND_DELETIONS_SINCE, BookDeletion.class)
+                .setParameter("since", since)
+                .getResultList();
+    }
+
+    /**
+     * Deletes the tombstones from before {@code cutoff}, in one statement.
+     */
+    public int deleteBefore(LocalDateTime cutoff) {
+        log.debug("Purging book tombstones before {}", cutoff);
+        return em.createNamedQuery(BookTombstone.DELETE_BEFORE)
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.repository;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Runs {@link ReadOnly} methods through {@link ReplicaRouter#read}.
+ */
+@ReadOnly
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE + 10)
+public class ReadOnlyInterceptor {
+
+    @Inject
+    private ReplicaRouter router;
+
+    @AroundInvoke
+    public Object route(InvocationContext context) throws Exception {
+        return router.read(context::proceed);
+    }
+}
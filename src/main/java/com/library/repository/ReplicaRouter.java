@@ -0,0 +1,215 @@
+package com.library.repository;
+
+import com.library.event.BookChangedEvent;
+import com.library.metrics.StatementCounter;
+import com.library.model.Author;
+import com.library.model.Book;
+import com.library.model.BookStat;
+import com.library.model.BookTombstone;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceConfiguration;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnitTransactionType;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends {@link ReadOnly} work to a read replica when one is configured ({@code library.replica.dataSource},
+ * the JNDI name of a non-JTA data source) and it is safe to:
+ * <ul>
+ *     <li>outside of a transaction only, so that writes and reads within a transaction see each other;</li>
+ *     <li>not within {@code library.replica.maxLagMillis} (default 1000) of a committed book change, so a
+ *     user reads their own write on the next request, and caches are not refilled from before it;</li>
+ *     <li>only while the replica's measured lag, checked every {@code library.replica.lagCheckMillis}
+ *     (default 1000) with {@code library.replica.lagQuery}, stays within that bound; a replica that is
+ *     behind or unreachable is skipped until it caught up.</li>
+ * </ul>
+ * Repositories get the {@link EntityManager} produced here, which delegates to the replica's entity manager
+ * while such work runs on the thread and to the primary's transaction-scoped one otherwise.
+ */
+@Slf4j
+@ApplicationScoped
+public class ReplicaRouter {
+
+    // Seconds since the last replayed transaction, or 0 when everything received has been replayed.
+    static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn()"
+            + " THEN 0 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    @PersistenceContext(unitName = "libraryPU")
+    private EntityManager primary;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactions;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    private ConfigUtil config;
+
+    // Null when no replica is configured.
+    private EntityManagerFactory replicaFactory;
+    private String lagQuery;
+    private long maxLagMillis;
+    private ScheduledFuture<?> lagCheck;
+
+    @Getter
+    private volatile boolean replicaHealthy;
+
+    // NaN until measured, and while the replica is unreachable.
+    @Getter
+    private volatile double lagSeconds = Double.NaN;
+
+    private volatile long primaryOnlyUntil;
+
+    private final ThreadLocal<EntityManager> replicaSession = new ThreadLocal<>();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        String dataSource = config.getString("library.replica.dataSource", null);
+        if (dataSource == null) {
+            log.info("No read replica configured, all reads go to the primary");
+            return;
+        }
+        replicaFactory = new PersistenceConfiguration("libraryReadPU")
+                .nonJtaDataSource(dataSource)
+                .transactionType(PersistenceUnitTransactionType.RESOURCE_LOCAL)
+                .managedClass(Author.class)
+                .managedClass(Book.class)
+                .managedClass(BookStat.class)
+                .managedClass(BookTombstone.class)
+                .property("hibernate.criteria.plan_cache_enabled", "true")
+                .property("hibernate.session_factory.statement_inspector", StatementCounter.class.getName())
+                .createEntityManagerFactory();
+        start();
+        log.info("Read replica {}: max lag {} ms", dataSource, maxLagMillis);
+    }
+
+    void start() {
+        lagQuery = config.getString("library.replica.lagQuery", POSTGRES_LAG_QUERY);
+        maxLagMillis = config.getLong("library.replica.maxLagMillis", 1_000);
+        long interval = Math.max(100, config.getLong("library.replica.lagCheckMillis", 1_000));
+        checkLag();
+        lagCheck = scheduler.scheduleWithFixedDelay(this::checkLag, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() {
+        if (lagCheck != null) {
+            lagCheck.cancel(false);
+        }
+        if (replicaFactory != null) {
+            replicaFactory.close();
+        }
+    }
+
+    /**
+     * The entity manager for repositories: the replica's during {@link #read} work routed there, the
+     * primary's otherwise.
+     */
+    @Produces
+    EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(current(), args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Runs read-only {@code work} on a fresh read-only replica session if {@link #canUseReplica()}, as is on
+     * the primary otherwise. Nested calls join the routing decision of the outermost one.
+     */
+    public <T> T read(Callable<T> work) throws Exception {
+        if (replicaSession.get() != null) {
+            return work.call();
+        }
+        if (!canUseReplica()) {
+            primaryReads.increment();
+            return work.call();
+        }
+        replicaReads.increment();
+        EntityManager em = replicaFactory.createEntityManager();
+        em.unwrap(Session.class).setDefaultReadOnly(true);
+        replicaSession.set(em);
+        try {
+            return work.call();
+        } finally {
+            replicaSession.remove();
+            em.close();
+        }
+    }
+
+    public boolean canUseReplica() {
+        return replicaFactory != null && replicaHealthy && !inTransaction()
+                && System.currentTimeMillis() >= primaryOnlyUntil;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * Read-only calls served by the primary although a replica is configured, or because none is.
+     */
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        primaryOnlyUntil = System.currentTimeMillis() + maxLagMillis;
+    }
+
+    void checkLag() {
+        try (EntityManager em = replicaFactory.createEntityManager()) {
+            lagSeconds = ((Number) em.createNativeQuery(lagQuery).getSingleResult()).doubleValue();
+            boolean healthy = lagSeconds * 1_000 <= maxLagMillis;
+            if (healthy != replicaHealthy) {
+                log.warn("Read replica {}: lag {} s", healthy ? "in use" : "behind, reading from the primary",
+                        lagSeconds);
+            }
+            replicaHealthy = healthy;
+        } catch (RuntimeException e) {
+            if (replicaHealthy) {
+                log.warn("Read replica unavailable, reading from the primary", e);
+            }
+            replicaHealthy = false;
+            lagSeconds = Double.NaN;
+        }
+    }
+
+    private EntityManager current() {
+        EntityManager replica = replicaSession.get();
+        return replica != null ? replica : primary;
+    }
+
+    private boolean inTransaction() {
+        return transactions.getTransactionStatus() != Status.STATUS_NO_TRANSACTION;
+    }
+}
@@ -0,0 +1,241 @@
+package com.library.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.registry.classloading.spi.ClassLoaderService;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.tool.schema.spi.SchemaManagementException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the database schema up to date while the persistence unit starts, before Hibernate validates it
+ * against the mapping ({@code hibernate.hbm2ddl.auto=validate}). Runs for the persistence units that name the
+ * classpath directory of their scripts in the {@value #LOCATION} property; the others are left alone.
+ * <p>
+ * Scripts are named {@code V1.sql}, {@code V2.sql} and so on, numbered without gaps; the first line, a comment,
+ * describes the script. Each pending script runs in its own transaction and is recorded in
+ * {@value #HISTORY_TABLE} with a checksum, so an applied script that was edited afterwards stops the deployment
+ * instead of leaving nodes with different schemas. On PostgreSQL, nodes starting together take turns through an
+ * advisory lock. Statements end with {@code ;}; function bodies are quoted with single quotes, not dollars.
+ */
+@Slf4j
+public class SchemaMigrator implements Integrator {
+
+    public static final String LOCATION = "library.schema.migrations";
+    static final String HISTORY_TABLE = "schema_version";
+
+    private static final String CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE
+            + " (version integer NOT NULL PRIMARY KEY, description varchar(200) NOT NULL, checksum bigint NOT NULL,"
+            + " installed_at timestamp NOT NULL, execution_millis bigint NOT NULL)";
+    // Any number, as long as nothing else in the database takes an advisory lock on it.
+    private static final long POSTGRES_LOCK_KEY = 7_312_004_211L;
+
+    /**
+     * One script, version {@code version}.
+     */
+    record Migration(int version, String description, String script) {
+
+        long checksum() {
+            CRC32 crc = new CRC32();
+            crc.update(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        }
+
+        static Migration of(int version, String script) {
+            String firstLine = script.lines().findFirst().orElse("");
+            String description = firstLine.startsWith("--") ? firstLine.substring(2).strip() : "V" + version;
+            return new Migration(version, description, script);
+        }
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        Object location = bootstrapContext.getConfigurationService().getSettings().get(LOCATION);
+        if (location == null) {
+            return;
+        }
+        ClassLoaderService classLoader = bootstrapContext.getClassLoaderService();
+        List<Migration> migrations = load(location.toString(), classLoader::locateResourceStream);
+        JdbcConnectionAccess access = sessionFactory.getJdbcServices().getBootstrapJdbcConnectionAccess();
+        try {
+            Connection connection = access.obtainConnection();
+            try {
+                migrate(connection, migrations);
+            } finally {
+                access.releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new SchemaManagementException("Migrating the schema failed", e);
+        }
+    }
+
+    /**
+     * The scripts {@code V1.sql}, {@code V2.sql}, ... found under {@code location}, up to the first missing one.
+     */
+    static List<Migration> load(String location, Function<String, InputStream> resources) {
+        List<Migration> migrations = new ArrayList<>();
+        for (int version = 1; ; version++) {
+            try (InputStream in = resources.apply(location + "/V" + version + ".sql")) {
+                if (in == null) {
+                    return migrations;
+                }
+                migrations.add(Migration.of(version, new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new SchemaManagementException("Reading migration V" + version + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Applies the pending {@code migrations}, after checking the applied ones against theirs.
+     *
+     * @return the number of scripts applied
+     */
+    static int migrate(Connection connection, List<Migration> migrations) throws SQLException {
+        boolean postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            if (postgres) {
+                execute(connection, "SELECT pg_advisory_lock(" + POSTGRES_LOCK_KEY + ")");
+            }
+            try {
+                execute(connection, CREATE_HISTORY);
+                connection.commit();
+                return applyPending(connection, migrations);
+            } finally {
+                if (postgres) {
+                    execute(connection, "SELECT pg_advisory_unlock(" + POSTGRES_LOCK_KEY + ")");
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static int applyPending(Connection connection, List<Migration> migrations) throws SQLException {
+        Map<Integer, Long> applied = appliedChecksums(connection);
+        int count = 0;
+        for (Migration migration : migrations) {
+            Long checksum = applied.remove(migration.version());
+            if (checksum == null) {
+                apply(connection, migration);
+                count++;
+            } else if (checksum != migration.checksum()) {
+                throw new SchemaManagementException("Migration V" + migration.version()
+                        + " was changed after it was applied: restore the applied script and add a new one");
+            }
+        }
+        // A node of the previous release starting while the next one is rolled out.
+        applied.keySet().forEach(version ->
+                log.warn("Schema migration V{} is applied but not known to this release", version));
+        log.info("Schema migrations: {} known, {} applied now", migrations.size(), count);
+        return count;
+    }
+
+    private static Map<Integer, Long> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT version, checksum FROM " + HISTORY_TABLE)) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        List<String> statements = split(migration.script());
+        try {
+            for (int i = 0; i < statements.size(); i++) {
+                try {
+                    execute(connection, statements.get(i));
+                } catch (SQLException e) {
+                    throw new SQLException("Statement " + (i + 1) + " of migration V" + migration.version()
+                            + " failed: " + e.getMessage(), e.getSQLState(), e);
+                }
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + HISTORY_TABLE
+                    + " (version, description, checksum, installed_at, execution_millis) VALUES (?, ?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.setLong(3, migration.checksum());
+                insert.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                insert.setLong(5, millis);
+                insert.executeUpdate();
+            }
+            connection.commit();
+            log.info("Applied schema migration V{} ({}) in {} ms", migration.version(), migration.description(), millis);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * The statements of a script: split at the semicolons outside quotes and comments, without the comments.
+     */
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (quote != 0) {
+                // A doubled quote inside a quoted string closes and reopens it, which keeps it open.
+                current.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '-' && i + 1 < script.length() && script.charAt(i + 1) == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? script.length() : end - 1;
+            } else if (c == ';') {
+                add(statements, current);
+            } else {
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                }
+                current.append(c);
+            }
+        }
+        add(statements, current);
+        return statements;
+    }
+
+    private static void add(List<String> statements, StringBuilder current) {
+        String statement = current.toString().strip();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
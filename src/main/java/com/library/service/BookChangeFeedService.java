@@ -0,0 +1,29 @@
+package com.library.service;
+
+import com.library.dto.BookChanges;
+import com.library.dto.ChangeCursor;
+
+/**
+ * What changed in the catalog since a cursor, for systems that keep a copy of it in sync: the books created
+ * or changed, at their current state, and the books deleted, in pages. A sync reads pages until
+ * {@code hasMore} is false, keeps the last cursor and starts from it next time.
+ */
+public interface BookChangeFeedService {
+
+    /**
+     * The changes after {@code cursor}, at most {@code limit} of them. Changes younger than
+     * {@code library.changes.settleMillis} are left for a later page, so that a transaction that stamped its
+     * rows earlier but commits later is not skipped.
+     *
+     * @param cursor where the previous page ended, or {@link ChangeCursor#START} for a full sync
+     * @throws ChangeCursorExpiredException if tombstones the cursor still needs may have been purged
+     */
+    BookChanges getChanges(ChangeCursor cursor, int limit);
+
+    /**
+     * Deletes the tombstones older than {@code library.changes.tombstoneRetentionDays}. Runs daily on its own.
+     *
+     * @return the number of tombstones deleted
+     */
+    int purgeTombstones();
+}
@@ -0,0 +1,17 @@
+package com.library.service;
+
+import com.library.dto.ImportOptions;
+import com.library.dto.ImportReport;
+
+import java.io.IOException;
+import java.io.Reader;
+
+public interface BookImportService {
+
+    /**
+     * Loads books from a CSV or NDJSON stream, committing every {@link ImportOptions#chunkSize()} rows.
+     * Invalid rows are rejected and reported without stopping the import; a failing chunk stops it,
+     * leaving every earlier chunk committed.
+     */
+    ImportReport importBooks(Reader in, ImportOptions options) throws IOException;
+}
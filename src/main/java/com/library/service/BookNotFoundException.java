@@ -0,0 +1,12 @@
+package com.library.service;
+
+/**
+ * The requested book does not exist (any more). Still an {@link IllegalArgumentException}, which is
+ * what callers of {@link BookService} have always been handed for unknown IDs.
+ */
+public class BookNotFoundException extends IllegalArgumentException {
+
+    public BookNotFoundException(Long id) {
+        super("Book not found with ID: " + id);
+    }
+}
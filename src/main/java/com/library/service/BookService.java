@@ -1,12 +1,169 @@
 package com.library.service;
 
+import com.library.dto.BookCursor;
 import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookPatch;
+import com.library.dto.BookPriceChange;
+import com.library.dto.BookQuery;
+import com.library.dto.BookRef;
+import com.library.dto.BulkResult;
+import com.library.io.BookWriter;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
 
 public interface BookService {
+
+    /**
+     * Returned by {@link #countBooks(BookFilter)} in {@link CountMode#HAS_MORE} mode, where callers are
+     * expected to page by fetching one row beyond the page instead.
+     */
+    int UNKNOWN_COUNT = -1;
+
     List<BookDTO> getAllBooks();
+
+    /**
+     * Looks a single book up through the in-process book cache; changes are visible once committed.
+     */
+    Optional<BookDTO> getBook(Long id);
+
+    /**
+     * Looks a book up by its 13-digit ISBN, through the book cache and the unique ISBN index; empty for
+     * anything else than 13 digits.
+     */
+    Optional<BookDTO> getBookByIsbn(String isbn);
+
+    /**
+     * Whether a book has the ISBN, from the unique ISBN index.
+     */
+    boolean existsByIsbn(String isbn);
+
+    /**
+     * Those of {@code isbns} that books already have, e.g. to find the duplicates of a batch before writing
+     * it. Only the ISBNs the filter cannot rule out are looked up, in chunked {@code IN} queries.
+     */
+    Set<String> findExistingIsbns(Collection<String> isbns);
+
+    /**
+     * Streams the whole catalog to {@code writer} row by row, in constant memory.
+     *
+     * @return the number of books written
+     */
+    long exportBooks(BookWriter writer) throws IOException;
+
+    /**
+     * {@link #exportBooks} on a managed executor (virtual threads when enabled), so that the calling
+     * request thread is free while the catalog streams. Fails with the export's {@link IOException}.
+     */
+    CompletionStage<Long> exportBooksAsync(BookWriter writer);
+
     List<BookDTO> getBooks(int first, int pageSize);
+    List<BookDTO> getBooks(BookQuery query, int first, int pageSize);
+
+    /**
+     * Ranked full-text search over title and author, tolerant of typos; best matches first.
+     * Same as {@link #getBooks(BookQuery, int, int)} with a {@link BookFilter#search()} text.
+     */
+    List<BookDTO> searchBooks(String text, int first, int pageSize);
+    List<BookDTO> getBooksAfter(BookQuery query, BookCursor cursor, int pageSize);
+    List<BookDTO> getBooksBefore(BookQuery query, BookCursor cursor, int pageSize);
     int countBooks();
+    int countBooks(BookFilter filter);
+
+    /**
+     * {@link #countBooks(BookFilter)} on a managed executor, to run a count alongside the page query.
+     */
+    CompletionStage<Integer> countBooksAsync(BookFilter filter);
+    CountMode getCountMode();
+
+    /**
+     * Creates a book or overwrites an edited one. An edit that carries its version is written with
+     * {@link #updateBook}, i.e. one conditional {@code UPDATE}; without a version the book is loaded first.
+     *
+     * @throws DuplicateIsbnException if another book has the book's ISBN
+     */
     void saveBook(BookDTO bookDTO);
+
+    /**
+     * Persists a new book and returns it with its generated ID and initial version.
+     *
+     * @throws DuplicateIsbnException if another book has its ISBN
+     */
+    BookDTO createBook(BookDTO bookDTO);
+
+    /**
+     * Overwrites a book in a single conditional {@code UPDATE}, without reading it first.
+     *
+     * @return the book as stored, at its new version
+     * @throws jakarta.persistence.OptimisticLockException if the book is no longer at {@code expectedVersion}
+     * @throws BookNotFoundException if the book does not exist
+     * @throws DuplicateIsbnException if another book has the new ISBN
+     */
+    BookDTO updateBook(Long id, long expectedVersion, BookDTO bookDTO);
+
+    /**
+     * Changes only the fields present in {@code patch}, in one conditional {@code UPDATE}; fails like
+     * {@link #updateBook} does.
+     *
+     * @return the book's new version
+     * @throws IllegalArgumentException if the patch changes nothing
+     */
+    long patchBook(Long id, long expectedVersion, BookPatch patch);
+
+    /**
+     * Applies many price changes in JDBC batches, each conditional on the book's version. Changes to
+     * books that were modified meanwhile or are gone are skipped, the rest are applied. Of several changes
+     * to the same book, only the last one listed is applied.
+     *
+     * @return the IDs of the skipped books
+     */
+    Set<Long> updatePrices(List<BookPriceChange> changes);
+
+    /**
+     * Deletes the given books in JDBC batches. Books that carry a version are deleted only while still at
+     * that version; those changed meanwhile or gone are skipped.
+     */
+    BulkResult deleteBooks(List<BookRef> books);
+
+    /**
+     * Changes the price of the given books by {@code percent} (e.g. {@code 10} or {@code -15}), rounded to
+     * cents, in JDBC batches; version checks and skipping as in {@link #deleteBooks(List)}.
+     *
+     * @throws IllegalArgumentException if {@code percent} is -100 or less
+     */
+    BulkResult adjustPrices(List<BookRef> books, double percent);
+
+    /**
+     * Deletes every book matching {@code filter}, in chunks of IDs that each commit on their own. A failure
+     * leaves the chunks before it deleted.
+     *
+     * @return the number of books deleted
+     * @throws IllegalArgumentException if the filter is empty or has a search text
+     */
+    int deleteBooks(BookFilter filter);
+
+    /**
+     * Changes the price of every book matching {@code filter} by {@code percent}, chunked like
+     * {@link #deleteBooks(BookFilter)}.
+     *
+     * @return the number of books updated
+     * @throws IllegalArgumentException if {@code percent} is -100 or less, or the filter has a search text
+     */
+    int adjustPrices(BookFilter filter, double percent);
+
     void deleteBook(Long id);
+
+    /**
+     * Deletes a book in a single conditional {@code DELETE}; fails like {@link #updateBook} does.
+     */
+    void deleteBook(Long id, long expectedVersion);
+
+    /**
+     * Current version of a book, from the book cache or a version-only query; never loads the book.
+     */
+    Optional<Long> getBookVersion(Long id);
 }
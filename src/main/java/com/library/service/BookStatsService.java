@@ -0,0 +1,42 @@
+package com.library.service;
+
+import com.library.dto.AuthorFacet;
+import com.library.dto.CatalogStats;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Catalog statistics from summary rows that every book change is folded into shortly after it commits,
+ * so that reading them costs a few index lookups however large the catalog is.
+ */
+public interface BookStatsService {
+
+    /**
+     * Totals, the {@code topAuthors} authors with the most books and the price histogram.
+     */
+    CatalogStats getStats(int topAuthors);
+
+    Optional<CatalogStats.Group> getAuthorStats(String author);
+
+    /**
+     * The {@code limit} authors with the most books and their book counts, for filtering by author.
+     */
+    List<AuthorFacet> getAuthorFacets(int limit);
+
+    /**
+     * Folds the changes the database triggers recorded into the summary rows, at most a batch of them.
+     * Runs every {@code library.stats.foldMillis} on its own.
+     *
+     * @return the number of changes folded; as many as a batch holds when more are waiting
+     */
+    int fold();
+
+    /**
+     * Recomputes every summary row from the books and corrects those that drifted, e.g. through writes
+     * that bypassed the triggers. Runs every {@code library.stats.reconcileMinutes} on its own.
+     *
+     * @return the number of summary rows corrected
+     */
+    int reconcile();
+}
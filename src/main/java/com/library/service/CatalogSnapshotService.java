@@ -0,0 +1,46 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.SnapshotFootprint;
+
+import java.util.List;
+
+/**
+ * The whole catalog held in memory in columns, so that the book table can be sorted, filtered and paged
+ * without a query. Off unless {@code library.snapshot.enabled}; kept current by polling the books changed
+ * since the last refresh, every {@code library.snapshot.refreshMillis}.
+ */
+public interface CatalogSnapshotService {
+
+    /**
+     * Whether the snapshot can answer {@code filter} now: it is loaded, holds every change committed through
+     * this node, and the filter is not a ranked search. Changes made through other nodes show up within a
+     * refresh interval.
+     */
+    boolean supports(BookFilter filter);
+
+    /**
+     * @throws IllegalStateException if the snapshot is not loaded
+     */
+    int countBooks(BookFilter filter);
+
+    /**
+     * The page of {@code query}, ordered as {@link BookService#getBooks(BookQuery, int, int)} orders it, except
+     * that text sorts case-insensitively by character rather than by the database collation.
+     *
+     * @throws IllegalStateException if the snapshot is not loaded
+     */
+    List<BookDTO> getBooks(BookQuery query, int first, int pageSize);
+
+    SnapshotFootprint getFootprint();
+
+    /**
+     * Loads the catalog the first time, then applies the books changed since the last refresh. Runs on its
+     * own while enabled.
+     *
+     * @return the number of books loaded, changed or removed
+     */
+    int refresh();
+}
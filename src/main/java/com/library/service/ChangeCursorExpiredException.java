@@ -0,0 +1,12 @@
+package com.library.service;
+
+/**
+ * A change feed cursor handed out longer ago than tombstones are kept: deletions after it may be gone, so the
+ * client has to sync from the start again.
+ */
+public class ChangeCursorExpiredException extends RuntimeException {
+
+    public ChangeCursorExpiredException(int retentionDays) {
+        super("The cursor is older than " + retentionDays + " days; sync again from the start");
+    }
+}
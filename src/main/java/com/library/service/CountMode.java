@@ -0,0 +1,17 @@
+package com.library.service;
+
+/**
+ * How {@link BookService#countBooks(com.library.dto.BookFilter)} answers, configured with
+ * {@code library.count.mode}.
+ */
+public enum CountMode {
+
+    /** Exact {@code COUNT(*)}, cached per filter until the next committed change. */
+    EXACT,
+
+    /** Like {@link #EXACT}, but unfiltered counts of a large table come from planner statistics. */
+    ESTIMATE,
+
+    /** No count at all: the table pages by looking one row ahead. */
+    HAS_MORE
+}
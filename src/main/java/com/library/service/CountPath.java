@@ -0,0 +1,12 @@
+package com.library.service;
+
+/**
+ * The way a single count request was answered, tracked so the cost of counting is visible.
+ */
+public enum CountPath {
+    CACHE_HIT,
+    EXACT_QUERY,
+    ESTIMATE,
+    SUMMARY,
+    SKIPPED
+}
@@ -0,0 +1,16 @@
+package com.library.service;
+
+/**
+ * Another book already has the ISBN. An {@link IllegalArgumentException} like the other rejections of bad input
+ * to {@link BookService}.
+ */
+public class DuplicateIsbnException extends IllegalArgumentException {
+
+    public DuplicateIsbnException(String isbn) {
+        super("Another book already has ISBN " + isbn);
+    }
+
+    public DuplicateIsbnException(String isbn, Throwable cause) {
+        super("Another book already has ISBN " + isbn, cause);
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.service.impl;
+
+import com.library.dto.BookFilter;
+import com.library.event.BookChangedEvent;
+import com.library.repository.BookRepository;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Applies a filter-based bulk operation one chunk of IDs at a time, each chunk in its own transaction, so
+ * that a change to a large part of the catalog never holds its row locks, or grows its undo, all at once.
+ * Separate from {@link BookServiceImpl} because transaction boundaries only apply to calls that go through
+ * the CDI proxy.
+ */
+@Slf4j
+@ApplicationScoped
+public class BookBulkWriter {
+
+    @Inject
+    private BookRepository repository;
+
+    @Inject
+    private Event<BookChangedEvent> changes;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Getter
+    private int chunkSize;
+
+    /**
+     * @param lastId   the highest ID looked at, where the next chunk starts; unchanged once there are no more rows
+     * @param matched  IDs found matching the filter
+     * @param affected rows actually deleted or updated, fewer than {@code matched} if some changed meanwhile
+     */
+    public record ChunkResult(long lastId, int matched, int affected) {
+
+        public boolean isLast(int chunkSize) {
+            return matched < chunkSize;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        chunkSize = Math.max(1, config.getInt("library.bulk.chunkSize", 1_000));
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public ChunkResult delete(BookFilter filter, long afterId) {
+        List<Long> ids = repository.findIdsMatching(filter, afterId, chunkSize);
+        if (ids.isEmpty()) {
+            return new ChunkResult(afterId, 0, 0);
+        }
+        int deleted = repository.deleteMatching(filter, ids);
+        // Evicting all of the chunk also covers the few rows that stopped matching in between.
+        changes.fire(new BookChangedEvent(BookChangedEvent.ChangeType.DELETED, new HashSet<>(ids)));
+        log.debug("Bulk delete chunk after ID {}: matched={}, deleted={}", afterId, ids.size(), deleted);
+        return new ChunkResult(ids.getLast(), ids.size(), deleted);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public ChunkResult adjustPrices(BookFilter filter, long afterId, BigDecimal factor) {
+        List<Long> ids = repository.findIdsMatching(filter, afterId, chunkSize);
+        if (ids.isEmpty()) {
+            return new ChunkResult(afterId, 0, 0);
+        }
+        int updated = repository.adjustPricesMatching(filter, ids, factor);
+        changes.fire(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, new HashSet<>(ids)));
+        log.debug("Bulk price chunk after ID {}: matched={}, updated={}", afterId, ids.size(), updated);
+        return new ChunkResult(ids.getLast(), ids.size(), updated);
+    }
+}
@@ -0,0 +1,145 @@
+package com.library.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.dto.BookDTO;
+import com.library.event.BookChangedEvent;
+import com.library.repository.BookRepository;
+import com.library.util.ConfigUtil;
+import com.library.util.Isbn;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache for single-book lookups by ID and by ISBN, bounded by size (W-TinyLFU eviction) and TTL.
+ * Entries are dropped once a change to the book is committed; a load that overlapped such a change is
+ * returned but not cached. Loads run outside of any cache lock, so they never pin a virtual thread.
+ * Callers always get their own copy, so forms binding to the returned DTO never mutate the cached one.
+ */
+@Slf4j
+@ApplicationScoped
+public class BookCache {
+
+    @Inject
+    private BookRepository repository;
+
+    @Inject
+    private ConfigUtil config;
+
+    private Cache<Long, BookDTO> byId;
+    private Cache<String, Long> idsByIsbn;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        long maxSize = config.getLong("library.cache.books.maxSize", 10_000);
+        Duration ttl = Duration.ofSeconds(config.getLong("library.cache.books.ttlSeconds", 300));
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        idsByIsbn = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        log.info("Book cache: maxSize={}, ttl={}", maxSize, ttl);
+    }
+
+    public Optional<BookDTO> get(Long id) {
+        BookDTO book = byId.getIfPresent(id);
+        if (book == null) {
+            book = load(id);
+        }
+        return Optional.ofNullable(book).map(BookCache::copy);
+    }
+
+    /**
+     * @param isbn 13 digits
+     */
+    public Optional<BookDTO> getByIsbn(String isbn) {
+        Long cachedId = idsByIsbn.getIfPresent(isbn);
+        if (cachedId != null) {
+            Optional<BookDTO> book = get(cachedId).filter(found -> isbn.equals(found.getIsbn()));
+            if (book.isPresent()) {
+                return book;
+            }
+            // The book behind the ISBN was deleted or re-numbered since, resolve it again against the table.
+            idsByIsbn.invalidate(isbn);
+        }
+        // The whole book in one query from the ISBN index, cached under its ID like a load by ID.
+        long seen = invalidations.get();
+        Optional<BookDTO> book = repository.findByIsbn(Isbn.parse(isbn));
+        book.ifPresent(found -> {
+            idsByIsbn.put(isbn, found.getId());
+            cache(found, seen);
+        });
+        return book.map(BookCache::copy);
+    }
+
+    /**
+     * Returns the version of a cached book without loading it, for cheap stale-edit checks.
+     */
+    public Optional<Long> peekVersion(Long id) {
+        return Optional.ofNullable(byId.getIfPresent(id)).map(BookDTO::getVersion);
+    }
+
+    public void invalidate(BookChangedEvent event) {
+        invalidations.incrementAndGet();
+        if (event.ids().isEmpty()) {
+            byId.invalidateAll();
+            idsByIsbn.invalidateAll();
+        } else {
+            byId.invalidateAll(event.ids());
+        }
+    }
+
+    public CacheStats getStats() {
+        return byId.stats();
+    }
+
+    public long getSize() {
+        return byId.estimatedSize();
+    }
+
+    void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        log.debug("Evicting cached books after {} of {}", event.type(), event.ids());
+        invalidate(event);
+    }
+
+    // Not Cache.get(key, loader): Caffeine runs the loader inside ConcurrentHashMap.compute, whose
+    // synchronized bin lock would pin the carrier of a virtual thread for the whole JDBC round trip.
+    private BookDTO load(Long id) {
+        long seen = invalidations.get();
+        BookDTO loaded = repository.findDtoById(id).orElse(null);
+        if (loaded != null) {
+            cache(loaded, seen);
+        }
+        return loaded;
+    }
+
+    // invalidate() counts before it removes, and this compute is atomic with the removal of the
+    // same key: a load that overlapped a committed change is either skipped here or removed there.
+    private void cache(BookDTO loaded, long seen) {
+        byId.asMap().compute(loaded.getId(), (key, current) -> invalidations.get() != seen ? current : newer(current, loaded));
+    }
+
+    private static BookDTO newer(BookDTO current, BookDTO loaded) {
+        return current != null && current.getVersion() != null && loaded.getVersion() != null
+                && current.getVersion() > loaded.getVersion() ? current : loaded;
+    }
+
+    private static BookDTO copy(BookDTO book) {
+        return new BookDTO(book.getId(), book.getVersion(), book.getTitle(), book.getAuthor(), book.getPrice(),
+                book.getIsbn());
+    }
+}
@@ -0,0 +1,167 @@
+package com.library.service.impl;
+
+import com.library.dto.BookChanges;
+import com.library.dto.BookDeletion;
+import com.library.dto.BookRow;
+import com.library.dto.ChangeCursor;
+import com.library.metrics.Timed;
+import com.library.model.BookTombstone;
+import com.library.repository.BookRepository;
+import com.library.repository.BookTombstoneRepository;
+import com.library.repository.ReadOnly;
+import com.library.service.BookChangeFeedService;
+import com.library.service.ChangeCursorExpiredException;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads the change feed from the {@code (updated_at, id)} index of {@code books} and the {@code (deleted_at, book_id)}
+ * index of {@code book_tombstones}: one keyset query each per page, merged by time. Only changes older than
+ * {@code library.changes.settleMillis} (default 5000) are listed, which also keeps replica reads (at most
+ * {@code library.replica.maxLagMillis} behind) complete. Tombstones are kept
+ * {@code library.changes.tombstoneRetentionDays} (default 30), and a cursor handed out longer ago is refused.
+ * <p>
+ * Changes are ordered by the application clock of the node that made them, so nodes are expected to keep
+ * their clocks in sync to well within the settle time.
+ */
+@Slf4j
+@ApplicationScoped
+@Timed
+public class BookChangeFeedServiceImpl implements BookChangeFeedService {
+
+    @Inject
+    private BookRepository repository;
+
+    @Inject
+    private BookTombstoneRepository tombstones;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    // Own contextual reference, so that scheduled purges run in a transaction.
+    @Inject
+    private BookChangeFeedService self;
+
+    private Duration settle;
+    private int retentionDays;
+    private ScheduledFuture<?> purging;
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder upserts = new LongAdder();
+    private final LongAdder deletions = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        settle = Duration.ofMillis(config.getLong("library.changes.settleMillis", 5_000));
+        retentionDays = Math.max(1, config.getInt("library.changes.tombstoneRetentionDays", 30));
+        log.info("Change feed: settle={}, tombstoneRetentionDays={}", settle, retentionDays);
+    }
+
+    void start(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        purging = scheduler.scheduleWithFixedDelay(this::purgeQuietly, 0, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (purging != null) {
+            purging.cancel(false);
+        }
+    }
+
+    @Override
+    @ReadOnly
+    public BookChanges getChanges(ChangeCursor cursor, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        if (cursor.issuedAt() != null && cursor.issuedAt().isBefore(now.minusDays(retentionDays))) {
+            throw new ChangeCursorExpiredException(retentionDays);
+        }
+        LocalDateTime horizon = now.minus(settle);
+        // After a deletion, every change at its time came before it; after a change, every deletion at its time
+        // comes after it.
+        List<BookRow> rows = repository.findRowsChangedAfter(cursor.at(), cursor.deletion() ? Long.MAX_VALUE : cursor.id(),
+                horizon, limit + 1);
+        List<BookTombstone> deleted = tombstones.findAfter(cursor.at(), cursor.deletion() ? cursor.id() : 0,
+                horizon, limit + 1);
+
+        List<BookRow> pageUpserts = new ArrayList<>();
+        List<BookDeletion> pageDeletions = new ArrayList<>();
+        ChangeCursor last = cursor;
+        int row = 0;
+        int tombstone = 0;
+        while (row + tombstone < limit && (row < rows.size() || tombstone < deleted.size())) {
+            boolean deletionNext = row == rows.size() || (tombstone < deleted.size()
+                    && deleted.get(tombstone).getDeletedAt().isBefore(rows.get(row).updatedAt()));
+            if (deletionNext) {
+                BookTombstone next = deleted.get(tombstone++);
+                pageDeletions.add(new BookDeletion(next.getBookId(), next.getDeletedAt()));
+                last = new ChangeCursor(next.getDeletedAt(), true, next.getBookId(), horizon);
+            } else {
+                BookRow next = rows.get(row++);
+                pageUpserts.add(next);
+                last = new ChangeCursor(next.updatedAt(), false, next.id(), horizon);
+            }
+        }
+        boolean hasMore = row < rows.size() || tombstone < deleted.size();
+        if (!hasMore && last.at().isBefore(horizon)) {
+            // Everything before the horizon has been read; the next page starts there.
+            last = new ChangeCursor(horizon, false, 0, horizon);
+        }
+        pages.increment();
+        upserts.add(pageUpserts.size());
+        deletions.add(pageDeletions.size());
+        return new BookChanges(pageUpserts, pageDeletions, last.encode(), hasMore);
+    }
+
+    @Override
+    @Transactional
+    public int purgeTombstones() {
+        int deleted = tombstones.deleteBefore(LocalDateTime.now().minusDays(retentionDays));
+        purged.add(deleted);
+        log.info("Purged {} book tombstones older than {} days", deleted, retentionDays);
+        return deleted;
+    }
+
+    public long getPages() {
+        return pages.sum();
+    }
+
+    public long getUpserts() {
+        return upserts.sum();
+    }
+
+    public long getDeletions() {
+        return deletions.sum();
+    }
+
+    public long getPurged() {
+        return purged.sum();
+    }
+
+    private void purgeQuietly() {
+        try {
+            self.purgeTombstones();
+        } catch (RuntimeException e) {
+            log.error("Purging the book tombstones failed", e);
+        }
+    }
+}
@@ -0,0 +1,645 @@
+package com.library.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.BookRow;
+import com.library.dto.BookSort;
+import com.library.dto.SnapshotFootprint;
+import com.library.util.Isbn;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * The catalog held column by column, for sorting, filtering and paging without the database. Rows are kept
+ * in ID order. IDs, versions, prices (in cents) and ISBNs are {@code long} arrays; titles and authors are
+ * codes into sorted string dictionaries, so sorting by them compares ints and a prefix filter is a range of
+ * codes. Every sortable column has a permutation of the rows in its order, ties broken by ID, from which a
+ * page in either direction is read without sorting anything.
+ * <p>
+ * Instances are immutable and safe to share; {@link #apply} returns a new one. Text is ordered
+ * case-insensitively by character, which can place accented names differently than the database collation.
+ */
+final class BookColumns {
+
+    // Case-insensitive first, so that the names starting with a prefix (ignoring case) get adjacent codes;
+    // the exact spelling only breaks ties.
+    static final Comparator<String> DICTIONARY_ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    // Sorts after every price, where an ascending PostgreSQL sort puts NULL.
+    private static final long NO_PRICE = Long.MAX_VALUE;
+    private static final long NO_ISBN = -1;
+
+    private static final int MAX_CACHED_SELECTIONS = 64;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int STRING_BYTES = 24;
+
+    static final BookColumns EMPTY = new Builder().build();
+
+    private final long[] ids;
+    private final long[] versions;
+    private final long[] prices;
+    private final long[] isbns;
+    private final int[] titles;
+    private final int[] authors;
+    private final String[] titleDictionary;
+    private final String[] authorDictionary;
+    // By author code.
+    private final long[] authorIds;
+    private final int[] byTitle;
+    private final int[] byAuthor;
+    private final int[] byPrice;
+    private final int applied;
+
+    // The rows of recent queries in their order. Per instance, so never stale.
+    private final Cache<BookQuery, int[]> selections = Caffeine.newBuilder().maximumSize(MAX_CACHED_SELECTIONS).build();
+    private volatile SnapshotFootprint footprint;
+
+    private BookColumns(long[] ids, long[] versions, long[] prices, long[] isbns, int[] titles, int[] authors,
+                        String[] titleDictionary, String[] authorDictionary, long[] authorIds,
+                        int[] byTitle, int[] byAuthor, int[] byPrice, int applied) {
+        this.ids = ids;
+        this.versions = versions;
+        this.prices = prices;
+        this.isbns = isbns;
+        this.titles = titles;
+        this.authors = authors;
+        this.titleDictionary = titleDictionary;
+        this.authorDictionary = authorDictionary;
+        this.authorIds = authorIds;
+        this.byTitle = byTitle;
+        this.byAuthor = byAuthor;
+        this.byPrice = byPrice;
+        this.applied = applied;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Books added, changed or removed by the {@link #apply} that made these columns; all of them for a load.
+     */
+    int applied() {
+        return applied;
+    }
+
+    LongStream ids() {
+        return LongStream.of(ids);
+    }
+
+    /**
+     * Whether {@code filter} can be answered from memory: everything but a ranked search.
+     */
+    static boolean supports(BookFilter filter) {
+        return !filter.hasSearch();
+    }
+
+    int count(BookFilter filter) {
+        return filter.isEmpty() ? size() : order(new BookQuery(filter, BookSort.DEFAULT)).length;
+    }
+
+    /**
+     * The books {@code first} to {@code first + pageSize} of {@code query}, as the database would order them
+     * (up to collation), built from the columns.
+     */
+    List<BookDTO> page(BookQuery query, int first, int pageSize) {
+        int[] order = order(query);
+        int total = order == null ? size() : order.length;
+        int end = (int) Math.min(total, (long) first + pageSize);
+        List<BookDTO> page = new ArrayList<>(Math.max(0, end - first));
+        for (int i = first; i < end; i++) {
+            page.add(book(order == null ? i : order[i]));
+        }
+        return page;
+    }
+
+    /**
+     * These columns with {@code changes} and {@code deletions} applied, or this instance when they change
+     * nothing: rows already held at their version are skipped, so overlapping polls cost no rebuild. A
+     * deletion wins over a change of the same book. The permutations are merged, not sorted again: the rows
+     * kept stay in their order, since neither their codes nor their IDs change order, and only the changed
+     * rows are sorted and merged in.
+     */
+    BookColumns apply(Collection<BookRow> changes, Collection<Long> deletions) {
+        TreeMap<Long, BookRow> upserts = new TreeMap<>();
+        for (BookRow row : changes) {
+            int at = indexOf(row.id());
+            if (at < 0 || versions[at] < row.version()) {
+                upserts.merge(row.id(), row, (a, b) -> a.version() >= b.version() ? a : b);
+            }
+        }
+        upserts.keySet().removeAll(deletions);
+        Set<Long> removed = new HashSet<>();
+        for (Long id : deletions) {
+            if (indexOf(id) >= 0) {
+                removed.add(id);
+            }
+        }
+        if (upserts.isEmpty() && removed.isEmpty()) {
+            return this;
+        }
+
+        Map<String, Long> newAuthorIds = new HashMap<>();
+        upserts.values().forEach(row -> newAuthorIds.put(row.author(), row.authorId()));
+        Merged titleMerge = merge(titleDictionary, upserts.values().stream().map(BookRow::title).toList());
+        Merged authorMerge = merge(authorDictionary, newAuthorIds.keySet());
+        long[] mergedAuthorIds = new long[authorMerge.dictionary().length];
+        for (int code = 0; code < mergedAuthorIds.length; code++) {
+            Long id = newAuthorIds.get(authorMerge.dictionary()[code]);
+            mergedAuthorIds[code] = id != null ? id : 0;
+        }
+        for (int code = 0; code < authorIds.length; code++) {
+            mergedAuthorIds[authorMerge.code(code)] = authorIds[code];
+        }
+
+        int inserted = (int) upserts.keySet().stream().filter(id -> indexOf(id) < 0).count();
+        int size = size() - removed.size() + inserted;
+        long[] newIds = new long[size];
+        long[] newVersions = new long[size];
+        long[] newPrices = new long[size];
+        long[] newIsbns = new long[size];
+        int[] newTitles = new int[size];
+        int[] newAuthors = new int[size];
+
+        // Old row to new row, -1 when removed or replaced; and the new rows of the upserts.
+        int[] rowMoves = new int[size()];
+        int[] upsertedRows = new int[upserts.size()];
+        int upserted = 0;
+        Iterator<BookRow> pending = upserts.values().iterator();
+        BookRow next = pending.hasNext() ? pending.next() : null;
+        int out = 0;
+        for (int row = 0; row <= size(); row++) {
+            long id = row < size() ? ids[row] : Long.MAX_VALUE;
+            while (next != null && next.id() <= id) {
+                newIds[out] = next.id();
+                newVersions[out] = next.version();
+                newPrices[out] = encodePrice(next.price());
+                newIsbns[out] = encodeIsbn(next.isbn());
+                newTitles[out] = Arrays.binarySearch(titleMerge.dictionary(), next.title(), DICTIONARY_ORDER);
+                newAuthors[out] = Arrays.binarySearch(authorMerge.dictionary(), next.author(), DICTIONARY_ORDER);
+                upsertedRows[upserted++] = out++;
+                boolean replaced = next.id() == id;
+                next = pending.hasNext() ? pending.next() : null;
+                if (replaced) {
+                    id = -1;
+                }
+            }
+            if (row == size()) {
+                continue;
+            }
+            if (id == -1 || removed.contains(id)) {
+                rowMoves[row] = -1;
+                continue;
+            }
+            rowMoves[row] = out;
+            newIds[out] = id;
+            newVersions[out] = versions[row];
+            newPrices[out] = prices[row];
+            newIsbns[out] = isbns[row];
+            newTitles[out] = titleMerge.code(titles[row]);
+            newAuthors[out] = authorMerge.code(authors[row]);
+            out++;
+        }
+
+        // Names of changed or deleted books stay behind until they make up half the dictionary.
+        Merged titleCompaction = compact(titleMerge.dictionary(), newTitles);
+        Merged authorCompaction = compact(authorMerge.dictionary(), newAuthors);
+        long[] compactedAuthorIds = mergedAuthorIds;
+        if (authorCompaction.moved() != null) {
+            compactedAuthorIds = new long[authorCompaction.dictionary().length];
+            for (int code = 0; code < mergedAuthorIds.length; code++) {
+                if (authorCompaction.code(code) >= 0) {
+                    compactedAuthorIds[authorCompaction.code(code)] = mergedAuthorIds[code];
+                }
+            }
+        }
+        int[] codedTitles = titleCompaction.recode(newTitles);
+        int[] codedAuthors = authorCompaction.recode(newAuthors);
+        return new BookColumns(newIds, newVersions, newPrices, newIsbns, codedTitles, codedAuthors,
+                titleCompaction.dictionary(), authorCompaction.dictionary(), compactedAuthorIds,
+                merge(byTitle, rowMoves, upsertedRows, (a, b) -> Integer.compare(codedTitles[a], codedTitles[b])),
+                merge(byAuthor, rowMoves, upsertedRows, (a, b) -> Integer.compare(codedAuthors[a], codedAuthors[b])),
+                merge(byPrice, rowMoves, upsertedRows, (a, b) -> Long.compare(newPrices[a], newPrices[b])),
+                upserts.size() + removed.size());
+    }
+
+    /**
+     * Estimated heap of the columns, permutations and dictionaries, counted once per instance.
+     */
+    SnapshotFootprint footprint() {
+        SnapshotFootprint result = footprint;
+        if (result == null) {
+            long bytes = 4 * arrayBytes(size(), Long.BYTES) + 5 * arrayBytes(size(), Integer.BYTES)
+                    + dictionaryBytes(titleDictionary) + dictionaryBytes(authorDictionary)
+                    + arrayBytes(authorIds.length, Long.BYTES);
+            result = new SnapshotFootprint(size(), titleDictionary.length, authorDictionary.length, bytes);
+            footprint = result;
+        }
+        return result;
+    }
+
+    // The rows of the query in its order; null for all rows in ID order, which needs no array.
+    private int[] order(BookQuery query) {
+        if (!supports(query.filter())) {
+            throw new IllegalArgumentException("A ranked search is not served from memory");
+        }
+        if (query.filter().isEmpty() && query.sort().equals(BookSort.DEFAULT)) {
+            return null;
+        }
+        return selections.get(query, this::select);
+    }
+
+    private int[] select(BookQuery query) {
+        int[] sorted = switch (query.sort().field()) {
+            case ID -> null;
+            case TITLE -> byTitle;
+            case AUTHOR -> byAuthor;
+            case PRICE -> byPrice;
+        };
+        RowFilter filter = new RowFilter(query.filter());
+        if (filter.none) {
+            return new int[0];
+        }
+        int size = size();
+        int[] rows = new int[query.filter().isEmpty() ? size : Math.min(size, 1024)];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int at = query.sort().ascending() ? i : size - 1 - i;
+            int row = sorted == null ? at : sorted[at];
+            if (filter.matches(row)) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, Math.min(size, rows.length * 2));
+                }
+                rows[count++] = row;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    private BookDTO book(int row) {
+        long price = prices[row];
+        return new BookDTO(ids[row], versions[row], titleDictionary[titles[row]], authorDictionary[authors[row]],
+                price == NO_PRICE ? null : BigDecimal.valueOf(price, 2), isbn(row));
+    }
+
+    private String isbn(int row) {
+        long isbn = isbns[row];
+        return isbn == NO_ISBN ? null : Isbn.format(isbn);
+    }
+
+    private int indexOf(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    /**
+     * A {@link BookFilter} compiled against these columns: prefixes become code ranges, prices cents.
+     */
+    private final class RowFilter {
+
+        private int titleFrom;
+        private int titleTo = Integer.MAX_VALUE;
+        private int authorFrom;
+        private int authorTo = Integer.MAX_VALUE;
+        private boolean priced;
+        private long minPrice = Long.MIN_VALUE;
+        private long maxPrice = Long.MAX_VALUE;
+        // Null for no ISBN filter.
+        private Isbn.Range isbnRange;
+        // Matches nothing, known without looking at a row.
+        private boolean none;
+
+        RowFilter(BookFilter filter) {
+            if (filter.titlePrefix() != null) {
+                titleFrom = firstCode(titleDictionary, name -> String.CASE_INSENSITIVE_ORDER.compare(name, filter.titlePrefix()) >= 0);
+                titleTo = firstCode(titleDictionary, name -> isPast(name, filter.titlePrefix()));
+            }
+            if (filter.authorPrefix() != null) {
+                authorFrom = firstCode(authorDictionary, name -> String.CASE_INSENSITIVE_ORDER.compare(name, filter.authorPrefix()) >= 0);
+                authorTo = firstCode(authorDictionary, name -> isPast(name, filter.authorPrefix()));
+            }
+            if (filter.authorId() != null) {
+                int code = IntStream.range(0, authorIds.length)
+                        .filter(i -> authorIds[i] == filter.authorId())
+                        .findFirst()
+                        .orElse(-1);
+                authorFrom = Math.max(authorFrom, code);
+                authorTo = code < 0 ? authorFrom : Math.min(authorTo, code + 1);
+            }
+            if (filter.minPrice() != null) {
+                priced = true;
+                minPrice = filter.minPrice().setScale(2, RoundingMode.CEILING).unscaledValue().longValueExact();
+            }
+            if (filter.maxPrice() != null) {
+                priced = true;
+                maxPrice = filter.maxPrice().setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+            }
+            if (filter.isbnPrefix() != null) {
+                isbnRange = Isbn.prefixRange(filter.isbnPrefix());
+            }
+            none = titleFrom >= titleTo || authorFrom >= authorTo || minPrice > maxPrice
+                    || (isbnRange != null && isbnRange.isEmpty());
+        }
+
+        boolean matches(int row) {
+            int title = titles[row];
+            int author = authors[row];
+            if (title < titleFrom || title >= titleTo || author < authorFrom || author >= authorTo) {
+                return false;
+            }
+            if (priced) {
+                long price = prices[row];
+                if (price == NO_PRICE || price < minPrice || price > maxPrice) {
+                    return false;
+                }
+            }
+            return isbnRange == null || isbnRange.contains(isbns[row]);
+        }
+    }
+
+    // Past every name that starts with prefix, ignoring case; those sort right after the prefix itself.
+    private static boolean isPast(String name, String prefix) {
+        return String.CASE_INSENSITIVE_ORDER.compare(name, prefix) > 0
+                && !name.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    // The first code whose name satisfies test, which is false up to some code and true from there on.
+    private static int firstCode(String[] dictionary, Predicate<String> test) {
+        int low = 0;
+        int high = dictionary.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (test.test(dictionary[middle])) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // Row numbers ordered by key, then by row number, which is ID order.
+    private static int[] permutation(int[] keys) {
+        long[] sorted = new long[keys.length];
+        for (int row = 0; row < keys.length; row++) {
+            sorted[row] = (long) keys[row] << 32 | row;
+        }
+        Arrays.sort(sorted);
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) sorted[i];
+        }
+        return rows;
+    }
+
+    /**
+     * The order of the new rows by a key, from the {@code old} permutation: the kept rows, renumbered by
+     * {@code rowMoves}, with the {@code added} rows sorted and merged in. Ties are broken by row number, as
+     * in {@link #permutation}.
+     */
+    private static int[] merge(int[] old, int[] rowMoves, int[] added, RowOrder byKey) {
+        RowOrder order = (a, b) -> {
+            int compared = byKey.compare(a, b);
+            return compared != 0 ? compared : Integer.compare(a, b);
+        };
+        int[] sortedAdded = IntStream.of(added).boxed().sorted(order::compare).mapToInt(Integer::intValue).toArray();
+        int[] rows = new int[rowMoves.length - (int) IntStream.of(rowMoves).filter(row -> row < 0).count() + added.length];
+        int out = 0;
+        int next = 0;
+        for (int row : old) {
+            int moved = rowMoves[row];
+            if (moved < 0) {
+                continue;
+            }
+            while (next < sortedAdded.length && order.compare(sortedAdded[next], moved) < 0) {
+                rows[out++] = sortedAdded[next++];
+            }
+            rows[out++] = moved;
+        }
+        while (next < sortedAdded.length) {
+            rows[out++] = sortedAdded[next++];
+        }
+        return rows;
+    }
+
+    @FunctionalInterface
+    private interface RowOrder {
+
+        int compare(int a, int b);
+    }
+
+    // Dense ranks of the values, for permutation() to order them as ints.
+    private static int[] ranks(long[] values) {
+        long[] distinct = values.clone();
+        Arrays.sort(distinct);
+        int count = 0;
+        for (long value : distinct) {
+            if (count == 0 || distinct[count - 1] != value) {
+                distinct[count++] = value;
+            }
+        }
+        int[] ranks = new int[values.length];
+        for (int row = 0; row < values.length; row++) {
+            ranks[row] = Arrays.binarySearch(distinct, 0, count, values[row]);
+        }
+        return ranks;
+    }
+
+    private static long encodePrice(BigDecimal price) {
+        return price == null ? NO_PRICE : price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long encodeIsbn(Long isbn) {
+        return isbn == null ? NO_ISBN : isbn;
+    }
+
+    private static long arrayBytes(long length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + length * elementBytes);
+    }
+
+    // The reference array plus, per name, the String and its compact (Latin-1) or UTF-16 byte array.
+    private static long dictionaryBytes(String[] dictionary) {
+        long bytes = arrayBytes(dictionary.length, Integer.BYTES);
+        for (String name : dictionary) {
+            boolean latin1 = name.chars().allMatch(c -> c <= 0xFF);
+            bytes += STRING_BYTES + arrayBytes((long) name.length() * (latin1 ? 1 : 2), 1);
+        }
+        return bytes;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * A dictionary after adding or dropping names, and where each old code went ({@code -1} when dropped);
+     * {@code moved} is null when no code moved.
+     */
+    private record Merged(String[] dictionary, int[] moved) {
+
+        int code(int old) {
+            return moved == null ? old : moved[old];
+        }
+
+        int[] recode(int[] codes) {
+            if (moved != null) {
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = moved[codes[i]];
+                }
+            }
+            return codes;
+        }
+    }
+
+    private static Merged merge(String[] dictionary, Collection<String> names) {
+        TreeSet<String> added = new TreeSet<>(DICTIONARY_ORDER);
+        for (String name : names) {
+            if (Arrays.binarySearch(dictionary, name, DICTIONARY_ORDER) < 0) {
+                added.add(name);
+            }
+        }
+        if (added.isEmpty()) {
+            return new Merged(dictionary, null);
+        }
+        String[] merged = new String[dictionary.length + added.size()];
+        int[] moved = new int[dictionary.length];
+        Iterator<String> pending = added.iterator();
+        String next = pending.next();
+        int old = 0;
+        for (int code = 0; code < merged.length; code++) {
+            if (next == null || (old < dictionary.length && DICTIONARY_ORDER.compare(dictionary[old], next) < 0)) {
+                moved[old] = code;
+                merged[code] = dictionary[old++];
+            } else {
+                merged[code] = next;
+                next = pending.hasNext() ? pending.next() : null;
+            }
+        }
+        return new Merged(merged, moved);
+    }
+
+    private static Merged compact(String[] dictionary, int[] codes) {
+        boolean[] used = new boolean[dictionary.length];
+        int usedCount = 0;
+        for (int code : codes) {
+            if (!used[code]) {
+                used[code] = true;
+                usedCount++;
+            }
+        }
+        if (dictionary.length <= 2 * usedCount + 1_024) {
+            return new Merged(dictionary, null);
+        }
+        String[] compacted = new String[usedCount];
+        int[] moved = new int[dictionary.length];
+        int next = 0;
+        for (int code = 0; code < dictionary.length; code++) {
+            moved[code] = used[code] ? next : -1;
+            if (used[code]) {
+                compacted[next++] = dictionary[code];
+            }
+        }
+        return new Merged(compacted, moved);
+    }
+
+    /**
+     * Collects a full load, rows in ascending ID order. Strings get codes in arrival order first and are
+     * sorted once at the end.
+     */
+    static final class Builder {
+
+        private long[] ids = new long[1_024];
+        private long[] versions = new long[1_024];
+        private long[] prices = new long[1_024];
+        private long[] isbns = new long[1_024];
+        private int[] titles = new int[1_024];
+        private int[] authors = new int[1_024];
+        private int size;
+        private final Map<String, Integer> titleCodes = new HashMap<>();
+        private final Map<String, Integer> authorCodes = new HashMap<>();
+        private final List<Long> authorIds = new ArrayList<>();
+
+        Builder add(BookRow row) {
+            if (size > 0 && row.id() <= ids[size - 1]) {
+                throw new IllegalArgumentException("Rows must come in ascending ID order, got " + row.id()
+                        + " after " + ids[size - 1]);
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                isbns = Arrays.copyOf(isbns, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                authors = Arrays.copyOf(authors, capacity);
+            }
+            ids[size] = row.id();
+            versions[size] = row.version();
+            prices[size] = encodePrice(row.price());
+            isbns[size] = encodeIsbn(row.isbn());
+            titles[size] = titleCodes.computeIfAbsent(row.title(), title -> titleCodes.size());
+            authors[size] = authorCodes.computeIfAbsent(row.author(), author -> {
+                authorIds.add(row.authorId());
+                return authorCodes.size();
+            });
+            size++;
+            return this;
+        }
+
+        BookColumns build() {
+            String[] titleDictionary = sorted(titleCodes);
+            String[] authorDictionary = sorted(authorCodes);
+            int[] titleMoves = moves(titleCodes, titleDictionary);
+            int[] authorMoves = moves(authorCodes, authorDictionary);
+            int[] codedTitles = Arrays.copyOf(titles, size);
+            int[] codedAuthors = Arrays.copyOf(authors, size);
+            for (int row = 0; row < size; row++) {
+                codedTitles[row] = titleMoves[codedTitles[row]];
+                codedAuthors[row] = authorMoves[codedAuthors[row]];
+            }
+            long[] sortedAuthorIds = new long[authorDictionary.length];
+            for (int code = 0; code < authorMoves.length; code++) {
+                sortedAuthorIds[authorMoves[code]] = authorIds.get(code);
+            }
+            long[] sizedPrices = Arrays.copyOf(prices, size);
+            return new BookColumns(Arrays.copyOf(ids, size), Arrays.copyOf(versions, size),
+                    sizedPrices, Arrays.copyOf(isbns, size), codedTitles, codedAuthors,
+                    titleDictionary, authorDictionary, sortedAuthorIds,
+                    permutation(codedTitles), permutation(codedAuthors), permutation(ranks(sizedPrices)), size);
+        }
+
+        private static String[] sorted(Map<String, Integer> codes) {
+            String[] dictionary = codes.keySet().toArray(String[]::new);
+            Arrays.sort(dictionary, DICTIONARY_ORDER);
+            return dictionary;
+        }
+
+        // Arrival code to sorted code.
+        private static int[] moves(Map<String, Integer> codes, String[] dictionary) {
+            int[] moves = new int[dictionary.length];
+            for (int code = 0; code < dictionary.length; code++) {
+                moves[codes.get(dictionary[code])] = code;
+            }
+            return moves;
+        }
+    }
+}
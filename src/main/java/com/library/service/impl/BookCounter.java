@@ -0,0 +1,133 @@
+package com.library.service.impl;
+
+import com.library.dto.BookFilter;
+import com.library.event.BookChangedEvent;
+import com.library.repository.BookRepository;
+import com.library.repository.BookStatsRepository;
+import com.library.service.BookService;
+import com.library.service.CountMode;
+import com.library.service.CountPath;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers row counts for the book table without running a full {@code COUNT(*)} on every page view.
+ * Exact counts are cached per filter and dropped as soon as a change to the books is committed;
+ * the TTL only guards against writes that bypass the service (other nodes, manual SQL). The books of
+ * one author (the author facet) are counted from the summary row instead, which trails committed
+ * changes by up to {@code library.stats.foldMillis}.
+ */
+@Slf4j
+@ApplicationScoped
+public class BookCounter {
+
+    @Inject
+    private BookRepository repository;
+
+    @Inject
+    private BookStatsRepository stats;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Getter
+    private CountMode mode;
+    private long estimateThreshold;
+    private long ttlMillis;
+    private int maxEntries;
+
+    private final Map<BookFilter, CachedCount> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<CountPath, LongAdder> pathCounts = new EnumMap<>(CountPath.class);
+
+    @PostConstruct
+    void init() {
+        mode = config.getEnum("library.count.mode", CountMode.class, CountMode.EXACT);
+        estimateThreshold = config.getLong("library.count.estimateThreshold", 100_000);
+        ttlMillis = config.getLong("library.count.cacheTtlSeconds", 60) * 1000;
+        maxEntries = config.getInt("library.count.cacheSize", 1_000);
+        for (CountPath path : CountPath.values()) {
+            pathCounts.put(path, new LongAdder());
+        }
+        log.info("Book count mode: {}", mode);
+    }
+
+    public int count(BookFilter filter) {
+        if (mode == CountMode.HAS_MORE) {
+            record(CountPath.SKIPPED);
+            return BookService.UNKNOWN_COUNT;
+        }
+
+        long currentGeneration = generation.get();
+        CachedCount cached = cache.get(filter);
+        if (cached != null && cached.isValid(currentGeneration)) {
+            record(CountPath.CACHE_HIT);
+            return cached.value();
+        }
+
+        if (isAuthorOnly(filter)) {
+            record(CountPath.SUMMARY);
+            return (int) Math.min(stats.countByAuthorId(filter.authorId()), Integer.MAX_VALUE);
+        }
+
+        if (mode == CountMode.ESTIMATE && filter.isEmpty()) {
+            long estimate = repository.estimateCount();
+            if (estimate >= estimateThreshold) {
+                record(CountPath.ESTIMATE);
+                return (int) Math.min(estimate, Integer.MAX_VALUE);
+            }
+        }
+
+        int value = repository.count(filter);
+        record(CountPath.EXACT_QUERY);
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+        // Tagged with the generation read before querying, so a change committed meanwhile makes it stale.
+        cache.put(filter, new CachedCount(value, currentGeneration, System.currentTimeMillis() + ttlMillis));
+        return value;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    public Map<CountPath, Long> getPathCounts() {
+        Map<CountPath, Long> snapshot = new EnumMap<>(CountPath.class);
+        pathCounts.forEach((path, count) -> snapshot.put(path, count.sum()));
+        return snapshot;
+    }
+
+    void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        log.debug("Invalidating cached book counts after {}", event.type());
+        invalidate();
+    }
+
+    private static boolean isAuthorOnly(BookFilter filter) {
+        return filter.authorId() != null && filter.equals(BookFilter.builder().authorId(filter.authorId()).build());
+    }
+
+    private void record(CountPath path) {
+        pathCounts.get(path).increment();
+    }
+
+    private record CachedCount(int value, long generation, long expiresAt) {
+
+        boolean isValid(long currentGeneration) {
+            return generation == currentGeneration && System.currentTimeMillis() < expiresAt;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.dto.ImportOptions;
+import com.library.dto.ImportReport;
+import com.library.io.BookReader;
+import com.library.io.ImportRecord;
+import com.library.service.BookImportService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@ApplicationScoped
+public class BookImportServiceImpl implements BookImportService {
+
+    @Inject
+    private BookImportWriter writer;
+
+    @Inject
+    private Validator validator;
+
+    @Override
+    public ImportReport importBooks(Reader in, ImportOptions options) throws IOException {
+        log.info("Importing books: {}", options);
+        BookReader reader = options.format().newReader(in);
+        ImportReport report = new ImportReport();
+        report.setLastCommittedRow(options.resumeAfterRow());
+        long started = System.nanoTime();
+
+        List<BookDTO> chunk = new ArrayList<>(options.chunkSize());
+        // Row numbers of the books in the chunk, to report those rejected by the writer.
+        List<Long> chunkRows = new ArrayList<>(options.chunkSize());
+        long lastRow = options.resumeAfterRow();
+        ImportRecord record;
+        while ((record = reader.next()) != null) {
+            if (record.row() <= options.resumeAfterRow()) {
+                continue;
+            }
+            lastRow = record.row();
+            report.setRowsRead(report.getRowsRead() + 1);
+
+            String problem = record.isValid() ? validate(record.book()) : record.error();
+            if (problem != null) {
+                report.reject(record.row(), problem);
+            } else {
+                chunk.add(record.book());
+                chunkRows.add(record.row());
+            }
+            if (chunk.size() >= options.chunkSize() && !commit(chunk, chunkRows, options, report, lastRow)) {
+                break;
+            }
+        }
+        if (report.isCompleted()) {
+            commit(chunk, chunkRows, options, report, lastRow);
+        }
+
+        report.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        report.setRowsPerSecond(report.getRowsRead() * 1000.0 / Math.max(1, report.getElapsedMillis()));
+        log.info("Import finished: read={}, inserted={}, updated={}, rejected={}, {} rows/s{}",
+                report.getRowsRead(), report.getInserted(), report.getUpdated(), report.getRejected(),
+                Math.round(report.getRowsPerSecond()), report.isCompleted() ? "" : ", stopped: " + report.getFailure());
+        return report;
+    }
+
+    private String validate(BookDTO book) {
+        Set<ConstraintViolation<BookDTO>> violations = validator.validate(book);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // Rows up to lastRow are settled once the chunk is committed, rejected ones included.
+    private boolean commit(List<BookDTO> chunk, List<Long> chunkRows, ImportOptions options, ImportReport report,
+                           long lastRow) {
+        try {
+            if (!chunk.isEmpty()) {
+                BookImportWriter.ChunkResult result = writer.write(chunk, options.upsert(), options.batchSize());
+                report.setInserted(report.getInserted() + result.inserted());
+                report.setUpdated(report.getUpdated() + result.updated());
+                for (int duplicate : result.duplicates()) {
+                    report.reject(chunkRows.get(duplicate), "ISBN " + chunk.get(duplicate).getIsbn() + " is already taken");
+                }
+            }
+            report.setLastCommittedRow(lastRow);
+            log.debug("Import committed through row {}", lastRow);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Import chunk ending at row {} failed", lastRow, e);
+            report.setFailure("Rows after " + report.getLastCommittedRow() + " were not imported: " + e.getMessage());
+            return false;
+        } finally {
+            chunk.clear();
+            chunkRows.clear();
+        }
+    }
+}
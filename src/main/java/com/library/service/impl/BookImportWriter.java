@@ -0,0 +1,114 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.event.BookChangedEvent;
+import com.library.mapper.BookMapper;
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import com.library.util.Isbn;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes one import chunk in its own transaction, so a long import commits as it goes and an
+ * interrupted one keeps the chunks already written. Separate from {@link BookImportServiceImpl}
+ * because transaction boundaries only apply to calls that go through the CDI proxy.
+ * <p>
+ * Books are matched by ISBN, to update them in upsert mode and to skip them as duplicates otherwise; only the
+ * ISBNs that the {@link IsbnFilter} cannot rule out are looked up, so a chunk of new books costs no query.
+ */
+@Slf4j
+@ApplicationScoped
+public class BookImportWriter {
+
+    @Inject
+    private BookRepository repository;
+
+    @Inject
+    private BookMapper mapper;
+
+    @Inject
+    private Event<BookChangedEvent> changes;
+
+    @Inject
+    private IsbnFilter isbns;
+
+    /**
+     * @param duplicates positions in the chunk of the books not inserted because their ISBN was taken,
+     *                   by the catalog or an earlier book of the import; always empty in upsert mode
+     */
+    public record ChunkResult(int inserted, int updated, List<Integer> duplicates) {
+
+        public ChunkResult(int inserted, int updated) {
+            this(inserted, updated, List.of());
+        }
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public ChunkResult write(List<BookDTO> chunk, boolean upsert, int batchSize) {
+        repository.setBatchSize(batchSize);
+
+        // One query for the whole chunk instead of a lookup per row, and none when the filter rules them all out.
+        Map<Long, Book> byIsbn = new HashMap<>();
+        Set<Long> chunkIsbns = chunk.stream()
+                .map(dto -> Isbn.parse(dto.getIsbn()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        repository.findByIsbnIn(isbns.candidates(chunkIsbns)).forEach(book -> byIsbn.put(book.getIsbn(), book));
+
+        // Identity-based: Book's equals/hashCode follow its mutable fields.
+        Set<Book> created = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Long> updatedIds = new HashSet<>();
+        List<Integer> duplicates = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            BookDTO dto = chunk.get(i);
+            Book existing = dto.getIsbn() != null ? byIsbn.get(Isbn.parse(dto.getIsbn())) : null;
+            if (existing != null && !upsert) {
+                duplicates.add(i);
+                continue;
+            }
+            if (existing != null) {
+                mapper.copyContent(dto, existing);
+                if (!created.contains(existing)) {
+                    updatedIds.add(existing.getId());
+                }
+                continue;
+            }
+            Book book = mapper.toEntity(dto);
+            book.setId(null);
+            book.setVersion(null);
+            repository.save(book);
+            created.add(book);
+            if (book.getIsbn() != null) {
+                byIsbn.put(book.getIsbn(), book);
+                isbns.add(book.getIsbn());
+            }
+        }
+        Set<Long> createdIds = created.stream().map(Book::getId).collect(Collectors.toSet());
+        repository.flushAndClear();
+
+        // Events without IDs mean "anything may have changed"; a chunk of duplicates changed nothing.
+        if (!createdIds.isEmpty()) {
+            changes.fire(new BookChangedEvent(BookChangedEvent.ChangeType.CREATED, createdIds));
+        }
+        if (!updatedIds.isEmpty()) {
+            changes.fire(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, updatedIds));
+        }
+        log.debug("Import chunk written: inserted={}, updated={}", createdIds.size(), updatedIds.size());
+        return new ChunkResult(createdIds.size(), updatedIds.size(), duplicates);
+    }
+}
@@ -1,20 +1,58 @@
 package com.library.service.impl;
 
+import com.library.dto.BookCursor;
 import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookPatch;
+import com.library.dto.BookPriceChange;
+import com.library.dto.BookQuery;
+import com.library.dto.BookRef;
+import com.library.dto.BulkResult;
+import com.library.event.BookChangedEvent;
+import com.library.io.BookWriter;
+import com.library.mapper.AuthorMapper;
 import com.library.mapper.BookMapper;
+import com.library.metrics.Timed;
+import com.library.model.Author;
 import com.library.model.Book;
 import com.library.repository.BookRepository;
+import com.library.repository.ReadOnly;
+import com.library.service.BookNotFoundException;
 import com.library.service.BookService;
+import com.library.service.CountMode;
+import com.library.service.DuplicateIsbnException;
+import com.library.util.ExecutorUtil;
+import com.library.util.Isbn;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.IntSupplier;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @ApplicationScoped
+@Timed
 /*
 In modern Jakarta EE (CDI), using @ApplicationScoped for Services and Repositories is the standard "best practice" for Stateless components.
 Here is why:
@@ -42,54 +80,355 @@ In summary: We use @ApplicationScoped because it is the most efficient (memory/C
         */
 public class BookServiceImpl implements BookService {
 
+    private static final int EXPORT_FETCH_SIZE = 1_000;
+    private static final int EXPORT_CLEAR_INTERVAL = 10_000;
+
     @Inject
     private BookRepository repository;
 
     @Inject
     private BookMapper mapper;
 
+    @Inject
+    private AuthorMapper authors;
+
+    @Inject
+    private BookCounter counter;
+
+    @Inject
+    private BookCache cache;
+
+    @Inject
+    private Event<BookChangedEvent> changes;
+
+    @Inject
+    private ExecutorUtil executors;
+
+    @Inject
+    private BookBulkWriter bulkWriter;
+
+    @Inject
+    private IsbnFilter isbns;
+
+    // Own contextual reference: work handed to another thread has to re-enter through the
+    // proxy for @Transactional to apply.
+    @Inject
+    private BookService self;
+
     @Override
+    @ReadOnly
     public List<BookDTO> getAllBooks() {
         log.debug("Fetching all books");
-        return repository.findAll().stream()
-                .map(mapper::toDTO)
-                .collect(Collectors.toList());
+        return repository.findAll();
+    }
+
+    @Override
+    @ReadOnly
+    public Optional<BookDTO> getBook(Long id) {
+        log.debug("Fetching book with ID: {}", id);
+        return cache.get(id);
+    }
+
+    @Override
+    @ReadOnly
+    public Optional<BookDTO> getBookByIsbn(String isbn) {
+        log.debug("Fetching book with ISBN: {}", isbn);
+        // Not through the ISBN filter: it may not have polled a book another node just wrote.
+        return Isbn.isWellFormed(isbn) ? cache.getByIsbn(isbn) : Optional.empty();
+    }
+
+    @Override
+    @ReadOnly
+    public boolean existsByIsbn(String isbn) {
+        return Isbn.isWellFormed(isbn) && repository.existsByIsbn(Isbn.parse(isbn));
+    }
+
+    @Override
+    @ReadOnly
+    public Set<String> findExistingIsbns(Collection<String> candidates) {
+        Set<Long> numbers = candidates.stream()
+                .filter(Isbn::isWellFormed)
+                .map(Isbn::parse)
+                .collect(Collectors.toSet());
+        return isbns.existing(numbers).stream()
+                .map(Isbn::format)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    @Transactional
+    public long exportBooks(BookWriter writer) throws IOException {
+        log.info("Exporting all books");
+        writer.writeHeader();
+        long rows = 0;
+        try (Stream<BookDTO> books = repository.streamAll(EXPORT_FETCH_SIZE)) {
+            Iterator<BookDTO> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++rows % EXPORT_CLEAR_INTERVAL == 0) {
+                    repository.clear();
+                }
+            }
+        }
+        log.info("Exported {} books", rows);
+        return rows;
     }
 
     @Override
+    public CompletionStage<Long> exportBooksAsync(BookWriter writer) {
+        return executors.supplyAsync(() -> self.exportBooks(writer));
+    }
+
+    @Override
+    @ReadOnly
     public List<BookDTO> getBooks(int first, int pageSize) {
+        return getBooks(BookQuery.DEFAULT, first, pageSize);
+    }
+
+    @Override
+    @ReadOnly
+    public List<BookDTO> getBooks(BookQuery query, int first, int pageSize) {
         log.debug("Fetching books page: first={}, pageSize={}", first, pageSize);
-        return repository.findRange(first, pageSize).stream()
-                .map(mapper::toDTO)
-                .collect(Collectors.toList());
+        return repository.findRange(query, first, pageSize);
+    }
+
+    @Override
+    @ReadOnly
+    public List<BookDTO> searchBooks(String text, int first, int pageSize) {
+        return getBooks(new BookQuery(BookFilter.builder().search(text).build(), null), first, pageSize);
     }
 
     @Override
+    @ReadOnly
+    public List<BookDTO> getBooksAfter(BookQuery query, BookCursor cursor, int pageSize) {
+        log.debug("Fetching books page after {}: pageSize={}", cursor, pageSize);
+        return repository.findAfter(query, cursor, pageSize);
+    }
+
+    @Override
+    @ReadOnly
+    public List<BookDTO> getBooksBefore(BookQuery query, BookCursor cursor, int pageSize) {
+        log.debug("Fetching books page before {}: pageSize={}", cursor, pageSize);
+        return repository.findBefore(query, cursor, pageSize);
+    }
+
+    @Override
+    @ReadOnly
     public int countBooks() {
-        return repository.count();
+        return countBooks(BookFilter.NONE);
+    }
+
+    @Override
+    @ReadOnly
+    public int countBooks(BookFilter filter) {
+        return counter.count(filter);
+    }
+
+    @Override
+    public CompletionStage<Integer> countBooksAsync(BookFilter filter) {
+        return executors.supplyAsync(() -> self.countBooks(filter));
+    }
+
+    @Override
+    public CountMode getCountMode() {
+        return counter.getMode();
     }
 
     @Override
     @Transactional
     public void saveBook(BookDTO bookDTO) {
         log.info("Saving book: {}", bookDTO.getTitle());
+        if (bookDTO.getId() != null && bookDTO.getVersion() != null) {
+            rejectIfStale(bookDTO);
+            updateBook(bookDTO.getId(), bookDTO.getVersion(), bookDTO);
+            log.info("Book saved successfully");
+            return;
+        }
         Book book;
         if (bookDTO.getId() != null) {
             log.debug("Updating existing book with ID: {}", bookDTO.getId());
             book = repository.findById(bookDTO.getId())
                     .orElseThrow(() -> {
                         log.error("Book not found with ID: {}", bookDTO.getId());
-                        return new IllegalArgumentException("Book not found with ID: " + bookDTO.getId());
+                        return new BookNotFoundException(bookDTO.getId());
                     });
+            Long previousIsbn = book.getIsbn();
             mapper.updateEntityFromDTO(bookDTO, book);
+            if (!Objects.equals(previousIsbn, book.getIsbn())) {
+                rejectTakenIsbn(book.getIsbn());
+            }
         } else {
             log.debug("Creating new book");
             book = mapper.toEntity(bookDTO);
+            rejectTakenIsbn(book.getIsbn());
         }
+        boolean created = book.getId() == null;
         repository.save(book);
+        isbns.add(book.getIsbn());
+        changes.fire(created ? BookChangedEvent.created(book.getId()) : BookChangedEvent.updated(book.getId()));
         log.info("Book saved successfully");
     }
 
+    @Override
+    @Transactional
+    public BookDTO createBook(BookDTO bookDTO) {
+        log.info("Creating book: {}", bookDTO.getTitle());
+        Book book = mapper.toEntity(bookDTO);
+        book.setId(null);
+        book.setVersion(null);
+        rejectTakenIsbn(book.getIsbn());
+        repository.save(book);
+        isbns.add(book.getIsbn());
+        changes.fire(BookChangedEvent.created(book.getId()));
+        return mapper.toDTO(book);
+    }
+
+    @Override
+    @Transactional
+    public BookDTO updateBook(Long id, long expectedVersion, BookDTO bookDTO) {
+        log.info("Updating book {} at version {}", id, expectedVersion);
+        Author author = authors.toReference(bookDTO.getAuthor());
+        if (writeIsbn(bookDTO.getIsbn(), () -> repository.updateIfVersion(id, expectedVersion, bookDTO, author)) == 0) {
+            throw conflictOrMissing(id, expectedVersion);
+        }
+        changes.fire(BookChangedEvent.updated(id));
+        return new BookDTO(id, expectedVersion + 1, bookDTO.getTitle(), bookDTO.getAuthor(), bookDTO.getPrice(),
+                bookDTO.getIsbn());
+    }
+
+    @Override
+    @Transactional
+    public long patchBook(Long id, long expectedVersion, BookPatch patch) {
+        if (patch.isEmpty()) {
+            throw new IllegalArgumentException("Patch of book " + id + " changes nothing");
+        }
+        log.info("Patching book {} at version {}", id, expectedVersion);
+        Author author = authors.toReference(patch.author());
+        if (writeIsbn(patch.isbn(), () -> repository.patchIfVersion(id, expectedVersion, patch, author)) == 0) {
+            throw conflictOrMissing(id, expectedVersion);
+        }
+        changes.fire(BookChangedEvent.updated(id));
+        return expectedVersion + 1;
+    }
+
+    @Override
+    @Transactional
+    public Set<Long> updatePrices(List<BookPriceChange> priceChanges) {
+        if (priceChanges.isEmpty()) {
+            return Set.of();
+        }
+        // One change per book, the last one listed: a second would fail the version check the first just bumped.
+        Map<Long, BookPriceChange> byId = new LinkedHashMap<>();
+        priceChanges.forEach(change -> byId.put(change.id(), change));
+        List<BookPriceChange> distinct = List.copyOf(byId.values());
+        log.info("Updating {} prices", distinct.size());
+        int[] updated = repository.updatePrices(distinct);
+        Set<Long> applied = new HashSet<>();
+        Set<Long> skipped = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            (updated[i] > 0 ? applied : skipped).add(distinct.get(i).id());
+        }
+        if (!skipped.isEmpty()) {
+            log.warn("Skipped price changes of {} books modified meanwhile or missing", skipped.size());
+        }
+        if (!applied.isEmpty()) {
+            changes.fire(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, applied));
+        }
+        return skipped;
+    }
+
+    @Override
+    @Transactional
+    public BulkResult deleteBooks(List<BookRef> books) {
+        if (books.isEmpty()) {
+            return new BulkResult(0, Set.of());
+        }
+        log.info("Deleting {} books", books.size());
+        return bulkResult(books, repository.deleteAll(books), BookChangedEvent.ChangeType.DELETED);
+    }
+
+    @Override
+    @Transactional
+    public BulkResult adjustPrices(List<BookRef> books, double percent) {
+        BigDecimal factor = priceFactor(percent);
+        if (books.isEmpty()) {
+            return new BulkResult(0, Set.of());
+        }
+        log.info("Changing prices of {} books by {}%", books.size(), percent);
+        return bulkResult(books, repository.adjustPrices(books, factor), BookChangedEvent.ChangeType.UPDATED);
+    }
+
+    // Not transactional itself: every chunk commits in its own transaction.
+    @Override
+    public int deleteBooks(BookFilter filter) {
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("Refusing to delete the whole catalog through an empty filter");
+        }
+        log.info("Deleting books matching {}", filter);
+        int deleted = inChunks(afterId -> bulkWriter.delete(filter, afterId));
+        log.info("Deleted {} books", deleted);
+        return deleted;
+    }
+
+    @Override
+    public int adjustPrices(BookFilter filter, double percent) {
+        BigDecimal factor = priceFactor(percent);
+        log.info("Changing prices of books matching {} by {}%", filter, percent);
+        int updated = inChunks(afterId -> bulkWriter.adjustPrices(filter, afterId, factor));
+        log.info("Changed prices of {} books", updated);
+        return updated;
+    }
+
+    private int inChunks(LongFunction<BookBulkWriter.ChunkResult> chunk) {
+        int affected = 0;
+        long afterId = Long.MIN_VALUE;
+        BookBulkWriter.ChunkResult result;
+        do {
+            result = chunk.apply(afterId);
+            affected += result.affected();
+            afterId = result.lastId();
+        } while (!result.isLast(bulkWriter.getChunkSize()));
+        return affected;
+    }
+
+    private BulkResult bulkResult(List<BookRef> books, int[] affected, BookChangedEvent.ChangeType type) {
+        Set<Long> applied = new HashSet<>();
+        Set<Long> skipped = new HashSet<>();
+        for (int i = 0; i < affected.length; i++) {
+            (affected[i] > 0 ? applied : skipped).add(books.get(i).id());
+        }
+        if (!skipped.isEmpty()) {
+            log.warn("Skipped {} books modified meanwhile or missing", skipped.size());
+        }
+        if (!applied.isEmpty()) {
+            changes.fire(new BookChangedEvent(type, applied));
+        }
+        return new BulkResult(applied.size(), skipped);
+    }
+
+    private static BigDecimal priceFactor(double percent) {
+        if (!(percent > -100)) {
+            throw new IllegalArgumentException("Price change must be more than -100%, was " + percent);
+        }
+        return BigDecimal.ONE.add(BigDecimal.valueOf(percent).movePointLeft(2));
+    }
+
+    @Override
+    @Transactional
+    public void deleteBook(Long id, long expectedVersion) {
+        log.info("Deleting book {} at version {}", id, expectedVersion);
+        if (repository.deleteIfVersion(id, expectedVersion) == 0) {
+            throw conflictOrMissing(id, expectedVersion);
+        }
+        changes.fire(BookChangedEvent.deleted(id));
+    }
+
+    @Override
+    @ReadOnly
+    public Optional<Long> getBookVersion(Long id) {
+        return cache.peekVersion(id).or(() -> repository.findVersionById(id));
+    }
+
     @Override
     @Transactional
     public void deleteBook(Long id) {
@@ -97,9 +436,67 @@ public class BookServiceImpl implements BookService {
         Book book = repository.findById(id)
                 .orElseThrow(() -> {
                     log.error("Book not found with ID: {}", id);
-                    return new IllegalArgumentException("Book not found with ID: " + id);
+                    return new BookNotFoundException(id);
                 });
         repository.delete(book);
+        changes.fire(BookChangedEvent.deleted(id));
         log.info("Book deleted successfully");
     }
+
+    /**
+     * Fails an edit of an outdated copy before touching the database when the cache already holds a newer version.
+     * Versions only grow, so a cached entry that is itself stale can never reject a current edit.
+     */
+    private void rejectIfStale(BookDTO bookDTO) {
+        Long edited = bookDTO.getVersion();
+        cache.peekVersion(bookDTO.getId())
+                .filter(current -> edited != null && current > edited)
+                .ifPresent(current -> {
+                    log.warn("Rejecting edit of book {} at version {}, current is {}", bookDTO.getId(), edited, current);
+                    throw new OptimisticLockException("Book " + bookDTO.getId() + " was modified by another user");
+                });
+    }
+
+    // New books check their ISBN first: the filter answers for a new ISBN, only a possible duplicate is queried.
+    private void rejectTakenIsbn(Long isbn) {
+        if (isbn != null && isbns.exists(isbn)) {
+            throw new DuplicateIsbnException(Isbn.format(isbn));
+        }
+    }
+
+    // Conditional updates skip the check and let the unique index reject a taken ISBN, which costs no statement.
+    private int writeIsbn(String isbn, IntSupplier update) {
+        try {
+            int updated = update.getAsInt();
+            // A filter key cannot be taken back, so only a book actually written adds one.
+            if (updated == 1) {
+                isbns.add(Isbn.parse(isbn));
+            }
+            return updated;
+        } catch (PersistenceException e) {
+            if (isbn != null && violates(e, Book.ISBN_CONSTRAINT)) {
+                throw new DuplicateIsbnException(isbn, e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean violates(Throwable e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only reached when a conditional write matched no row, so the extra read is off the happy path.
+    private RuntimeException conflictOrMissing(Long id, long expectedVersion) {
+        if (repository.findVersionById(id).isEmpty()) {
+            return new BookNotFoundException(id);
+        }
+        log.warn("Book {} is no longer at version {}", id, expectedVersion);
+        return new OptimisticLockException("Book " + id + " was modified by another user");
+    }
 }
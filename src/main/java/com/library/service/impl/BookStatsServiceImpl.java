@@ -0,0 +1,293 @@
+package com.library.service.impl;
+
+import com.library.dto.AuthorFacet;
+import com.library.dto.CatalogStats;
+import com.library.metrics.Timed;
+import com.library.model.BookStat;
+import com.library.model.BookStatDelta;
+import com.library.repository.BookStatsRepository;
+import com.library.repository.ReadOnly;
+import com.library.service.BookStatsService;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves {@link CatalogStats} from the {@link BookStat} rows, folds the {@link BookStatDelta}s the triggers
+ * append into them every {@code library.stats.foldMillis} (default 1000), so they trail committed writes by
+ * about that, and reconciles them with the books once at startup and then every
+ * {@code library.stats.reconcileMinutes} (default 60, 0 for startup only).
+ * <p>
+ * Folds and reconciliations lock summary rows in {@link #KEY_ORDER}, so that those of several nodes cannot
+ * deadlock; writers take no summary row lock at all.
+ */
+@Slf4j
+@ApplicationScoped
+@Timed
+public class BookStatsServiceImpl implements BookStatsService {
+
+    static final int FOLD_BATCH = 5_000;
+    static final Comparator<BookStat.Key> KEY_ORDER = Comparator.comparing(BookStat.Key::getDimension)
+            .thenComparing(BookStat.Key::getGroupKey);
+
+    @Inject
+    private BookStatsRepository repository;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    // Own contextual reference, so that scheduled folds and reconciliations run in a transaction.
+    @Inject
+    private BookStatsService self;
+
+    private ScheduledFuture<?> folding;
+    private ScheduledFuture<?> reconciliation;
+    private final LongAdder folded = new LongAdder();
+    private final LongAdder foldFailures = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+
+    void start(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        long foldMillis = Math.max(1, config.getLong("library.stats.foldMillis", 1_000));
+        folding = scheduler.scheduleWithFixedDelay(this::foldQuietly, foldMillis, foldMillis, TimeUnit.MILLISECONDS);
+        long minutes = config.getLong("library.stats.reconcileMinutes", 60);
+        if (minutes > 0) {
+            reconciliation = scheduler.scheduleWithFixedDelay(this::reconcileQuietly, 0, minutes, TimeUnit.MINUTES);
+        } else {
+            scheduler.execute(this::reconcileQuietly);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (folding != null) {
+            folding.cancel(false);
+        }
+        if (reconciliation != null) {
+            reconciliation.cancel(false);
+        }
+    }
+
+    @Override
+    @ReadOnly
+    public CatalogStats getStats(int topAuthors) {
+        CatalogStats.Group total = repository.findTotal().map(BookStatsServiceImpl::toGroup)
+                .orElse(CatalogStats.Group.EMPTY);
+        List<CatalogStats.AuthorGroup> authors = repository.findTopAuthors(topAuthors).stream()
+                .map(stat -> new CatalogStats.AuthorGroup(stat.getGroupKey(), toGroup(stat)))
+                .toList();
+        List<CatalogStats.PriceBucket> buckets = repository.findPriceBuckets().stream()
+                .map(stat -> {
+                    BigDecimal from = new BigDecimal(stat.getGroupKey());
+                    return new CatalogStats.PriceBucket(from, from.add(BookStat.PRICE_BUCKET_WIDTH), stat.getBookCount());
+                })
+                .sorted(Comparator.comparing(CatalogStats.PriceBucket::from))
+                .toList();
+        return new CatalogStats(total, authors, buckets);
+    }
+
+    @Override
+    @ReadOnly
+    public Optional<CatalogStats.Group> getAuthorStats(String author) {
+        return repository.findAuthor(author).map(BookStatsServiceImpl::toGroup);
+    }
+
+    @Override
+    @ReadOnly
+    public List<AuthorFacet> getAuthorFacets(int limit) {
+        return repository.findAuthorFacets(limit);
+    }
+
+    @Override
+    @Transactional
+    public int fold() {
+        List<BookStatDelta> deltas = repository.claimDeltas(FOLD_BATCH);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        Map<BookStat.Key, List<BookStatDelta>> groups = new TreeMap<>(KEY_ORDER);
+        List<Long> ids = new ArrayList<>(deltas.size());
+        for (BookStatDelta delta : deltas) {
+            groups.computeIfAbsent(delta.key(), key -> new ArrayList<>()).add(delta);
+            ids.add(delta.getId());
+        }
+        groups.forEach(this::fold);
+        repository.deleteDeltas(ids);
+        folded.add(deltas.size());
+        log.debug("Folded {} catalog statistics changes into {} rows", deltas.size(), groups.size());
+        return deltas.size();
+    }
+
+    @Override
+    @Transactional
+    public int reconcile() {
+        long start = System.nanoTime();
+        // Pending changes would otherwise make every group they touch look drifted.
+        while (fold() == FOLD_BATCH) {
+            log.debug("Folding more catalog statistics changes before reconciling");
+        }
+        Map<BookStat.Key, BookStat> stored = repository.findAll();
+        Map<BookStat.Key, BookStat> actual = repository.computeAll();
+        Set<BookStat.Key> suspects = new TreeSet<>(KEY_ORDER);
+        actual.forEach((key, stat) -> {
+            if (!matches(stat, stored.get(key))) {
+                suspects.add(key);
+            }
+        });
+        stored.keySet().stream().filter(key -> !actual.containsKey(key)).forEach(suspects::add);
+
+        // The scans above race with concurrent writers and folds; each suspect is checked again under its row
+        // lock, against the books less the changes still to be folded into it.
+        int corrected = 0;
+        for (BookStat.Key key : suspects) {
+            Optional<BookStat> current = repository.lock(key);
+            BookStatsRepository.Expected expected = repository.compute(key);
+            BookStat stat = expected.stat();
+            boolean pending = expected.pendingDeltas() > 0;
+            if (stat.getBookCount() == 0 && !pending && key.getDimension() != BookStat.Dimension.TOTAL) {
+                if (current.isPresent()) {
+                    repository.delete(current.get());
+                    corrected++;
+                }
+            } else if (!matches(stat, current.orElseGet(() -> empty(key)), pending)) {
+                repository.save(stat);
+                corrected++;
+            }
+        }
+        reconciliations.increment();
+        corrections.add(corrected);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (corrected > 0) {
+            log.warn("Corrected {} of {} catalog statistics rows in {} ms", corrected, actual.size(), millis);
+        } else {
+            log.info("Catalog statistics ({} rows) are consistent, checked in {} ms", actual.size(), millis);
+        }
+        return corrected;
+    }
+
+    public long getFolded() {
+        return folded.sum();
+    }
+
+    public long getFoldFailures() {
+        return foldFailures.sum();
+    }
+
+    public long getReconciliations() {
+        return reconciliations.sum();
+    }
+
+    /**
+     * Summary rows corrected by reconciliations so far; anything but 0 means some write bypassed the triggers.
+     */
+    public long getCorrections() {
+        return corrections.sum();
+    }
+
+    // Sums the group's changes into its row; recomputes the min or max from the books when a removed price
+    // may have been the only one at the edge of the range.
+    private void fold(BookStat.Key key, List<BookStatDelta> deltas) {
+        Optional<BookStat> stored = repository.lock(key);
+        BookStat stat = stored.orElseGet(() -> empty(key));
+        boolean stale = false;
+        for (BookStatDelta delta : deltas) {
+            stat.setBookCount(stat.getBookCount() + delta.getBookCount());
+            stat.setPriceSum(stat.getPriceSum().add(delta.getPriceSum()));
+            if (!delta.isRemoval()) {
+                stat.setMinPrice(min(stat.getMinPrice(), delta.getMinPrice()));
+                stat.setMaxPrice(max(stat.getMaxPrice(), delta.getMaxPrice()));
+            } else if (delta.getMinPrice() != null) {
+                stale |= stat.getMinPrice() == null || delta.getMinPrice().compareTo(stat.getMinPrice()) <= 0
+                        || stat.getMaxPrice() == null || delta.getMaxPrice().compareTo(stat.getMaxPrice()) >= 0;
+            }
+        }
+        if (stale) {
+            BookStat books = repository.compute(key).stat();
+            stat.setMinPrice(books.getMinPrice());
+            stat.setMaxPrice(books.getMaxPrice());
+        }
+        if (stat.getBookCount() > 0 || key.getDimension() == BookStat.Dimension.TOTAL) {
+            repository.save(stat);
+        } else if (stored.isPresent()) {
+            repository.delete(stat);
+        }
+    }
+
+    private void foldQuietly() {
+        try {
+            // Keeps going while whole batches are waiting, e.g. after a bulk import.
+            while (self.fold() == FOLD_BATCH) {
+                log.debug("Folding the next batch of catalog statistics changes");
+            }
+        } catch (RuntimeException e) {
+            foldFailures.increment();
+            log.error("Folding catalog statistics changes failed", e);
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            self.reconcile();
+        } catch (RuntimeException e) {
+            log.error("Reconciling the catalog statistics failed", e);
+        }
+    }
+
+    static boolean matches(BookStat expected, BookStat stored) {
+        return matches(expected, stored, false);
+    }
+
+    // With changes still to be folded, the stored min and max may trail the books' until the fold.
+    static boolean matches(BookStat expected, BookStat stored, boolean pending) {
+        return stored != null
+                && expected.getBookCount() == stored.getBookCount()
+                && sameAmount(expected.getPriceSum(), stored.getPriceSum())
+                && (pending || sameAmount(expected.getMinPrice(), stored.getMinPrice())
+                && sameAmount(expected.getMaxPrice(), stored.getMaxPrice()));
+    }
+
+    private static BookStat empty(BookStat.Key key) {
+        return new BookStat(key.getDimension(), key.getGroupKey(), 0, BigDecimal.ZERO, null, null);
+    }
+
+    private static BigDecimal min(BigDecimal a, BigDecimal b) {
+        return a == null ? b : b == null || a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static BigDecimal max(BigDecimal a, BigDecimal b) {
+        return a == null ? b : b == null || a.compareTo(b) >= 0 ? a : b;
+    }
+
+    // Equal regardless of scale: 5.0 and 5.00 are the same price.
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null || b == null ? Objects.equals(a, b) : a.compareTo(b) == 0;
+    }
+
+    private static CatalogStats.Group toGroup(BookStat stat) {
+        return CatalogStats.Group.of(stat.getBookCount(), stat.getPriceSum(), stat.getMinPrice(), stat.getMaxPrice());
+    }
+}
@@ -0,0 +1,340 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookDeletion;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.BookRow;
+import com.library.dto.SnapshotFootprint;
+import com.library.event.BookChangedEvent;
+import com.library.model.BookStat;
+import com.library.repository.BookRepository;
+import com.library.repository.BookStatsRepository;
+import com.library.repository.BookTombstoneRepository;
+import com.library.service.CatalogSnapshotService;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@link BookColumns} current. The first refresh streams the whole catalog; later ones read the books
+ * whose {@code updated_at} is past the watermark, the latest change seen, minus {@code
+ * library.snapshot.overlapMillis} (default 5000), so that a change committed late, or stamped by a node whose
+ * clock is behind, is still picked up; rows read again at the version already held cost nothing.
+ * <p>
+ * Deletions leave no row to poll; the same refresh reads the tombstones written since the watermark, and those
+ * made through this node also arrive as {@link BookChangedEvent}s. For deletes that bypassed the repository, a
+ * book count that differs from the snapshot's triggers a comparison of all IDs, at most every
+ * {@code library.snapshot.reconcileSeconds} (default 60). A change committed here makes the snapshot decline
+ * queries until the refresh it triggers has applied it, so users always see their own edits.
+ */
+@Slf4j
+@ApplicationScoped
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService {
+
+    private static final int FETCH_SIZE = 1_000;
+    private static final int ID_CHUNK_SIZE = 1_000;
+    private static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Inject
+    private BookRepository repository;
+
+    @Inject
+    private BookStatsRepository stats;
+
+    @Inject
+    private BookTombstoneRepository tombstones;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    // Own contextual reference, so that refreshes run in a transaction.
+    @Inject
+    private CatalogSnapshotService self;
+
+    private boolean enabled;
+    private long refreshMillis;
+    private Duration overlap;
+    private long reconcileNanos;
+    private ScheduledFuture<?> polling;
+
+    // Null until the first refresh has loaded the catalog.
+    private volatile Snapshot current;
+
+    // Changes committed through this node, and how many of them the snapshot has applied.
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long changesApplied;
+    private final Set<Long> pendingDeletions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ReentrantLock refreshing = new ReentrantLock();
+    private long lastReconcile = System.nanoTime();
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder rowsApplied = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder pagesServed = new LongAdder();
+
+    // applied: books added, changed or removed by the refresh that made it.
+    private record Snapshot(BookColumns columns, LocalDateTime watermark, long refreshedAt, int applied) {
+    }
+
+    @PostConstruct
+    void init() {
+        enabled = config.getBoolean("library.snapshot.enabled", false);
+        refreshMillis = Math.max(1, config.getLong("library.snapshot.refreshMillis", 1_000));
+        overlap = Duration.ofMillis(config.getLong("library.snapshot.overlapMillis", 5_000));
+        reconcileNanos = TimeUnit.SECONDS.toNanos(config.getLong("library.snapshot.reconcileSeconds", 60));
+        log.info("Catalog snapshot: enabled={}, refreshMillis={}, overlap={}", enabled, refreshMillis, overlap);
+    }
+
+    void start(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (enabled) {
+            polling = scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (polling != null) {
+            polling.cancel(false);
+        }
+    }
+
+    @Override
+    public boolean supports(BookFilter filter) {
+        return current != null && changesApplied == changes.get() && BookColumns.supports(filter);
+    }
+
+    @Override
+    public int countBooks(BookFilter filter) {
+        return loaded().count(filter);
+    }
+
+    @Override
+    public List<BookDTO> getBooks(BookQuery query, int first, int pageSize) {
+        pagesServed.increment();
+        return loaded().page(query, first, pageSize);
+    }
+
+    @Override
+    public SnapshotFootprint getFootprint() {
+        Snapshot snapshot = current;
+        return snapshot == null ? SnapshotFootprint.EMPTY : snapshot.columns().footprint();
+    }
+
+    @Override
+    @Transactional
+    public int refresh() {
+        refreshing.lock();
+        try {
+            // Read first: deletions are queued before their change is counted, so all counted ones are drained.
+            long seen = changes.get();
+            Snapshot snapshot = current;
+            Snapshot next = snapshot == null ? load() : update(snapshot);
+            current = next;
+            changesApplied = seen;
+            refreshes.increment();
+            rowsApplied.add(next.applied());
+            return next.applied();
+        } finally {
+            refreshing.unlock();
+        }
+    }
+
+    void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.ids().isEmpty()) {
+            reconcileRequested.set(true);
+        } else if (event.type() == BookChangedEvent.ChangeType.DELETED) {
+            pendingDeletions.addAll(event.ids());
+        }
+        changes.incrementAndGet();
+        if (refreshScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::refreshQuietly);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Books added, changed or removed by refreshes, the initial load included.
+     */
+    public long getRowsApplied() {
+        return rowsApplied.sum();
+    }
+
+    /**
+     * Comparisons of all IDs, run when the book count disagreed with the snapshot.
+     */
+    public long getReconciliations() {
+        return reconciliations.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getPagesServed() {
+        return pagesServed.sum();
+    }
+
+    /**
+     * Milliseconds since the last successful refresh; -1 before the first.
+     */
+    public long getAgeMillis() {
+        Snapshot snapshot = current;
+        return snapshot == null ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - snapshot.refreshedAt());
+    }
+
+    private BookColumns loaded() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            throw new IllegalStateException("The catalog snapshot is not loaded");
+        }
+        return snapshot.columns();
+    }
+
+    private void refreshQuietly() {
+        refreshScheduled.set(false);
+        try {
+            self.refresh();
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.error("Refreshing the catalog snapshot failed", e);
+        }
+    }
+
+    private Snapshot load() {
+        long start = System.nanoTime();
+        BookColumns.Builder builder = new BookColumns.Builder();
+        LocalDateTime watermark = NEVER;
+        try (Stream<BookRow> rows = repository.streamRows(FETCH_SIZE)) {
+            Iterator<BookRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                BookRow row = iterator.next();
+                builder.add(row);
+                watermark = latest(watermark, row.updatedAt());
+            }
+        }
+        pendingDeletions.clear();
+        BookColumns columns = builder.build();
+        SnapshotFootprint footprint = columns.footprint();
+        log.info("Loaded {} books into the catalog snapshot in {} ms: {} bytes, {} bytes per million books",
+                columns.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), footprint.bytes(),
+                footprint.bytesPerMillionBooks());
+        lastReconcile = System.nanoTime();
+        return new Snapshot(columns, watermark, System.nanoTime(), columns.size());
+    }
+
+    private Snapshot update(Snapshot snapshot) {
+        LocalDateTime since = snapshot.watermark().minus(overlap);
+        List<BookRow> changed = repository.findRowsChangedSince(since);
+        List<BookDeletion> deleted = tombstones.findDeletionsSince(since);
+        Set<Long> deletions = new HashSet<>(pendingDeletions);
+        pendingDeletions.removeAll(deletions);
+        try {
+            LocalDateTime watermark = snapshot.watermark();
+            for (BookRow row : changed) {
+                watermark = latest(watermark, row.updatedAt());
+            }
+            for (BookDeletion deletion : deleted) {
+                deletions.add(deletion.id());
+                watermark = latest(watermark, deletion.deletedAt());
+            }
+            BookColumns columns = snapshot.columns().apply(changed, deletions);
+            int applied = columns == snapshot.columns() ? 0 : columns.applied();
+            boolean requested = reconcileRequested.getAndSet(false);
+            if (requested || (System.nanoTime() - lastReconcile >= reconcileNanos && columns.size() != countBooks())) {
+                BookColumns reconciled = reconcile(columns);
+                applied += reconciled == columns ? 0 : reconciled.applied();
+                columns = reconciled;
+            }
+            return new Snapshot(columns, watermark, System.nanoTime(), applied);
+        } catch (RuntimeException e) {
+            // Applied by the next refresh instead.
+            pendingDeletions.addAll(deletions);
+            throw e;
+        }
+    }
+
+    // From the summary row, counting only where there is none (as on H2). The row trails commits until they are
+    // folded into it, which can cost an extra comparison of all IDs, no more.
+    private long countBooks() {
+        return stats.findTotal().map(BookStat::getBookCount).orElseGet(() -> (long) repository.count(BookFilter.NONE));
+    }
+
+    // Walks the stored IDs alongside the held ones: loads the books the polls missed, drops the ones deleted.
+    private BookColumns reconcile(BookColumns columns) {
+        long[] held = columns.ids().toArray();
+        List<Long> missing = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        int next = 0;
+        try (Stream<Long> stored = repository.streamIds(FETCH_SIZE)) {
+            Iterator<Long> ids = stored.iterator();
+            while (ids.hasNext()) {
+                long id = ids.next();
+                while (next < held.length && held[next] < id) {
+                    deleted.add(held[next++]);
+                }
+                if (next < held.length && held[next] == id) {
+                    next++;
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+        while (next < held.length) {
+            deleted.add(held[next++]);
+        }
+        List<BookRow> rows = new ArrayList<>(missing.size());
+        for (int from = 0; from < missing.size(); from += ID_CHUNK_SIZE) {
+            rows.addAll(repository.findRowsByIds(missing.subList(from, Math.min(missing.size(), from + ID_CHUNK_SIZE))));
+        }
+        lastReconcile = System.nanoTime();
+        reconciliations.increment();
+        log.info("Reconciled the catalog snapshot: {} books missing, {} deleted", missing.size(), deleted.size());
+        return columns.apply(rows, deleted);
+    }
+
+    private static LocalDateTime latest(LocalDateTime watermark, LocalDateTime changedAt) {
+        return changedAt != null && changedAt.isAfter(watermark) ? changedAt : watermark;
+    }
+}
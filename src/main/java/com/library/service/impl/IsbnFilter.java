@@ -0,0 +1,301 @@
+package com.library.service.impl;
+
+import com.library.dto.BookFilter;
+import com.library.repository.BookRepository;
+import com.library.util.ConfigUtil;
+import com.library.util.LongBloomFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Which ISBNs are in the catalog, answered from a {@link LongBloomFilter} of all of them wherever it can: an
+ * ISBN the filter has never seen is certainly new and costs no query, and only the rest, present or a false
+ * positive (about {@code library.isbns.fpp}, default 0.01), are looked up in the ISBN index. Meant for bulk
+ * checks and duplicate checks backed by the unique index; lookups of one book by ISBN query the index instead,
+ * since the filter may not have polled a book another node just wrote.
+ * <p>
+ * The filter is loaded at startup and kept current by reading the ISBNs of books changed since the previous
+ * poll, minus {@code library.isbns.overlapMillis} (default 5000), every {@code library.isbns.refreshMillis}
+ * (default 5000); writes through this node add theirs at once. Keys cannot be removed, so ISBNs of deleted or
+ * changed books linger as false positives until the filter is rebuilt, every
+ * {@code library.isbns.rebuildMinutes} (default 60) or once it has filled up to twice the false positive
+ * probability it was sized for. Until loaded, every ISBN is looked up. An ISBN written by another node since
+ * the last poll can still be missed; the unique index rejects it then.
+ */
+@Slf4j
+@ApplicationScoped
+public class IsbnFilter {
+
+    private static final int FETCH_SIZE = 1_000;
+    private static final int CHUNK_SIZE = 1_000;
+    // Room for growth until the next rebuild, on top of the ISBNs loaded.
+    private static final double HEADROOM = 1.5;
+    private static final long MIN_KEYS = 10_000;
+
+    @Inject
+    private BookRepository repository;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    // Own contextual reference, so that refreshes run in a transaction.
+    @Inject
+    private IsbnFilter self;
+
+    private boolean enabled;
+    private double fpp;
+    private long refreshMillis;
+    private Duration overlap;
+    private long rebuildNanos;
+    private ScheduledFuture<?> polling;
+
+    // Null until the first load.
+    private volatile Filter current;
+    // The filter being loaded, which also takes the ISBNs written meanwhile.
+    private volatile LongBloomFilter building;
+    private final ReentrantLock refreshing = new ReentrantLock();
+
+    private final LongAdder absent = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder unfiltered = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    // polledAt: start of the last read of changes; loadedAt: System.nanoTime() of the load.
+    private record Filter(LongBloomFilter bloom, LocalDateTime polledAt, long loadedAt) {
+    }
+
+    @PostConstruct
+    void init() {
+        enabled = config.getBoolean("library.isbns.enabled", true);
+        fpp = config.getDouble("library.isbns.fpp", 0.01);
+        refreshMillis = Math.max(1, config.getLong("library.isbns.refreshMillis", 5_000));
+        overlap = Duration.ofMillis(config.getLong("library.isbns.overlapMillis", 5_000));
+        rebuildNanos = TimeUnit.MINUTES.toNanos(Math.max(1, config.getLong("library.isbns.rebuildMinutes", 60)));
+        log.info("ISBN filter: enabled={}, fpp={}, refreshMillis={}", enabled, fpp, refreshMillis);
+    }
+
+    void start(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (enabled) {
+            polling = scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (polling != null) {
+            polling.cancel(false);
+        }
+    }
+
+    /**
+     * False only if no book has {@code isbn}; always true until the filter is loaded.
+     */
+    public boolean mightContain(long isbn) {
+        Filter filter = current;
+        return filter == null || filter.bloom().mightContain(isbn);
+    }
+
+    public boolean exists(long isbn) {
+        return !existing(List.of(isbn)).isEmpty();
+    }
+
+    /**
+     * Those of {@code isbns} that are in the catalog; only the {@link #candidates} are queried, in chunks of
+     * {@value #CHUNK_SIZE}.
+     */
+    public Set<Long> existing(Collection<Long> isbns) {
+        boolean filtered = current != null;
+        List<Long> candidates = candidates(isbns);
+        Set<Long> found = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += CHUNK_SIZE) {
+            int to = Math.min(candidates.size(), from + CHUNK_SIZE);
+            found.addAll(repository.findIsbnsIn(candidates.subList(from, to)));
+        }
+        if (filtered) {
+            confirmed.add(found.size());
+            falsePositives.add(candidates.size() - found.size());
+        }
+        return found;
+    }
+
+    /**
+     * Those of {@code isbns} that the filter cannot rule out, each once: the ones to look up in the catalog.
+     */
+    public List<Long> candidates(Collection<Long> isbns) {
+        Filter filter = current;
+        List<Long> candidates = new ArrayList<>();
+        for (Long isbn : new LinkedHashSet<>(isbns)) {
+            if (filter == null) {
+                unfiltered.increment();
+                candidates.add(isbn);
+            } else if (filter.bloom().mightContain(isbn)) {
+                candidates.add(isbn);
+            } else {
+                absent.increment();
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Records the ISBN of a book written through this node, before its transaction commits: until then it
+     * is a false positive at worst.
+     */
+    public void add(Long isbn) {
+        if (isbn == null) {
+            return;
+        }
+        LongBloomFilter next = building;
+        if (next != null) {
+            next.add(isbn);
+        }
+        Filter filter = current;
+        if (filter != null) {
+            filter.bloom().add(isbn);
+        }
+    }
+
+    /**
+     * Loads the filter, or reads the ISBNs changed since the last poll into it, or rebuilds it when due.
+     *
+     * @return the number of ISBNs read
+     */
+    @Transactional
+    public int refresh() {
+        refreshing.lock();
+        try {
+            Filter filter = current;
+            if (filter == null || System.nanoTime() - filter.loadedAt() >= rebuildNanos
+                    || filter.bloom().expectedFpp() > 2 * fpp) {
+                return load(filter);
+            }
+            LocalDateTime polledAt = LocalDateTime.now();
+            List<Long> changed = repository.findIsbnsChangedSince(filter.polledAt().minus(overlap));
+            changed.forEach(filter.bloom()::add);
+            current = new Filter(filter.bloom(), polledAt, filter.loadedAt());
+            return changed.size();
+        } finally {
+            refreshing.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoaded() {
+        return current != null;
+    }
+
+    /**
+     * ISBNs ruled out by the filter alone, without a query.
+     */
+    public long getAbsent() {
+        return absent.sum();
+    }
+
+    /**
+     * ISBNs the filter could not rule out that were in the catalog, as found by {@link #existing}.
+     */
+    public long getConfirmed() {
+        return confirmed.sum();
+    }
+
+    /**
+     * ISBNs the filter could not rule out that were not in the catalog, as found by {@link #existing}.
+     */
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * ISBNs looked up before the filter was loaded.
+     */
+    public long getUnfiltered() {
+        return unfiltered.sum();
+    }
+
+    public long getRebuilds() {
+        return rebuilds.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getBits() {
+        Filter filter = current;
+        return filter == null ? 0 : filter.bloom().bitSize();
+    }
+
+    /**
+     * False positive probability at the filter's current fill; -1 before the first load.
+     */
+    public double getExpectedFpp() {
+        Filter filter = current;
+        return filter == null ? -1 : filter.bloom().expectedFpp();
+    }
+
+    private void refreshQuietly() {
+        try {
+            self.refresh();
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.error("Refreshing the ISBN filter failed", e);
+        }
+    }
+
+    // Sized for the books counted now plus room to grow; the old filter keeps answering meanwhile.
+    private int load(Filter previous) {
+        long start = System.nanoTime();
+        LocalDateTime polledAt = LocalDateTime.now();
+        long capacity = Math.max(MIN_KEYS, (long) (repository.count(BookFilter.NONE) * HEADROOM));
+        LongBloomFilter bloom = new LongBloomFilter(capacity, fpp);
+        building = bloom;
+        int keys = 0;
+        try (Stream<Long> isbns = repository.streamIsbns(FETCH_SIZE)) {
+            Iterator<Long> iterator = isbns.iterator();
+            while (iterator.hasNext()) {
+                bloom.add(iterator.next());
+                keys++;
+            }
+        } finally {
+            building = null;
+        }
+        current = new Filter(bloom, polledAt, System.nanoTime());
+        if (previous != null) {
+            rebuilds.increment();
+        }
+        log.info("Loaded {} ISBNs into the ISBN filter in {} ms: {} bits, {} hashes", keys,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), bloom.bitSize(), bloom.hashCount());
+        return keys;
+    }
+}
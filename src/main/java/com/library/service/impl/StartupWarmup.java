@@ -0,0 +1,104 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.metrics.StartupTimes;
+import com.library.service.BookService;
+import com.library.util.ConfigUtil;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional warm-up after deployment ({@code library.warmup.enabled}, default false): runs the books table's
+ * page, count and single-book paths {@code library.warmup.iterations} times (default 20), so that class
+ * loading, the JIT, the connection pool and the caches have seen them before the first user, then requests the
+ * view at {@code library.warmup.viewUrl} (e.g. {@code http://localhost:8080/library/books.xhtml}) once, when
+ * set, for Faces and PrimeFaces. The readiness check reports the application ready when it has finished,
+ * failed or not; see {@link StartupTimes}.
+ */
+@Slf4j
+@ApplicationScoped
+public class StartupWarmup {
+
+    /**
+     * Marks the warm-up's own request to the view, which the metrics filter does not count as the first request.
+     */
+    public static final String HEADER = "X-Library-Warmup";
+
+    private static final int PAGE_SIZE = 20;
+    private static final Duration VIEW_TIMEOUT = Duration.ofSeconds(30);
+
+    @Inject
+    private BookService bookService;
+
+    @Inject
+    private StartupTimes times;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    void start(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        times.deployed();
+        if (!config.getBoolean("library.warmup.enabled", false)) {
+            times.ready(0);
+            return;
+        }
+        scheduler.execute(this::warmUp);
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        int iterations = Math.max(1, config.getInt("library.warmup.iterations", 20));
+        String viewUrl = config.getString("library.warmup.viewUrl", null);
+        try {
+            for (int i = 0; i < iterations; i++) {
+                List<BookDTO> page = bookService.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE);
+                bookService.countBooks(BookFilter.NONE);
+                if (!page.isEmpty()) {
+                    bookService.getBook(page.getFirst().getId());
+                }
+            }
+            if (viewUrl != null) {
+                requestView(viewUrl);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Warm-up failed, the application is ready without it", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            long nanos = System.nanoTime() - start;
+            times.ready(nanos);
+            log.info("Warm-up of {} iterations finished in {} ms", iterations, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    private static void requestView(String url) throws IOException, InterruptedException {
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(VIEW_TIMEOUT).build()) {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                    .header(HEADER, "true")
+                    .timeout(VIEW_TIMEOUT)
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                log.warn("Warm-up request of {} answered {}", url, response.statusCode());
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.library.util;
+
+import com.library.metrics.RequestStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorDefinition;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Where blocking work runs. By default async service methods use the container's default managed
+ * executor and requests are handled on the container thread that received them. With
+ * {@code library.threads.virtual=true} both run on virtual threads instead, so a request blocked on
+ * JDBC no longer holds one of the few container threads; the connection pool becomes the limit.
+ */
+@Slf4j
+@ApplicationScoped
+@ManagedExecutorDefinition(name = ExecutorUtil.VIRTUAL_EXECUTOR, virtual = true)
+public class ExecutorUtil {
+
+    public static final String VIRTUAL_EXECUTOR = "java:app/concurrent/LibraryVirtualExecutor";
+
+    @Resource(lookup = VIRTUAL_EXECUTOR)
+    private ManagedExecutorService virtualExecutor;
+
+    @Resource
+    private ManagedExecutorService defaultExecutor;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Getter
+    private boolean virtualThreads;
+
+    @PostConstruct
+    void init() {
+        virtualThreads = config.getBoolean("library.threads.virtual", false);
+        log.info("Blocking work runs on {} threads", virtualThreads ? "virtual" : "platform");
+    }
+
+    /**
+     * Executor for async service methods.
+     */
+    public ManagedExecutorService executor() {
+        return virtualThreads ? virtualExecutor : defaultExecutor;
+    }
+
+    /**
+     * Runs {@code work} on {@link #executor()}. The stage fails with exactly what {@code work} threw,
+     * checked exceptions included, rather than a {@link java.util.concurrent.CompletionException}.
+     */
+    public <T> CompletionStage<T> supplyAsync(Callable<T> work) {
+        // Statements run on the executor still belong to the request that handed them over.
+        return submit(executor(), RequestStats.propagate(work));
+    }
+
+    /**
+     * Like {@link #supplyAsync}, for speculative work that no request waits for: its statements are not
+     * added to the request that started it.
+     */
+    public <T> CompletionStage<T> background(Callable<T> work) {
+        return submit(executor(), work);
+    }
+
+    /**
+     * Runs request handling on a virtual thread, or in place on the calling container thread when virtual
+     * threads are off (failures are then thrown, not wrapped into the stage).
+     */
+    public <T> CompletionStage<T> handle(Supplier<T> work) {
+        return virtualThreads ? submit(virtualExecutor, RequestStats.propagate(work::get))
+                : CompletableFuture.completedFuture(work.get());
+    }
+
+    private static <T> CompletionStage<T> submit(ManagedExecutorService executor, Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+}
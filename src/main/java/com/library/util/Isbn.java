@@ -0,0 +1,99 @@
+package com.library.util;
+
+/**
+ * ISBN-13s as the catalog stores them: a {@code bigint} column holding the 13 digits, while DTOs, forms,
+ * files and the API keep the digits as a string.
+ */
+public final class Isbn {
+
+    public static final int DIGITS = 13;
+
+    private static final long BOOKLAND_978 = 9_780_000_000_000L;
+    private static final long BOOKLAND_END = 9_800_000_000_000L;
+
+    /**
+     * Numbers from {@code from} (inclusive) to {@code to} (exclusive); empty when {@code from == to}.
+     */
+    public record Range(long from, long to) {
+
+        public boolean isEmpty() {
+            return from >= to;
+        }
+
+        public boolean contains(long isbn) {
+            return isbn >= from && isbn < to;
+        }
+    }
+
+    private Isbn() {
+    }
+
+    /**
+     * @return the ISBN as a number, null for null
+     * @throws IllegalArgumentException if {@code isbn} is not exactly 13 digits
+     */
+    public static Long parse(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        if (!isDigits(isbn, DIGITS)) {
+            throw new IllegalArgumentException("ISBN must be exactly 13 digits: " + isbn);
+        }
+        return Long.parseLong(isbn);
+    }
+
+    /**
+     * @return the 13 digits of the ISBN, zero-padded, null for null
+     */
+    public static String format(Long isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        String digits = Long.toString(isbn);
+        return digits.length() >= DIGITS ? digits : "0".repeat(DIGITS - digits.length()) + digits;
+    }
+
+    public static boolean isWellFormed(String isbn) {
+        return isbn != null && isDigits(isbn, DIGITS);
+    }
+
+    /**
+     * A 978 or 979 ("Bookland") EAN-13 whose last digit is the check digit of the first twelve.
+     */
+    public static boolean isValid(String isbn) {
+        return isWellFormed(isbn) && isValid(Long.parseLong(isbn));
+    }
+
+    public static boolean isValid(long isbn) {
+        if (isbn < BOOKLAND_978 || isbn >= BOOKLAND_END) {
+            return false;
+        }
+        long rest = isbn / 10;
+        int sum = 0;
+        // Weights 3 and 1 alternate from the right, starting with 3 next to the check digit.
+        for (int i = 0; i < DIGITS - 1; i++, rest /= 10) {
+            sum += (int) (rest % 10) * (i % 2 == 0 ? 3 : 1);
+        }
+        return (10 - sum % 10) % 10 == isbn % 10;
+    }
+
+    /**
+     * The ISBNs starting with {@code prefix}, as a range of numbers that an index on the column can seek.
+     * Empty for a prefix that no ISBN can start with (not digits, or longer than 13).
+     */
+    public static Range prefixRange(String prefix) {
+        if (prefix.length() > DIGITS || !isDigits(prefix, prefix.length())) {
+            return new Range(0, 0);
+        }
+        long scale = 1;
+        for (int i = prefix.length(); i < DIGITS; i++) {
+            scale *= 10;
+        }
+        long from = prefix.isEmpty() ? 0 : Long.parseLong(prefix) * scale;
+        return new Range(from, from + scale);
+    }
+
+    private static boolean isDigits(String value, int length) {
+        return value.length() == length && value.chars().allMatch(c -> c >= '0' && c <= '9');
+    }
+}
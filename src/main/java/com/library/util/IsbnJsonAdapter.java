@@ -0,0 +1,19 @@
+package com.library.util;
+
+import jakarta.json.bind.adapter.JsonbAdapter;
+
+/**
+ * Writes an ISBN held as a number as its 13 digits, the form the API uses everywhere.
+ */
+public class IsbnJsonAdapter implements JsonbAdapter<Long, String> {
+
+    @Override
+    public String adaptToJson(Long isbn) {
+        return Isbn.format(isbn);
+    }
+
+    @Override
+    public Long adaptFromJson(String isbn) {
+        return Isbn.parse(isbn);
+    }
+}
@@ -0,0 +1,96 @@
+package com.library.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over {@code long} keys: {@link #mightContain} is never false for a key that was added, and true
+ * for a key that was not with about the false positive probability the filter was sized for. Adds and checks
+ * are lock-free and may run concurrently; keys cannot be removed.
+ */
+public final class LongBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    /**
+     * @param expectedKeys how many keys the filter is sized for; more make false positives more likely
+     * @param fpp          false positive probability at {@code expectedKeys}, e.g. {@code 0.01}
+     */
+    public LongBloomFilter(long expectedKeys, double fpp) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1: " + fpp);
+        }
+        long keys = Math.max(1, expectedKeys);
+        // m = -n ln p / (ln 2)^2 bits and k = m/n ln 2 hash functions, the optimum for n keys.
+        long wanted = (long) Math.ceil(-keys * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int length = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (wanted + 63) / 64));
+        words = new AtomicLongArray(length);
+        bits = (long) length * Long.SIZE;
+        hashes = (int) Math.max(1, Math.min(16, Math.round((double) bits / keys * Math.log(2))));
+    }
+
+    public void add(long key) {
+        long hash = mix(key);
+        // Double hashing: the k positions are h1 + i * h2 (Kirsch and Mitzenmacher).
+        long h1 = hash >>> 32;
+        long h2 = hash & 0xFFFF_FFFFL | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                long witness = words.compareAndExchange(word, current, current | mask);
+                if (witness == current) {
+                    break;
+                }
+                current = witness;
+            }
+        }
+    }
+
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        long h1 = hash >>> 32;
+        long h2 = hash & 0xFFFF_FFFFL | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    /**
+     * Share of bits set; the false positive probability is about this to the power of {@link #hashCount()}.
+     */
+    public double fillRatio() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return (double) set / bits;
+    }
+
+    public double expectedFpp() {
+        return Math.pow(fillRatio(), hashes);
+    }
+
+    // Finalizer of SplitMix64: spreads sequential keys, such as consecutive ISBNs, over all 64 bits.
+    private static long mix(long key) {
+        long z = key + 0x9E37_79B9_7F4A_7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+}
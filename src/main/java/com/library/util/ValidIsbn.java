@@ -0,0 +1,44 @@
+package com.library.util;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An ISBN-13 with a valid check digit, see {@link Isbn#isValid(String)}; null is valid.
+ */
+@Documented
+@Constraint(validatedBy = {ValidIsbn.StringValidator.class, ValidIsbn.LongValidator.class})
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidIsbn {
+
+    String message() default "ISBN must be 13 digits starting with 978 or 979, with a valid check digit";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    class StringValidator implements ConstraintValidator<ValidIsbn, String> {
+
+        @Override
+        public boolean isValid(String value, ConstraintValidatorContext context) {
+            return value == null || Isbn.isValid(value);
+        }
+    }
+
+    class LongValidator implements ConstraintValidator<ValidIsbn, Long> {
+
+        @Override
+        public boolean isValid(Long value, ConstraintValidatorContext context) {
+            return value == null || Isbn.isValid(value);
+        }
+    }
+}
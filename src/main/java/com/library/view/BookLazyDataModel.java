@@ -1,32 +1,261 @@
 package com.library.view;
 
+import com.library.dto.BookCursor;
 import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.BookSort;
+import com.library.dto.BookSortField;
 import com.library.service.BookService;
+import com.library.service.CatalogSnapshotService;
 import org.primefaces.model.FilterMeta;
 import org.primefaces.model.LazyDataModel;
+import org.primefaces.model.MatchMode;
 import org.primefaces.model.SortMeta;
+import org.primefaces.model.SortOrder;
 
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.Callable;
 
 public class BookLazyDataModel extends LazyDataModel<BookDTO> {
 
     private final BookService service;
 
+    // The current page, held here instead of in LazyDataModel's own field so that the serialized view
+    // keeps only the query and the cursors below; a restored view loads its page again when rendered.
+    private transient List<BookDTO> rows;
+
+    // The page served last, so that next/previous clicks can seek from its boundaries
+    // instead of making the database skip over every preceding row.
+    private ServedPage last;
+
+    // Set when the service declines to count: pages then fetch one extra row to learn whether
+    // a next page exists, and the paginator only ever offers one page beyond the current one.
+    private boolean lookAhead;
+
+    // The author picked in the author facet, applied on top of the column filters; null for all authors.
+    private Long authorId;
+
+    // Null when prefetching is off.
+    private final PrefetchedPages prefetched;
+    private final boolean prefetchPrevious;
+
+    // Null when every page comes from the service.
+    private final CatalogSnapshotService snapshot;
+
+    private record ServedPage(BookQuery query, int first, int pageSize, BookCursor firstCursor,
+                              BookCursor lastCursor) implements Serializable {
+    }
+
     public BookLazyDataModel(BookService service) {
         this.service = service;
+        this.prefetched = null;
+        this.prefetchPrevious = false;
+        this.snapshot = null;
+    }
+
+    /**
+     * With prefetching enabled, serving a page also starts loading the next one (and the previous one, if
+     * configured) in the background, so that the usual next-page click needs no database round trip.
+     */
+    public BookLazyDataModel(BookService service, PagePrefetcher prefetcher) {
+        this(service, prefetcher, null);
+    }
+
+    /**
+     * Counts and pages that the in-memory catalog snapshot can answer are sorted, filtered and paged there,
+     * without a query; the others, ranked searches and everything while the snapshot is not loaded or has
+     * yet to apply a change made through this node, go to the service as before.
+     */
+    public BookLazyDataModel(BookService service, PagePrefetcher prefetcher, CatalogSnapshotService snapshot) {
+        this.service = service;
+        this.prefetched = prefetcher.isEnabled() ? new PrefetchedPages(prefetcher) : null;
+        this.prefetchPrevious = prefetcher.isPreviousPages();
+        this.snapshot = snapshot;
     }
 
     @Override
     public int count(Map<String, FilterMeta> filterBy) {
-        // In a real scenario, you would pass filterBy to the service
-        return service.countBooks();
+        BookFilter filter = filter(filterBy);
+        if (inMemory(filter)) {
+            lookAhead = false;
+            return snapshot.countBooks(filter);
+        }
+        int count = service.countBooks(filter);
+        lookAhead = count == BookService.UNKNOWN_COUNT;
+        // Provisional while looking ahead; load() replaces it once the page is known.
+        return lookAhead ? Integer.MAX_VALUE : count;
     }
 
     @Override
     public List<BookDTO> load(int first, int pageSize, Map<String, SortMeta> sortBy, Map<String, FilterMeta> filterBy) {
-        // In a real scenario, you would pass sortBy and filterBy to the service
-        return service.getBooks(first, pageSize);
+        BookQuery query = new BookQuery(filter(filterBy), toSort(sortBy));
+        PrefetchedPages.Key key = new PrefetchedPages.Key(query, first, pageSize, lookAhead ? pageSize + 1 : pageSize);
+        ServedPage from = last;
+        boolean inMemory = inMemory(query.filter());
+        List<BookDTO> page;
+        if (inMemory) {
+            page = snapshot.getBooks(query, first, key.fetchSize());
+        } else {
+            page = prefetched == null ? loadPage(key, from) : prefetched.take(key).orElseGet(() -> loadPage(key, from));
+        }
+
+        boolean hasMore;
+        if (lookAhead) {
+            // Moving backwards means the page we came from still follows.
+            hasMore = page.size() > pageSize || (from != null && first < from.first());
+            if (page.size() > pageSize) {
+                page = new ArrayList<>(page.subList(0, pageSize));
+            }
+            setRowCount(first + page.size() + (hasMore ? 1 : 0));
+        } else {
+            hasMore = first + pageSize < getRowCount();
+        }
+
+        last = new ServedPage(query, first, pageSize,
+                page.isEmpty() ? null : BookCursor.of(page.get(0), query.sort()),
+                page.isEmpty() ? null : BookCursor.of(page.get(page.size() - 1), query.sort()));
+        // The next page from memory costs less than keeping a prefetched one.
+        if (prefetched != null && !inMemory) {
+            prefetchAround(key, hasMore);
+        }
+        return page;
+    }
+
+    private boolean inMemory(BookFilter filter) {
+        return snapshot != null && snapshot.supports(filter);
+    }
+
+    private void prefetchAround(PrefetchedPages.Key served, boolean hasMore) {
+        ServedPage from = last;
+        Map<PrefetchedPages.Key, Callable<List<BookDTO>>> wanted = new LinkedHashMap<>();
+        if (hasMore) {
+            PrefetchedPages.Key next = served.at(served.first() + served.pageSize());
+            wanted.put(next, () -> loadPage(next, from));
+        }
+        if (prefetchPrevious && served.first() >= served.pageSize()) {
+            PrefetchedPages.Key previous = served.at(served.first() - served.pageSize());
+            wanted.put(previous, () -> loadPage(previous, from));
+        }
+        prefetched.retain(wanted);
+    }
+
+    // Reads only its arguments and the service, so prefetches can run it on another thread.
+    private List<BookDTO> loadPage(PrefetchedPages.Key key, ServedPage from) {
+        BookQuery query = key.query();
+        int first = key.first();
+        int pageSize = key.pageSize();
+        // Ranked search results have no sort key to seek from.
+        boolean samePaging = from != null && first > 0 && !query.filter().hasSearch() && query.equals(from.query())
+                && pageSize == from.pageSize();
+
+        if (samePaging && first == from.first() + pageSize && isSeekable(from.lastCursor())) {
+            return service.getBooksAfter(query, from.lastCursor(), key.fetchSize());
+        }
+        if (samePaging && first == from.first() - pageSize && isSeekable(from.firstCursor())) {
+            List<BookDTO> page = service.getBooksBefore(query, from.firstCursor(), pageSize);
+            // Rows removed in front of the cursor leave a short page; the offset is authoritative then.
+            if (page.size() == pageSize) {
+                return page;
+            }
+        }
+        // First page, random page jump, page size, sort or filter change.
+        return service.getBooks(query, first, key.fetchSize());
+    }
+
+    private static boolean isSeekable(BookCursor cursor) {
+        return cursor != null && cursor.isSeekable();
+    }
+
+    // Only a single sort column is pushed down; the highest-priority one wins.
+    static BookSort toSort(Map<String, SortMeta> sortBy) {
+        if (sortBy == null) {
+            return BookSort.DEFAULT;
+        }
+        return sortBy.values().stream()
+                .filter(SortMeta::isActive)
+                .min(Comparator.naturalOrder())
+                .flatMap(meta -> BookSortField.fromAttribute(meta.getField())
+                        .map(field -> new BookSort(field, meta.getOrder() != SortOrder.DESCENDING)))
+                .orElse(BookSort.DEFAULT);
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    private BookFilter filter(Map<String, FilterMeta> filterBy) {
+        BookFilter filter = toFilter(filterBy);
+        return authorId == null ? filter : filter.toBuilder().authorId(authorId).build();
+    }
+
+    // Text columns are always matched by prefix, which is what their indexes can answer;
+    // the global filter becomes a ranked full-text search.
+    static BookFilter toFilter(Map<String, FilterMeta> filterBy) {
+        if (filterBy == null || filterBy.isEmpty()) {
+            return BookFilter.NONE;
+        }
+        BookFilter.BookFilterBuilder filter = BookFilter.builder();
+        for (FilterMeta meta : filterBy.values()) {
+            Object value = meta.getFilterValue();
+            if (!meta.isActive() || value == null) {
+                continue;
+            }
+            if (meta.isGlobalFilter()) {
+                filter.search(value.toString());
+                continue;
+            }
+            switch (meta.getField()) {
+                case "title" -> filter.titlePrefix(value.toString());
+                case "author" -> filter.authorPrefix(value.toString());
+                case "isbn" -> filter.isbnPrefix(value.toString());
+                case "price" -> applyPriceFilter(filter, meta.getMatchMode(), value);
+                default -> { }
+            }
+        }
+        return filter.build();
+    }
+
+    private static void applyPriceFilter(BookFilter.BookFilterBuilder filter, MatchMode matchMode, Object value) {
+        if (matchMode == MatchMode.BETWEEN && value instanceof Collection<?> range && range.size() == 2) {
+            Iterator<?> bounds = range.iterator();
+            filter.minPrice(toDecimal(bounds.next())).maxPrice(toDecimal(bounds.next()));
+            return;
+        }
+        BigDecimal price = toDecimal(value);
+        switch (matchMode) {
+            case GREATER_THAN, GREATER_THAN_EQUALS -> filter.minPrice(price);
+            case LESS_THAN, LESS_THAN_EQUALS -> filter.maxPrice(price);
+            default -> filter.minPrice(price).maxPrice(price);
+        }
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        try {
+            String text = value == null ? "" : value.toString().strip();
+            return text.isEmpty() ? null : new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     @Override
@@ -34,16 +263,13 @@ public class BookLazyDataModel extends LazyDataModel<BookDTO> {
         return String.valueOf(object.getId());
     }
 
+    /**
+     * Looks a row up on the current page, or through the (cached) service once the page is gone, e.g.
+     * after the view was restored from a serialized session.
+     */
     @Override
     public BookDTO getRowData(String rowKey) {
-        // This is used for selection. 
-        // Since we don't have the full list in memory, we might need to fetch it or parse the ID.
-        // For simple selection, returning null often works if rowKey is enough, 
-        // but ideally, we should fetch the object if needed.
-        // However, fetching from DB here might be expensive if called frequently.
-        // A common pattern is to iterate over the *current page* list (wrappedData) if available.
-        
-        List<BookDTO> books = (List<BookDTO>) getWrappedData();
+        List<BookDTO> books = getWrappedData();
         if (books != null) {
             for (BookDTO book : books) {
                 if (String.valueOf(book.getId()).equals(rowKey)) {
@@ -51,6 +277,53 @@ public class BookLazyDataModel extends LazyDataModel<BookDTO> {
                 }
             }
         }
-        return null;
+        try {
+            return service.getBook(Long.valueOf(rowKey)).orElse(null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Puts an edited book in place of its row on the current page, so that only that row needs
+     * rendering again.
+     *
+     * @return the row's index in the table, empty if the book is not on the current page
+     */
+    public OptionalInt replace(BookDTO book) {
+        List<BookDTO> books = getWrappedData();
+        if (books == null || last == null) {
+            return OptionalInt.empty();
+        }
+        for (int i = 0; i < books.size(); i++) {
+            if (book.getId().equals(books.get(i).getId())) {
+                List<BookDTO> updated = new ArrayList<>(books);
+                updated.set(i, book);
+                rows = updated;
+                return OptionalInt.of(last.first() + i);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    @Override
+    public List<BookDTO> getWrappedData() {
+        return rows;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setWrappedData(Object list) {
+        rows = (List<BookDTO>) list;
+    }
+
+    @Override
+    public boolean isRowAvailable() {
+        return rows != null && getRowIndex() >= 0 && getRowIndex() < rows.size();
+    }
+
+    @Override
+    public BookDTO getRowData() {
+        return isRowAvailable() ? rows.get(getRowIndex()) : null;
     }
 }
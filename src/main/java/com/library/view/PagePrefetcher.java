@@ -0,0 +1,122 @@
+package com.library.view;
+
+import com.library.event.BookChangedEvent;
+import com.library.util.ConfigUtil;
+import com.library.util.ExecutorUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settings, background loading and statistics for the speculative page loads of the books table
+ * ({@link PrefetchedPages}, one per view). A committed book change moves {@link #getGeneration() the
+ * generation} on, which retires every page prefetched before it, in all views at once.
+ * <p>
+ * {@code library.prefetch.enabled} (default on) turns it off, {@code library.prefetch.previous} (default
+ * off) also prefetches the page before, and {@code library.prefetch.maxRows} (default 200) bounds the rows
+ * a view keeps prefetched.
+ */
+@Slf4j
+@ApplicationScoped
+public class PagePrefetcher {
+
+    @Inject
+    private ExecutorUtil executors;
+
+    @Inject
+    private ConfigUtil config;
+
+    @Getter
+    private boolean enabled;
+
+    @Getter
+    private boolean previousPages;
+
+    @Getter
+    private int maxRows;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder wasted = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        enabled = config.getBoolean("library.prefetch.enabled", true);
+        previousPages = config.getBoolean("library.prefetch.previous", false);
+        maxRows = config.getInt("library.prefetch.maxRows", 200);
+        log.info("Page prefetch: enabled={}, previous={}, maxRows={}", enabled, previousPages, maxRows);
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    <T> CompletableFuture<T> load(Callable<T> page) {
+        loads.increment();
+        return executors.background(page).toCompletableFuture();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordWasted() {
+        wasted.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * Page loads answered by a prefetched page.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Page loads that had to query, with prefetching on.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Pages loaded speculatively.
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Prefetched pages thrown away unused: the user went elsewhere, or the data changed.
+     */
+    public long getWasted() {
+        return wasted.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+}
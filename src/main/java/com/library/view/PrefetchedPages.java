@@ -0,0 +1,109 @@
+package com.library.view;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookQuery;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Pages of one books table loaded ahead of the user's clicks. Only the neighbours of the page served
+ * last are kept, within {@link PagePrefetcher#getMaxRows()}; anything else is dropped as soon as another
+ * page is served. Used from the view's request thread only, the loads complete on executor threads.
+ */
+@Slf4j
+final class PrefetchedPages implements Serializable {
+
+    record Key(BookQuery query, int first, int pageSize, int fetchSize) implements Serializable {
+
+        Key at(int otherFirst) {
+            return new Key(query, otherFirst, pageSize, fetchSize);
+        }
+    }
+
+    private record Entry(long generation, CompletableFuture<List<BookDTO>> page) {
+    }
+
+    private final PagePrefetcher prefetcher;
+
+    // Futures do not survive serialization; a restored view starts without prefetched pages.
+    private transient Map<Key, Entry> pages;
+
+    PrefetchedPages(PagePrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * The page for {@code key} if it was prefetched and no book changed since it started loading;
+     * waits for a load that is still running, which is already ahead of a fresh query.
+     */
+    Optional<List<BookDTO>> take(Key key) {
+        Entry entry = pages().remove(key);
+        if (entry == null || !isCurrent(entry)) {
+            if (entry != null) {
+                discard(entry);
+            }
+            prefetcher.recordMiss();
+            return Optional.empty();
+        }
+        try {
+            List<BookDTO> page = entry.page().join();
+            prefetcher.recordHit();
+            return Optional.of(page);
+        } catch (CompletionException | CancellationException e) {
+            log.warn("Prefetching page at {} failed, querying it again", key.first(), e);
+            prefetcher.recordFailure();
+            prefetcher.recordMiss();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Starts loading the {@code wanted} pages that are not loading already and drops every other one.
+     * Pages beyond the row budget are not prefetched.
+     */
+    void retain(Map<Key, Callable<List<BookDTO>>> wanted) {
+        Map<Key, Entry> pages = pages();
+        pages.entrySet().removeIf(entry -> {
+            boolean drop = !wanted.containsKey(entry.getKey()) || !isCurrent(entry.getValue());
+            if (drop) {
+                discard(entry.getValue());
+            }
+            return drop;
+        });
+        int rows = pages.keySet().stream().mapToInt(Key::fetchSize).sum();
+        for (Map.Entry<Key, Callable<List<BookDTO>>> page : wanted.entrySet()) {
+            Key key = page.getKey();
+            if (pages.containsKey(key) || rows + key.fetchSize() > prefetcher.getMaxRows()) {
+                continue;
+            }
+            pages.put(key, new Entry(prefetcher.getGeneration(), prefetcher.load(page.getValue())));
+            rows += key.fetchSize();
+        }
+    }
+
+    private boolean isCurrent(Entry entry) {
+        return entry.generation() == prefetcher.getGeneration();
+    }
+
+    // Only settles the future; a query already running finishes on its own and is ignored.
+    private void discard(Entry entry) {
+        entry.page().cancel(false);
+        prefetcher.recordWasted();
+    }
+
+    private Map<Key, Entry> pages() {
+        if (pages == null) {
+            pages = new HashMap<>();
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,47 @@
+-- Tables, sequences and mapped indexes of the entities
+-- The schema Hibernate generates from the mapping for PostgreSQL, which validates it at every deployment. Every
+-- statement is a no-op where the object exists, so databases created by schema generation before migrations are
+-- adopted as they are; V2 converts what differs in them. The author index comes with that conversion.
+CREATE SEQUENCE IF NOT EXISTS authors_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS books_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS authors (
+    id bigint NOT NULL,
+    name varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_authors_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS books (
+    id bigint NOT NULL,
+    version bigint,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    title varchar(255) NOT NULL,
+    author_id bigint NOT NULL,
+    price numeric(12, 2),
+    isbn varchar(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_books_author FOREIGN KEY (author_id) REFERENCES authors (id)
+);
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books (title, id);
+CREATE INDEX IF NOT EXISTS idx_books_price_id ON books (price, id);
+CREATE INDEX IF NOT EXISTS idx_books_updated_at_id ON books (updated_at, id);
+
+CREATE TABLE IF NOT EXISTS book_stats (
+    dimension varchar(10) NOT NULL CHECK (dimension IN ('TOTAL', 'AUTHOR', 'PRICE')),
+    group_key varchar(255) NOT NULL,
+    book_count bigint NOT NULL,
+    price_sum numeric(20, 2) NOT NULL,
+    min_price numeric(12, 2),
+    max_price numeric(12, 2),
+    PRIMARY KEY (dimension, group_key)
+);
+CREATE INDEX IF NOT EXISTS idx_book_stats_count ON book_stats (dimension, book_count);
+
+CREATE TABLE IF NOT EXISTS book_tombstones (
+    book_id bigint NOT NULL,
+    deleted_at timestamp(6) NOT NULL,
+    PRIMARY KEY (book_id)
+);
+CREATE INDEX IF NOT EXISTS idx_book_tombstones_deleted_at_book_id ON book_tombstones (deleted_at, book_id);
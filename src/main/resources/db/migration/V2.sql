@@ -0,0 +1,113 @@
+-- Search, prefix and trigram indexes, catalog statistics triggers, conversions of older tables
+-- Indexes and triggers JPA metadata cannot describe, on top of the tables of V1.
+-- Authors moved from a text column of books to the authors table; converts a books table created before (the
+-- generated schema cannot alter it), a no-op afterwards. Dropping the column also drops its indexes and the
+-- search_vector generated from it. Function bodies are quoted, so quotes inside them are doubled.
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = ''books'' AND column_name = ''author'') THEN
+        RETURN;
+    END IF;
+    INSERT INTO authors (id, name) SELECT nextval(''authors_id_seq''), d.author FROM (SELECT DISTINCT author FROM books) d;
+    ALTER TABLE books ADD COLUMN IF NOT EXISTS author_id bigint;
+    UPDATE books b SET author_id = a.id FROM authors a WHERE a.name = b.author;
+    ALTER TABLE books DROP COLUMN author CASCADE;
+    ALTER TABLE books ALTER COLUMN author_id SET NOT NULL;
+    ALTER TABLE books ADD CONSTRAINT fk_books_author FOREIGN KEY (author_id) REFERENCES authors (id);
+    CREATE INDEX idx_books_author_id ON books (author_id, id);
+    ALTER TABLE books ADD COLUMN search_vector tsvector;
+    UPDATE books b SET search_vector = setweight(to_tsvector(''simple'', coalesce(b.title, '''')), ''A'')
+                                       || setweight(to_tsvector(''simple'', a.name), ''B'')
+    FROM authors a WHERE a.id = b.author_id;
+END';
+-- The author foreign key index, mapped on Book; created here, after the conversion gave older tables the column.
+CREATE INDEX IF NOT EXISTS idx_books_author_id ON books (author_id, id);
+-- Case-insensitive prefix filters (lower(column) LIKE 'x%') of the lazy table; author prefixes match authors first.
+CREATE INDEX IF NOT EXISTS idx_books_title_lower_prefix ON books (lower(title) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_authors_name_lower_prefix ON authors (lower(name) text_pattern_ops);
+-- ISBN prefix filter (isbn LIKE 'x%'), also serves exact ISBN lookups.
+CREATE INDEX IF NOT EXISTS idx_books_isbn_prefix ON books (isbn text_pattern_ops);
+-- Watermark polls of the in-memory catalog snapshot (updated_at > :since) and keyset reads of the change feed
+-- use idx_books_updated_at_id of V1, which replaces the single-column index of older tables. Rows written before
+-- updated_at was always set get their creation time, so the feed lists them too.
+DROP INDEX IF EXISTS idx_books_updated_at;
+UPDATE books SET updated_at = created_at WHERE updated_at IS NULL;
+-- Full-text search: title and author words in one tsvector (title weighted above author). A generated column
+-- cannot read the author name from authors, so a row trigger fills it; authors are never renamed.
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector;
+CREATE OR REPLACE FUNCTION books_search_vector() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    NEW.search_vector := setweight(to_tsvector(''simple'', coalesce(NEW.title, '''')), ''A'')
+        || setweight(to_tsvector(''simple'', coalesce((SELECT a.name FROM authors a WHERE a.id = NEW.author_id), '''')), ''B'');
+    RETURN NEW;
+END';
+CREATE OR REPLACE TRIGGER books_search_vector BEFORE INSERT OR UPDATE OF title, author_id ON books FOR EACH ROW EXECUTE FUNCTION books_search_vector();
+CREATE INDEX IF NOT EXISTS idx_books_search ON books USING gin (search_vector);
+-- Trigram indexes for typo-tolerant matching (word similarity) of search terms.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_authors_name_trgm ON authors USING gin (lower(name) gin_trgm_ops);
+-- Prices are exact since they moved from double precision; converts a table created before, a no-op afterwards.
+ALTER TABLE books ALTER COLUMN price TYPE numeric(12, 2);
+-- Catalog statistics (book_stats, see BookStat) kept current by statement-level triggers in the writing
+-- transaction: one aggregated upsert per statement however many books it touched. Price buckets are 10 wide
+-- (BookStat.PRICE_BUCKET_WIDTH). A group's min/max is recomputed from books only when a removed price was one of
+-- them; the partial index finds those groups. Author groups are keyed by author name.
+CREATE INDEX IF NOT EXISTS idx_book_stats_stale ON book_stats (dimension) WHERE min_price IS NULL OR max_price IS NULL;
+CREATE OR REPLACE FUNCTION book_stats_merge(authors text[], prices numeric[], sign integer) RETURNS void LANGUAGE plpgsql AS '
+BEGIN
+    IF authors IS NULL THEN
+        RETURN;
+    END IF;
+    INSERT INTO book_stats AS s (dimension, group_key, book_count, price_sum, min_price, max_price)
+    SELECT g.dimension, g.group_key, sign * count(*), sign * sum(g.price), min(g.price), max(g.price)
+    FROM (SELECT ''TOTAL'' AS dimension, '''' AS group_key, c.price FROM unnest(authors, prices) AS c(author, price)
+          UNION ALL
+          SELECT ''AUTHOR'', c.author, c.price FROM unnest(authors, prices) AS c(author, price)
+          UNION ALL
+          SELECT ''PRICE'', (floor(c.price / 10) * 10)::bigint::text, c.price FROM unnest(authors, prices) AS c(author, price)) g
+    GROUP BY g.dimension, g.group_key
+    ON CONFLICT (dimension, group_key) DO UPDATE SET
+        book_count = s.book_count + EXCLUDED.book_count,
+        price_sum = s.price_sum + EXCLUDED.price_sum,
+        min_price = CASE WHEN sign > 0 THEN least(s.min_price, EXCLUDED.min_price)
+                         WHEN EXCLUDED.min_price <= s.min_price THEN NULL ELSE s.min_price END,
+        max_price = CASE WHEN sign > 0 THEN greatest(s.max_price, EXCLUDED.max_price)
+                         WHEN EXCLUDED.max_price >= s.max_price THEN NULL ELSE s.max_price END;
+    IF sign > 0 THEN
+        RETURN;
+    END IF;
+    DELETE FROM book_stats WHERE dimension IN (''AUTHOR'', ''PRICE'') AND book_count <= 0;
+    UPDATE book_stats s SET min_price = (SELECT min(b.price) FROM books b), max_price = (SELECT max(b.price) FROM books b)
+    WHERE s.dimension = ''TOTAL'' AND (s.min_price IS NULL OR s.max_price IS NULL);
+    UPDATE book_stats s SET min_price = (SELECT min(b.price) FROM books b JOIN authors a ON a.id = b.author_id WHERE a.name = s.group_key),
+                            max_price = (SELECT max(b.price) FROM books b JOIN authors a ON a.id = b.author_id WHERE a.name = s.group_key)
+    WHERE s.dimension = ''AUTHOR'' AND (s.min_price IS NULL OR s.max_price IS NULL);
+    UPDATE book_stats s SET min_price = (SELECT min(b.price) FROM books b WHERE b.price >= s.group_key::numeric AND b.price < s.group_key::numeric + 10),
+                            max_price = (SELECT max(b.price) FROM books b WHERE b.price >= s.group_key::numeric AND b.price < s.group_key::numeric + 10)
+    WHERE s.dimension = ''PRICE'' AND (s.min_price IS NULL OR s.max_price IS NULL);
+END';
+CREATE OR REPLACE FUNCTION book_stats_on_insert() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM book_stats_merge(array_agg(a.name), array_agg(n.price), 1) FROM new_books n JOIN authors a ON a.id = n.author_id;
+    RETURN NULL;
+END';
+-- Only rows whose author or price changed count; title, ISBN and version changes leave the statistics alone.
+CREATE OR REPLACE FUNCTION book_stats_on_update() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM book_stats_merge(array_agg(a.name), array_agg(n.price), 1)
+    FROM new_books n JOIN old_books o ON o.id = n.id JOIN authors a ON a.id = n.author_id
+    WHERE (o.author_id, o.price) IS DISTINCT FROM (n.author_id, n.price);
+    PERFORM book_stats_merge(array_agg(a.name), array_agg(o.price), -1)
+    FROM old_books o JOIN new_books n ON n.id = o.id JOIN authors a ON a.id = o.author_id
+    WHERE (o.author_id, o.price) IS DISTINCT FROM (n.author_id, n.price);
+    RETURN NULL;
+END';
+CREATE OR REPLACE FUNCTION book_stats_on_delete() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM book_stats_merge(array_agg(a.name), array_agg(o.price), -1) FROM old_books o JOIN authors a ON a.id = o.author_id;
+    RETURN NULL;
+END';
+CREATE OR REPLACE TRIGGER books_stats_insert AFTER INSERT ON books REFERENCING NEW TABLE AS new_books FOR EACH STATEMENT EXECUTE FUNCTION book_stats_on_insert();
+CREATE OR REPLACE TRIGGER books_stats_update AFTER UPDATE ON books REFERENCING OLD TABLE AS old_books NEW TABLE AS new_books FOR EACH STATEMENT EXECUTE FUNCTION book_stats_on_update();
+CREATE OR REPLACE TRIGGER books_stats_delete AFTER DELETE ON books REFERENCING OLD TABLE AS old_books FOR EACH STATEMENT EXECUTE FUNCTION book_stats_on_delete();
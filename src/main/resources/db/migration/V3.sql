@@ -0,0 +1,24 @@
+-- ISBN as a bigint with a unique index
+-- The text prefix index is replaced by the unique index: prefixes become ranges of the number.
+DROP INDEX IF EXISTS idx_books_isbn_prefix;
+-- ISBNs a book cannot keep are recorded here as they were stored, to correct by hand, and cleared on the books as a
+-- change the snapshot and feed pick up, so the type change below finds nothing left to drop.
+CREATE TABLE IF NOT EXISTS book_isbn_rejects (
+    book_id bigint NOT NULL,
+    isbn varchar(255) NOT NULL,
+    reason varchar(20) NOT NULL,
+    rejected_at timestamp(6) NOT NULL,
+    PRIMARY KEY (book_id)
+);
+-- Of books sharing an ISBN, the oldest keeps it.
+INSERT INTO book_isbn_rejects (book_id, isbn, reason, rejected_at)
+SELECT b.id, b.isbn, 'DUPLICATE', localtimestamp FROM books b
+WHERE EXISTS (SELECT 1 FROM books o WHERE o.isbn = b.isbn AND o.id < b.id);
+-- ISBNs that are not 13 digits cannot be stored as the number.
+INSERT INTO book_isbn_rejects (book_id, isbn, reason, rejected_at)
+SELECT b.id, b.isbn, 'MALFORMED', localtimestamp FROM books b
+WHERE b.isbn !~ '^[0-9]{13}$' AND NOT EXISTS (SELECT 1 FROM book_isbn_rejects r WHERE r.book_id = b.id);
+UPDATE books b SET isbn = NULL, version = b.version + 1, updated_at = localtimestamp
+WHERE b.isbn IS NOT NULL AND EXISTS (SELECT 1 FROM book_isbn_rejects r WHERE r.book_id = b.id);
+ALTER TABLE books ALTER COLUMN isbn TYPE bigint USING isbn::bigint;
+ALTER TABLE books ADD CONSTRAINT uk_books_isbn UNIQUE (isbn);
@@ -0,0 +1,34 @@
+-- Catalog statistics written as per-statement deltas
+-- The statement-level triggers of V2 upserted the summary rows in the writing transaction, so every writer held
+-- the single TOTAL row until it committed and concurrent bulk statements could lock author and price rows in
+-- opposite orders. They now append one delta row per group a statement touched (see BookStatDelta), which no other
+-- writer waits for, and BookStatsService folds the deltas into book_stats in key order, recomputing a group's
+-- min/max from books there when a removed price was one of them. Removals carry a negative count and sum and the
+-- min and max of the prices removed. Function bodies are quoted, so quotes inside them are doubled.
+CREATE TABLE IF NOT EXISTS book_stats_delta (
+    id bigserial NOT NULL,
+    dimension varchar(10) NOT NULL CHECK (dimension IN ('TOTAL', 'AUTHOR', 'PRICE')),
+    group_key varchar(255) NOT NULL,
+    book_count bigint NOT NULL,
+    price_sum numeric(20, 2) NOT NULL,
+    min_price numeric(12, 2),
+    max_price numeric(12, 2),
+    PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_book_stats_delta_group ON book_stats_delta (dimension, group_key);
+CREATE OR REPLACE FUNCTION book_stats_merge(authors text[], prices numeric[], sign integer) RETURNS void LANGUAGE plpgsql AS '
+BEGIN
+    IF authors IS NULL THEN
+        RETURN;
+    END IF;
+    INSERT INTO book_stats_delta (dimension, group_key, book_count, price_sum, min_price, max_price)
+    SELECT g.dimension, g.group_key, sign * count(*), sign * sum(g.price), min(g.price), max(g.price)
+    FROM (SELECT ''TOTAL'' AS dimension, '''' AS group_key, c.price FROM unnest(authors, prices) AS c(author, price)
+          UNION ALL
+          SELECT ''AUTHOR'', c.author, c.price FROM unnest(authors, prices) AS c(author, price)
+          UNION ALL
+          SELECT ''PRICE'', (floor(c.price / 10) * 10)::bigint::text, c.price FROM unnest(authors, prices) AS c(author, price)) g
+    GROUP BY g.dimension, g.group_key;
+END';
+-- Found the groups whose min/max the triggers had cleared; the fold recomputes them in place instead.
+DROP INDEX IF EXISTS idx_book_stats_stale;
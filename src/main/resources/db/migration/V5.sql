@@ -0,0 +1,15 @@
+-- ISBNs with a wrong check digit moved aside
+-- V3 kept every 13-digit ISBN, but books must now have a valid one (978/979 with the check digit, see Isbn), so
+-- books with another could not be saved until someone fixed their ISBN. Those ISBNs join the ones V3 rejected in
+-- book_isbn_rejects, to correct by hand, and are cleared on the books, as a change the snapshot and feed pick up.
+-- Plain SQL that the embedded test database runs too.
+-- Weights 1 and 3 alternate from the left over the first twelve digits.
+INSERT INTO book_isbn_rejects (book_id, isbn, reason, rejected_at)
+SELECT id, CAST(isbn AS varchar(255)), 'CHECK_DIGIT', LOCALTIMESTAMP FROM books
+WHERE isbn IS NOT NULL AND (isbn < 9780000000000 OR isbn >= 9800000000000 OR MOD(10 - MOD(
+        1 * MOD(isbn / 1000000000000, 10) + 3 * MOD(isbn / 100000000000, 10) + 1 * MOD(isbn / 10000000000, 10)
+        + 3 * MOD(isbn / 1000000000, 10) + 1 * MOD(isbn / 100000000, 10) + 3 * MOD(isbn / 10000000, 10)
+        + 1 * MOD(isbn / 1000000, 10) + 3 * MOD(isbn / 100000, 10) + 1 * MOD(isbn / 10000, 10)
+        + 3 * MOD(isbn / 1000, 10) + 1 * MOD(isbn / 100, 10) + 3 * MOD(isbn / 10, 10), 10), 10) <> MOD(isbn, 10));
+UPDATE books b SET isbn = NULL, version = b.version + 1, updated_at = LOCALTIMESTAMP
+WHERE b.isbn IS NOT NULL AND EXISTS (SELECT 1 FROM book_isbn_rejects r WHERE r.book_id = b.id AND r.reason = 'CHECK_DIGIT');
@@ -0,0 +1,117 @@
+package com.library.controller;
+
+import com.library.event.BookChangedEvent;
+import com.library.util.ConfigUtil;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookChangeNotifierTest {
+
+    @Mock
+    private ManagedScheduledExecutorService scheduler;
+
+    @Mock
+    private ConfigUtil config;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private RemoteEndpoint.Async remote;
+
+    @InjectMocks
+    private BookChangeNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        when(config.getLong(eq("library.push.intervalMillis"), anyLong())).thenReturn(100L);
+        when(config.getInt(eq("library.push.maxBatch"), anyInt())).thenReturn(3);
+        notifier.init();
+        lenient().when(session.getId()).thenReturn("s1");
+        lenient().when(session.getAsyncRemote()).thenReturn(remote);
+    }
+
+    @Test
+    void onBookChanged_WithoutSubscribers_ShouldNotSchedule() {
+        notifier.onBookChanged(BookChangedEvent.updated(1L));
+
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void flush_ShouldCoalesceChangesIntoOneMessage() {
+        notifier.subscribe(session);
+
+        notifier.onBookChanged(BookChangedEvent.updated(1L));
+        notifier.onBookChanged(BookChangedEvent.updated(1L));
+        notifier.onBookChanged(BookChangedEvent.deleted(2L));
+        notifier.onBookChanged(BookChangedEvent.created(3L));
+        notifier.onBookChanged(BookChangedEvent.updated(3L));
+        notifier.flush();
+
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+        verify(remote).sendText(eq("{\"updated\":[1],\"deleted\":[2],\"created\":1}"), any(SendHandler.class));
+    }
+
+    @Test
+    void flush_LargeBatch_ShouldAskForReload() {
+        notifier.subscribe(session);
+
+        notifier.onBookChanged(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, Set.of(1L, 2L, 3L, 4L)));
+        notifier.flush();
+
+        verify(remote).sendText(eq(BookChangeNotifier.RELOAD), any(SendHandler.class));
+        assertEquals(1, notifier.getReloads());
+    }
+
+    @Test
+    void flush_WhileClientStillReceiving_ShouldSendOneReloadAfterwards() {
+        notifier.subscribe(session);
+        ArgumentCaptor<SendHandler> done = ArgumentCaptor.forClass(SendHandler.class);
+
+        notifier.onBookChanged(BookChangedEvent.updated(1L));
+        notifier.flush();
+        notifier.onBookChanged(BookChangedEvent.updated(2L));
+        notifier.flush();
+        notifier.onBookChanged(BookChangedEvent.updated(3L));
+        notifier.flush();
+        verify(remote, times(1)).sendText(anyString(), done.capture());
+
+        done.getValue().onResult(new SendResult());
+
+        verify(remote).sendText(eq(BookChangeNotifier.RELOAD), any(SendHandler.class));
+    }
+
+    @Test
+    void unsubscribe_ShouldStopPushes() {
+        notifier.subscribe(session);
+        notifier.unsubscribe(session);
+
+        notifier.onBookChanged(BookChangedEvent.updated(1L));
+        notifier.flush();
+
+        verifyNoInteractions(remote);
+        assertEquals(0, notifier.getSubscriberCount());
+    }
+}
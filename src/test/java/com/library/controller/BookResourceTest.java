@@ -0,0 +1,323 @@
+package com.library.controller;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookPatch;
+import com.library.dto.BookPriceChange;
+import com.library.service.BookNotFoundException;
+import com.library.service.BookService;
+import com.library.util.ExecutorUtil;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.mock.MockHttpResponse;
+import org.jboss.resteasy.specimpl.RequestImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookResourceTest {
+
+    @Mock
+    private BookService service;
+
+    @Mock
+    private ExecutorUtil executors;
+
+    @InjectMocks
+    private BookResource resource;
+
+    @BeforeEach
+    void setUp() {
+        // As with virtual threads off: in place, failures thrown to the container's exception mappers.
+        lenient().when(executors.handle(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(0).get()));
+    }
+
+    @Test
+    void versionOf_StrongTag_ShouldReturnVersion() {
+        assertEquals(Optional.of(7L), BookResource.versionOf("\"7\""));
+        assertEquals(Optional.of(7L), BookResource.versionOf(" \"7\" "));
+    }
+
+    @Test
+    void versionOf_WeakWildcardOrMalformedTag_ShouldFailPrecondition() {
+        assertTrue(BookResource.versionOf("W/\"7\"").isEmpty());
+        assertTrue(BookResource.versionOf("*").isEmpty());
+        assertTrue(BookResource.versionOf("\"7\", \"8\"").isEmpty());
+        assertTrue(BookResource.versionOf("\"seven\"").isEmpty());
+    }
+
+    @Test
+    void pageTag_ShouldChangeWithAnyVersion() {
+        List<BookDTO> page = List.of(book(1L, 0L), book(2L, 3L));
+        List<BookDTO> changed = List.of(book(1L, 0L), book(2L, 4L));
+
+        assertEquals(BookResource.pageTag(page, false), BookResource.pageTag(List.of(book(1L, 0L), book(2L, 3L)), false));
+        assertNotEquals(BookResource.pageTag(page, false), BookResource.pageTag(changed, false));
+        assertNotEquals(BookResource.pageTag(page, false), BookResource.pageTag(page, true));
+    }
+
+    @Test
+    void get_IfNoneMatchCurrentVersion_ShouldAnswerNotModifiedWithoutReadingTheBook() throws Exception {
+        when(service.getBookVersion(1L)).thenReturn(Optional.of(3L));
+        MockHttpRequest http = MockHttpRequest.get("/books/1").header("If-None-Match", "\"3\"");
+
+        Response response = await(resource.get(1L, request(http), http.getHttpHeaders()));
+
+        assertEquals(304, response.getStatus());
+        assertEquals(new EntityTag("3"), response.getEntityTag());
+        verify(service, never()).getBook(any());
+    }
+
+    @Test
+    void get_IfNoneMatchOlderVersion_ShouldAnswerTheBook() throws Exception {
+        BookDTO book = book(1L, 4L);
+        when(service.getBookVersion(1L)).thenReturn(Optional.of(4L));
+        when(service.getBook(1L)).thenReturn(Optional.of(book));
+        MockHttpRequest http = MockHttpRequest.get("/books/1").header("If-None-Match", "\"3\"");
+
+        Response response = await(resource.get(1L, request(http), http.getHttpHeaders()));
+
+        assertEquals(200, response.getStatus());
+        assertSame(book, response.getEntity());
+        assertEquals(new EntityTag("4"), response.getEntityTag());
+    }
+
+    @Test
+    void get_MissingBook_ShouldMapToNotFound() throws Exception {
+        when(service.getBook(9L)).thenReturn(Optional.empty());
+        MockHttpRequest http = MockHttpRequest.get("/books/9");
+
+        BookNotFoundException e = assertThrows(BookNotFoundException.class,
+                () -> resource.get(9L, request(http), http.getHttpHeaders()));
+
+        assertEquals(404, new BookNotFoundExceptionMapper().toResponse(e).getStatus());
+    }
+
+    @Test
+    void get_IfNoneMatchMissingBook_ShouldMapToNotFound() throws Exception {
+        when(service.getBookVersion(9L)).thenReturn(Optional.empty());
+        MockHttpRequest http = MockHttpRequest.get("/books/9").header("If-None-Match", "\"3\"");
+
+        BookNotFoundException e = assertThrows(BookNotFoundException.class,
+                () -> resource.get(9L, request(http), http.getHttpHeaders()));
+
+        assertEquals(404, new BookNotFoundExceptionMapper().toResponse(e).getStatus());
+        verify(service, never()).getBook(any());
+    }
+
+    @Test
+    void update_WithoutIfMatch_ShouldRequirePrecondition() {
+        Response response = await(resource.update(1L, null, book(1L, 3L)));
+
+        assertEquals(428, response.getStatus());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void update_WeakTag_ShouldFailPrecondition() {
+        Response response = await(resource.update(1L, "W/\"3\"", book(1L, 3L)));
+
+        assertEquals(412, response.getStatus());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void update_StaleTag_ShouldMapToPreconditionFailed() {
+        BookDTO book = book(1L, 2L);
+        when(service.updateBook(1L, 2L, book)).thenThrow(new OptimisticLockException());
+
+        OptimisticLockException e = assertThrows(OptimisticLockException.class,
+                () -> resource.update(1L, "\"2\"", book));
+
+        assertEquals(412, new OptimisticLockExceptionMapper().toResponse(e).getStatus());
+    }
+
+    @Test
+    void update_CurrentTag_ShouldAnswerTheNewVersion() {
+        BookDTO book = book(1L, 3L);
+        when(service.updateBook(1L, 3L, book)).thenReturn(book(1L, 4L));
+
+        Response response = await(resource.update(1L, "\"3\"", book));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(new EntityTag("4"), response.getEntityTag());
+    }
+
+    @Test
+    void update_MissingBook_ShouldMapToNotFound() {
+        BookDTO book = book(9L, 3L);
+        when(service.updateBook(9L, 3L, book)).thenThrow(new BookNotFoundException(9L));
+
+        BookNotFoundException e = assertThrows(BookNotFoundException.class, () -> resource.update(9L, "\"3\"", book));
+
+        assertEquals(404, new BookNotFoundExceptionMapper().toResponse(e).getStatus());
+    }
+
+    @Test
+    void delete_WithoutIfMatch_ShouldRequirePrecondition() {
+        Response response = await(resource.delete(1L, null));
+
+        assertEquals(428, response.getStatus());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void delete_WeakOrWildcardTag_ShouldFailPrecondition() {
+        assertEquals(412, await(resource.delete(1L, "W/\"3\"")).getStatus());
+        assertEquals(412, await(resource.delete(1L, "*")).getStatus());
+        verify(service, never()).deleteBook(any(), anyLong());
+    }
+
+    @Test
+    void delete_StaleTag_ShouldMapToPreconditionFailed() {
+        doThrow(new OptimisticLockException()).when(service).deleteBook(1L, 2L);
+
+        OptimisticLockException e = assertThrows(OptimisticLockException.class, () -> resource.delete(1L, "\"2\""));
+
+        assertEquals(412, new OptimisticLockExceptionMapper().toResponse(e).getStatus());
+    }
+
+    @Test
+    void delete_CurrentTag_ShouldAnswerNoContent() {
+        Response response = await(resource.delete(1L, "\"3\""));
+
+        assertEquals(204, response.getStatus());
+        verify(service).deleteBook(1L, 3L);
+    }
+
+    @Test
+    void patch_WithoutIfMatch_ShouldRequirePrecondition() {
+        Response response = await(resource.patch(1L, null, BookPatch.builder().title("New title").build()));
+
+        assertEquals(428, response.getStatus());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void patch_WeakTag_ShouldFailPrecondition() {
+        Response response = await(resource.patch(1L, "W/\"3\"", BookPatch.builder().title("New title").build()));
+
+        assertEquals(412, response.getStatus());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void patch_NothingToChange_ShouldBeRejected() {
+        assertThrows(BadRequestException.class, () -> resource.patch(1L, "\"3\"", BookPatch.builder().build()));
+        assertThrows(BadRequestException.class, () -> resource.patch(1L, "\"3\"", null));
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void patch_StaleTag_ShouldMapToPreconditionFailed() {
+        BookPatch patch = BookPatch.builder().price(new BigDecimal("9.99")).build();
+        when(service.patchBook(1L, 2L, patch)).thenThrow(new OptimisticLockException());
+
+        OptimisticLockException e = assertThrows(OptimisticLockException.class,
+                () -> resource.patch(1L, "\"2\"", patch));
+
+        assertEquals(412, new OptimisticLockExceptionMapper().toResponse(e).getStatus());
+    }
+
+    @Test
+    void patch_MissingBook_ShouldMapToNotFound() {
+        BookPatch patch = BookPatch.builder().price(new BigDecimal("9.99")).build();
+        when(service.patchBook(9L, 3L, patch)).thenThrow(new BookNotFoundException(9L));
+
+        BookNotFoundException e = assertThrows(BookNotFoundException.class, () -> resource.patch(9L, "\"3\"", patch));
+
+        assertEquals(404, new BookNotFoundExceptionMapper().toResponse(e).getStatus());
+    }
+
+    @Test
+    void patch_CurrentTag_ShouldAnswerNoContentWithTheNewVersion() {
+        BookPatch patch = BookPatch.builder().price(new BigDecimal("9.99")).build();
+        when(service.patchBook(1L, 3L, patch)).thenReturn(4L);
+
+        Response response = await(resource.patch(1L, "\"3\"", patch));
+
+        assertEquals(204, response.getStatus());
+        assertEquals(new EntityTag("4"), response.getEntityTag());
+    }
+
+    @Test
+    void updatePrices_ShouldAnswerUpdatedCountAndSkippedIds() {
+        List<BookPriceChange> changes = List.of(
+                new BookPriceChange(1L, 3L, new BigDecimal("9.99")),
+                new BookPriceChange(2L, 0L, new BigDecimal("5.00")),
+                new BookPriceChange(9L, 1L, new BigDecimal("1.00")));
+        when(service.updatePrices(changes)).thenReturn(Set.of(9L));
+
+        Response response = await(resource.updatePrices(changes));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(Map.of("updated", 2, "skipped", Set.of(9L)), response.getEntity());
+    }
+
+    @Test
+    void getByIsbn_ShouldAnswerTheBookWithItsVersion() {
+        BookDTO book = book(1L, 3L);
+        when(service.getBookByIsbn("9780441013593")).thenReturn(Optional.of(book));
+
+        Response response = await(resource.getByIsbn("9780441013593"));
+
+        assertEquals(200, response.getStatus());
+        assertSame(book, response.getEntity());
+        assertEquals(new EntityTag("3"), response.getEntityTag());
+    }
+
+    @Test
+    void getByIsbn_UnknownIsbn_ShouldAnswerNotFound() {
+        when(service.getBookByIsbn("9780441013593")).thenReturn(Optional.empty());
+
+        Response response = await(resource.getByIsbn("9780441013593"));
+
+        assertEquals(404, response.getStatus());
+        assertEquals(Map.of("error", "Book not found with ISBN: 9780441013593"), response.getEntity());
+    }
+
+    @Test
+    void existingIsbns_ShouldAnswerThoseBooksHave() {
+        List<String> isbns = List.of("9780441013593", "9780306406157");
+        when(service.findExistingIsbns(isbns)).thenReturn(Set.of("9780306406157"));
+
+        Response response = await(resource.existingIsbns(isbns));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(Map.of("existing", Set.of("9780306406157")), response.getEntity());
+    }
+
+    private static Request request(MockHttpRequest http) {
+        return new RequestImpl(http, new MockHttpResponse());
+    }
+
+    private static Response await(CompletionStage<Response> response) {
+        return response.toCompletableFuture().join();
+    }
+
+    private static BookDTO book(Long id, Long version) {
+        return new BookDTO(id, version, "Title " + id, "Author", new BigDecimal("10.0"), null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvBookReaderTest {
+
+    @Test
+    void next_ShouldMapColumnsByHeader() throws IOException {
+        BookReader reader = new CsvBookReader(new StringReader("isbn,title,author,price\r\n9780441013593,Dune,Frank Herbert,19.99\r\n"));
+
+        ImportRecord record = reader.next();
+
+        assertTrue(record.isValid());
+        assertEquals(1, record.row());
+        assertEquals("Dune", record.book().getTitle());
+        assertEquals("Frank Herbert", record.book().getAuthor());
+        assertEquals(new BigDecimal("19.99"), record.book().getPrice());
+        assertEquals("9780441013593", record.book().getIsbn());
+        assertNull(record.book().getId());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_QuotedFields_ShouldKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        BookReader reader = new CsvBookReader(new StringReader("title,author,price\n\"Say \"\"Hi\"\", World\",\"A\nB\",1\n\n"));
+
+        ImportRecord record = reader.next();
+
+        assertEquals("Say \"Hi\", World", record.book().getTitle());
+        assertEquals("A\nB", record.book().getAuthor());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_InvalidNumber_ShouldRejectRowAndContinue() throws IOException {
+        BookReader reader = new CsvBookReader(new StringReader("title,author,price\nDune,Herbert,cheap\nEmma,Austen,5\n"));
+
+        ImportRecord rejected = reader.next();
+        ImportRecord accepted = reader.next();
+
+        assertFalse(rejected.isValid());
+        assertEquals("Invalid price 'cheap'", rejected.error());
+        assertEquals(2, accepted.row());
+        assertEquals("Emma", accepted.book().getTitle());
+    }
+
+    @Test
+    void next_WhatCsvBookWriterWrites_ShouldReadBack() throws IOException {
+        StringWriter out = new StringWriter();
+        BookWriter writer = new CsvBookWriter(out);
+        writer.writeHeader();
+        writer.write(new BookDTO(7L, 1L, "A, \"quoted\" title", "Someone", new BigDecimal("12.5"), "9780000000002"));
+
+        ImportRecord record = new CsvBookReader(new StringReader(out.toString())).next();
+
+        assertEquals(7L, record.book().getId());
+        assertEquals("A, \"quoted\" title", record.book().getTitle());
+        assertEquals(new BigDecimal("12.5"), record.book().getPrice());
+    }
+}
@@ -0,0 +1,33 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvBookWriterTest {
+
+    @Test
+    void write_ShouldProduceHeaderAndRows() throws IOException {
+        StringWriter out = new StringWriter();
+        BookWriter writer = new CsvBookWriter(out);
+
+        writer.writeHeader();
+        writer.write(new BookDTO(1L, 0L, "Dune", "Frank Herbert", new BigDecimal("19.99"), "9780441013593"));
+
+        assertEquals("id,title,author,price,isbn\r\n1,Dune,Frank Herbert,19.99,9780441013593\r\n", out.toString());
+    }
+
+    @Test
+    void write_SpecialCharacters_ShouldQuoteFields() throws IOException {
+        StringWriter out = new StringWriter();
+
+        new CsvBookWriter(out).write(new BookDTO(2L, 0L, "Say \"Hi\", World", "A\nB", new BigDecimal("10000000"), null));
+
+        assertEquals("2,\"Say \"\"Hi\"\", World\",\"A\nB\",10000000,\r\n", out.toString());
+    }
+}
@@ -0,0 +1,41 @@
+package com.library.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonBookReaderTest {
+
+    @Test
+    void next_ShouldReadOneObjectPerLine() throws IOException {
+        BookReader reader = new NdjsonBookReader(new StringReader(
+                "{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"price\":19.99,\"isbn\":\"9780441013593\"}\n"
+                        + "\n"
+                        + "{\"id\":5,\"title\":\"Emma\",\"author\":\"Jane Austen\",\"price\":\"5\",\"extra\":true}\n"));
+
+        ImportRecord first = reader.next();
+        ImportRecord second = reader.next();
+
+        assertEquals("Dune", first.book().getTitle());
+        assertEquals(new BigDecimal("19.99"), first.book().getPrice());
+        assertEquals(2, second.row());
+        assertEquals(5L, second.book().getId());
+        assertEquals(new BigDecimal("5"), second.book().getPrice());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_MalformedLine_ShouldRejectRowAndContinue() throws IOException {
+        BookReader reader = new NdjsonBookReader(new StringReader("{\"title\": \n{\"title\":\"Emma\"}\n"));
+
+        ImportRecord rejected = reader.next();
+        ImportRecord accepted = reader.next();
+
+        assertFalse(rejected.isValid());
+        assertEquals("Emma", accepted.book().getTitle());
+    }
+}
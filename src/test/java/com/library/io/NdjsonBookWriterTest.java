@@ -0,0 +1,36 @@
+package com.library.io;
+
+import com.library.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonBookWriterTest {
+
+    @Test
+    void write_ShouldProduceOneObjectPerLine() throws IOException {
+        StringWriter out = new StringWriter();
+        BookWriter writer = new NdjsonBookWriter(out);
+
+        writer.writeHeader();
+        writer.write(new BookDTO(1L, 0L, "Dune", "Frank Herbert", new BigDecimal("19.99"), "9780441013593"));
+        writer.write(new BookDTO(2L, 0L, "Emma", "Jane Austen", new BigDecimal("5.0"), null));
+
+        assertEquals("{\"id\":1,\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"price\":19.99,\"isbn\":\"9780441013593\"}\n"
+                + "{\"id\":2,\"title\":\"Emma\",\"author\":\"Jane Austen\",\"price\":5.0,\"isbn\":null}\n", out.toString());
+    }
+
+    @Test
+    void write_SpecialCharacters_ShouldEscape() throws IOException {
+        StringWriter out = new StringWriter();
+
+        new NdjsonBookWriter(out).write(new BookDTO(3L, 0L, "Quote \" and \\ slash", "Tab\tBell\u0007", new BigDecimal("1.0"), null));
+
+        assertTrue(out.toString().contains("\"title\":\"Quote \\\" and \\\\ slash\""));
+        assertTrue(out.toString().contains("\"author\":\"Tab\\tBell\\u0007\""));
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.mapper;
+
+import com.library.model.Author;
+import com.library.repository.AuthorRepository;
+import com.library.testing.TestDatabase;
+import com.library.util.ConfigUtil;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Name resolution against an embedded database; the seeded authors "Author 0" to "Author 9" have IDs 1 to 10.
+ * Without a container, {@code create} runs in the caller's transaction.
+ */
+class AuthorMapperTest {
+
+    private TestDatabase database;
+    private AuthorRepository repository;
+    private AuthorMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        database = new TestDatabase().seed(10);
+        repository = TestDatabase.inject(new AuthorRepository(), "em", database.entityManager());
+        mapper = new AuthorMapper();
+        TestDatabase.inject(mapper, "repository", repository);
+        TestDatabase.inject(mapper, "config", new ConfigUtil());
+        TestDatabase.inject(mapper, "self", mapper);
+        mapper.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void resolveId_KnownAuthor_ShouldQueryOnlyOnce() {
+        assertEquals(1, database.countStatements(em -> mapper.resolveId("Author 3")));
+        assertEquals(0, database.countStatements(em -> mapper.resolveId("Author 3")));
+        assertEquals(4L, mapper.resolveId("Author 3"));
+    }
+
+    @Test
+    void toReference_UnknownAuthor_ShouldCreateIt() {
+        Author author = database.inTransaction(em -> mapper.toReference("Ursula K. Le Guin"));
+
+        assertNotNull(author.getId());
+        assertEquals(author.getId(), database.inTransaction(em -> repository.findIdByName("Ursula K. Le Guin")).orElseThrow());
+        assertEquals(0, database.countStatements(em -> mapper.resolveId("Ursula K. Le Guin")));
+    }
+
+    @Test
+    void toName_ReferenceToResolvedAuthor_ShouldNotLoadIt() {
+        database.inTransaction(em -> mapper.resolveId("Author 5"));
+
+        assertEquals(0, database.countStatements(em -> mapper.toName(em.getReference(Author.class, 6L))));
+        assertEquals("Author 5", database.inTransaction(em -> mapper.toName(em.getReference(Author.class, 6L))));
+    }
+
+    @Test
+    void toName_UnknownReference_ShouldLoadIt() {
+        assertEquals(1, database.countStatements(em -> mapper.toName(em.getReference(Author.class, 9L))));
+        assertEquals("Author 8", database.inTransaction(em -> mapper.toName(em.getReference(Author.class, 9L))));
+    }
+
+    @Test
+    void resolveId_CreatedConcurrently_ShouldUseTheOtherWritersAuthor() {
+        AuthorMapper self = mock(AuthorMapper.class);
+        when(self.create("Racer")).thenAnswer(invocation -> {
+            // The other writer commits first; our insert then fails on the unique name.
+            CompletableFuture.runAsync(() -> database.inTransaction(em -> {
+                em.persist(new Author("Racer"));
+                return null;
+            })).join();
+            throw new PersistenceException("duplicate key value violates unique constraint \"uk_authors_name\"");
+        });
+        TestDatabase.inject(mapper, "self", self);
+
+        Long id = database.inTransaction(em -> mapper.resolveId("Racer"));
+
+        assertEquals(id, database.inTransaction(em -> repository.findIdByName("Racer")).orElseThrow());
+    }
+}
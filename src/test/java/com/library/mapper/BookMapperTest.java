@@ -1,62 +1,70 @@
 package com.library.mapper;
 
 import com.library.dto.BookDTO;
+import com.library.model.Author;
 import com.library.model.Book;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mapstruct.factory.Mappers;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
 
 class BookMapperTest {
 
     private BookMapper mapper;
+    private AuthorMapper authors;
+    private Author author;
 
     @BeforeEach
     void setUp() {
         // Since we use componentModel="cdi", MapStruct generates a class with @ApplicationScoped.
-        // In a unit test, we can just instantiate the implementation directly if available,
-        // or use the Mappers factory if we didn't use CDI.
-        // However, with CDI, the factory might not work as expected if there are dependencies.
-        // But here, BookMapper has no dependencies.
-        mapper = Mappers.getMapper(BookMapper.class);
+        // Its AuthorMapper comes in through the constructor, so a unit test passes its own.
+        authors = mock(AuthorMapper.class);
+        mapper = new BookMapperImpl(authors);
+
+        author = new Author("Test Author");
+        author.setId(7L);
     }
 
     @Test
     void toDTO_ShouldMapAllFields() {
+        when(authors.toName(author)).thenReturn("Test Author");
         Book book = new Book();
         book.setId(1L);
         book.setTitle("Test Title");
-        book.setAuthor("Test Author");
-        book.setPrice(19.99);
-        book.setIsbn("1234567890123");
+        book.setAuthor(author);
+        book.setPrice(new BigDecimal("19.99"));
+        book.setIsbn(9780441013593L);
 
         BookDTO dto = mapper.toDTO(book);
 
         assertNotNull(dto);
         assertEquals(book.getId(), dto.getId());
         assertEquals(book.getTitle(), dto.getTitle());
-        assertEquals(book.getAuthor(), dto.getAuthor());
+        assertEquals("Test Author", dto.getAuthor());
         assertEquals(book.getPrice(), dto.getPrice());
-        assertEquals(book.getIsbn(), dto.getIsbn());
+        assertEquals("9780441013593", dto.getIsbn());
     }
 
     @Test
     void toEntity_ShouldMapAllFields() {
+        when(authors.toReference("Test Author")).thenReturn(author);
         BookDTO dto = new BookDTO();
         dto.setId(1L);
         dto.setTitle("Test Title");
         dto.setAuthor("Test Author");
-        dto.setPrice(19.99);
-        dto.setIsbn("1234567890123");
+        dto.setPrice(new BigDecimal("19.99"));
+        dto.setIsbn("9780441013593");
 
         Book book = mapper.toEntity(dto);
 
         assertNotNull(book);
         assertEquals(dto.getId(), book.getId());
         assertEquals(dto.getTitle(), book.getTitle());
-        assertEquals(dto.getAuthor(), book.getAuthor());
+        assertSame(author, book.getAuthor());
         assertEquals(dto.getPrice(), book.getPrice());
-        assertEquals(dto.getIsbn(), book.getIsbn());
+        assertEquals(9780441013593L, book.getIsbn());
     }
 }
@@ -0,0 +1,44 @@
+package com.library.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void record_ShouldCountValuesIntoInclusiveBuckets() {
+        Histogram histogram = new Histogram(new double[]{1, 2, 5});
+
+        histogram.record(0.5);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(7);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertArrayEquals(new long[]{2, 0, 1, 1}, snapshot.counts());
+        assertEquals(2, snapshot.cumulativeCount(1));
+        assertEquals(4, snapshot.count());
+        assertEquals(11.5, snapshot.sum(), 1e-9);
+    }
+
+    @Test
+    void quantile_ShouldInterpolateWithinTheBucket() {
+        Histogram histogram = new Histogram(new double[]{10, 20, 30});
+        for (int i = 0; i < 50; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 50; i++) {
+            histogram.record(15);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.quantile(0.5), 1e-9);
+        assertEquals(19, snapshot.quantile(0.95), 1e-9);
+    }
+
+    @Test
+    void quantile_Empty_ShouldBeNaN() {
+        assertTrue(Double.isNaN(new Histogram(Histogram.LATENCY_SECONDS).snapshot().quantile(0.99)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.library.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCounterTest {
+
+    private final StatementCounter counter = new StatementCounter();
+
+    @AfterEach
+    void tearDown() {
+        RequestStats.end();
+    }
+
+    @Test
+    void kindOf_ShouldClassifyByFirstKeyword() {
+        assertEquals(StatementCounter.Kind.SELECT, StatementCounter.kindOf("  select b1_0.id from books b1_0"));
+        assertEquals(StatementCounter.Kind.SELECT, StatementCounter.kindOf("with ranked as (select 1) select * from ranked"));
+        assertEquals(StatementCounter.Kind.INSERT, StatementCounter.kindOf("insert into books (id) values (?)"));
+        assertEquals(StatementCounter.Kind.UPDATE, StatementCounter.kindOf("UPDATE books set version=?"));
+        assertEquals(StatementCounter.Kind.DELETE, StatementCounter.kindOf("delete from books where id=?"));
+        assertEquals(StatementCounter.Kind.OTHER, StatementCounter.kindOf("ANALYZE books"));
+    }
+
+    @Test
+    void inspect_ShouldCountForTheRequestAcrossThreads() throws Exception {
+        long selects = StatementCounter.getCounts().get(StatementCounter.Kind.SELECT);
+        RequestStats request = RequestStats.begin();
+
+        assertEquals("select 1", counter.inspect("select 1"));
+        Callable<String> work = RequestStats.propagate(() -> counter.inspect("select 2"));
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+
+        assertEquals(2, request.getStatements());
+        assertEquals(selects + 2, StatementCounter.getCounts().get(StatementCounter.Kind.SELECT));
+    }
+}
@@ -0,0 +1,79 @@
+package com.library.metrics;
+
+import jakarta.interceptor.InvocationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimedInterceptorTest {
+
+    @Spy
+    private MetricsRegistry registry = new MetricsRegistry();
+
+    @Mock
+    private InvocationContext context;
+
+    @InjectMocks
+    private TimedInterceptor interceptor;
+
+    @AfterEach
+    void tearDown() {
+        RequestStats.end();
+    }
+
+    @Test
+    void time_ShouldRecordCallAndRowsOfTheRequest() throws Exception {
+        when(context.getMethod()).thenReturn(Repository.class.getMethod("findAll"));
+        when(context.proceed()).thenReturn(List.of("a", "b", "c"));
+        RequestStats request = RequestStats.begin();
+
+        interceptor.time(context);
+
+        MetricsRegistry.MethodStats stats = registry.method(Repository.class.getMethod("findAll"));
+        assertEquals("Repository.findAll", stats.getName());
+        assertEquals(1, stats.getLatency().count());
+        assertEquals(0, stats.getErrors());
+        assertEquals(3, stats.getRows());
+        assertEquals(3, request.getRows());
+    }
+
+    @Test
+    void time_Failure_ShouldCountErrorAndRethrow() throws Exception {
+        when(context.getMethod()).thenReturn(Service.class.getMethod("find"));
+        when(context.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> interceptor.time(context));
+
+        MetricsRegistry.MethodStats stats = registry.method(Service.class.getMethod("find"));
+        assertEquals(1, stats.getLatency().count());
+        assertEquals(1, stats.getErrors());
+        assertFalse(stats.isCountRows());
+    }
+
+    @Timed(countRows = true)
+    static class Repository {
+
+        public List<String> findAll() {
+            return List.of();
+        }
+    }
+
+    @Timed
+    static class Service {
+
+        public Optional<String> find() {
+            return Optional.empty();
+        }
+    }
+}
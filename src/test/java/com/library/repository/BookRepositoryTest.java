@@ -0,0 +1,19 @@
+package com.library.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookRepositoryTest {
+
+    @Test
+    void toPrefixQuery_ShouldMatchEveryWordByPrefix() {
+        assertEquals("tolk:* & hob:*", BookRepository.toPrefixQuery("Tolk  Hob"));
+    }
+
+    @Test
+    void toPrefixQuery_ShouldDropTsqueryOperators() {
+        assertEquals("dune:* & 1965:*", BookRepository.toPrefixQuery("dune | !(1965) & :*"));
+        assertEquals("", BookRepository.toPrefixQuery("'&|!"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.library.repository;
+
+import com.library.event.BookChangedEvent;
+import com.library.testing.TestDatabase;
+import com.library.util.ConfigUtil;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two embedded databases stand in for the primary (30 books) and a replica that has replayed 20 of them.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReplicaRouterTest {
+
+    private static TestDatabase primaryDb;
+    private static TestDatabase replicaDb;
+
+    @Mock
+    private TransactionSynchronizationRegistry transactions;
+
+    @Mock
+    private ManagedScheduledExecutorService scheduler;
+
+    @Mock
+    private ConfigUtil config;
+
+    private ReplicaRouter router;
+    private EntityManager em;
+
+    @BeforeAll
+    static void setUpDatabases() {
+        primaryDb = new TestDatabase().seed(30);
+        replicaDb = new TestDatabase().seed(20);
+    }
+
+    @AfterAll
+    static void tearDownDatabases() {
+        primaryDb.close();
+        replicaDb.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        router = new ReplicaRouter();
+        TestDatabase.inject(router, "primary", primaryDb.entityManager());
+        TestDatabase.inject(router, "transactions", transactions);
+        TestDatabase.inject(router, "scheduler", scheduler);
+        TestDatabase.inject(router, "config", config);
+        TestDatabase.inject(router, "replicaFactory", replicaDb.entityManagerFactory());
+        when(config.getLong(anyString(), anyLong())).thenAnswer(call -> call.getArgument(1));
+        lenient().when(transactions.getTransactionStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        em = router.entityManager();
+    }
+
+    @Test
+    void read_ReplicaCaughtUp_ShouldReadFromReplica() throws Exception {
+        start("SELECT 0");
+
+        assertEquals(20, router.read(this::countBooks));
+        assertTrue(router.isReplicaHealthy());
+        assertEquals(1, router.getReplicaReads());
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(1_000L), eq(1_000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void read_InTransaction_ShouldReadYourWritesOnPrimary() throws Exception {
+        start("SELECT 0");
+        when(transactions.getTransactionStatus()).thenReturn(Status.STATUS_ACTIVE);
+
+        assertEquals(30L, (long) primaryDb.inTransaction(tx -> call(() -> router.read(this::countBooks))));
+        assertEquals(1, router.getPrimaryReads());
+        assertEquals(0, router.getReplicaReads());
+    }
+
+    @Test
+    void read_RightAfterCommittedChange_ShouldReadFromPrimaryUntilReplicaCaughtUp() throws Exception {
+        start("SELECT 0");
+
+        router.onBookChanged(BookChangedEvent.updated(1L));
+
+        assertEquals(30L, (long) primaryDb.inTransaction(tx -> call(() -> router.read(this::countBooks))));
+        assertFalse(router.canUseReplica());
+    }
+
+    @Test
+    void read_ReplicaBehind_ShouldReadFromPrimary() throws Exception {
+        start("SELECT 5");
+
+        assertFalse(router.isReplicaHealthy());
+        assertEquals(5.0, router.getLagSeconds());
+        assertEquals(30L, (long) primaryDb.inTransaction(tx -> call(() -> router.read(this::countBooks))));
+    }
+
+    @Test
+    void checkLag_ReplicaUnreachable_ShouldSkipItUntilItRecovers() {
+        start("SELECT 0");
+        assertTrue(router.canUseReplica());
+
+        TestDatabase.inject(router, "lagQuery", "SELECT no_such_column");
+        router.checkLag();
+
+        assertFalse(router.canUseReplica());
+        assertTrue(Double.isNaN(router.getLagSeconds()));
+
+        TestDatabase.inject(router, "lagQuery", "SELECT 0");
+        router.checkLag();
+
+        assertTrue(router.canUseReplica());
+    }
+
+    @Test
+    void read_Nested_ShouldStayOnTheOutermostChoice() throws Exception {
+        start("SELECT 0");
+
+        long inner = router.read(() -> {
+            // A commit elsewhere must not switch the rest of this read to another database.
+            router.onBookChanged(BookChangedEvent.updated(1L));
+            return router.read(this::countBooks);
+        });
+
+        assertEquals(20, inner);
+        assertEquals(1, router.getReplicaReads());
+    }
+
+    @Test
+    void route_ShouldRunReadOnlyMethodThroughRouter() throws Exception {
+        start("SELECT 0");
+        InvocationContext context = mock(InvocationContext.class);
+        when(context.proceed()).thenAnswer(call -> countBooks());
+        ReadOnlyInterceptor interceptor = TestDatabase.inject(new ReadOnlyInterceptor(), "router", router);
+
+        assertEquals(20L, interceptor.route(context));
+    }
+
+    private void start(String lagQuery) {
+        when(config.getString(eq("library.replica.lagQuery"), anyString())).thenReturn(lagQuery);
+        router.start();
+    }
+
+    private long countBooks() {
+        return em.createQuery("SELECT COUNT(b) FROM Book b", Long.class).getSingleResult();
+    }
+
+    private static <T> T call(Callable<T> work) {
+        try {
+            return work.call();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.library.repository;
+
+import com.library.repository.SchemaMigrator.Migration;
+import com.library.testing.PostgresDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations as written against embedded PostgreSQL, over books stored before them.
+ */
+class SchemaMigratorPostgresTest {
+
+    private PostgresDatabase postgres;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        postgres = PostgresDatabase.create();
+        connection = postgres.connect();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+        postgres.close();
+    }
+
+    @Test
+    void migrate_IsbnsThatCannotBeKept_ShouldMoveThemAsideAsChanges() throws SQLException {
+        List<Migration> scripts = SchemaMigrator.load("db/migration",
+                SchemaMigratorPostgresTest.class.getClassLoader()::getResourceAsStream);
+        assertEquals(2, SchemaMigrator.migrate(connection, scripts.subList(0, 2)));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO authors (id, name) VALUES (1, 'Author')");
+            statement.execute("INSERT INTO books (id, version, created_at, title, author_id, price, isbn) VALUES"
+                    + " (1, 0, LOCALTIMESTAMP, 'Valid', 1, 1, '9780441013593'),"
+                    + " (2, 0, LOCALTIMESTAMP, 'Duplicate', 1, 1, '9780441013593'),"
+                    + " (3, 0, LOCALTIMESTAMP, 'Malformed', 1, 1, '0-14-143958-X'),"
+                    + " (4, 0, LOCALTIMESTAMP, 'Wrong check digit', 1, 1, '9780441013594'),"
+                    + " (5, 0, LOCALTIMESTAMP, 'No ISBN', 1, 1, NULL)");
+        }
+
+        assertEquals(scripts.size() - 2, SchemaMigrator.migrate(connection, scripts));
+
+        assertEquals(List.of("2 9780441013593 DUPLICATE", "3 0-14-143958-X MALFORMED", "4 9780441013594 CHECK_DIGIT"),
+                rows("SELECT book_id, isbn, reason FROM book_isbn_rejects ORDER BY book_id"));
+        // Cleared as changes, so the snapshot and the change feed pick them up; the others are untouched.
+        assertEquals(List.of("1 9780441013593 0 f", "2 null 1 t", "3 null 1 t", "4 null 1 t", "5 null 0 f"),
+                rows("SELECT id, isbn, version, updated_at IS NOT NULL FROM books ORDER BY id"));
+    }
+
+    // Each row as its columns separated by spaces.
+    private List<String> rows(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            int columns = result.getMetaData().getColumnCount();
+            while (result.next()) {
+                List<String> values = new ArrayList<>();
+                for (int column = 1; column <= columns; column++) {
+                    values.add(result.getString(column));
+                }
+                rows.add(String.join(" ", values));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,171 @@
+package com.library.repository;
+
+import com.library.model.Author;
+import com.library.model.Book;
+import com.library.model.BookStat;
+import com.library.model.BookStatDelta;
+import com.library.model.BookTombstone;
+import com.library.repository.SchemaMigrator.Migration;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceConfiguration;
+import jakarta.persistence.ValidationMode;
+import org.hibernate.tool.schema.spi.SchemaManagementException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs migrations against an embedded database. V2 to V4 are PostgreSQL-only, so they are left out here and their
+ * column changes made in the embedded database's syntax instead; V1 and V5 run as they are.
+ * {@link SchemaMigratorPostgresTest} runs them all.
+ */
+class SchemaMigratorTest {
+
+    private static final String URL = "jdbc:h2:mem:migrations;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void load_ShouldReadTheScriptsInOrder() {
+        List<Migration> migrations = scripts();
+
+        assertTrue(migrations.size() >= 2);
+        assertEquals(List.of(1, 2), migrations.stream().limit(2).map(Migration::version).toList());
+        assertEquals("Tables, sequences and mapped indexes of the entities", migrations.getFirst().description());
+    }
+
+    @Test
+    void migrate_FirstScript_ShouldMatchTheMapping() throws SQLException {
+        assertEquals(1, SchemaMigrator.migrate(connection, scripts().subList(0, 1)));
+        try (Statement statement = connection.createStatement()) {
+            // V3
+            statement.execute("ALTER TABLE books ALTER COLUMN isbn SET DATA TYPE bigint");
+            // V4
+            statement.execute("CREATE TABLE book_stats_delta (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                    + " dimension varchar(10) NOT NULL, group_key varchar(255) NOT NULL, book_count bigint NOT NULL,"
+                    + " price_sum numeric(20, 2) NOT NULL, min_price numeric(12, 2), max_price numeric(12, 2))");
+        }
+
+        EntityManagerFactory emf = new PersistenceConfiguration("validatePU")
+                .managedClass(Author.class)
+                .managedClass(Book.class)
+                .managedClass(BookStat.class)
+                .managedClass(BookStatDelta.class)
+                .managedClass(BookTombstone.class)
+                .property(PersistenceConfiguration.JDBC_URL, URL)
+                .property(PersistenceConfiguration.JDBC_USER, "sa")
+                .property(PersistenceConfiguration.JDBC_PASSWORD, "")
+                .property("hibernate.hbm2ddl.auto", "validate")
+                .validationMode(ValidationMode.NONE)
+                .createEntityManagerFactory();
+        emf.close();
+    }
+
+    @Test
+    void migrate_WrongCheckDigits_ShouldMoveTheIsbnsAside() throws SQLException {
+        SchemaMigrator.migrate(connection, scripts().subList(0, 1));
+        try (Statement statement = connection.createStatement()) {
+            // V3
+            statement.execute("ALTER TABLE books ALTER COLUMN isbn SET DATA TYPE bigint");
+            statement.execute("CREATE TABLE book_isbn_rejects (book_id bigint PRIMARY KEY, isbn varchar(255) NOT NULL,"
+                    + " reason varchar(20) NOT NULL, rejected_at timestamp(6) NOT NULL)");
+            statement.execute("INSERT INTO authors (id, name) VALUES (1, 'Author')");
+            statement.execute("INSERT INTO books (id, version, created_at, title, author_id, price, isbn) VALUES"
+                    + " (1, 0, LOCALTIMESTAMP, 'Valid', 1, 1, 9780441013593),"
+                    + " (2, 0, LOCALTIMESTAMP, 'Wrong check digit', 1, 1, 9780441013594),"
+                    + " (3, 0, LOCALTIMESTAMP, 'Not an ISBN-13 prefix', 1, 1, 1234567890128),"
+                    + " (4, 0, LOCALTIMESTAMP, 'No ISBN', 1, 1, NULL)");
+        }
+
+        assertEquals(1, SchemaMigrator.migrate(connection, List.of(scripts().getFirst(), scripts().get(4))));
+
+        assertEquals(2, count("SELECT count(*) FROM book_isbn_rejects WHERE reason = 'CHECK_DIGIT'"));
+        assertEquals(9780441013594L, count("SELECT isbn FROM book_isbn_rejects WHERE book_id = 2"));
+        assertEquals(1234567890128L, count("SELECT isbn FROM book_isbn_rejects WHERE book_id = 3"));
+        assertEquals(9780441013593L, count("SELECT isbn FROM books WHERE id = 1"));
+        assertEquals(0, count("SELECT count(*) FROM books WHERE id IN (2, 3) AND isbn IS NOT NULL"));
+        // Cleared as a change, so the snapshot and the change feed pick it up.
+        assertEquals(1, count("SELECT version FROM books WHERE id = 2"));
+        assertEquals(0, count("SELECT version FROM books WHERE id = 1"));
+    }
+
+    @Test
+    void migrate_Again_ShouldApplyOnlyNewScripts() throws SQLException {
+        Migration first = Migration.of(1, "-- Notes\nCREATE TABLE notes (id bigint PRIMARY KEY, text varchar(20));");
+        Migration second = Migration.of(2, "-- Seed\nINSERT INTO notes VALUES (1, 'a;b');\nINSERT INTO notes VALUES (2, 'c');");
+        SchemaMigrator.migrate(connection, List.of(first));
+
+        assertEquals(1, SchemaMigrator.migrate(connection, List.of(first, second)));
+        assertEquals(0, SchemaMigrator.migrate(connection, List.of(first, second)));
+
+        assertEquals(2, count("SELECT count(*) FROM notes"));
+        assertEquals(1, count("SELECT count(*) FROM schema_version WHERE version = 2 AND description = 'Seed'"));
+    }
+
+    @Test
+    void migrate_AppliedScriptChanged_ShouldFail() throws SQLException {
+        SchemaMigrator.migrate(connection, List.of(Migration.of(1, "CREATE TABLE notes (id bigint PRIMARY KEY);")));
+
+        List<Migration> changed = List.of(Migration.of(1, "CREATE TABLE notes (id bigint PRIMARY KEY, text varchar(20));"));
+        assertThrows(SchemaManagementException.class, () -> SchemaMigrator.migrate(connection, changed));
+    }
+
+    @Test
+    void migrate_FailingStatement_ShouldNotRecordTheScript() throws SQLException {
+        Migration failing = Migration.of(1, "CREATE TABLE notes (id bigint PRIMARY KEY);\nINSERT INTO missing VALUES (1);");
+
+        SQLException e = assertThrows(SQLException.class, () -> SchemaMigrator.migrate(connection, List.of(failing)));
+
+        assertTrue(e.getMessage().startsWith("Statement 2 of migration V1 failed"));
+        assertEquals(0, count("SELECT count(*) FROM schema_version"));
+    }
+
+    @Test
+    void split_ShouldIgnoreSemicolonsInQuotesAndComments() {
+        String script = """
+                -- Don't split here; nor here
+                DO '
+                BEGIN
+                    RAISE NOTICE ''a;b'';
+                END';
+                SELECT 1 AS "x;y" -- trailing; comment
+                ;
+                SELECT 2""";
+
+        assertEquals(List.of("DO '\nBEGIN\n    RAISE NOTICE ''a;b'';\nEND'", "SELECT 1 AS \"x;y\"", "SELECT 2"),
+                SchemaMigrator.split(script));
+    }
+
+    private static List<Migration> scripts() {
+        return SchemaMigrator.load("db/migration", SchemaMigratorTest.class.getClassLoader()::getResourceAsStream);
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.event.BookChangedEvent;
+import com.library.repository.BookRepository;
+import com.library.util.ConfigUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCacheTest {
+
+    @Mock
+    private BookRepository repository;
+
+    @Spy
+    private ConfigUtil config = new ConfigUtil();
+
+    @InjectMocks
+    private BookCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache.init();
+    }
+
+    @Test
+    void get_SameIdTwice_ShouldLoadOnceAndReturnCopies() {
+        when(repository.findDtoById(1L)).thenReturn(Optional.of(book(1L, 0L, "9780000000001")));
+
+        BookDTO first = cache.get(1L).orElseThrow();
+        first.setTitle("Edited in a form");
+        BookDTO second = cache.get(1L).orElseThrow();
+
+        assertEquals("Title 1", second.getTitle());
+        verify(repository, times(1)).findDtoById(1L);
+        assertEquals(1L, cache.getStats().hitCount());
+        assertEquals(1L, cache.getStats().missCount());
+    }
+
+    @Test
+    void get_AfterBookChanged_ShouldReload() {
+        when(repository.findDtoById(1L)).thenReturn(
+                Optional.of(book(1L, 0L, "9780000000001")), Optional.of(book(1L, 1L, "9780000000001")));
+
+        cache.get(1L);
+        cache.onBookChanged(BookChangedEvent.updated(1L));
+
+        assertEquals(1L, cache.get(1L).orElseThrow().getVersion());
+        assertEquals(Optional.of(1L), cache.peekVersion(1L));
+    }
+
+    @Test
+    void get_MissingBook_ShouldNotCacheAbsence() {
+        when(repository.findDtoById(9L)).thenReturn(Optional.empty());
+
+        assertTrue(cache.get(9L).isEmpty());
+        assertTrue(cache.get(9L).isEmpty());
+
+        verify(repository, times(2)).findDtoById(9L);
+    }
+
+    @Test
+    void get_ChangeCommittedDuringLoad_ShouldNotCacheTheLoadedBook() {
+        when(repository.findDtoById(1L)).thenAnswer(invocation -> {
+            cache.onBookChanged(BookChangedEvent.updated(1L));
+            return Optional.of(book(1L, 0L, "9780000000001"));
+        }).thenReturn(Optional.of(book(1L, 1L, "9780000000001")));
+
+        assertEquals(0L, cache.get(1L).orElseThrow().getVersion());
+
+        assertTrue(cache.peekVersion(1L).isEmpty());
+        assertEquals(1L, cache.get(1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    void getByIsbn_IsbnMovedToAnotherBook_ShouldResolveAgain() {
+        when(repository.findByIsbn(9780000000001L)).thenReturn(
+                Optional.of(book(1L, 0L, "9780000000001")), Optional.of(book(2L, 0L, "9780000000001")));
+        when(repository.findDtoById(1L)).thenReturn(Optional.of(book(1L, 1L, "9780000000009")));
+
+        assertEquals(1L, cache.getByIsbn("9780000000001").orElseThrow().getId());
+        assertEquals(1L, cache.get(1L).orElseThrow().getId());
+        verify(repository, never()).findDtoById(1L);
+        cache.onBookChanged(BookChangedEvent.updated(1L));
+
+        assertEquals(2L, cache.getByIsbn("9780000000001").orElseThrow().getId());
+        verify(repository, times(2)).findByIsbn(9780000000001L);
+    }
+
+    private static BookDTO book(Long id, Long version, String isbn) {
+        return new BookDTO(id, version, "Title " + id, "Author", new BigDecimal("10.0"), isbn);
+    }
+}
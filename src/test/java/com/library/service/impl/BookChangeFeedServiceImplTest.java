@@ -0,0 +1,143 @@
+package com.library.service.impl;
+
+import com.library.dto.BookChanges;
+import com.library.dto.BookDeletion;
+import com.library.dto.BookRow;
+import com.library.dto.ChangeCursor;
+import com.library.model.Book;
+import com.library.model.BookTombstone;
+import com.library.repository.BookRepository;
+import com.library.repository.BookTombstoneRepository;
+import com.library.service.ChangeCursorExpiredException;
+import com.library.testing.TestDatabase;
+import com.library.util.ConfigUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Paging through changes and tombstones of an embedded database seeded with 30 books (IDs 1 to 30), with no
+ * settle time, so that changes are listed as soon as they are committed.
+ */
+class BookChangeFeedServiceImplTest {
+
+    private TestDatabase database;
+    private BookRepository repository;
+    private BookChangeFeedServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        database = new TestDatabase().seed(30);
+        repository = TestDatabase.inject(new BookRepository(), "em", database.entityManager());
+        service = new BookChangeFeedServiceImpl();
+        TestDatabase.inject(service, "repository", repository);
+        TestDatabase.inject(service, "tombstones", TestDatabase.inject(new BookTombstoneRepository(), "em",
+                database.entityManager()));
+        TestDatabase.inject(service, "config", new ConfigUtil());
+        service.init();
+        TestDatabase.inject(service, "settle", Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void getChanges_FromStart_ShouldPageThroughEveryBook() {
+        Set<Long> ids = new HashSet<>();
+        BookChanges page = changes(ChangeCursor.START, 12);
+        int pages = 1;
+        while (page.hasMore()) {
+            assertEquals(12, page.upserts().size());
+            ids.addAll(page.upserts().stream().map(BookRow::id).toList());
+            page = changes(ChangeCursor.decode(page.cursor()), 12);
+            pages++;
+        }
+        ids.addAll(page.upserts().stream().map(BookRow::id).toList());
+
+        assertEquals(3, pages);
+        assertEquals(LongStream.rangeClosed(1, 30).boxed().collect(Collectors.toSet()), ids);
+        assertEquals("Author 4", page.upserts().stream().filter(row -> row.id() == 25).findFirst().orElseThrow().author());
+        assertTrue(changes(ChangeCursor.decode(page.cursor()), 12).upserts().isEmpty());
+    }
+
+    @Test
+    void getChanges_AfterWrites_ShouldListOnlyTheDelta() {
+        String cursor = changes(ChangeCursor.START, 100).cursor();
+        database.inTransaction(em -> {
+            em.find(Book.class, 4L).setTitle("Changed");
+            repository.delete(em.find(Book.class, 3L));
+            return null;
+        });
+        database.inTransaction(em -> repository.deleteIfVersion(5L, 0L));
+
+        BookChanges page = changes(ChangeCursor.decode(cursor), 100);
+
+        assertEquals(List.of(4L), page.upserts().stream().map(BookRow::id).toList());
+        assertEquals("Changed", page.upserts().getFirst().title());
+        assertEquals(List.of(3L, 5L), page.deletions().stream().map(BookDeletion::id).toList());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    void getChanges_PageEndingInADeletion_ShouldContinueAfterIt() {
+        String cursor = changes(ChangeCursor.START, 100).cursor();
+        database.inTransaction(em -> repository.deleteIfVersion(7L, 0L));
+        database.inTransaction(em -> {
+            em.find(Book.class, 8L).setTitle("Changed");
+            return null;
+        });
+
+        BookChanges first = changes(ChangeCursor.decode(cursor), 1);
+        BookChanges second = changes(ChangeCursor.decode(first.cursor()), 1);
+
+        assertEquals(List.of(7L), first.deletions().stream().map(BookDeletion::id).toList());
+        assertTrue(first.hasMore());
+        assertEquals(List.of(8L), second.upserts().stream().map(BookRow::id).toList());
+        assertTrue(second.deletions().isEmpty());
+    }
+
+    @Test
+    void getChanges_CursorOlderThanRetention_ShouldBeRefused() {
+        ChangeCursor old = new ChangeCursor(LocalDateTime.now().minusDays(40), false, 1, LocalDateTime.now().minusDays(40));
+
+        assertThrows(ChangeCursorExpiredException.class, () -> service.getChanges(old, 10));
+    }
+
+    @Test
+    void purgeTombstones_ShouldDeleteOnlyExpiredOnes() {
+        database.inTransaction(em -> {
+            em.persist(new BookTombstone(41L, LocalDateTime.now().minusDays(31)));
+            em.persist(new BookTombstone(42L, LocalDateTime.now().minusDays(1)));
+            return null;
+        });
+
+        assertEquals(1, (int) database.inTransaction(em -> service.purgeTombstones()));
+        assertEquals(List.of(42L), changes(ChangeCursor.START, 100).deletions().stream().map(BookDeletion::id).toList());
+    }
+
+    @Test
+    void decode_ShouldReadBackEncodedCursorsOnly() {
+        ChangeCursor cursor = new ChangeCursor(LocalDateTime.of(2026, 3, 1, 12, 30, 0, 123_456_000), true, 17,
+                LocalDateTime.of(2026, 3, 1, 12, 31));
+
+        assertEquals(cursor, ChangeCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> ChangeCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> ChangeCursor.decode("MjAyNnx4fDF8Mg"));
+    }
+
+    private BookChanges changes(ChangeCursor cursor, int limit) {
+        return database.inTransaction(em -> service.getChanges(cursor, limit));
+    }
+}
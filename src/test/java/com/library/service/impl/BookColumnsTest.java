@@ -0,0 +1,165 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.BookRow;
+import com.library.dto.BookSort;
+import com.library.dto.BookSortField;
+import com.library.dto.SnapshotFootprint;
+import com.library.util.Isbn;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookColumnsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    // Ties in every sortable column, so that the order of IDs shows the tie-break.
+    private final BookColumns columns = new BookColumns.Builder()
+            .add(row(1, "dune", 1, "Frank Herbert", "9.99", "9780441013593"))
+            .add(row(2, "Emma", 2, "Jane Austen", "4.50", "9780141439587"))
+            .add(row(3, "Dune Messiah", 1, "Frank Herbert", "9.99", "9780593098233"))
+            .add(row(4, "Persuasion", 2, "Jane Austen", null, null))
+            .add(row(5, "Emma", 3, "anonymous", "12.00", "9791032305690"))
+            .build();
+
+    @Test
+    void page_ByTitle_ShouldIgnoreCaseAndBreakTiesById() {
+        assertEquals(List.of(1L, 3L, 2L, 5L, 4L), ids(columns.page(query(BookFilter.NONE, BookSortField.TITLE, true), 0, 10)));
+        assertEquals(List.of(4L, 5L, 2L, 3L, 1L), ids(columns.page(query(BookFilter.NONE, BookSortField.TITLE, false), 0, 10)));
+    }
+
+    @Test
+    void page_ByPrice_ShouldPutMissingPricesLast() {
+        assertEquals(List.of(2L, 1L, 3L, 5L, 4L), ids(columns.page(query(BookFilter.NONE, BookSortField.PRICE, true), 0, 10)));
+        assertEquals(List.of(5L, 3L), ids(columns.page(query(BookFilter.NONE, BookSortField.PRICE, false), 1, 2)));
+    }
+
+    @Test
+    void page_ShouldRestoreEveryColumn() {
+        BookDTO book = columns.page(BookQuery.DEFAULT, 1, 1).getFirst();
+
+        assertEquals(new BookDTO(2L, 1L, "Emma", "Jane Austen", new BigDecimal("4.50"), "9780141439587"), book);
+        assertEquals("9791032305690", columns.page(BookQuery.DEFAULT, 4, 1).getFirst().getIsbn());
+        assertNull(columns.page(BookQuery.DEFAULT, 3, 1).getFirst().getPrice());
+        assertEquals(List.of(), columns.page(BookQuery.DEFAULT, 5, 10));
+    }
+
+    @Test
+    void count_Filters_ShouldMatchLikeTheDatabase() {
+        assertEquals(2, columns.count(BookFilter.builder().titlePrefix("DUNE").build()));
+        assertEquals(2, columns.count(BookFilter.builder().authorPrefix("jane").build()));
+        assertEquals(2, columns.count(BookFilter.builder().authorId(2L).build()));
+        assertEquals(0, columns.count(BookFilter.builder().authorId(99L).build()));
+        assertEquals(0, columns.count(BookFilter.builder().authorId(2L).authorPrefix("Frank").build()));
+        assertEquals(3, columns.count(BookFilter.builder().minPrice(new BigDecimal("4.5")).maxPrice(new BigDecimal("9.99")).build()));
+        assertEquals(3, columns.count(BookFilter.builder().isbnPrefix("9780").build()));
+        assertEquals(1, columns.count(BookFilter.builder().isbnPrefix("979").build()));
+        assertEquals(0, columns.count(BookFilter.builder().isbnPrefix("0-14").build()));
+        assertEquals(0, columns.count(BookFilter.builder().titlePrefix("Zz").build()));
+    }
+
+    @Test
+    void apply_ChangesAndDeletions_ShouldMergeThem() {
+        BookColumns next = columns.apply(List.of(
+                        row(3, "Children of Dune", 1, "Frank Herbert", "11.00", "9780593098240", 2),
+                        row(7, "Aurora", 4, "Kim Stanley Robinson", "15.00", "9780316098106")),
+                Set.of(2L, 42L));
+
+        assertEquals(3, next.applied());
+        assertEquals(5, next.size());
+        assertEquals(List.of(5L, 1L, 3L, 4L, 7L), ids(next.page(query(BookFilter.NONE, BookSortField.AUTHOR, true), 0, 10)));
+        assertEquals(List.of(7L, 3L, 1L, 5L, 4L), ids(next.page(query(BookFilter.NONE, BookSortField.TITLE, true), 0, 10)));
+        assertEquals(new BigDecimal("11.00"), next.page(BookQuery.DEFAULT, 1, 1).getFirst().getPrice());
+        assertEquals(7L, next.page(query(BookFilter.builder().authorId(4L).build(), BookSortField.ID, true), 0, 1).getFirst().getId());
+        assertEquals(5, columns.size());
+    }
+
+    @Test
+    void apply_RowsAlreadyHeld_ShouldReturnTheSameColumns() {
+        assertSame(columns, columns.apply(List.of(row(1, "dune", 1, "Frank Herbert", "9.99", "9780441013593")), Set.of(99L)));
+    }
+
+    @Test
+    void apply_DeletionOfAChangedBook_ShouldWin() {
+        BookColumns next = columns.apply(List.of(row(1, "Dune", 1, "Frank Herbert", "8.99", null, 2)), Set.of(1L));
+
+        assertEquals(List.of(2L, 3L, 4L, 5L), next.ids().boxed().toList());
+    }
+
+    @Test
+    void apply_ManyTimes_ShouldOrderLikeAFullLoad() {
+        Random random = new Random(42);
+        Map<Long, BookRow> books = new TreeMap<>();
+        BookColumns merged = BookColumns.EMPTY;
+        long version = 0;
+        for (int poll = 1; poll <= 50; poll++) {
+            List<BookRow> changes = new ArrayList<>();
+            Set<Long> deletions = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                long id = 1 + random.nextInt(60);
+                if (random.nextInt(4) == 0) {
+                    deletions.add(id);
+                } else {
+                    String price = random.nextInt(5) == 0 ? null : (5 + random.nextInt(8)) + ".00";
+                    changes.add(row(id, "Title " + random.nextInt(15), random.nextInt(6), "Author " + random.nextInt(6),
+                            price, null, ++version));
+                }
+            }
+            merged = merged.apply(changes, deletions);
+            changes.forEach(row -> books.put(row.id(), row));
+            books.keySet().removeAll(deletions);
+        }
+        BookColumns.Builder builder = new BookColumns.Builder();
+        books.values().forEach(builder::add);
+        BookColumns loaded = builder.build();
+
+        for (BookSortField field : BookSortField.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                BookQuery query = query(BookFilter.NONE, field, ascending);
+                assertEquals(ids(loaded.page(query, 0, 100)), ids(merged.page(query, 0, 100)), query.toString());
+            }
+        }
+    }
+
+    @Test
+    void footprint_ShouldCountRowsAndDictionaries() {
+        SnapshotFootprint footprint = columns.footprint();
+
+        assertEquals(5, footprint.books());
+        assertEquals(4, footprint.titles());
+        assertEquals(3, footprint.authors());
+        assertTrue(footprint.bytes() > 5 * 52);
+        assertSame(footprint, columns.footprint());
+    }
+
+    private static BookQuery query(BookFilter filter, BookSortField field, boolean ascending) {
+        return new BookQuery(filter, new BookSort(field, ascending));
+    }
+
+    private static List<Long> ids(List<BookDTO> books) {
+        return books.stream().map(BookDTO::getId).toList();
+    }
+
+    private static BookRow row(long id, String title, long authorId, String author, String price, String isbn) {
+        return row(id, title, authorId, author, price, isbn, 1);
+    }
+
+    private static BookRow row(long id, String title, long authorId, String author, String price, String isbn,
+                               long version) {
+        return new BookRow(id, version, title, authorId, author, price == null ? null : new BigDecimal(price),
+                Isbn.parse(isbn), NOW);
+    }
+}
@@ -0,0 +1,117 @@
+package com.library.service.impl;
+
+import com.library.dto.BookFilter;
+import com.library.event.BookChangedEvent;
+import com.library.repository.BookRepository;
+import com.library.repository.BookStatsRepository;
+import com.library.service.BookService;
+import com.library.service.CountMode;
+import com.library.service.CountPath;
+import com.library.util.ConfigUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCounterTest {
+
+    @Mock
+    private BookRepository repository;
+
+    @Mock
+    private BookStatsRepository stats;
+
+    @Spy
+    private ConfigUtil config = new ConfigUtil();
+
+    @InjectMocks
+    private BookCounter counter;
+
+    @Test
+    void count_SameFilterTwice_ShouldQueryOnce() {
+        counter.init();
+        when(repository.count(BookFilter.NONE)).thenReturn(42);
+
+        assertEquals(42, counter.count(BookFilter.NONE));
+        assertEquals(42, counter.count(BookFilter.NONE));
+
+        verify(repository, times(1)).count(BookFilter.NONE);
+        assertEquals(1L, counter.getPathCounts().get(CountPath.EXACT_QUERY));
+        assertEquals(1L, counter.getPathCounts().get(CountPath.CACHE_HIT));
+    }
+
+    @Test
+    void count_AuthorFacet_ShouldReadSummaryRow() {
+        counter.init();
+        when(stats.countByAuthorId(3L)).thenReturn(12L);
+
+        assertEquals(12, counter.count(BookFilter.builder().authorId(3L).build()));
+
+        verifyNoInteractions(repository);
+        assertEquals(1L, counter.getPathCounts().get(CountPath.SUMMARY));
+    }
+
+    @Test
+    void count_AuthorFacetWithOtherCriteria_ShouldQueryBooks() {
+        counter.init();
+        BookFilter filter = BookFilter.builder().authorId(3L).titlePrefix("The").build();
+        when(repository.count(filter)).thenReturn(2);
+
+        assertEquals(2, counter.count(filter));
+        verifyNoInteractions(stats);
+    }
+
+    @Test
+    void count_AfterBookChanged_ShouldQueryAgain() {
+        counter.init();
+        when(repository.count(BookFilter.NONE)).thenReturn(42, 43);
+
+        counter.count(BookFilter.NONE);
+        counter.onBookChanged(BookChangedEvent.created(7L));
+
+        assertEquals(43, counter.count(BookFilter.NONE));
+        verify(repository, times(2)).count(BookFilter.NONE);
+    }
+
+    @Test
+    void count_EstimateModeLargeTable_ShouldUsePlannerStatistics() {
+        doReturn(CountMode.ESTIMATE).when(config).getEnum(eq("library.count.mode"), eq(CountMode.class), any());
+        counter.init();
+        when(repository.estimateCount()).thenReturn(2_500_000L);
+
+        assertEquals(2_500_000, counter.count(BookFilter.NONE));
+
+        verify(repository, never()).count(any());
+        assertEquals(1L, counter.getPathCounts().get(CountPath.ESTIMATE));
+    }
+
+    @Test
+    void count_EstimateModeWithFilter_ShouldCountExactly() {
+        doReturn(CountMode.ESTIMATE).when(config).getEnum(eq("library.count.mode"), eq(CountMode.class), any());
+        counter.init();
+        BookFilter filter = BookFilter.builder().authorPrefix("Tolkien").build();
+        when(repository.count(filter)).thenReturn(12);
+
+        assertEquals(12, counter.count(filter));
+        verify(repository, never()).estimateCount();
+    }
+
+    @Test
+    void count_HasMoreMode_ShouldSkipCounting() {
+        doReturn(CountMode.HAS_MORE).when(config).getEnum(eq("library.count.mode"), eq(CountMode.class), any());
+        counter.init();
+
+        assertEquals(BookService.UNKNOWN_COUNT, counter.count(BookFilter.NONE));
+
+        verifyNoInteractions(repository);
+        assertEquals(1L, counter.getPathCounts().get(CountPath.SKIPPED));
+    }
+}
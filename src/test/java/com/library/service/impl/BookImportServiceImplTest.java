@@ -0,0 +1,109 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.dto.ImportOptions;
+import com.library.dto.ImportReport;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceImplTest {
+
+    private static final String FEED = "title,author,price\n"
+            + "Book 1,Author,10\n"
+            + "Book 2,Author,10\n"
+            + "Book 3,Author,oops\n"
+            + "Book 4,Author,10\n"
+            + "Book 5,Author,10\n";
+
+    @Mock
+    private BookImportWriter writer;
+
+    @Mock
+    private Validator validator;
+
+    @InjectMocks
+    private BookImportServiceImpl service;
+
+    @Test
+    void importBooks_ShouldCommitInChunksAndReportRejections() throws IOException {
+        when(writer.write(anyList(), anyBoolean(), anyInt()))
+                .thenAnswer(invocation -> new BookImportWriter.ChunkResult(invocation.<List<BookDTO>>getArgument(0).size(), 0));
+
+        ImportReport report = service.importBooks(new StringReader(FEED), ImportOptions.builder().chunkSize(2).build());
+
+        assertTrue(report.isCompleted());
+        assertEquals(5, report.getRowsRead());
+        assertEquals(4, report.getInserted());
+        assertEquals(1, report.getRejected());
+        assertEquals(3, report.getRejections().get(0).row());
+        assertEquals(5, report.getLastCommittedRow());
+        verify(writer, times(2)).write(anyList(), eq(false), eq(ImportOptions.DEFAULT_BATCH_SIZE));
+    }
+
+    @Test
+    void importBooks_ConstraintViolation_ShouldRejectRow() throws IOException {
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<BookDTO> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Title is required");
+        when(validator.validate(any(BookDTO.class))).thenReturn(Set.of(violation), Set.of());
+        when(writer.write(anyList(), anyBoolean(), anyInt())).thenReturn(new BookImportWriter.ChunkResult(1, 0));
+
+        ImportReport report = service.importBooks(new StringReader("title,author,price\n,A,1\nOk,A,1\n"), ImportOptions.builder().build());
+
+        assertEquals(1, report.getRejected());
+        assertEquals("Title is required", report.getRejections().get(0).reason());
+        assertEquals(1, report.getInserted());
+    }
+
+    @Test
+    void importBooks_DuplicateIsbns_ShouldRejectTheirRows() throws IOException {
+        when(writer.write(anyList(), anyBoolean(), anyInt())).thenReturn(new BookImportWriter.ChunkResult(1, 0, List.of(1)));
+
+        ImportReport report = service.importBooks(new StringReader("title,author,price,isbn\nA,A,1,9780441013593\n"
+                + "C,C,1,9780441013593\n"), ImportOptions.builder().build());
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getRejected());
+        assertEquals(2, report.getRejections().get(0).row());
+        assertEquals("ISBN 9780441013593 is already taken", report.getRejections().get(0).reason());
+    }
+
+    @Test
+    void importBooks_ChunkFails_ShouldStopAndReportResumePoint() throws IOException {
+        when(writer.write(anyList(), anyBoolean(), anyInt()))
+                .thenReturn(new BookImportWriter.ChunkResult(2, 0))
+                .thenThrow(new IllegalStateException("connection lost"));
+
+        ImportReport report = service.importBooks(new StringReader(FEED), ImportOptions.builder().chunkSize(2).build());
+
+        assertFalse(report.isCompleted());
+        assertEquals(2, report.getLastCommittedRow());
+        assertEquals(2, report.getInserted());
+    }
+
+    @Test
+    void importBooks_Resume_ShouldSkipCommittedRows() throws IOException {
+        when(writer.write(anyList(), anyBoolean(), anyInt())).thenReturn(new BookImportWriter.ChunkResult(2, 0));
+
+        ImportReport report = service.importBooks(new StringReader(FEED), ImportOptions.builder().resumeAfterRow(3).build());
+
+        assertEquals(2, report.getRowsRead());
+        assertEquals(0, report.getRejected());
+        assertEquals(5, report.getLastCommittedRow());
+    }
+}
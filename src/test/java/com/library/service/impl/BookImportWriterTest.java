@@ -0,0 +1,76 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.event.BookChangedEvent;
+import com.library.mapper.BookMapper;
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import jakarta.enterprise.event.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportWriterTest {
+
+    private static final long ISBN = 9_780_441_013_593L;
+
+    @Mock
+    private BookRepository repository;
+
+    @Mock
+    private BookMapper mapper;
+
+    @Mock
+    private Event<BookChangedEvent> changes;
+
+    @Mock
+    private IsbnFilter isbns;
+
+    @InjectMocks
+    private BookImportWriter writer;
+
+    private static BookDTO dto() {
+        return new BookDTO(null, null, "Neuromancer", "William Gibson", new BigDecimal("9.99"), Long.toString(ISBN));
+    }
+
+    private void givenExistingBook() {
+        Book existing = new Book();
+        existing.setId(7L);
+        existing.setIsbn(ISBN);
+        when(isbns.candidates(anyCollection())).thenReturn(List.of(ISBN));
+        when(repository.findByIsbnIn(List.of(ISBN))).thenReturn(List.of(existing));
+    }
+
+    @Test
+    void write_OnlyDuplicates_ShouldFireNoEvent() {
+        givenExistingBook();
+
+        BookImportWriter.ChunkResult result = writer.write(List.of(dto()), false, 50);
+
+        assertEquals(new BookImportWriter.ChunkResult(0, 0, List.of(0)), result);
+        verify(repository, never()).save(any());
+        verify(changes, never()).fire(any());
+    }
+
+    @Test
+    void write_OnlyUpserts_ShouldFireOnlyTheUpdate() {
+        givenExistingBook();
+
+        BookImportWriter.ChunkResult result = writer.write(List.of(dto()), true, 50);
+
+        assertEquals(new BookImportWriter.ChunkResult(0, 1), result);
+        verify(changes).fire(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, Set.of(7L)));
+        verifyNoMoreInteractions(changes);
+    }
+}
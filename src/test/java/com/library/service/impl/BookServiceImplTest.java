@@ -1,9 +1,23 @@
 package com.library.service.impl;
 
 import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookPatch;
+import com.library.dto.BookPriceChange;
+import com.library.dto.BookRef;
+import com.library.dto.BulkResult;
+import com.library.event.BookChangedEvent;
+import com.library.io.BookWriter;
+import com.library.mapper.AuthorMapper;
 import com.library.mapper.BookMapper;
+import com.library.model.Author;
 import com.library.model.Book;
 import com.library.repository.BookRepository;
+import com.library.service.BookNotFoundException;
+import com.library.service.DuplicateIsbnException;
+import jakarta.enterprise.event.Event;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,12 +25,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,33 +51,54 @@ class BookServiceImplTest {
     @Mock
     private BookMapper mapper;
 
+    @Mock
+    private AuthorMapper authors;
+
+    @Mock
+    private BookCounter counter;
+
+    @Mock
+    private BookCache cache;
+
+    @Mock
+    private Event<BookChangedEvent> changes;
+
+    @Mock
+    private BookBulkWriter bulkWriter;
+
+    @Mock
+    private IsbnFilter isbns;
+
     @InjectMocks
     private BookServiceImpl service;
 
+    private Author author;
     private Book book;
     private BookDTO bookDTO;
 
     @BeforeEach
     void setUp() {
+        author = new Author("Test Author");
+        author.setId(7L);
+
         book = new Book();
         book.setId(1L);
         book.setTitle("Test Book");
-        book.setAuthor("Test Author");
-        book.setPrice(10.0);
-        book.setIsbn("1234567890123");
+        book.setAuthor(author);
+        book.setPrice(new BigDecimal("10.0"));
+        book.setIsbn(9780441013593L);
 
         bookDTO = new BookDTO();
         bookDTO.setId(1L);
         bookDTO.setTitle("Test Book");
         bookDTO.setAuthor("Test Author");
-        bookDTO.setPrice(10.0);
-        bookDTO.setIsbn("1234567890123");
+        bookDTO.setPrice(new BigDecimal("10.0"));
+        bookDTO.setIsbn("9780441013593");
     }
 
     @Test
     void getAllBooks_ShouldReturnListOfBookDTOs() {
-        when(repository.findAll()).thenReturn(Arrays.asList(book));
-        when(mapper.toDTO(book)).thenReturn(bookDTO);
+        when(repository.findAll()).thenReturn(Arrays.asList(bookDTO));
 
         List<BookDTO> result = service.getAllBooks();
 
@@ -62,6 +106,19 @@ class BookServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(bookDTO.getTitle(), result.get(0).getTitle());
         verify(repository, times(1)).findAll();
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    void exportBooks_ShouldWriteEveryStreamedBook() throws IOException {
+        BookWriter writer = mock(BookWriter.class);
+        when(repository.streamAll(anyInt())).thenReturn(Stream.of(bookDTO, bookDTO));
+
+        long rows = service.exportBooks(writer);
+
+        assertEquals(2, rows);
+        verify(writer).writeHeader();
+        verify(writer, times(2)).write(bookDTO);
     }
 
     @Test
@@ -88,6 +145,39 @@ class BookServiceImplTest {
         verify(repository, times(1)).findById(1L);
         verify(mapper, times(1)).updateEntityFromDTO(bookDTO, book);
         verify(repository, times(1)).save(book);
+        verify(changes).fire(BookChangedEvent.updated(1L));
+    }
+
+    @Test
+    void saveBook_OlderThanCachedVersion_ShouldRejectWithoutLoading() {
+        bookDTO.setVersion(3L);
+        when(cache.peekVersion(1L)).thenReturn(Optional.of(4L));
+
+        assertThrows(OptimisticLockException.class, () -> service.saveBook(bookDTO));
+        verify(repository, never()).findById(any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void saveBook_EditWithVersion_ShouldUpdateWithoutLoading() {
+        bookDTO.setVersion(2L);
+        when(cache.peekVersion(1L)).thenReturn(Optional.empty());
+        when(authors.toReference("Test Author")).thenReturn(author);
+        when(repository.updateIfVersion(1L, 2L, bookDTO, author)).thenReturn(1);
+
+        service.saveBook(bookDTO);
+
+        verify(repository, never()).findById(any());
+        verify(repository, never()).save(any());
+        verify(changes).fire(BookChangedEvent.updated(1L));
+    }
+
+    @Test
+    void getBook_ShouldReadThroughCache() {
+        when(cache.get(1L)).thenReturn(Optional.of(bookDTO));
+
+        assertEquals(Optional.of(bookDTO), service.getBook(1L));
+        verifyNoInteractions(repository);
     }
 
     @Test
@@ -98,6 +188,102 @@ class BookServiceImplTest {
         verify(repository, never()).save(any());
     }
 
+    @Test
+    void createBook_ShouldReturnStoredBook() {
+        when(mapper.toEntity(bookDTO)).thenReturn(book);
+        when(mapper.toDTO(book)).thenReturn(bookDTO);
+
+        assertSame(bookDTO, service.createBook(bookDTO));
+
+        assertNull(book.getVersion());
+        verify(repository).save(book);
+    }
+
+    @Test
+    void createBook_TakenIsbn_ShouldThrowDuplicate() {
+        when(mapper.toEntity(bookDTO)).thenReturn(book);
+        when(isbns.exists(9780441013593L)).thenReturn(true);
+
+        assertThrows(DuplicateIsbnException.class, () -> service.createBook(bookDTO));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void getBookByIsbn_ShouldLookUpTheIndexNotTheFilter() {
+        when(cache.getByIsbn("9780441013593")).thenReturn(Optional.of(bookDTO));
+
+        assertEquals(Optional.of(bookDTO), service.getBookByIsbn("9780441013593"));
+        assertEquals(Optional.empty(), service.getBookByIsbn("978-0441013593"));
+        verify(cache).getByIsbn("9780441013593");
+        verifyNoInteractions(isbns);
+    }
+
+    @Test
+    void existsByIsbn_ShouldLookUpTheIndexNotTheFilter() {
+        when(repository.existsByIsbn(9780441013593L)).thenReturn(true);
+
+        assertTrue(service.existsByIsbn("9780441013593"));
+        assertFalse(service.existsByIsbn("n/a"));
+        verifyNoInteractions(isbns);
+    }
+
+    @Test
+    void findExistingIsbns_ShouldSkipMalformedOnes() {
+        when(isbns.existing(Set.of(9780441013593L, 9780141439587L))).thenReturn(Set.of(9780141439587L));
+
+        assertEquals(Set.of("9780141439587"), service.findExistingIsbns(List.of("9780441013593", "9780141439587", "n/a")));
+    }
+
+    @Test
+    void updateBook_MatchingVersion_ShouldUpdateWithoutReading() {
+        when(authors.toReference("Test Author")).thenReturn(author);
+        when(repository.updateIfVersion(1L, 3L, bookDTO, author)).thenReturn(1);
+
+        BookDTO updated = service.updateBook(1L, 3L, bookDTO);
+
+        assertEquals(4L, updated.getVersion());
+        verify(repository, never()).findById(any());
+        verify(isbns).add(9780441013593L);
+        verify(changes).fire(BookChangedEvent.updated(1L));
+    }
+
+    @Test
+    void updateBook_OtherVersion_ShouldThrowOptimisticLock() {
+        when(authors.toReference("Test Author")).thenReturn(author);
+        when(repository.updateIfVersion(1L, 3L, bookDTO, author)).thenReturn(0);
+        when(repository.findVersionById(1L)).thenReturn(Optional.of(5L));
+
+        assertThrows(OptimisticLockException.class, () -> service.updateBook(1L, 3L, bookDTO));
+        verify(isbns, never()).add(any());
+        verify(changes, never()).fire(any());
+    }
+
+    @Test
+    void updateBook_TakenIsbn_ShouldThrowDuplicate() {
+        when(authors.toReference("Test Author")).thenReturn(author);
+        when(repository.updateIfVersion(1L, 3L, bookDTO, author)).thenThrow(new ConstraintViolationException(
+                "Unique index violation", new SQLException("duplicate key", "23505"), "uk_books_isbn"));
+
+        assertThrows(DuplicateIsbnException.class, () -> service.updateBook(1L, 3L, bookDTO));
+        verify(changes, never()).fire(any());
+    }
+
+    @Test
+    void deleteBook_VersionedMissingBook_ShouldThrowNotFound() {
+        when(repository.deleteIfVersion(1L, 3L)).thenReturn(0);
+        when(repository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> service.deleteBook(1L, 3L));
+    }
+
+    @Test
+    void getBookVersion_CachedBook_ShouldNotQuery() {
+        when(cache.peekVersion(1L)).thenReturn(Optional.of(2L));
+
+        assertEquals(Optional.of(2L), service.getBookVersion(1L));
+        verifyNoInteractions(repository);
+    }
+
     @Test
     void deleteBook_ExistingId_ShouldDelete() {
         when(repository.findById(1L)).thenReturn(Optional.of(book));
@@ -105,6 +291,7 @@ class BookServiceImplTest {
         service.deleteBook(1L);
 
         verify(repository, times(1)).delete(book);
+        verify(changes).fire(BookChangedEvent.deleted(1L));
     }
 
     @Test
@@ -114,4 +301,86 @@ class BookServiceImplTest {
         assertThrows(IllegalArgumentException.class, () -> service.deleteBook(1L));
         verify(repository, never()).delete(any());
     }
+
+    @Test
+    void patchBook_StaleVersion_ShouldThrowOptimisticLock() {
+        BookPatch patch = BookPatch.builder().price(new BigDecimal("12.5")).build();
+        // The patch leaves the author alone.
+        when(repository.patchIfVersion(1L, 3L, patch, null)).thenReturn(0);
+        when(repository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        assertThrows(OptimisticLockException.class, () -> service.patchBook(1L, 3L, patch));
+        verify(changes, never()).fire(any());
+    }
+
+    @Test
+    void patchBook_EmptyPatch_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.patchBook(1L, 3L, BookPatch.builder().build()));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void updatePrices_ShouldReportSkippedBooksAndEvictApplied() {
+        List<BookPriceChange> priceChanges = List.of(
+                new BookPriceChange(1L, 0, new BigDecimal("9.00")),
+                new BookPriceChange(2L, 5, new BigDecimal("8.00")),
+                new BookPriceChange(3L, 1, new BigDecimal("7.00")));
+        when(repository.updatePrices(priceChanges)).thenReturn(new int[]{1, 0, 1});
+
+        assertEquals(Set.of(2L), service.updatePrices(priceChanges));
+        verify(changes).fire(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, Set.of(1L, 3L)));
+    }
+
+    @Test
+    void updatePrices_SameBookTwice_ShouldApplyOnlyTheLastChange() {
+        BookPriceChange last = new BookPriceChange(1L, 0, new BigDecimal("8.00"));
+        List<BookPriceChange> distinct = List.of(last, new BookPriceChange(2L, 0, new BigDecimal("7.00")));
+        when(repository.updatePrices(distinct)).thenReturn(new int[]{1, 1});
+
+        assertEquals(Set.of(), service.updatePrices(List.of(new BookPriceChange(1L, 0, new BigDecimal("9.00")),
+                new BookPriceChange(2L, 0, new BigDecimal("7.00")), last)));
+        verify(changes).fire(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, Set.of(1L, 2L)));
+    }
+
+    @Test
+    void deleteBooks_ShouldReportSkippedBooksAndEvictDeleted() {
+        List<BookRef> books = List.of(new BookRef(1L, 0L), new BookRef(2L, 3L), new BookRef(3L, null));
+        when(repository.deleteAll(books)).thenReturn(new int[]{1, 0, 1});
+
+        assertEquals(new BulkResult(2, Set.of(2L)), service.deleteBooks(books));
+        verify(changes).fire(new BookChangedEvent(BookChangedEvent.ChangeType.DELETED, Set.of(1L, 3L)));
+    }
+
+    @Test
+    void adjustPrices_ShouldPassFactorToRepository() {
+        List<BookRef> books = List.of(new BookRef(1L, 0L));
+        when(repository.adjustPrices(eq(books), argThat(factor -> factor.compareTo(new BigDecimal("0.85")) == 0)))
+                .thenReturn(new int[]{1});
+
+        assertEquals(new BulkResult(1, Set.of()), service.adjustPrices(books, -15));
+    }
+
+    @Test
+    void adjustPrices_ShouldRejectRemovingTheWholePrice() {
+        assertThrows(IllegalArgumentException.class, () -> service.adjustPrices(List.of(new BookRef(1L, 0L)), -100));
+        assertThrows(IllegalArgumentException.class, () -> service.adjustPrices(BookFilter.NONE, Double.NaN));
+        verifyNoInteractions(repository, bulkWriter);
+    }
+
+    @Test
+    void deleteBooks_EmptyFilter_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.deleteBooks(BookFilter.NONE));
+        verifyNoInteractions(bulkWriter);
+    }
+
+    @Test
+    void deleteBooks_Filter_ShouldWalkChunksUntilShortOne() {
+        BookFilter filter = BookFilter.builder().authorPrefix("Smith").build();
+        when(bulkWriter.getChunkSize()).thenReturn(2);
+        when(bulkWriter.delete(filter, Long.MIN_VALUE)).thenReturn(new BookBulkWriter.ChunkResult(5, 2, 2));
+        when(bulkWriter.delete(filter, 5)).thenReturn(new BookBulkWriter.ChunkResult(9, 1, 0));
+
+        assertEquals(2, service.deleteBooks(filter));
+        verify(bulkWriter, times(2)).delete(eq(filter), anyLong());
+    }
 }
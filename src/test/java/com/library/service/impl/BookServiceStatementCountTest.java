@@ -0,0 +1,337 @@
+package com.library.service.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.dto.BookCursor;
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookPatch;
+import com.library.dto.BookPriceChange;
+import com.library.dto.BookQuery;
+import com.library.dto.BookRef;
+import com.library.dto.BookSort;
+import com.library.dto.BookSortField;
+import com.library.dto.BulkResult;
+import com.library.event.BookChangedEvent;
+import com.library.io.BookWriter;
+import com.library.mapper.AuthorMapper;
+import com.library.mapper.BookMapperImpl;
+import com.library.repository.AuthorRepository;
+import com.library.repository.BookRepository;
+import com.library.service.DuplicateIsbnException;
+import com.library.testing.TestDatabase;
+import com.library.util.ConfigUtil;
+import jakarta.enterprise.event.Event;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * How many SQL statements the service's hot paths issue against a real (embedded) database, commit
+ * included. A failure here means a change added queries to a path that runs on every page view or
+ * edit; if the extra statement is intended, raise the limit in the same change and say why.
+ */
+class BookServiceStatementCountTest {
+
+    private static final int ROWS = 30;
+
+    private static TestDatabase database;
+
+    private BookServiceImpl service;
+    private AuthorMapper authors;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        database = new TestDatabase().seed(ROWS);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        database.close();
+    }
+
+    // Fresh cache and counter per test; each test writes to rows of its own.
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ConfigUtil config = new ConfigUtil();
+        BookRepository repository = TestDatabase.inject(new BookRepository(), "em", database.entityManager());
+        BookCounter counter = TestDatabase.inject(TestDatabase.inject(new BookCounter(), "repository", repository),
+                "config", config);
+        counter.init();
+        BookCache cache = TestDatabase.inject(TestDatabase.inject(new BookCache(), "repository", repository),
+                "config", config);
+        cache.init();
+        Event<BookChangedEvent> changes = mock(Event.class);
+        doAnswer(invocation -> {
+            cache.invalidate(invocation.getArgument(0));
+            counter.invalidate();
+            return null;
+        }).when(changes).fire(any());
+
+        authors = new AuthorMapper();
+        TestDatabase.inject(authors, "repository", TestDatabase.inject(new AuthorRepository(), "em", database.entityManager()));
+        TestDatabase.inject(authors, "self", authors);
+        TestDatabase.inject(authors, "ids", Caffeine.newBuilder().recordStats().build());
+        TestDatabase.inject(authors, "names", Caffeine.newBuilder().build());
+
+        service = new BookServiceImpl();
+        TestDatabase.inject(service, "repository", repository);
+        TestDatabase.inject(service, "mapper", new BookMapperImpl(authors));
+        TestDatabase.inject(service, "authors", authors);
+        TestDatabase.inject(service, "counter", counter);
+        TestDatabase.inject(service, "cache", cache);
+        TestDatabase.inject(service, "changes", changes);
+
+        IsbnFilter isbns = new IsbnFilter();
+        TestDatabase.inject(isbns, "repository", repository);
+        TestDatabase.inject(isbns, "config", config);
+        isbns.init();
+        database.inTransaction(em -> isbns.refresh());
+        TestDatabase.inject(service, "isbns", isbns);
+
+        BookBulkWriter bulkWriter = new BookBulkWriter();
+        TestDatabase.inject(bulkWriter, "repository", repository);
+        TestDatabase.inject(bulkWriter, "changes", changes);
+        TestDatabase.inject(bulkWriter, "chunkSize", 2);
+        TestDatabase.inject(service, "bulkWriter", bulkWriter);
+    }
+
+    @Test
+    void getBooks_ShouldIssueOneQuery() {
+        assertEquals(1, database.countStatements(em -> service.getBooks(BookQuery.DEFAULT, 10, 10)));
+    }
+
+    @Test
+    void getBooksAfter_ShouldIssueOneQuery() {
+        BookDTO last = database.inTransaction(em -> service.getBooks(BookQuery.DEFAULT, 0, 10)).getLast();
+        BookCursor cursor = BookCursor.of(last, BookQuery.DEFAULT.sort());
+
+        assertEquals(1, database.countStatements(em -> service.getBooksAfter(BookQuery.DEFAULT, cursor, 10)));
+    }
+
+    @Test
+    void getBooksAfter_ByAuthorName_ShouldSeekInOneQuery() {
+        BookQuery query = new BookQuery(BookFilter.builder().authorPrefix("Author 3").build(),
+                new BookSort(BookSortField.AUTHOR, false));
+        BookDTO last = database.inTransaction(em -> service.getBooks(query, 0, 2)).getLast();
+        BookCursor cursor = BookCursor.of(last, query.sort());
+
+        List<BookDTO> page = database.inTransaction(em -> service.getBooksAfter(query, cursor, 10));
+
+        assertEquals(1, database.countStatements(em -> service.getBooksAfter(query, cursor, 10)));
+        assertEquals(List.of(4L), page.stream().map(BookDTO::getId).toList());
+        assertEquals("Author 3", page.getFirst().getAuthor());
+    }
+
+    @Test
+    void countBooks_Repeated_ShouldQueryOnlyOnce() {
+        BookFilter filter = BookFilter.builder().titlePrefix("Title 1").build();
+
+        assertEquals(1, database.countStatements(em -> service.countBooks(filter)));
+        assertEquals(0, database.countStatements(em -> service.countBooks(filter)));
+    }
+
+    @Test
+    void countBooks_IsbnPrefix_ShouldCountTheRangeOfNumbers() {
+        assertEquals(1, database.countStatements(em -> service.countBooks(BookFilter.builder().isbnPrefix("978000000000").build())));
+        assertEquals(1, (int) database.inTransaction(em -> service.countBooks(BookFilter.builder().isbnPrefix("9780000000003").build())));
+        assertEquals(0, (int) database.inTransaction(em -> service.countBooks(BookFilter.builder().isbnPrefix("978-0").build())));
+    }
+
+    @Test
+    void tableRender_ShouldIssuePageQueryAndCountOnlyOnFirstRender() {
+        assertEquals(2, database.countStatements(em -> List.of(service.getBooks(BookQuery.DEFAULT, 0, 10),
+                service.countBooks())));
+        assertEquals(1, database.countStatements(em -> List.of(service.getBooks(BookQuery.DEFAULT, 10, 10),
+                service.countBooks())));
+    }
+
+    @Test
+    void getBook_Repeated_ShouldQueryOnlyOnce() {
+        assertEquals(1, database.countStatements(em -> service.getBook(1L)));
+        assertEquals(0, database.countStatements(em -> service.getBook(1L)));
+    }
+
+    // Writes resolve the author's name to its ID, which takes a lookup only the first time a name is written.
+    @Test
+    void saveBook_Update_ShouldIssueOneStatement() {
+        BookDTO book = database.inTransaction(em -> service.getBook(3L)).orElseThrow();
+        book.setTitle("Edited");
+        database.inTransaction(em -> authors.resolveId(book.getAuthor()));
+
+        assertEquals(1, database.countStatements(em -> {
+            service.saveBook(book);
+            return null;
+        }));
+        assertEquals("Edited", database.inTransaction(em -> service.getBook(3L)).orElseThrow().getTitle());
+    }
+
+    @Test
+    void saveBook_Insert_ShouldIssueAtMostTwoStatements() {
+        BookDTO book = new BookDTO(null, null, "New Book", "Author 2", new BigDecimal("12.00"), "9790000000001");
+        database.inTransaction(em -> authors.resolveId(book.getAuthor()));
+
+        // The insert, plus a sequence call once per allocation block.
+        assertTrue(database.countStatements(em -> {
+            service.saveBook(book);
+            return null;
+        }) <= 2);
+    }
+
+    @Test
+    void updateBook_ShouldIssueOneStatement() {
+        BookDTO book = new BookDTO(null, null, "Renamed", "Author 4", new BigDecimal("9.00"), "9780000000004");
+        database.inTransaction(em -> authors.resolveId(book.getAuthor()));
+
+        assertEquals(1, database.countStatements(em -> service.updateBook(5L, 0, book)));
+    }
+
+    // Book 11 has ISBN 9780000000010 and book 13 has 9780000000012.
+    @Test
+    void updateBook_TakenIsbn_ShouldBeRejectedByTheUniqueIndex() {
+        BookDTO book = new BookDTO(null, null, "Title 10", "Author 0", new BigDecimal("6.00"), "9780000000012");
+        database.inTransaction(em -> authors.resolveId(book.getAuthor()));
+
+        assertEquals(1, database.countStatements(em -> assertThrows(DuplicateIsbnException.class,
+                () -> service.updateBook(11L, 0, book))));
+        assertEquals("9780000000010", database.inTransaction(em -> service.getBook(11L)).orElseThrow().getIsbn());
+    }
+
+    @Test
+    void createBook_TakenIsbn_ShouldBeRejectedAfterOneLookup() {
+        BookDTO book = new BookDTO(null, null, "Copy", "Author 3", new BigDecimal("1.00"), "9780000000013");
+        database.inTransaction(em -> authors.resolveId(book.getAuthor()));
+
+        assertEquals(1, database.countStatements(em -> assertThrows(DuplicateIsbnException.class,
+                () -> service.createBook(book))));
+    }
+
+    @Test
+    void getBookByIsbn_ShouldIssueOneIndexLookup() {
+        assertEquals(1, database.countStatements(em -> service.getBookByIsbn("9791234567896")));
+        assertEquals(1, database.countStatements(em -> service.getBookByIsbn("9780000000019")));
+        assertEquals("Title 19", database.inTransaction(em -> service.getBookByIsbn("9780000000019")).orElseThrow().getTitle());
+    }
+
+    // As if another node had written it: the loaded filter has not seen the ISBN.
+    @Test
+    void getBookByIsbn_WrittenElsewhere_ShouldBeFound() {
+        database.inTransaction(em -> em.createQuery("UPDATE Book b SET b.isbn = 9792000000008 WHERE b.id = 25").executeUpdate());
+
+        assertEquals(25L, database.inTransaction(em -> service.getBookByIsbn("9792000000008")).orElseThrow().getId());
+        assertTrue((boolean) database.inTransaction(em -> service.existsByIsbn("9792000000008")));
+    }
+
+    @Test
+    void findExistingIsbns_ShouldLookUpOnlyPossibleDuplicates() {
+        List<String> isbns = new ArrayList<>(List.of("9780000000020", "9780000000021", "9780000000022"));
+        for (int i = 0; i < 50; i++) {
+            isbns.add(String.valueOf(9_791_000_000_000L + i));
+        }
+
+        assertEquals(1, database.countStatements(em -> service.findExistingIsbns(isbns)));
+        assertEquals(Set.of("9780000000020", "9780000000021", "9780000000022"),
+                database.inTransaction(em -> service.findExistingIsbns(isbns)));
+        assertEquals(0, database.countStatements(em -> service.findExistingIsbns(isbns.subList(3, 53))));
+    }
+
+    @Test
+    void patchBook_ShouldIssueOneStatement() {
+        BookPatch patch = BookPatch.builder().price(new BigDecimal("42.00")).build();
+
+        assertEquals(1, database.countStatements(em -> service.patchBook(7L, 0, patch)));
+        BookDTO patched = database.inTransaction(em -> service.getBook(7L)).orElseThrow();
+        assertEquals(new BigDecimal("42.00"), patched.getPrice());
+        assertEquals("Title 6", patched.getTitle());
+        assertEquals(1L, patched.getVersion());
+    }
+
+    @Test
+    void updatePrices_ShouldApplyCurrentAndSkipStaleChanges() {
+        List<BookPriceChange> priceChanges = List.of(new BookPriceChange(8L, 0, new BigDecimal("1.50")),
+                new BookPriceChange(9L, 7, new BigDecimal("2.50")));
+
+        assertEquals(Set.of(9L), database.inTransaction(em -> service.updatePrices(priceChanges)));
+        assertEquals(new BigDecimal("1.50"), database.inTransaction(em -> service.getBook(8L)).orElseThrow().getPrice());
+        assertEquals(new BigDecimal("13.00"), database.inTransaction(em -> service.getBook(9L)).orElseThrow().getPrice());
+    }
+
+    @Test
+    void deleteBooks_ShouldDeleteCurrentAndUnversionedAndSkipStale() {
+        List<BookRef> books = List.of(new BookRef(16L, 0L), new BookRef(17L, 3L), new BookRef(18L, null));
+
+        assertEquals(new BulkResult(2, Set.of(17L)), database.inTransaction(em -> service.deleteBooks(books)));
+        assertTrue(database.inTransaction(em -> service.getBook(16L)).isEmpty());
+        assertTrue(database.inTransaction(em -> service.getBook(17L)).isPresent());
+        assertTrue(database.inTransaction(em -> service.getBook(18L)).isEmpty());
+        assertEquals(List.of(16L, 18L), database.inTransaction(em -> em.createQuery(
+                "SELECT t.bookId FROM BookTombstone t WHERE t.bookId IN (16, 17, 18) ORDER BY t.bookId", Long.class)
+                .getResultList()));
+    }
+
+    @Test
+    void adjustPrices_ShouldRoundToCentsAndBumpVersions() {
+        List<BookRef> books = List.of(new BookRef(26L, 0L), new BookRef(27L, 4L));
+
+        assertEquals(new BulkResult(1, Set.of(27L)), database.inTransaction(em -> service.adjustPrices(books, -15)));
+        BookDTO adjusted = database.inTransaction(em -> service.getBook(26L)).orElseThrow();
+        assertEquals(new BigDecimal("25.50"), adjusted.getPrice());
+        assertEquals(1L, adjusted.getVersion());
+        assertEquals(new BigDecimal("31.00"), database.inTransaction(em -> service.getBook(27L)).orElseThrow().getPrice());
+    }
+
+    // Authors are "Author " + i % 10, so each prefix below matches the three rows i, i + 10 and i + 20.
+    @Test
+    void adjustPrices_Filter_ShouldUpdateEveryMatchingBookInChunks() {
+        BookFilter filter = BookFilter.builder().authorPrefix("Author 9").build();
+
+        assertEquals(3, (int) database.inTransaction(em -> service.adjustPrices(filter, 10)));
+        assertEquals(new BigDecimal("15.40"), database.inTransaction(em -> service.getBook(10L)).orElseThrow().getPrice());
+        assertEquals(new BigDecimal("37.40"), database.inTransaction(em -> service.getBook(30L)).orElseThrow().getPrice());
+    }
+
+    @Test
+    void deleteBooks_Filter_ShouldDeleteEveryMatchingBookInChunks() {
+        BookFilter filter = BookFilter.builder().authorPrefix("Author 1").build();
+
+        assertEquals(3, (int) database.inTransaction(em -> service.deleteBooks(filter)));
+        assertEquals(0, (int) database.inTransaction(em -> service.countBooks(filter)));
+        assertEquals(List.of(2L, 12L, 22L), database.inTransaction(em -> em.createQuery(
+                "SELECT t.bookId FROM BookTombstone t WHERE t.bookId IN (2, 12, 22) ORDER BY t.bookId", Long.class)
+                .getResultList()));
+    }
+
+    // The conditional DELETE, and the INSERT of the tombstone for the change feed.
+    @Test
+    void deleteBook_WithVersion_ShouldIssueTwoStatements() {
+        assertEquals(2, database.countStatements(em -> {
+            service.deleteBook(6L, 0);
+            return null;
+        }));
+    }
+
+    @Test
+    void exportBooks_ShouldStreamWithOneQuery() {
+        BookWriter writer = mock(BookWriter.class);
+
+        assertEquals(1, database.countStatements(em -> {
+            try {
+                return service.exportBooks(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,212 @@
+package com.library.service.impl;
+
+import com.library.dto.CatalogStats;
+import com.library.repository.BookStatsRepository;
+import com.library.testing.PostgresDatabase;
+import com.library.testing.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The catalog statistics triggers and folds against embedded PostgreSQL, which H2 cannot stand in for.
+ */
+class BookStatsPostgresTest {
+
+    private static final int WRITERS = 4;
+    private static final int TRANSACTIONS = 25;
+
+    private PostgresDatabase postgres;
+    private TestDatabase database;
+    private long lastDelta;
+    private BookStatsServiceImpl service;
+
+    // 40 books by "Author 0" to "Author 9" at 5.00 to 44.00, and their statistics folded.
+    @BeforeEach
+    void setUp() {
+        postgres = PostgresDatabase.create();
+        database = TestDatabase.postgres(postgres).seed(40);
+        BookStatsRepository repository = TestDatabase.inject(new BookStatsRepository(), "em", database.entityManager());
+        service = TestDatabase.inject(new BookStatsServiceImpl(), "repository", repository);
+        foldAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void triggers_ShouldAppendOneDeltaPerGroupAndStatement() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO books (id, version, created_at, title, author_id, price)"
+                    + " VALUES (1001, 0, LOCALTIMESTAMP, 'New', 1, 12.50)");
+            assertEquals(List.of("AUTHOR Author 0 1 12.50 12.50 12.50", "PRICE 10 1 12.50 12.50 12.50",
+                    "TOTAL  1 12.50 12.50 12.50"), takeDeltas(statement));
+
+            // Book 1, "Author 0" at 5.00: added at the new price, removed at the old one.
+            statement.executeUpdate("UPDATE books SET price = 30.00 WHERE id = 1");
+            assertEquals(List.of("AUTHOR Author 0 -1 -5.00 5.00 5.00", "AUTHOR Author 0 1 30.00 30.00 30.00",
+                    "PRICE 0 -1 -5.00 5.00 5.00", "PRICE 30 1 30.00 30.00 30.00", "TOTAL  -1 -5.00 5.00 5.00",
+                    "TOTAL  1 30.00 30.00 30.00"), takeDeltas(statement));
+
+            // Book 40, "Author 9" at 44.00.
+            statement.executeUpdate("DELETE FROM books WHERE id = 40");
+            assertEquals(List.of("AUTHOR Author 9 -1 -44.00 44.00 44.00", "PRICE 40 -1 -44.00 44.00 44.00",
+                    "TOTAL  -1 -44.00 44.00 44.00"), takeDeltas(statement));
+
+            statement.executeUpdate("UPDATE books SET title = 'Renamed' WHERE id = 2");
+            assertEquals(List.of(), takeDeltas(statement));
+        }
+
+        assertEquals(12, foldAll());
+
+        CatalogStats.Group total = database.inTransaction(em -> service.getStats(10)).total();
+        assertEquals(CatalogStats.Group.of(40, new BigDecimal("973.50"), new BigDecimal("6.00"), new BigDecimal("43.00")),
+                total);
+        assertEquals(Optional.of(CatalogStats.Group.of(5, new BigDecimal("117.50"), new BigDecimal("12.50"),
+                new BigDecimal("35.00"))), database.inTransaction(em -> service.getAuthorStats("Author 0")));
+        assertEquals(Optional.of(CatalogStats.Group.of(3, new BigDecimal("72.00"), new BigDecimal("14.00"),
+                new BigDecimal("34.00"))), database.inTransaction(em -> service.getAuthorStats("Author 9")));
+        assertEquals(0, (int) database.inTransaction(em -> service.reconcile()));
+    }
+
+    @Test
+    void triggers_ShouldRecordEveryWriteForTheFold() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE books SET price = price + 10 WHERE id % 3 = 0");
+            statement.executeUpdate("DELETE FROM books WHERE author_id = (SELECT id FROM authors WHERE name = 'Author 9')");
+            // Title changes leave the statistics alone.
+            statement.executeUpdate("UPDATE books SET title = title || '!'");
+        }
+
+        assertTrue(foldAll() > 0);
+
+        assertEquals(0, (int) database.inTransaction(em -> service.reconcile()));
+        assertEquals(36, database.inTransaction(em -> service.getStats(10)).total().books());
+        assertTrue(database.inTransaction(em -> service.getAuthorStats("Author 9")).isEmpty());
+    }
+
+    @Test
+    void writers_ShouldNotWaitForEachOtherOnTheSummaryRows() throws SQLException {
+        try (Connection first = connect(); Connection second = connect()) {
+            first.setAutoCommit(false);
+            second.setAutoCommit(false);
+            try (Statement statement = first.createStatement()) {
+                // Authors 0 to 2, buckets 0 and 10, and the total, held until the commit below.
+                statement.executeUpdate("UPDATE books SET price = price + 1 WHERE id IN (1, 2, 3, 13)");
+            }
+            try (Statement statement = second.createStatement()) {
+                statement.execute("SET LOCAL lock_timeout = '2s'");
+                // The same authors in the opposite order, and the total: waited for its row when writers upserted it.
+                assertEquals(3, statement.executeUpdate("UPDATE books SET price = price + 1 WHERE id IN (23, 22, 21)"));
+            }
+            second.commit();
+            first.commit();
+        }
+
+        foldAll();
+
+        assertEquals(0, (int) database.inTransaction(em -> service.reconcile()));
+    }
+
+    @Test
+    void concurrentBulkWriters_ShouldNotDeadlockAndFoldToTheBooks() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int partition = writer;
+                // Disjoint books, but every author and price group, changed in opposite orders by odd and even writers.
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                        connection.setAutoCommit(false);
+                        for (int i = 0; i < TRANSACTIONS; i++) {
+                            String order = partition % 2 == 0 ? "id" : "id DESC";
+                            statement.executeUpdate("UPDATE books SET price = CASE WHEN price > 40 THEN price - 30"
+                                    + " ELSE price + 7 END WHERE id IN (SELECT id FROM books WHERE id % " + WRITERS
+                                    + " = " + partition + " ORDER BY " + order + ")");
+                            statement.executeUpdate("UPDATE books SET author_id = (SELECT min(id) FROM authors)"
+                                    + " WHERE id = (SELECT min(id) FROM books WHERE id % " + WRITERS + " = " + partition + ")");
+                            connection.commit();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            // Folds alongside the writers, as the scheduler would.
+            Future<?> folder = executor.submit(() -> {
+                start.await();
+                for (Future<?> writer : writers) {
+                    while (!writer.isDone()) {
+                        database.inTransaction(em -> service.fold());
+                    }
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> writer : writers) {
+                // Fails with the deadlock, if PostgreSQL detected one.
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            folder.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        foldAll();
+
+        assertEquals(0, (int) database.inTransaction(em -> service.reconcile()));
+        assertEquals(40, database.inTransaction(em -> service.getStats(10)).total().books());
+        assertEquals(0L, (long) database.inTransaction(em -> em.createQuery("SELECT COUNT(d) FROM BookStatDelta d", Long.class)
+                .getSingleResult()));
+    }
+
+    // The deltas recorded since the last call, sorted, as "dimension key count sum min max"; their IDs only grow.
+    private List<String> takeDeltas(Statement statement) throws SQLException {
+        List<String> deltas = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery("SELECT id, dimension, group_key, book_count, price_sum, min_price,"
+                + " max_price FROM book_stats_delta WHERE id > " + lastDelta)) {
+            while (rows.next()) {
+                lastDelta = Math.max(lastDelta, rows.getLong(1));
+                deltas.add(String.join(" ", rows.getString(2), rows.getString(3), rows.getString(4),
+                        rows.getString(5), rows.getString(6), rows.getString(7)));
+            }
+        }
+        Collections.sort(deltas);
+        return deltas;
+    }
+
+    private int foldAll() {
+        int folded = 0;
+        int batch;
+        do {
+            batch = database.inTransaction(em -> service.fold());
+            folded += batch;
+        } while (batch > 0);
+        return folded;
+    }
+
+    private Connection connect() throws SQLException {
+        return postgres.connect();
+    }
+}
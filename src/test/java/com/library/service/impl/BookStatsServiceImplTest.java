@@ -0,0 +1,209 @@
+package com.library.service.impl;
+
+import com.library.dto.AuthorFacet;
+import com.library.dto.CatalogStats;
+import com.library.model.Author;
+import com.library.model.Book;
+import com.library.model.BookStat;
+import com.library.model.BookStatDelta;
+import com.library.repository.BookStatsRepository;
+import com.library.testing.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Folds, reconciliation and reads against an embedded database. H2 runs none of the PostgreSQL triggers, so the
+ * summary rows start empty and change only through reconciliation here, and tests write the deltas the triggers
+ * would have written themselves.
+ */
+class BookStatsServiceImplTest {
+
+    private TestDatabase database;
+    private BookStatsRepository repository;
+    private BookStatsServiceImpl service;
+
+    // Prices 5.00 to 34.00, authors "Author 0" to "Author 9" with three books each.
+    @BeforeEach
+    void setUp() {
+        database = new TestDatabase().seed(30);
+        repository = TestDatabase.inject(new BookStatsRepository(), "em", database.entityManager());
+        service = TestDatabase.inject(new BookStatsServiceImpl(), "repository", repository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void reconcile_EmptySummary_ShouldFillEveryGroup() {
+        // 1 total, 10 authors, 4 price buckets.
+        assertEquals(15, (int) database.inTransaction(em -> service.reconcile()));
+
+        CatalogStats stats = database.inTransaction(em -> service.getStats(2));
+
+        assertEquals(CatalogStats.Group.of(30, new BigDecimal("585.00"), new BigDecimal("5.00"), new BigDecimal("34.00")),
+                stats.total());
+        assertEquals(new BigDecimal("19.50"), stats.total().averagePrice());
+        assertEquals(List.of("Author 0", "Author 1"), stats.topAuthors().stream().map(CatalogStats.AuthorGroup::author).toList());
+        assertEquals(new BigDecimal("45.00"), stats.topAuthors().getFirst().books().priceSum());
+        assertEquals(List.of(new CatalogStats.PriceBucket(new BigDecimal("0"), new BigDecimal("10"), 5),
+                        new CatalogStats.PriceBucket(new BigDecimal("10"), new BigDecimal("20"), 10),
+                        new CatalogStats.PriceBucket(new BigDecimal("20"), new BigDecimal("30"), 10),
+                        new CatalogStats.PriceBucket(new BigDecimal("30"), new BigDecimal("40"), 5)),
+                stats.priceBuckets());
+        assertEquals(1, service.getReconciliations());
+        assertEquals(15, service.getCorrections());
+    }
+
+    @Test
+    void reconcile_Consistent_ShouldChangeNothing() {
+        database.inTransaction(em -> service.reconcile());
+
+        assertEquals(0, (int) database.inTransaction(em -> service.reconcile()));
+    }
+
+    @Test
+    void reconcile_DriftedRows_ShouldCorrectOnlyThose() {
+        database.inTransaction(em -> service.reconcile());
+        database.inTransaction(em -> {
+            em.find(BookStat.class, new BookStat.Key(BookStat.Dimension.AUTHOR, "Author 3")).setBookCount(99);
+            em.persist(new BookStat(BookStat.Dimension.AUTHOR, "Nobody", 1, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE));
+            return null;
+        });
+
+        assertEquals(2, (int) database.inTransaction(em -> service.reconcile()));
+        assertEquals(3, database.inTransaction(em -> service.getAuthorStats("Author 3")).orElseThrow().books());
+        assertTrue(database.inTransaction(em -> service.getAuthorStats("Nobody")).isEmpty());
+    }
+
+    @Test
+    void reconcile_BooksDeleted_ShouldDropEmptyGroupsAndNarrowRanges() {
+        database.inTransaction(em -> service.reconcile());
+        // Author 9 owns the most expensive book (34.00); the 30-40 bucket keeps 30.00 to 33.00.
+        database.inTransaction(em -> em.createQuery("DELETE FROM Book b WHERE b.author.name = 'Author 9'").executeUpdate());
+
+        database.inTransaction(em -> service.reconcile());
+        CatalogStats stats = database.inTransaction(em -> service.getStats(100));
+
+        assertEquals(27, stats.total().books());
+        assertEquals(new BigDecimal("33.00"), stats.total().maxPrice());
+        assertEquals(9, stats.topAuthors().size());
+        assertEquals(4, stats.priceBuckets().getLast().books());
+    }
+
+    @Test
+    void fold_Removals_ShouldSumThemAndRecomputeTheRangesTheyReached() {
+        database.inTransaction(em -> service.reconcile());
+        // Author 9's books cost 14.00, 24.00 and 34.00, the most expensive of all.
+        database.inTransaction(em -> {
+            em.createQuery("DELETE FROM Book b WHERE b.author.name = 'Author 9'").executeUpdate();
+            em.persist(delta(BookStat.Dimension.TOTAL, "", -3, "-72.00", "14.00", "34.00"));
+            em.persist(delta(BookStat.Dimension.AUTHOR, "Author 9", -3, "-72.00", "14.00", "34.00"));
+            em.persist(delta(BookStat.Dimension.PRICE, "10", -1, "-14.00", "14.00", "14.00"));
+            em.persist(delta(BookStat.Dimension.PRICE, "20", -1, "-24.00", "24.00", "24.00"));
+            em.persist(delta(BookStat.Dimension.PRICE, "30", -1, "-34.00", "34.00", "34.00"));
+            return null;
+        });
+
+        assertEquals(5, (int) database.inTransaction(em -> service.fold()));
+        CatalogStats stats = database.inTransaction(em -> service.getStats(100));
+
+        assertEquals(CatalogStats.Group.of(27, new BigDecimal("513.00"), new BigDecimal("5.00"), new BigDecimal("33.00")),
+                stats.total());
+        assertTrue(database.inTransaction(em -> service.getAuthorStats("Author 9")).isEmpty());
+        assertEquals(new BigDecimal("33.00"), stats.topAuthors().stream().map(CatalogStats.AuthorGroup::books)
+                .map(CatalogStats.Group::maxPrice).max(BigDecimal::compareTo).orElseThrow());
+        assertEquals(0, (int) database.inTransaction(em -> service.fold()));
+        assertEquals(0, (int) database.inTransaction(em -> service.reconcile()));
+        assertEquals(5, service.getFolded());
+    }
+
+    @Test
+    void fold_NewAuthor_ShouldCreateItsRowAndWidenTheRange() {
+        database.inTransaction(em -> service.reconcile());
+        database.inTransaction(em -> {
+            Author author = new Author("Newcomer");
+            em.persist(author);
+            Book book = new Book();
+            book.setTitle("Debut");
+            book.setAuthor(author);
+            book.setPrice(new BigDecimal("99.00"));
+            em.persist(book);
+            em.persist(delta(BookStat.Dimension.TOTAL, "", 1, "99.00", "99.00", "99.00"));
+            em.persist(delta(BookStat.Dimension.AUTHOR, "Newcomer", 1, "99.00", "99.00", "99.00"));
+            em.persist(delta(BookStat.Dimension.PRICE, "90", 1, "99.00", "99.00", "99.00"));
+            return null;
+        });
+
+        database.inTransaction(em -> service.fold());
+
+        assertEquals(CatalogStats.Group.of(1, new BigDecimal("99.00"), new BigDecimal("99.00"), new BigDecimal("99.00")),
+                database.inTransaction(em -> service.getAuthorStats("Newcomer")).orElseThrow());
+        assertEquals(new BigDecimal("99.00"), database.inTransaction(em -> service.getStats(1)).total().maxPrice());
+        assertEquals(0, (int) database.inTransaction(em -> service.reconcile()));
+    }
+
+    @Test
+    void compute_PendingDeltas_ShouldLeaveThemToTheFold() {
+        database.inTransaction(em -> em.createQuery("DELETE FROM Book b WHERE b.id = 1").executeUpdate());
+        database.inTransaction(em -> {
+            em.persist(delta(BookStat.Dimension.TOTAL, "", -1, "-5.00", "5.00", "5.00"));
+            return null;
+        });
+
+        BookStatsRepository.Expected expected = database.inTransaction(em ->
+                repository.compute(new BookStat.Key(BookStat.Dimension.TOTAL, "")));
+
+        // 29 books are left; the fold still subtracts the pending removal from the 30 the row should hold.
+        assertEquals(30, expected.stat().getBookCount());
+        assertEquals(0, new BigDecimal("585.00").compareTo(expected.stat().getPriceSum()));
+        assertEquals(1, expected.pendingDeltas());
+    }
+
+    @Test
+    void getAuthorFacets_ShouldListTopAuthorsWithIdsAndCounts() {
+        database.inTransaction(em -> em.createQuery("DELETE FROM Book b WHERE b.author.name = 'Author 4' AND b.price > 10")
+                .executeUpdate());
+        database.inTransaction(em -> service.reconcile());
+
+        List<AuthorFacet> facets = database.inTransaction(em -> service.getAuthorFacets(10));
+
+        assertEquals(new AuthorFacet(1L, "Author 0", 3), facets.getFirst());
+        // Author 4 (ID 5) kept one of three books and comes last.
+        assertEquals(new AuthorFacet(5L, "Author 4", 1), facets.getLast());
+        assertEquals(1L, (long) database.inTransaction(em -> repository.countByAuthorId(5L)));
+        assertEquals(0L, (long) database.inTransaction(em -> repository.countByAuthorId(99L)));
+    }
+
+    @Test
+    void getStats_EmptyCatalog_ShouldReturnZeroTotals() {
+        database.inTransaction(em -> em.createQuery("DELETE FROM Book b").executeUpdate());
+        database.inTransaction(em -> service.reconcile());
+
+        CatalogStats stats = database.inTransaction(em -> service.getStats(10));
+
+        assertEquals(0, stats.total().books());
+        assertNull(stats.total().averagePrice());
+        assertTrue(stats.topAuthors().isEmpty());
+        assertTrue(stats.priceBuckets().isEmpty());
+    }
+
+    @Test
+    void priceBucketKey_ShouldMatchTheTriggerBuckets() {
+        assertEquals("0", BookStat.priceBucketKey(new BigDecimal("9.99")));
+        assertEquals("10", BookStat.priceBucketKey(new BigDecimal("10.00")));
+        assertEquals("120", BookStat.priceBucketKey(new BigDecimal("129.50")));
+    }
+
+    private static BookStatDelta delta(BookStat.Dimension dimension, String groupKey, long books, String sum,
+                                       String min, String max) {
+        return new BookStatDelta(null, dimension, groupKey, books, new BigDecimal(sum), new BigDecimal(min), new BigDecimal(max));
+    }
+}
@@ -0,0 +1,134 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.BookSort;
+import com.library.dto.BookSortField;
+import com.library.event.BookChangedEvent;
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import com.library.repository.BookStatsRepository;
+import com.library.repository.BookTombstoneRepository;
+import com.library.testing.TestDatabase;
+import com.library.util.ConfigUtil;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Loads and refreshes against an embedded database, seeded with "Title 0" to "Title 29" (IDs 1 to 30).
+ * H2 keeps no summary rows, so book counts for reconciliation are queried.
+ */
+class CatalogSnapshotServiceImplTest {
+
+    private TestDatabase database;
+    private ManagedScheduledExecutorService scheduler;
+    private CatalogSnapshotServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        database = new TestDatabase().seed(30);
+        scheduler = mock(ManagedScheduledExecutorService.class);
+        service = new CatalogSnapshotServiceImpl();
+        TestDatabase.inject(service, "repository", TestDatabase.inject(new BookRepository(), "em", database.entityManager()));
+        TestDatabase.inject(service, "stats", TestDatabase.inject(new BookStatsRepository(), "em", database.entityManager()));
+        TestDatabase.inject(service, "tombstones", TestDatabase.inject(new BookTombstoneRepository(), "em",
+                database.entityManager()));
+        TestDatabase.inject(service, "config", new ConfigUtil());
+        TestDatabase.inject(service, "scheduler", scheduler);
+        TestDatabase.inject(service, "self", service);
+        service.init();
+        TestDatabase.inject(service, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void refresh_First_ShouldLoadTheCatalog() {
+        assertFalse(service.supports(BookFilter.NONE));
+
+        assertEquals(30, (int) database.inTransaction(em -> service.refresh()));
+
+        assertTrue(service.supports(BookFilter.NONE));
+        assertFalse(service.supports(BookFilter.builder().search("title").build()));
+        assertEquals(30, service.countBooks(BookFilter.NONE));
+        assertEquals(3, service.countBooks(BookFilter.builder().authorId(4L).build()));
+        List<BookDTO> page = service.getBooks(new BookQuery(BookFilter.NONE, new BookSort(BookSortField.PRICE, false)), 0, 2);
+        assertEquals(List.of(30L, 29L), page.stream().map(BookDTO::getId).toList());
+        assertEquals("Author 9", page.getFirst().getAuthor());
+        assertEquals(30, service.getFootprint().books());
+    }
+
+    @Test
+    void refresh_ChangedBook_ShouldApplyOnlyThatBook() {
+        database.inTransaction(em -> service.refresh());
+        database.inTransaction(em -> {
+            em.find(Book.class, 5L).setTitle("Renamed");
+            return null;
+        });
+
+        assertEquals(1, (int) database.inTransaction(em -> service.refresh()));
+        assertEquals(0, (int) database.inTransaction(em -> service.refresh()));
+
+        BookDTO book = service.getBooks(BookQuery.DEFAULT, 4, 1).getFirst();
+        assertEquals("Renamed", book.getTitle());
+        assertEquals(1, service.countBooks(BookFilter.builder().titlePrefix("ren").build()));
+    }
+
+    @Test
+    void onBookChanged_Deletion_ShouldDeclineQueriesUntilApplied() {
+        database.inTransaction(em -> service.refresh());
+        database.inTransaction(em -> {
+            em.remove(em.find(Book.class, 7L));
+            return null;
+        });
+
+        service.onBookChanged(BookChangedEvent.deleted(7L));
+        service.onBookChanged(BookChangedEvent.deleted(7L));
+
+        assertFalse(service.supports(BookFilter.NONE));
+        verify(scheduler, times(1)).execute(any(Runnable.class));
+        database.inTransaction(em -> service.refresh());
+        assertTrue(service.supports(BookFilter.NONE));
+        assertEquals(29, service.countBooks(BookFilter.NONE));
+    }
+
+    @Test
+    void refresh_BookDeletedOnAnotherNode_ShouldApplyItsTombstone() {
+        database.inTransaction(em -> service.refresh());
+        BookRepository repository = TestDatabase.inject(new BookRepository(), "em", database.entityManager());
+        database.inTransaction(em -> repository.deleteIfVersion(9L, 0L));
+
+        assertEquals(1, (int) database.inTransaction(em -> service.refresh()));
+
+        assertEquals(29, service.countBooks(BookFilter.NONE));
+        assertEquals(0, service.getReconciliations());
+    }
+
+    @Test
+    void refresh_BookDeletedElsewhere_ShouldReconcileOnCountMismatch() {
+        database.inTransaction(em -> service.refresh());
+        database.inTransaction(em -> {
+            em.remove(em.find(Book.class, 12L));
+            return null;
+        });
+        TestDatabase.inject(service, "reconcileNanos", 0L);
+
+        assertEquals(1, (int) database.inTransaction(em -> service.refresh()));
+
+        assertEquals(29, service.countBooks(BookFilter.NONE));
+        assertEquals(1, service.getReconciliations());
+        assertEquals(0, (int) database.inTransaction(em -> service.refresh()));
+        assertEquals(1, service.getReconciliations());
+    }
+}
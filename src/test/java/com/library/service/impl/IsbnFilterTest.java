@@ -0,0 +1,106 @@
+package com.library.service.impl;
+
+import com.library.model.Author;
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import com.library.testing.TestDatabase;
+import com.library.util.ConfigUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads and polls against an embedded database, seeded with the ISBNs 9780000000000 to 9780000000029.
+ */
+class IsbnFilterTest {
+
+    private TestDatabase database;
+    private IsbnFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        database = new TestDatabase().seed(30);
+        filter = new IsbnFilter();
+        TestDatabase.inject(filter, "repository", TestDatabase.inject(new BookRepository(), "em", database.entityManager()));
+        TestDatabase.inject(filter, "config", new ConfigUtil());
+        filter.init();
+        // Polls read only what changed since the previous one, not the seeded books again.
+        TestDatabase.inject(filter, "overlap", Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void refresh_First_ShouldLoadEveryIsbn() {
+        assertTrue(filter.mightContain(9791000000000L));
+
+        assertEquals(30, (int) database.inTransaction(em -> filter.refresh()));
+
+        assertTrue(filter.isLoaded());
+        assertTrue(filter.mightContain(9780000000000L));
+        assertTrue(filter.mightContain(9780000000029L));
+        assertFalse(filter.mightContain(9791000000000L));
+    }
+
+    @Test
+    void refresh_BookWrittenElsewhere_ShouldBeAddedByThePoll() {
+        database.inTransaction(em -> filter.refresh());
+        database.inTransaction(em -> {
+            Book book = new Book();
+            book.setTitle("Elsewhere");
+            book.setAuthor(em.find(Author.class, 1L));
+            book.setPrice(new BigDecimal("3.00"));
+            book.setIsbn(9791000000000L);
+            em.persist(book);
+            return null;
+        });
+        assertFalse(filter.mightContain(9791000000000L));
+
+        assertEquals(1, (int) database.inTransaction(em -> filter.refresh()));
+
+        assertTrue(filter.mightContain(9791000000000L));
+    }
+
+    @Test
+    void existing_ShouldLookUpOnlyWhatTheFilterCannotRuleOut() {
+        database.inTransaction(em -> filter.refresh());
+
+        assertEquals(Set.of(9780000000003L), database.inTransaction(em -> filter.existing(
+                List.of(9780000000003L, 9791000000001L, 9791000000002L))));
+        assertEquals(0, database.countStatements(em -> filter.existing(List.of(9791000000001L))));
+
+        assertEquals(3, filter.getAbsent());
+        assertEquals(1, filter.getConfirmed());
+        assertEquals(0, filter.getFalsePositives());
+    }
+
+    @Test
+    void existing_BeforeLoad_ShouldLookUpEveryIsbn() {
+        assertTrue((boolean) database.inTransaction(em -> filter.exists(9780000000007L)));
+        assertFalse((boolean) database.inTransaction(em -> filter.exists(9791000000001L)));
+
+        assertEquals(2, filter.getUnfiltered());
+    }
+
+    @Test
+    void refresh_RebuildDue_ShouldLoadAgain() {
+        database.inTransaction(em -> filter.refresh());
+        filter.add(9791000000003L);
+        TestDatabase.inject(filter, "rebuildNanos", 0L);
+
+        assertEquals(30, (int) database.inTransaction(em -> filter.refresh()));
+
+        assertEquals(1, filter.getRebuilds());
+        assertFalse(filter.mightContain(9791000000003L));
+    }
+}
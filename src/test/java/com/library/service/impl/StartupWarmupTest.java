@@ -0,0 +1,78 @@
+package com.library.service.impl;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.metrics.StartupTimes;
+import com.library.service.BookService;
+import com.library.testing.TestDatabase;
+import com.library.util.ConfigUtil;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class StartupWarmupTest {
+
+    private BookService bookService;
+    private ManagedScheduledExecutorService scheduler;
+    private ConfigUtil config;
+    private StartupTimes times;
+    private StartupWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        scheduler = mock(ManagedScheduledExecutorService.class);
+        config = mock(ConfigUtil.class);
+        when(config.getInt(eq("library.warmup.iterations"), anyInt())).thenReturn(3);
+        times = new StartupTimes();
+        warmup = new StartupWarmup();
+        TestDatabase.inject(warmup, "bookService", bookService);
+        TestDatabase.inject(warmup, "scheduler", scheduler);
+        TestDatabase.inject(warmup, "config", config);
+        TestDatabase.inject(warmup, "times", times);
+    }
+
+    @Test
+    void start_Disabled_ShouldBeReadyAtOnce() {
+        warmup.start(new Object());
+
+        assertTrue(times.isReady());
+        verifyNoInteractions(scheduler, bookService);
+    }
+
+    @Test
+    void start_Enabled_ShouldBeReadyOnlyAfterTheWarmup() {
+        when(config.getBoolean(eq("library.warmup.enabled"), anyBoolean())).thenReturn(true);
+        when(bookService.getBooks(any(BookQuery.class), anyInt(), anyInt()))
+                .thenReturn(List.of(new BookDTO(7L, 1L, "Dune", "Frank Herbert", new BigDecimal("9.99"), null)));
+
+        warmup.start(new Object());
+        assertFalse(times.isReady());
+        verify(scheduler).execute(any(Runnable.class));
+
+        warmup.warmUp();
+        assertTrue(times.isReady());
+        verify(bookService, times(3)).getBooks(BookQuery.DEFAULT, 0, 20);
+        verify(bookService, times(3)).countBooks(BookFilter.NONE);
+        verify(bookService, times(3)).getBook(7L);
+    }
+
+    @Test
+    void warmUp_Failing_ShouldStillBeReady() {
+        when(bookService.countBooks(any(BookFilter.class))).thenThrow(new IllegalStateException("database down"));
+
+        warmup.warmUp();
+
+        assertTrue(times.isReady());
+        verify(bookService, times(1)).countBooks(BookFilter.NONE);
+    }
+}
@@ -0,0 +1,80 @@
+package com.library.testing;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An empty database of its own on an embedded PostgreSQL server, for what H2 cannot run: the migrations as
+ * written, the triggers and row locks. The server is started once per test run from binaries resolved like any
+ * other dependency, so the tests need neither Docker nor an installed PostgreSQL, and stopped when the JVM exits.
+ * {@link #close()} drops the database.
+ */
+public final class PostgresDatabase implements AutoCloseable {
+
+    private static final String USER = "postgres";
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    private static EmbeddedPostgres server;
+
+    private final String name;
+
+    private PostgresDatabase(String name) {
+        this.name = name;
+    }
+
+    public static PostgresDatabase create() {
+        String name = "test" + NAMES.incrementAndGet();
+        execute("CREATE DATABASE " + name);
+        return new PostgresDatabase(name);
+    }
+
+    public String url() {
+        return server().getJdbcUrl(USER, name);
+    }
+
+    public String user() {
+        return USER;
+    }
+
+    public String password() {
+        return "";
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url(), user(), password());
+    }
+
+    /**
+     * Drops the database, closing connections still open on it.
+     */
+    @Override
+    public void close() {
+        execute("DROP DATABASE " + name + " WITH (FORCE)");
+    }
+
+    private static void execute(String sql) {
+        try (Connection connection = server().getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Statement on the test server failed: " + sql, e);
+        }
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (server == null) {
+            try {
+                server = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new IllegalStateException("Starting the embedded PostgreSQL server failed", e);
+            }
+        }
+        return server;
+    }
+}
@@ -0,0 +1,204 @@
+package com.library.testing;
+
+import com.library.metrics.RequestStats;
+import com.library.metrics.StatementCounter;
+import com.library.model.Author;
+import com.library.model.Book;
+import com.library.model.BookStat;
+import com.library.model.BookStatDelta;
+import com.library.model.BookTombstone;
+import com.library.repository.SchemaMigrator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceConfiguration;
+import jakarta.persistence.ValidationMode;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Embedded H2 database with the application's mapping and the production Hibernate settings that
+ * affect SQL (batching, plan cache), for tests that pin down how many statements a call issues.
+ * Statements are counted by the same {@link StatementCounter} that feeds {@code /metrics}.
+ * <p>
+ * Beans get the {@link #entityManager()} proxy injected, which, like the container's transaction-scoped
+ * proxy, delegates to the entity manager of the current {@link #inTransaction}.
+ * <p>
+ * Tests of what only PostgreSQL runs, such as the triggers, use {@link #postgres} instead.
+ */
+public final class TestDatabase implements AutoCloseable {
+
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    private final EntityManagerFactory emf;
+    private final ThreadLocal<EntityManager> current = new ThreadLocal<>();
+    // Drops the database, once the factory is closed.
+    private final Runnable drop;
+
+    public TestDatabase() {
+        // Kept open without connections, since the pool may close them all between transactions.
+        this("jdbc:h2:mem:test" + NAMES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    private TestDatabase(String h2Url) {
+        this(new PersistenceConfiguration("testPU")
+                .property(PersistenceConfiguration.JDBC_URL, h2Url)
+                .property(PersistenceConfiguration.JDBC_USER, "sa")
+                .property(PersistenceConfiguration.JDBC_PASSWORD, "")
+                .property(PersistenceConfiguration.SCHEMAGEN_DATABASE_ACTION, "drop-and-create"),
+                () -> shutDown(h2Url));
+    }
+
+    private TestDatabase(PersistenceConfiguration configuration, Runnable drop) {
+        this.drop = drop;
+        emf = configuration
+                .managedClass(Author.class)
+                .managedClass(Book.class)
+                .managedClass(BookStat.class)
+                .managedClass(BookStatDelta.class)
+                .managedClass(BookTombstone.class)
+                .validationMode(ValidationMode.NONE)
+                .property("hibernate.session_factory.statement_inspector", StatementCounter.class.getName())
+                .property("hibernate.criteria.plan_cache_enabled", "true")
+                .property("hibernate.jdbc.batch_size", "50")
+                .property("hibernate.order_inserts", "true")
+                .property("hibernate.order_updates", "true")
+                .property("hibernate.jdbc.batch_versioned_data", "true")
+                .createEntityManagerFactory();
+    }
+
+    /**
+     * An empty catalog in {@code database}, with the application's migrations applied as written, triggers
+     * included. The database is dropped on {@link #close()}.
+     */
+    public static TestDatabase postgres(PostgresDatabase database) {
+        return new TestDatabase(new PersistenceConfiguration("testPU")
+                .property(PersistenceConfiguration.JDBC_URL, database.url())
+                .property(PersistenceConfiguration.JDBC_USER, database.user())
+                .property(PersistenceConfiguration.JDBC_PASSWORD, database.password())
+                .property(SchemaMigrator.LOCATION, "db/migration")
+                .property("hibernate.hbm2ddl.auto", "validate"), database::close);
+    }
+
+    /**
+     * Inserts {@code rows} books titled "Title 0", "Title 1", ... with IDs starting at 1, by the authors
+     * "Author 0" to "Author 9" (book i by author i % 10), who get IDs 1 to 10 in that order.
+     */
+    public TestDatabase seed(int rows) {
+        inTransaction(em -> {
+            List<Author> authors = new ArrayList<>();
+            for (int i = 0; i < Math.min(rows, 10); i++) {
+                Author author = new Author("Author " + i);
+                em.persist(author);
+                authors.add(author);
+            }
+            for (int i = 0; i < rows; i++) {
+                Book book = new Book();
+                book.setTitle("Title " + i);
+                book.setAuthor(authors.get(i % 10));
+                book.setPrice(BigDecimal.valueOf(500 + 100L * i, 2));
+                book.setIsbn(9_780_000_000_000L + i);
+                em.persist(book);
+            }
+            return null;
+        });
+        return this;
+    }
+
+    public EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    EntityManager em = current.get();
+                    if (em == null) {
+                        throw new IllegalStateException("No transaction active on this thread");
+                    }
+                    try {
+                        return method.invoke(em, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * The underlying factory, for beans that open entity managers of their own.
+     */
+    public EntityManagerFactory entityManagerFactory() {
+        return emf;
+    }
+
+    public <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        current.set(em);
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            current.remove();
+            em.close();
+        }
+    }
+
+    /**
+     * Runs {@code work} in its own transaction, commit included, and returns the number of SQL
+     * statements it issued.
+     */
+    public long countStatements(Function<EntityManager, ?> work) {
+        RequestStats stats = RequestStats.begin();
+        try {
+            inTransaction(work);
+            return stats.getStatements();
+        } finally {
+            RequestStats.end();
+        }
+    }
+
+    /**
+     * Sets an injected field by name, standing in for CDI.
+     */
+    public static <T> T inject(T target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into " + target.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Closes the entity manager factory and drops the database, which outlives its connections.
+     */
+    @Override
+    public void close() {
+        emf.close();
+        drop.run();
+    }
+
+    private static void shutDown(String h2Url) {
+        try (Connection connection = DriverManager.getConnection(h2Url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Shutting down the test database failed", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.library.util;
+
+import com.library.metrics.RequestStats;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExecutorUtilTest {
+
+    @Mock
+    private ManagedExecutorService virtualExecutor;
+
+    @Mock
+    private ManagedExecutorService defaultExecutor;
+
+    @Mock
+    private ConfigUtil config;
+
+    @InjectMocks
+    private ExecutorUtil executors;
+
+    @Test
+    void handle_PlatformThreads_ShouldRunInPlace() {
+        when(config.getBoolean(eq("library.threads.virtual"), anyBoolean())).thenReturn(false);
+        executors.init();
+        Thread caller = Thread.currentThread();
+
+        CompletableFuture<Thread> ranOn = executors.handle(Thread::currentThread).toCompletableFuture();
+
+        assertSame(caller, ranOn.getNow(null));
+        assertSame(defaultExecutor, executors.executor());
+        verifyNoInteractions(virtualExecutor);
+    }
+
+    @Test
+    void handle_VirtualThreads_ShouldRunOnTheVirtualExecutor() {
+        when(config.getBoolean(eq("library.threads.virtual"), anyBoolean())).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(virtualExecutor).execute(any());
+        executors.init();
+
+        CompletableFuture<String> result = executors.handle(() -> "done").toCompletableFuture();
+
+        assertEquals("done", result.getNow(null));
+        assertSame(virtualExecutor, executors.executor());
+        verify(virtualExecutor).execute(any());
+    }
+
+    @Test
+    void supplyAsync_Failure_ShouldCompleteWithTheThrownException() {
+        when(config.getBoolean(eq("library.threads.virtual"), anyBoolean())).thenReturn(false);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(defaultExecutor).execute(any());
+        executors.init();
+        IOException failure = new IOException("disk full");
+
+        CompletableFuture<Object> result = executors.supplyAsync(() -> {
+            throw failure;
+        }).toCompletableFuture();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertSame(failure, thrown.getCause());
+    }
+
+    @Test
+    void background_ShouldNotRunAsPartOfTheCallingRequest() throws Exception {
+        when(config.getBoolean(eq("library.threads.virtual"), anyBoolean())).thenReturn(false);
+        doAnswer(invocation -> {
+            Thread worker = new Thread(invocation.<Runnable>getArgument(0));
+            worker.start();
+            worker.join();
+            return null;
+        }).when(defaultExecutor).execute(any());
+        executors.init();
+        RequestStats.begin();
+        try {
+            CompletableFuture<Boolean> attached = executors.background(() -> RequestStats.current().isPresent())
+                    .toCompletableFuture();
+            CompletableFuture<Boolean> propagated = executors.supplyAsync(() -> RequestStats.current().isPresent())
+                    .toCompletableFuture();
+
+            assertFalse(attached.get());
+            assertTrue(propagated.get());
+        } finally {
+            RequestStats.end();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.library.util;
+
+import com.library.dto.BookRow;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsbnJsonAdapterTest {
+
+    @Test
+    void bookRow_ShouldWriteTheIsbnAsDigits() throws Exception {
+        BookRow row = new BookRow(1L, 0L, "Dune", 7L, "Frank Herbert", new BigDecimal("9.99"), 9780441013593L,
+                LocalDateTime.of(2026, 1, 1, 12, 0));
+
+        try (Jsonb jsonb = JsonbBuilder.create()) {
+            String json = jsonb.toJson(row);
+
+            assertTrue(json.contains("\"isbn\":\"9780441013593\""), json);
+            assertEquals(row, jsonb.fromJson(json, BookRow.class));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsbnTest {
+
+    @Test
+    void isValid_ShouldCheckPrefixAndCheckDigit() {
+        assertTrue(Isbn.isValid("9780441013593"));
+        assertTrue(Isbn.isValid("9791032305690"));
+        assertFalse(Isbn.isValid("9780441013594"));
+        assertFalse(Isbn.isValid("1234567890128"));
+        assertFalse(Isbn.isValid("978044101359"));
+        assertFalse(Isbn.isValid("978-0441013593"));
+        assertFalse(Isbn.isValid((String) null));
+    }
+
+    @Test
+    void parseAndFormat_ShouldRoundTrip() {
+        assertEquals(9780441013593L, Isbn.parse("9780441013593"));
+        assertEquals("9780441013593", Isbn.format(9780441013593L));
+        assertEquals("0000000000042", Isbn.format(42L));
+        assertNull(Isbn.parse(null));
+        assertNull(Isbn.format(null));
+        assertThrows(IllegalArgumentException.class, () -> Isbn.parse("0-14-143958-X"));
+    }
+
+    @Test
+    void prefixRange_ShouldCoverEveryIsbnWithThePrefix() {
+        Isbn.Range range = Isbn.prefixRange("9780");
+
+        assertEquals(9_780_000_000_000L, range.from());
+        assertEquals(9_781_000_000_000L, range.to());
+        assertTrue(range.contains(9780441013593L));
+        assertFalse(range.contains(9791032305690L));
+        assertEquals(new Isbn.Range(9780441013593L, 9780441013594L), Isbn.prefixRange("9780441013593"));
+        assertTrue(Isbn.prefixRange("0-14").isEmpty());
+        assertTrue(Isbn.prefixRange("97804410135930").isEmpty());
+    }
+}
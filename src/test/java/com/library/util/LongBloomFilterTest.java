@@ -0,0 +1,44 @@
+package com.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongBloomFilterTest {
+
+    @Test
+    void mightContain_AddedKeys_ShouldAlwaysBeTrue() {
+        LongBloomFilter filter = new LongBloomFilter(10_000, 0.01);
+        for (long i = 0; i < 10_000; i++) {
+            filter.add(9_780_000_000_000L + i);
+        }
+
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(9_780_000_000_000L + i));
+        }
+    }
+
+    @Test
+    void mightContain_OtherKeys_ShouldBeFalseAboutAsOftenAsSizedFor() {
+        LongBloomFilter filter = new LongBloomFilter(10_000, 0.01);
+        for (long i = 0; i < 10_000; i++) {
+            filter.add(9_780_000_000_000L + i);
+        }
+
+        int falsePositives = 0;
+        for (long i = 0; i < 100_000; i++) {
+            if (filter.mightContain(9_790_000_000_000L + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFpp(), 0.005);
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    void constructor_ShouldRejectImpossibleProbabilities() {
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(100, 1));
+    }
+}
@@ -0,0 +1,367 @@
+package com.library.view;
+
+import com.library.dto.BookCursor;
+import com.library.dto.BookDTO;
+import com.library.dto.BookFilter;
+import com.library.dto.BookQuery;
+import com.library.dto.BookSort;
+import com.library.dto.BookSortField;
+import com.library.event.BookChangedEvent;
+import com.library.service.BookService;
+import com.library.service.CatalogSnapshotService;
+import com.library.util.ConfigUtil;
+import com.library.util.ExecutorUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.primefaces.model.FilterMeta;
+import org.primefaces.model.MatchMode;
+import org.primefaces.model.SortMeta;
+import org.primefaces.model.SortOrder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookLazyDataModelTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Mock(serializable = true)
+    private BookService service;
+
+    @Mock
+    private ExecutorUtil executors;
+
+    @Mock
+    private CatalogSnapshotService snapshot;
+
+    @Mock
+    private ConfigUtil config;
+
+    @InjectMocks
+    private PagePrefetcher prefetcher;
+
+    private BookLazyDataModel model;
+
+    @BeforeEach
+    void setUp() {
+        model = new BookLazyDataModel(service);
+    }
+
+    @Test
+    void load_FirstPage_ShouldUseOffset() {
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+
+        List<BookDTO> result = model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        assertEquals(PAGE_SIZE, result.size());
+        verify(service, never()).getBooksAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void load_NextPage_ShouldSeekAfterLastRow() {
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+        when(service.getBooksAfter(BookQuery.DEFAULT, new BookCursor(10L, 10L), PAGE_SIZE)).thenReturn(page(11));
+
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        List<BookDTO> result = model.load(PAGE_SIZE, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        assertEquals(11L, result.get(0).getId());
+        verify(service, never()).getBooks(BookQuery.DEFAULT, PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Test
+    void load_PreviousPage_ShouldSeekBeforeFirstRow() {
+        when(service.getBooks(BookQuery.DEFAULT, 20, PAGE_SIZE)).thenReturn(page(21));
+        when(service.getBooksBefore(BookQuery.DEFAULT, new BookCursor(21L, 21L), PAGE_SIZE)).thenReturn(page(11));
+
+        model.load(20, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        List<BookDTO> result = model.load(PAGE_SIZE, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        assertEquals(11L, result.get(0).getId());
+        verify(service, never()).getBooks(BookQuery.DEFAULT, PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Test
+    void load_PreviousPageShort_ShouldFallBackToOffset() {
+        when(service.getBooks(BookQuery.DEFAULT, 20, PAGE_SIZE)).thenReturn(page(21));
+        when(service.getBooksBefore(BookQuery.DEFAULT, new BookCursor(21L, 21L), PAGE_SIZE)).thenReturn(page(15).subList(0, 6));
+        when(service.getBooks(BookQuery.DEFAULT, PAGE_SIZE, PAGE_SIZE)).thenReturn(page(11));
+
+        model.load(20, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        List<BookDTO> result = model.load(PAGE_SIZE, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        assertEquals(11L, result.get(0).getId());
+    }
+
+    @Test
+    void load_PageJump_ShouldUseOffset() {
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+        when(service.getBooks(BookQuery.DEFAULT, 50, PAGE_SIZE)).thenReturn(page(51));
+
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        List<BookDTO> result = model.load(50, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        assertEquals(51L, result.get(0).getId());
+        verify(service, never()).getBooksAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void load_SortChange_ShouldUseOffset() {
+        BookQuery byTitle = new BookQuery(BookFilter.NONE, new BookSort(BookSortField.TITLE, false));
+        Map<String, SortMeta> sortBy = Map.of("title", SortMeta.builder().field("title").order(SortOrder.DESCENDING).build());
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+        when(service.getBooks(byTitle, PAGE_SIZE, PAGE_SIZE)).thenReturn(page(11));
+
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        List<BookDTO> result = model.load(PAGE_SIZE, PAGE_SIZE, sortBy, Collections.emptyMap());
+
+        assertEquals(11L, result.get(0).getId());
+        verify(service, never()).getBooksAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void count_ShouldPassFiltersToService() {
+        Map<String, FilterMeta> filterBy = Map.of(
+                "title", FilterMeta.builder().field("title").filterValue("Dune").matchMode(MatchMode.STARTS_WITH).build(),
+                "price", FilterMeta.builder().field("price").filterValue(12.5).matchMode(MatchMode.GREATER_THAN_EQUALS).build());
+        BookFilter expected = BookFilter.builder().titlePrefix("Dune").minPrice(new BigDecimal("12.5")).build();
+        when(service.countBooks(expected)).thenReturn(3);
+
+        assertEquals(3, model.count(filterBy));
+    }
+
+    @Test
+    void load_WithoutCount_ShouldLookOneRowAhead() {
+        Map<String, FilterMeta> noFilters = Collections.emptyMap();
+        when(service.countBooks(BookFilter.NONE)).thenReturn(BookService.UNKNOWN_COUNT);
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE + 1)).thenReturn(page(1, PAGE_SIZE + 1));
+        when(service.getBooksAfter(BookQuery.DEFAULT, new BookCursor(10L, 10L), PAGE_SIZE + 1)).thenReturn(page(11, 4));
+
+        model.setRowCount(model.count(noFilters));
+        List<BookDTO> result = model.load(0, PAGE_SIZE, Collections.emptyMap(), noFilters);
+        assertEquals(PAGE_SIZE, result.size());
+        assertEquals(PAGE_SIZE + 1, model.getRowCount());
+
+        model.setRowCount(model.count(noFilters));
+        result = model.load(PAGE_SIZE, PAGE_SIZE, Collections.emptyMap(), noFilters);
+        assertEquals(4, result.size());
+        assertEquals(PAGE_SIZE + 4, model.getRowCount());
+    }
+
+    @Test
+    void toFilter_PriceBetween_ShouldSetBothBounds() {
+        Map<String, FilterMeta> filterBy = Map.of(
+                "price", FilterMeta.builder().field("price").filterValue(List.of(5, 20)).matchMode(MatchMode.BETWEEN).build());
+
+        BookFilter filter = BookLazyDataModel.toFilter(filterBy);
+
+        assertEquals(new BigDecimal("5"), filter.minPrice());
+        assertEquals(new BigDecimal("20"), filter.maxPrice());
+    }
+
+    @Test
+    void load_GlobalFilterNextPage_ShouldSearchByOffset() {
+        Map<String, FilterMeta> filterBy = Map.of(FilterMeta.GLOBAL_FILTER_KEY, FilterMeta.of("tolkien", null));
+        BookQuery search = new BookQuery(BookFilter.builder().search("tolkien").build(), null);
+        when(service.getBooks(search, 0, PAGE_SIZE)).thenReturn(page(1));
+        when(service.getBooks(search, PAGE_SIZE, PAGE_SIZE)).thenReturn(page(11));
+
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), filterBy);
+        List<BookDTO> result = model.load(PAGE_SIZE, PAGE_SIZE, Collections.emptyMap(), filterBy);
+
+        assertEquals(11L, result.get(0).getId());
+        verify(service, never()).getBooksAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void load_NextPageAfterPrefetch_ShouldBeServedWithoutQuery() {
+        model = prefetchingModel(false);
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+        when(service.getBooksAfter(BookQuery.DEFAULT, new BookCursor(10L, 10L), PAGE_SIZE)).thenReturn(page(11));
+
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        verify(service).getBooksAfter(BookQuery.DEFAULT, new BookCursor(10L, 10L), PAGE_SIZE);
+        List<BookDTO> result = model.load(PAGE_SIZE, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        assertEquals(11L, result.get(0).getId());
+        verify(service, times(1)).getBooksAfter(BookQuery.DEFAULT, new BookCursor(10L, 10L), PAGE_SIZE);
+        assertEquals(1, prefetcher.getHits());
+        assertEquals(1, prefetcher.getMisses());
+    }
+
+    @Test
+    void load_AfterBookChange_ShouldDiscardPrefetchedPage() {
+        model = prefetchingModel(false);
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+        when(service.getBooksAfter(BookQuery.DEFAULT, new BookCursor(10L, 10L), PAGE_SIZE)).thenReturn(page(11));
+
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        prefetcher.onBookChanged(BookChangedEvent.updated(12L));
+        model.load(PAGE_SIZE, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        verify(service, times(2)).getBooksAfter(BookQuery.DEFAULT, new BookCursor(10L, 10L), PAGE_SIZE);
+        assertEquals(0, prefetcher.getHits());
+        assertEquals(1, prefetcher.getWasted());
+    }
+
+    @Test
+    void load_PageJump_ShouldCountPrefetchedPagesAsWasted() {
+        model = prefetchingModel(true);
+        when(service.getBooks(BookQuery.DEFAULT, 20, PAGE_SIZE)).thenReturn(page(21));
+
+        model.load(20, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+        verify(service).getBooksAfter(BookQuery.DEFAULT, new BookCursor(30L, 30L), PAGE_SIZE);
+        verify(service).getBooksBefore(BookQuery.DEFAULT, new BookCursor(21L, 21L), PAGE_SIZE);
+        model.load(60, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        assertEquals(2, prefetcher.getWasted());
+        assertEquals(4, prefetcher.getLoads());
+    }
+
+    @Test
+    void load_LastPage_ShouldNotPrefetch() {
+        model = prefetchingModel(false);
+        model.setRowCount(PAGE_SIZE);
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap());
+
+        verifyNoInteractions(executors);
+    }
+
+    @Test
+    void load_SnapshotLoaded_ShouldCountAndPageInMemory() {
+        model = snapshotModel();
+        BookQuery byPrice = new BookQuery(BookFilter.NONE, new BookSort(BookSortField.PRICE, false));
+        when(snapshot.supports(BookFilter.NONE)).thenReturn(true);
+        when(snapshot.countBooks(BookFilter.NONE)).thenReturn(100);
+        when(snapshot.getBooks(byPrice, 10, PAGE_SIZE)).thenReturn(page(11));
+
+        int count = model.count(Collections.emptyMap());
+        List<BookDTO> result = model.load(10, PAGE_SIZE,
+                Map.of("price", SortMeta.builder().field("price").order(SortOrder.DESCENDING).build()), Collections.emptyMap());
+
+        assertEquals(100, count);
+        assertEquals(11L, result.get(0).getId());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void load_SnapshotDeclines_ShouldQueryTheService() {
+        model = snapshotModel();
+        BookFilter search = BookFilter.builder().search("tolkien").build();
+        Map<String, FilterMeta> filterBy = Map.of(FilterMeta.GLOBAL_FILTER_KEY, FilterMeta.of("tolkien", null));
+        when(snapshot.supports(search)).thenReturn(false);
+        when(service.countBooks(search)).thenReturn(3);
+        when(service.getBooks(new BookQuery(search, BookSort.DEFAULT), 0, PAGE_SIZE)).thenReturn(page(1, 3));
+
+        assertEquals(3, model.count(filterBy));
+        model.load(0, PAGE_SIZE, Collections.emptyMap(), filterBy);
+
+        verify(snapshot, never()).getBooks(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void replace_ShouldSwapTheRowAndReturnItsTableIndex() {
+        when(service.getBooks(BookQuery.DEFAULT, 20, PAGE_SIZE)).thenReturn(page(21));
+        model.setWrappedData(model.load(20, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap()));
+        BookDTO edited = new BookDTO(23L, 1L, "Edited", "Author", new BigDecimal("12.0"), null);
+
+        assertEquals(OptionalInt.of(22), model.replace(edited));
+        assertSame(edited, model.getRowData("23"));
+        assertEquals(OptionalInt.empty(), model.replace(new BookDTO(99L, 0L, "Elsewhere", "Author", new BigDecimal("1.0"), null)));
+    }
+
+    @Test
+    void getRowData_NotOnPage_ShouldLookTheBookUp() {
+        BookDTO book = new BookDTO(5L, 0L, "Title 5", "Author", new BigDecimal("10.0"), null);
+        when(service.getBook(5L)).thenReturn(Optional.of(book));
+
+        assertSame(book, model.getRowData("5"));
+    }
+
+    @Test
+    void serialize_ShouldLeaveThePageOut() throws Exception {
+        BookLazyDataModel large = new BookLazyDataModel(service);
+        when(service.getBooks(BookQuery.DEFAULT, 0, PAGE_SIZE)).thenReturn(page(1));
+        when(service.getBooks(BookQuery.DEFAULT, 0, 100)).thenReturn(page(1, 100));
+        model.setWrappedData(model.load(0, PAGE_SIZE, Collections.emptyMap(), Collections.emptyMap()));
+        large.setWrappedData(large.load(0, 100, Collections.emptyMap(), Collections.emptyMap()));
+        // The mock would otherwise serialize the pages it returned along with itself.
+        reset(service);
+
+        byte[] serialized = serialize(model);
+        int largeSize = serialize(large).length;
+        BookLazyDataModel restored = (BookLazyDataModel) new ObjectInputStream(new ByteArrayInputStream(serialized))
+                .readObject();
+
+        assertFalse(new String(serialized, StandardCharsets.ISO_8859_1).contains("Title 5"));
+        // 90 more rows on the page cost nothing in the view state.
+        assertTrue(largeSize - serialized.length < 16,
+                () -> "view state of " + serialized.length + " bytes, " + largeSize + " with a page of 100");
+        assertNull(restored.getWrappedData());
+        assertFalse(restored.isRowAvailable());
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Prefetches run synchronously on the calling thread; 100 rows in the table.
+    private BookLazyDataModel prefetchingModel(boolean previousPages) {
+        when(config.getBoolean(eq("library.prefetch.enabled"), anyBoolean())).thenReturn(true);
+        when(config.getBoolean(eq("library.prefetch.previous"), anyBoolean())).thenReturn(previousPages);
+        when(config.getInt(eq("library.prefetch.maxRows"), anyInt())).thenReturn(200);
+        lenient().when(executors.background(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Callable<?>>getArgument(0).call()));
+        prefetcher.init();
+        BookLazyDataModel prefetching = new BookLazyDataModel(service, prefetcher);
+        prefetching.setRowCount(100);
+        return prefetching;
+    }
+
+    // Prefetching off, as with the mocked configuration's defaults.
+    private BookLazyDataModel snapshotModel() {
+        prefetcher.init();
+        return new BookLazyDataModel(service, prefetcher, snapshot);
+    }
+
+    private static List<BookDTO> page(long firstId) {
+        return page(firstId, PAGE_SIZE);
+    }
+
+    private static List<BookDTO> page(long firstId, int size) {
+        return LongStream.range(firstId, firstId + size)
+                .mapToObj(id -> new BookDTO(id, 0L, "Title " + id, "Author", new BigDecimal("10.0"), null))
+                .collect(Collectors.toList());
+    }
+}